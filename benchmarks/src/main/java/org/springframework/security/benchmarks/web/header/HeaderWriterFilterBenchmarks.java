@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.benchmarks.web.header;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.ContentSecurityPolicyHeaderWriter;
+import org.springframework.security.web.header.writers.HstsHeaderWriter;
+import org.springframework.security.web.header.writers.PermissionsPolicyHeaderWriter;
+import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
+import org.springframework.security.web.header.writers.XXssProtectionHeaderWriter;
+import org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter;
+
+/**
+ * Measures the overhead of a {@link HeaderWriterFilter} writing the default security
+ * headers along with a content security, referrer and permissions policy, with and
+ * without {@link HeaderWriterFilter#setPrecomputeHeaders(boolean) precomputed headers}.
+ *
+ * <p>
+ * The {@link #baseline()} benchmark measures the creation of the request and the response
+ * alone.
+ *
+ * @since 6.5
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HeaderWriterFilterBenchmarks {
+
+	private static final FilterChain CHAIN = (request, response) -> {
+	};
+
+	@Param({ "false", "true" })
+	public boolean precomputeHeaders;
+
+	private HeaderWriterFilter filter;
+
+	@Setup
+	public void setup() {
+		List<HeaderWriter> headerWriters = List.of(new XContentTypeOptionsHeaderWriter(),
+				new XXssProtectionHeaderWriter(), new CacheControlHeadersWriter(), new HstsHeaderWriter(),
+				new XFrameOptionsHeaderWriter(), new ContentSecurityPolicyHeaderWriter("default-src 'self'"),
+				new ReferrerPolicyHeaderWriter(), new PermissionsPolicyHeaderWriter("geolocation=(self)"));
+		this.filter = new HeaderWriterFilter(headerWriters);
+		this.filter.setPrecomputeHeaders(this.precomputeHeaders);
+	}
+
+	@Benchmark
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public MockHttpServletResponse baseline() {
+		createRequest();
+		return new MockHttpServletResponse();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse doFilter() throws ServletException, IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.filter.doFilter(createRequest(), response, CHAIN);
+		return response;
+	}
+
+	private static MockHttpServletRequest createRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resource");
+		request.setSecure(true);
+		return request;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.benchmarks.web.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.firewall.StrictServerWebExchangeFirewall;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Measures the overhead of the {@link StrictServerWebExchangeFirewall} validating an
+ * exchange and of the filters reading its path, headers and query parameters afterwards.
+ *
+ * <p>
+ * The {@code path} parameter selects the path of the request: {@code short} has a single
+ * segment, while {@code long} has 20 segments and a query. The request carries the
+ * headers of a typical browser request. The {@link #baseline()} benchmark measures the
+ * creation of the exchange alone.
+ *
+ * @since 6.5
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StrictServerWebExchangeFirewallBenchmarks {
+
+	@Param({ "short", "long" })
+	public String path;
+
+	private final StrictServerWebExchangeFirewall firewall = new StrictServerWebExchangeFirewall();
+
+	private MockServerHttpRequest request;
+
+	@Setup
+	public void setup() {
+		String uri = switch (this.path) {
+			case "short" -> "/resource";
+			case "long" -> "/api" + "/segment-with-a-longer-name".repeat(19) + "?page=2&size=20&sort=name,asc";
+			default -> throw new IllegalArgumentException("Unknown path " + this.path);
+		};
+		// @formatter:off
+		this.request = MockServerHttpRequest.get(uri)
+			.header(HttpHeaders.HOST, "localhost")
+			.header(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+			.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+			.header(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.5")
+			.header(HttpHeaders.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0")
+			.header(HttpHeaders.COOKIE, "SESSION=NmQ5YjQ0ZTYtMzFiZi00ZWM4LWJhZjctYjNmMzU5YzM1ZWQ2")
+			.build();
+		// @formatter:on
+	}
+
+	@Benchmark
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public MockServerWebExchange baseline() {
+		return MockServerWebExchange.from(this.request);
+	}
+
+	@Benchmark
+	public ServerWebExchange getFirewalledExchange() {
+		return this.firewall.getFirewalledExchange(MockServerWebExchange.from(this.request)).block();
+	}
+
+	@Benchmark
+	public int readFirewalledExchange() {
+		ServerWebExchange exchange = this.firewall.getFirewalledExchange(MockServerWebExchange.from(this.request))
+			.block();
+		int read = 0;
+		// the filters of a chain access the request several times
+		for (int i = 0; i < 5; i++) {
+			ServerHttpRequest request = exchange.getRequest();
+			read += request.getPath().value().length();
+			read += request.getHeaders().getFirst(HttpHeaders.ACCEPT).length();
+			read += request.getHeaders().size();
+			read += request.getQueryParams().size();
+		}
+		return read;
+	}
+
+}
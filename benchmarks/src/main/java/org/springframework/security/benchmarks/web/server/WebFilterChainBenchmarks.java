@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.benchmarks.web.server;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.WebFilterChainProxy;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+
+/**
+ * Measures the overhead of a {@link WebFilterChainProxy} built with
+ * {@link ServerHttpSecurity} for a request that is granted access, so that regressions in
+ * throughput, latency or allocations of the WebFlux filters can be detected.
+ *
+ * <p>
+ * The {@code configuration} parameter selects the security configuration:
+ * <ul>
+ * <li>{@code bearerJwt} - a resource server authenticating an HMAC signed JWT on each
+ * request</li>
+ * <li>{@code formLogin} - the defaults of form login, with the
+ * {@link org.springframework.security.core.context.SecurityContext} stored in the
+ * {@link WebSession}</li>
+ * <li>{@code pathRules} - the same as {@code formLogin} with 200 path based authorization
+ * rules, the request matching the last one</li>
+ * </ul>
+ * The {@link #baseline()} benchmark measures the creation of the exchange alone.
+ *
+ * <p>
+ * The {@code jmh} task of this project reports the throughput, the latency percentiles
+ * and, with the {@code gc} profiler, the bytes allocated per exchange
+ * ({@code gc.alloc.rate.norm}).
+ *
+ * @since 6.5
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WebFilterChainBenchmarks {
+
+	private static final WebFilterChain HANDLER = (exchange) -> Mono.empty();
+
+	private static final int PATH_RULES = 200;
+
+	@Param({ "bearerJwt", "formLogin", "pathRules" })
+	public String configuration;
+
+	private WebFilterChainProxy proxy;
+
+	private MockServerHttpRequest request;
+
+	private WebSession session;
+
+	@Setup
+	public void setup() {
+		this.session = new InMemoryWebSessionStore().createWebSession().block();
+		this.session.getAttributes()
+			.put(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME,
+					new SecurityContextImpl(new TestingAuthenticationToken("user", null, "ROLE_USER")));
+		this.session.start();
+		SecurityWebFilterChain chain = switch (this.configuration) {
+			case "bearerJwt" -> bearerJwt();
+			case "formLogin" -> formLogin();
+			case "pathRules" -> pathRules();
+			default -> throw new IllegalArgumentException("Unknown configuration " + this.configuration);
+		};
+		this.proxy = new WebFilterChainProxy(chain);
+		MockServerWebExchange exchange = createExchange();
+		this.proxy.filter(exchange, HANDLER).block();
+		HttpStatusCode status = exchange.getResponse().getStatusCode();
+		if (status != null && status.isError()) {
+			throw new IllegalStateException("The request of " + this.configuration + " was rejected with " + status);
+		}
+	}
+
+	@Benchmark
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public MockServerWebExchange baseline() {
+		return createExchange();
+	}
+
+	@Benchmark
+	public HttpStatusCode filterChain() {
+		MockServerWebExchange exchange = createExchange();
+		this.proxy.filter(exchange, HANDLER).block();
+		return exchange.getResponse().getStatusCode();
+	}
+
+	private MockServerWebExchange createExchange() {
+		MockServerWebExchange.Builder exchange = MockServerWebExchange.builder(this.request);
+		if (!"bearerJwt".equals(this.configuration)) {
+			exchange.session(this.session);
+		}
+		return exchange.build();
+	}
+
+	private SecurityWebFilterChain bearerJwt() {
+		SecretKey key = new SecretKeySpec("benchmark-secret-key-of-at-least-256-bits".getBytes(StandardCharsets.UTF_8),
+				"HmacSHA256");
+		Instant now = Instant.now();
+		JwtClaimsSet claims = JwtClaimsSet.builder()
+			.subject("user")
+			.issuedAt(now)
+			.expiresAt(now.plus(1, ChronoUnit.DAYS))
+			.claim("scope", "read")
+			.build();
+		String token = new NimbusJwtEncoder(new ImmutableSecret<>(key))
+			.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+			.getTokenValue();
+		this.request = MockServerHttpRequest.get("/api/resource")
+			.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+			.build();
+		// @formatter:off
+		return ServerHttpSecurity.http()
+			.authorizeExchange((authorize) -> authorize
+				.pathMatchers("/api/**").hasAuthority("SCOPE_read")
+				.anyExchange().authenticated()
+			)
+			.oauth2ResourceServer((resourceServer) -> resourceServer
+				.jwt((jwt) -> jwt.jwtDecoder(NimbusReactiveJwtDecoder.withSecretKey(key).build()))
+			)
+			.build();
+		// @formatter:on
+	}
+
+	private SecurityWebFilterChain formLogin() {
+		this.request = MockServerHttpRequest.get("/resource").build();
+		// @formatter:off
+		return ServerHttpSecurity.http()
+			.authorizeExchange((authorize) -> authorize
+				.anyExchange().authenticated()
+			)
+			.formLogin((formLogin) -> formLogin
+				.authenticationManager(authenticationManager())
+			)
+			.build();
+		// @formatter:on
+	}
+
+	private SecurityWebFilterChain pathRules() {
+		this.request = MockServerHttpRequest.get("/api/" + (PATH_RULES - 1) + "/resource").build();
+		// @formatter:off
+		return ServerHttpSecurity.http()
+			.authorizeExchange((authorize) -> {
+				for (int i = 0; i < PATH_RULES; i++) {
+					authorize.pathMatchers("/api/" + i + "/**").hasRole("USER");
+				}
+				authorize.anyExchange().denyAll();
+			})
+			.formLogin((formLogin) -> formLogin
+				.authenticationManager(authenticationManager())
+			)
+			.build();
+		// @formatter:on
+	}
+
+	private static ReactiveAuthenticationManager authenticationManager() {
+		MapReactiveUserDetailsService users = new MapReactiveUserDetailsService(
+				User.withUsername("user").password("{noop}password").roles("USER").build());
+		return new UserDetailsRepositoryReactiveAuthenticationManager(users);
+	}
+
+}
@@ -166,6 +166,7 @@ import org.springframework.security.web.server.authorization.ExceptionTranslatio
 import org.springframework.security.web.server.authorization.IpAddressReactiveAuthorizationManager;
 import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
 import org.springframework.security.web.server.authorization.ServerWebExchangeDelegatingServerAccessDeniedHandler;
+import org.springframework.security.web.server.context.ExchangeAttributeSecurityContextWebFilter;
 import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
 import org.springframework.security.web.server.context.ReactorContextWebFilter;
 import org.springframework.security.web.server.context.SecurityContextServerWebExchangeWebFilter;
@@ -178,7 +179,7 @@ import org.springframework.security.web.server.csrf.ServerCsrfTokenRepository;
 import org.springframework.security.web.server.csrf.ServerCsrfTokenRequestHandler;
 import org.springframework.security.web.server.csrf.WebSessionServerCsrfTokenRepository;
 import org.springframework.security.web.server.header.CacheControlServerHttpHeadersWriter;
-import org.springframework.security.web.server.header.CompositeServerHttpHeadersWriter;
+import org.springframework.security.web.server.header.CompiledServerHttpHeadersWriter;
 import org.springframework.security.web.server.header.ContentSecurityPolicyServerHttpHeadersWriter;
 import org.springframework.security.web.server.header.ContentTypeOptionsServerHttpHeadersWriter;
 import org.springframework.security.web.server.header.CrossOriginEmbedderPolicyServerHttpHeadersWriter;
@@ -340,6 +341,8 @@ public class ServerHttpSecurity {
 
 	private ServerSecurityContextRepository securityContextRepository;
 
+	private boolean cacheSecurityContext;
+
 	private ServerAuthenticationEntryPoint authenticationEntryPoint;
 
 	private List<DelegateEntry> defaultEntryPoints = new ArrayList<>();
@@ -433,6 +436,23 @@ public class ServerHttpSecurity {
 		return this;
 	}
 
+	/**
+	 * Whether the {@code SecurityContext} loaded from the
+	 * {@link #securityContextRepository(ServerSecurityContextRepository) repository} is
+	 * cached for the rest of the exchange. When enabled, an
+	 * {@link ExchangeAttributeSecurityContextWebFilter} is used in place of the
+	 * {@code ReactorContextWebFilter}, so that the repository is queried at most once per
+	 * exchange, however many times the {@code SecurityContext} is read. The default is
+	 * {@code false}.
+	 * @param cacheSecurityContext whether to cache the {@code SecurityContext}
+	 * @return the {@link ServerHttpSecurity} to continue configuring
+	 * @since 6.5
+	 */
+	public ServerHttpSecurity cacheSecurityContext(boolean cacheSecurityContext) {
+		this.cacheSecurityContext = cacheSecurityContext;
+		return this;
+	}
+
 	/**
 	 * Configures HTTPS redirection rules. If the default is used:
 	 *
@@ -1782,7 +1802,8 @@ public class ServerHttpSecurity {
 	private WebFilter securityContextRepositoryWebFilter() {
 		ServerSecurityContextRepository repository = (this.securityContextRepository != null)
 				? this.securityContextRepository : new WebSessionServerSecurityContextRepository();
-		WebFilter result = new ReactorContextWebFilter(repository);
+		WebFilter result = this.cacheSecurityContext ? new ExchangeAttributeSecurityContextWebFilter(repository)
+				: new ReactorContextWebFilter(repository);
 		return new OrderedWebFilter(result, SecurityWebFiltersOrder.REACTOR_CONTEXT.getOrder());
 	}
 
@@ -3238,7 +3259,7 @@ public class ServerHttpSecurity {
 		}
 
 		protected void configure(ServerHttpSecurity http) {
-			ServerHttpHeadersWriter writer = new CompositeServerHttpHeadersWriter(this.writers);
+			ServerHttpHeadersWriter writer = new CompiledServerHttpHeadersWriter(this.writers);
 			HttpHeaderWriterWebFilter result = new HttpHeaderWriterWebFilter(writer);
 			http.addFilterAt(result, SecurityWebFiltersOrder.HTTP_HEADERS_WRITER);
 		}
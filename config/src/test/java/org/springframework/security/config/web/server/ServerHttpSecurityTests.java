@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.http.HttpHeaders;
@@ -42,6 +43,7 @@ import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.config.annotation.web.reactive.ServerHttpSecurityConfigurationBuilder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
 import org.springframework.security.oauth2.client.web.server.OAuth2AuthorizationRequestRedirectWebFilter;
@@ -67,6 +69,8 @@ import org.springframework.security.web.server.authentication.logout.DelegatingS
 import org.springframework.security.web.server.authentication.logout.LogoutWebFilter;
 import org.springframework.security.web.server.authentication.logout.SecurityContextServerLogoutHandler;
 import org.springframework.security.web.server.authentication.logout.ServerLogoutHandler;
+import org.springframework.security.web.server.context.ExchangeAttributeSecurityContextWebFilter;
+import org.springframework.security.web.server.context.ReactorContextWebFilter;
 import org.springframework.security.web.server.context.SecurityContextServerWebExchangeWebFilter;
 import org.springframework.security.web.server.context.ServerSecurityContextRepository;
 import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
@@ -142,6 +146,24 @@ public class ServerHttpSecurityTests {
 		securityContext.assertWasNotSubscribed();
 	}
 
+	@Test
+	public void cacheSecurityContextWhenEnabledThenRepositoryLoadedOnce() {
+		AtomicInteger loads = new AtomicInteger();
+		SecurityContext securityContext = new SecurityContextImpl(
+				new TestingAuthenticationToken("rob", "rob", "ROLE_USER"));
+		given(this.contextRepository.load(any()))
+			.willReturn(Mono.just(securityContext).doOnSubscribe((subscription) -> loads.incrementAndGet()));
+		this.http.securityContextRepository(this.contextRepository).cacheSecurityContext(true);
+		this.http.authorizeExchange((authorize) -> authorize.anyExchange().authenticated());
+		SecurityWebFilterChain securityWebFilterChain = this.http.build();
+		assertThat(getWebFilter(securityWebFilterChain, ExchangeAttributeSecurityContextWebFilter.class)).isPresent();
+		assertThat(getWebFilter(securityWebFilterChain, ReactorContextWebFilter.class)).isNotPresent();
+		WebTestClient client = WebTestClientBuilder.bindToWebFilters(new WebFilterChainProxy(securityWebFilterChain))
+			.build();
+		client.get().uri("/").exchange().expectStatus().isOk();
+		assertThat(loads).hasValue(1);
+	}
+
 	@Test
 	public void basic() {
 		given(this.authenticationManager.authenticate(any()))
@@ -20,6 +20,7 @@ import java.util.function.Function;
 
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
+import reactor.util.context.ContextView;
 
 import org.springframework.security.core.Authentication;
 
@@ -33,6 +34,10 @@ public final class ReactiveSecurityContextHolder {
 
 	private static final Class<?> SECURITY_CONTEXT_KEY = SecurityContext.class;
 
+	// the lookup is stateless, so the same instance can be returned to every caller
+	private static final Mono<SecurityContext> SECURITY_CONTEXT = Mono
+		.deferContextual(ReactiveSecurityContextHolder::getSecurityContext);
+
 	private ReactiveSecurityContextHolder() {
 	}
 
@@ -41,20 +46,11 @@ public final class ReactiveSecurityContextHolder {
 	 * @return the {@code Mono<SecurityContext>}
 	 */
 	public static Mono<SecurityContext> getContext() {
-		// @formatter:off
-		return Mono.deferContextual(Mono::just)
-				.cast(Context.class)
-				.filter(ReactiveSecurityContextHolder::hasSecurityContext)
-				.flatMap(ReactiveSecurityContextHolder::getSecurityContext);
-		// @formatter:on
-	}
-
-	private static boolean hasSecurityContext(Context context) {
-		return context.hasKey(SECURITY_CONTEXT_KEY);
+		return SECURITY_CONTEXT;
 	}
 
-	private static Mono<SecurityContext> getSecurityContext(Context context) {
-		return context.<Mono<SecurityContext>>get(SECURITY_CONTEXT_KEY);
+	private static Mono<SecurityContext> getSecurityContext(ContextView context) {
+		return context.getOrDefault(SECURITY_CONTEXT_KEY, Mono.empty());
 	}
 
 	/**
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.context;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ThreadLocalAccessor;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ThreadLocalAccessor} that propagates the {@link SecurityContext} held by a
+ * {@link SecurityContextHolderStrategy} with Micrometer's context propagation library.
+ *
+ * <p>
+ * Once registered with {@link ContextRegistry#registerThreadLocalAccessor}, a
+ * {@link SecurityContext} stored in a Reactor {@code Context} under {@link #KEY} is made
+ * available to {@link SecurityContextHolder} when automatic context propagation is
+ * enabled with {@code Hooks.enableAutomaticContextPropagation()}, and conversely a
+ * {@link SecurityContext} held by {@link SecurityContextHolder} is captured by
+ * {@code ContextSnapshot}. Note that {@link ReactiveSecurityContextHolder} stores a
+ * {@code Mono<SecurityContext>}, which cannot be propagated, under a different key.
+ *
+ * @since 6.5
+ */
+public final class SecurityContextThreadLocalAccessor implements ThreadLocalAccessor<SecurityContext> {
+
+	/**
+	 * The key of the {@link SecurityContext} in the context
+	 */
+	public static final String KEY = "spring.security.context";
+
+	private final SecurityContextHolderStrategy securityContextHolderStrategy;
+
+	/**
+	 * Creates an instance that uses the {@link SecurityContextHolderStrategy} held by
+	 * {@link SecurityContextHolder} when the instance is created.
+	 */
+	public SecurityContextThreadLocalAccessor() {
+		this(SecurityContextHolder.getContextHolderStrategy());
+	}
+
+	/**
+	 * Creates an instance that uses the provided {@link SecurityContextHolderStrategy}.
+	 * @param securityContextHolderStrategy the {@link SecurityContextHolderStrategy} to
+	 * use
+	 */
+	public SecurityContextThreadLocalAccessor(SecurityContextHolderStrategy securityContextHolderStrategy) {
+		Assert.notNull(securityContextHolderStrategy, "securityContextHolderStrategy cannot be null");
+		this.securityContextHolderStrategy = securityContextHolderStrategy;
+	}
+
+	@Override
+	public Object key() {
+		return KEY;
+	}
+
+	@Override
+	public SecurityContext getValue() {
+		SecurityContext context = this.securityContextHolderStrategy.getContext();
+		// an empty context is not worth propagating
+		return (context.getAuthentication() != null) ? context : null;
+	}
+
+	@Override
+	public void setValue(SecurityContext value) {
+		this.securityContextHolderStrategy.setContext(value);
+	}
+
+	@Override
+	public void setValue() {
+		this.securityContextHolderStrategy.clearContext();
+	}
+
+}
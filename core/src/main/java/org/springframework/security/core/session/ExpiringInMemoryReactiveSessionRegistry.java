@@ -0,0 +1,366 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.log.LogMessage;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * An in-memory implementation of {@link ReactiveSessionRegistry} that forgets the
+ * sessions that are no longer used, so that it can be used by long-running applications
+ * whose sessions commonly expire without being removed from the registry.
+ *
+ * <p>
+ * A session that was not accessed during the {@link #setMaxInactiveInterval(Duration)
+ * maximum inactive interval} is ignored and removed by a periodic sweep. When the
+ * registry holds more than the {@link #setMaximumSessions(int) maximum number of
+ * sessions}, the least recently accessed sessions are removed. To avoid writing the last
+ * access time of a session on every request, {@link #updateLastAccessTime(String)} only
+ * refreshes it with {@link ReactiveSessionInformation#refreshLastRequest()} once the
+ * {@link #setAccessTimeGranularity(Duration) access time granularity} has elapsed.
+ *
+ * <p>
+ * The sweep is scheduled when the first session is saved, with the
+ * {@link #setTaskScheduler(TaskScheduler) provided TaskScheduler} or else with a single
+ * daemon thread that is stopped when this registry is {@link #destroy() destroyed}.
+ *
+ * @since 6.5
+ * @see InMemoryReactiveSessionRegistry
+ */
+public final class ExpiringInMemoryReactiveSessionRegistry implements ReactiveSessionRegistry, DisposableBean {
+
+	private static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final ConcurrentMap<Object, Set<String>> sessionIdsByPrincipal = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, SessionEntry> sessionById = new ConcurrentHashMap<>();
+
+	private final Object evictionLock = new Object();
+
+	private long maxInactiveIntervalMillis = Duration.ofMinutes(30).toMillis();
+
+	private long accessTimeGranularityMillis = Duration.ofSeconds(10).toMillis();
+
+	private int maximumSessions = 100_000;
+
+	private Clock clock = Clock.systemUTC();
+
+	private final Object sweepLock = new Object();
+
+	private Duration sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+	private TaskScheduler taskScheduler;
+
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	private volatile ScheduledFuture<?> sweepTask;
+
+	private boolean destroyed;
+
+	@Override
+	public Flux<ReactiveSessionInformation> getAllSessions(Object principal) {
+		Set<String> sessionIds = this.sessionIdsByPrincipal.get(principal);
+		if (sessionIds == null) {
+			return Flux.empty();
+		}
+		long now = this.clock.millis();
+		List<ReactiveSessionInformation> sessions = new ArrayList<>(sessionIds.size());
+		for (String sessionId : sessionIds) {
+			SessionEntry entry = this.sessionById.get(sessionId);
+			if (entry != null && !isExpired(entry, now)) {
+				sessions.add(entry.information);
+			}
+		}
+		return Flux.fromIterable(sessions);
+	}
+
+	@Override
+	public Mono<Void> saveSessionInformation(ReactiveSessionInformation information) {
+		if (this.sweepTask == null) {
+			scheduleSweep();
+		}
+		SessionEntry entry = new SessionEntry(information);
+		SessionEntry previous = this.sessionById.put(information.getSessionId(), entry);
+		if (previous != null && !previous.information.getPrincipal().equals(information.getPrincipal())) {
+			removeSessionId(previous.information.getPrincipal(), information.getSessionId());
+		}
+		this.sessionIdsByPrincipal.compute(information.getPrincipal(), (principal, sessionIds) -> {
+			Set<String> result = (sessionIds != null) ? sessionIds : ConcurrentHashMap.newKeySet();
+			result.add(information.getSessionId());
+			return result;
+		});
+		if (this.sessionById.size() > this.maximumSessions) {
+			evictSessions();
+		}
+		return Mono.empty();
+	}
+
+	@Override
+	public Mono<ReactiveSessionInformation> getSessionInformation(String sessionId) {
+		SessionEntry entry = this.sessionById.get(sessionId);
+		if (entry == null || isExpired(entry, this.clock.millis())) {
+			return Mono.empty();
+		}
+		return entry.mono;
+	}
+
+	@Override
+	public Mono<ReactiveSessionInformation> removeSessionInformation(String sessionId) {
+		return Mono.defer(() -> {
+			SessionEntry entry = remove(sessionId);
+			return (entry != null) ? entry.mono : Mono.empty();
+		});
+	}
+
+	@Override
+	public Mono<ReactiveSessionInformation> updateLastAccessTime(String sessionId) {
+		return Mono.defer(() -> {
+			SessionEntry entry = this.sessionById.get(sessionId);
+			if (entry == null) {
+				return Mono.empty();
+			}
+			long now = this.clock.millis();
+			if (isExpired(entry, now)) {
+				return Mono.empty();
+			}
+			if (now - entry.lastAccessTime < this.accessTimeGranularityMillis) {
+				return entry.mono;
+			}
+			entry.lastAccessTime = now;
+			return entry.information.refreshLastRequest().then(entry.mono);
+		});
+	}
+
+	/**
+	 * Removes the sessions that were not accessed during the maximum inactive interval.
+	 * This is invoked periodically and does not need to be invoked by applications.
+	 */
+	public void removeExpiredSessions() {
+		long now = this.clock.millis();
+		int removed = 0;
+		for (SessionEntry entry : this.sessionById.values()) {
+			if (isExpired(entry, now) && remove(entry)) {
+				removed++;
+			}
+		}
+		if (removed > 0) {
+			this.logger.debug(LogMessage.format("Removed %d expired sessions", removed));
+		}
+	}
+
+	private void evictSessions() {
+		synchronized (this.evictionLock) {
+			if (this.sessionById.size() <= this.maximumSessions) {
+				return;
+			}
+			removeExpiredSessions();
+			// evict below the ceiling so that the next sessions do not trigger an
+			// eviction
+			int target = this.maximumSessions - this.maximumSessions / 10;
+			int excess = this.sessionById.size() - target;
+			if (excess <= 0) {
+				return;
+			}
+			List<SessionEntry> entries = new ArrayList<>(this.sessionById.values());
+			entries.sort(Comparator.comparingLong((entry) -> entry.lastAccessTime));
+			int removed = 0;
+			for (int i = 0; i < excess && i < entries.size(); i++) {
+				if (remove(entries.get(i))) {
+					removed++;
+				}
+			}
+			this.logger.debug(LogMessage.format(
+					"Evicted %d least recently used sessions since more than %d sessions " + "were registered", removed,
+					this.maximumSessions));
+		}
+	}
+
+	private boolean isExpired(SessionEntry entry, long now) {
+		return now - entry.lastAccessTime > this.maxInactiveIntervalMillis;
+	}
+
+	private SessionEntry remove(String sessionId) {
+		SessionEntry entry = this.sessionById.remove(sessionId);
+		if (entry != null) {
+			removeSessionId(entry.information.getPrincipal(), sessionId);
+		}
+		return entry;
+	}
+
+	private boolean remove(SessionEntry entry) {
+		String sessionId = entry.information.getSessionId();
+		if (!this.sessionById.remove(sessionId, entry)) {
+			return false;
+		}
+		removeSessionId(entry.information.getPrincipal(), sessionId);
+		return true;
+	}
+
+	private void removeSessionId(Object principal, String sessionId) {
+		this.sessionIdsByPrincipal.computeIfPresent(principal, (key, sessionIds) -> {
+			sessionIds.remove(sessionId);
+			return sessionIds.isEmpty() ? null : sessionIds;
+		});
+	}
+
+	private void scheduleSweep() {
+		synchronized (this.sweepLock) {
+			if (this.sweepTask != null || this.destroyed) {
+				return;
+			}
+			if (this.taskScheduler == null) {
+				this.defaultTaskScheduler = createTaskScheduler();
+				this.taskScheduler = this.defaultTaskScheduler;
+			}
+			this.sweepTask = this.taskScheduler.scheduleWithFixedDelay(this::removeExpiredSessions,
+					Instant.now().plus(this.sweepInterval), this.sweepInterval);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (this.sweepLock) {
+			this.destroyed = true;
+			if (this.sweepTask != null) {
+				this.sweepTask.cancel(false);
+			}
+			if (this.defaultTaskScheduler != null) {
+				this.defaultTaskScheduler.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Sets the {@link TaskScheduler} that removes the expired sessions, which is not shut
+	 * down when this registry is destroyed. The default is a scheduler with a single
+	 * daemon thread, created when the first session is saved.
+	 * @param taskScheduler the {@link TaskScheduler} that removes the expired sessions
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "taskScheduler cannot be null");
+		synchronized (this.sweepLock) {
+			Assert.state(this.sweepTask == null, "taskScheduler cannot be set once sessions were saved");
+			this.taskScheduler = taskScheduler;
+		}
+	}
+
+	/**
+	 * Sets how long a session can remain unused before it is removed. This should match
+	 * the maximum inactive interval of the sessions. The default is 30 minutes.
+	 * @param maxInactiveInterval the maximum inactive interval
+	 */
+	public void setMaxInactiveInterval(Duration maxInactiveInterval) {
+		Assert.notNull(maxInactiveInterval, "maxInactiveInterval cannot be null");
+		Assert.isTrue(!maxInactiveInterval.isNegative() && !maxInactiveInterval.isZero(),
+				"maxInactiveInterval must be positive");
+		this.maxInactiveIntervalMillis = maxInactiveInterval.toMillis();
+	}
+
+	/**
+	 * Sets the minimum time between two updates of the last access time of a session. The
+	 * default is 10 seconds.
+	 * @param accessTimeGranularity the access time granularity
+	 */
+	public void setAccessTimeGranularity(Duration accessTimeGranularity) {
+		Assert.notNull(accessTimeGranularity, "accessTimeGranularity cannot be null");
+		Assert.isTrue(!accessTimeGranularity.isNegative(), "accessTimeGranularity cannot be negative");
+		this.accessTimeGranularityMillis = accessTimeGranularity.toMillis();
+	}
+
+	/**
+	 * Sets the maximum number of sessions held by this registry. When it is exceeded, the
+	 * least recently accessed sessions are removed. The default is 100000.
+	 * @param maximumSessions the maximum number of sessions
+	 */
+	public void setMaximumSessions(int maximumSessions) {
+		Assert.isTrue(maximumSessions > 0, "maximumSessions must be greater than 0");
+		this.maximumSessions = maximumSessions;
+	}
+
+	/**
+	 * Sets the interval between two removals of the expired sessions. The default is one
+	 * minute.
+	 * @param sweepInterval the interval between two removals of the expired sessions
+	 */
+	public void setSweepInterval(Duration sweepInterval) {
+		Assert.notNull(sweepInterval, "sweepInterval cannot be null");
+		Assert.isTrue(!sweepInterval.isNegative() && !sweepInterval.isZero(), "sweepInterval must be positive");
+		synchronized (this.sweepLock) {
+			this.sweepInterval = sweepInterval;
+			if (this.sweepTask != null) {
+				this.sweepTask.cancel(false);
+				this.sweepTask = null;
+				scheduleSweep();
+			}
+		}
+	}
+
+	/**
+	 * Sets the {@link Clock} used to track the last access time of the sessions.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static ThreadPoolTaskScheduler createTaskScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setThreadNamePrefix("spring-session-registry-");
+		taskScheduler.setDaemon(true);
+		taskScheduler.initialize();
+		return taskScheduler;
+	}
+
+	private static final class SessionEntry {
+
+		private final ReactiveSessionInformation information;
+
+		private final Mono<ReactiveSessionInformation> mono;
+
+		private volatile long lastAccessTime;
+
+		private SessionEntry(ReactiveSessionInformation information) {
+			this.information = information;
+			this.mono = Mono.just(information);
+			this.lastAccessTime = information.getLastAccessTime().toEpochMilli();
+		}
+
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.userdetails.r2dbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.jdbc.JdbcDaoImpl;
+import org.springframework.util.Assert;
+
+/**
+ * A R2DBC implementation of {@link ReactiveUserDetailsService} and
+ * {@link ReactiveUserDetailsPasswordService} that uses a {@link DatabaseClient}, so that
+ * users stored in a database can be loaded without blocking.
+ *
+ * <p>
+ * By default, the users and their authorities are loaded from the tables of the default
+ * schema used by {@link JdbcDaoImpl}, described in
+ * "classpath:org/springframework/security/core/userdetails/jdbc/users.ddl", with a single
+ * query joining both tables. As with {@link JdbcDaoImpl}, a user without any authority is
+ * not found.
+ *
+ * <p>
+ * The users requested while a query is running are loaded together by the next query,
+ * whose {@code IN} clause contains up to {@link #setMaxBatchSize(int) the maximum batch
+ * size} usernames, and at most {@link #setMaxConcurrentQueries(int) the maximum number of
+ * concurrent queries} are running at the same time. Thus a single login is loaded right
+ * away while a burst of logins results in a few queries. A username is only resolved from
+ * a row with exactly that username, unless the query returned rows for usernames that
+ * were not requested, as a database comparing usernames ignoring case would: such a
+ * username is then queried again on its own, so that the row the database matches can
+ * only be its own.
+ *
+ * <p>
+ * A query is subscribed to with the Reactor context of the first caller waiting for its
+ * batch, and is cancelled once all the callers waiting for it have cancelled.
+ *
+ * @since 6.5
+ * @see JdbcDaoImpl
+ */
+public final class R2dbcReactiveUserDetailsService
+		implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+	// @formatter:off
+	private static final String DEFAULT_USERS_BY_USERNAMES_QUERY = "SELECT u.username, u.password, u.enabled, a.authority "
+			+ "FROM users u JOIN authorities a ON a.username = u.username "
+			+ "WHERE u.username IN (:usernames)";
+	// @formatter:on
+
+	private static final String DEFAULT_CHANGE_PASSWORD_QUERY = "UPDATE users SET password = :password WHERE username = :username";
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final DatabaseClient databaseClient;
+
+	private final Object lock = new Object();
+
+	private final Deque<Batch> pending = new ArrayDeque<>();
+
+	private int runningQueries;
+
+	private String usersByUsernamesQuery = DEFAULT_USERS_BY_USERNAMES_QUERY;
+
+	private String changePasswordQuery = DEFAULT_CHANGE_PASSWORD_QUERY;
+
+	private int maxBatchSize = 100;
+
+	private int maxConcurrentQueries = 4;
+
+	/**
+	 * Constructs a {@code R2dbcReactiveUserDetailsService} using the provided parameters.
+	 * @param databaseClient the database client
+	 */
+	public R2dbcReactiveUserDetailsService(DatabaseClient databaseClient) {
+		Assert.notNull(databaseClient, "databaseClient cannot be null");
+		this.databaseClient = databaseClient;
+	}
+
+	@Override
+	public Mono<UserDetails> findByUsername(String username) {
+		return Mono.deferContextual((context) -> {
+			Sinks.One<UserDetails> sink = Sinks.one();
+			Batch batch;
+			Batch next;
+			synchronized (this.lock) {
+				batch = pendingBatch(username, context);
+				batch.add(username, sink);
+				next = nextBatch();
+			}
+			if (next != null) {
+				start(next);
+			}
+			return sink.asMono().doOnCancel(() -> leave(batch));
+		});
+	}
+
+	@Override
+	public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+		return this.databaseClient.sql(this.changePasswordQuery)
+			.bind("password", newPassword)
+			.bind("username", user.getUsername())
+			.fetch()
+			.rowsUpdated()
+			.thenReturn(User.withUserDetails(user).password(newPassword).build());
+	}
+
+	/**
+	 * Returns the last pending batch, or a new one if it cannot accept the username. Must
+	 * be invoked while holding the lock.
+	 */
+	private Batch pendingBatch(String username, ContextView context) {
+		Batch batch = this.pending.peekLast();
+		if (batch == null || (batch.usernames.size() >= this.maxBatchSize && !batch.usernames.containsKey(username))) {
+			batch = new Batch(context);
+			this.pending.addLast(batch);
+		}
+		return batch;
+	}
+
+	/**
+	 * Removes the next pending batch if another query can be started. Must be invoked
+	 * while holding the lock.
+	 */
+	private Batch nextBatch() {
+		if (this.pending.isEmpty() || this.runningQueries >= this.maxConcurrentQueries) {
+			return null;
+		}
+		this.runningQueries++;
+		return this.pending.pollFirst();
+	}
+
+	private void start(Batch batch) {
+		// the query runs on behalf of every waiter of the batch, so it is subscribed to
+		// with the context of the first one and only cancelled once they all left
+		Mono<Void> query = query(batch.usernames).doFinally((signal) -> release()).contextWrite(batch.context);
+		batch.query.update(query.subscribe());
+	}
+
+	private void release() {
+		Batch next;
+		synchronized (this.lock) {
+			this.runningQueries--;
+			next = nextBatch();
+		}
+		if (next != null) {
+			start(next);
+		}
+	}
+
+	private void leave(Batch batch) {
+		synchronized (this.lock) {
+			if (--batch.waiters > 0 || this.pending.remove(batch)) {
+				return;
+			}
+		}
+		batch.query.dispose();
+	}
+
+	private Mono<Void> query(Map<String, List<Sinks.One<UserDetails>>> batch) {
+		return load(batch.keySet()).flatMapMany((users) -> Flux.fromIterable(complete(batch, users)))
+			.concatMap((username) -> load(Set.of(username))
+				.doOnNext((users) -> complete(Map.of(username, batch.get(username)), users)))
+			.then()
+			.onErrorResume((ex) -> {
+				for (List<Sinks.One<UserDetails>> sinks : batch.values()) {
+					sinks.forEach((sink) -> sink.tryEmitError(ex));
+				}
+				return Mono.empty();
+			});
+	}
+
+	private Mono<Map<String, UserRow>> load(Collection<String> usernames) {
+		return Mono.defer(() -> {
+			this.logger.trace(LogMessage.format("Loading %d users", usernames.size()));
+			Map<String, UserRow> users = new HashMap<>();
+			return this.databaseClient.sql(this.usersByUsernamesQuery)
+				.bind("usernames", new ArrayList<>(usernames))
+				.map((row, metadata) -> {
+					String username = row.get("username", String.class);
+					UserRow user = users.computeIfAbsent(username,
+							(key) -> new UserRow(row.get("password", String.class),
+									Boolean.TRUE.equals(row.get("enabled", Boolean.class))));
+					String authority = row.get("authority", String.class);
+					if (authority != null) {
+						user.authorities.add(new SimpleGrantedAuthority(authority));
+					}
+					return user;
+				})
+				.all()
+				.then(Mono.just(users));
+		});
+	}
+
+	/**
+	 * Emits the loaded users to the waiters of the batch and returns the usernames that
+	 * must be queried again on their own.
+	 */
+	private List<String> complete(Map<String, List<Sinks.One<UserDetails>>> batch, Map<String, UserRow> users) {
+		boolean unrequestedUsers = !batch.keySet().containsAll(users.keySet());
+		List<String> retries = new ArrayList<>();
+		for (Map.Entry<String, List<Sinks.One<UserDetails>>> requested : batch.entrySet()) {
+			String username = requested.getKey();
+			UserRow user = users.get(username);
+			if (user == null && unrequestedUsers) {
+				// the database compares usernames differently, so only a query for this
+				// username alone tells which row, if any, belongs to it
+				if (batch.size() > 1) {
+					retries.add(username);
+					continue;
+				}
+				if (users.size() == 1) {
+					user = users.values().iterator().next();
+				}
+			}
+			for (Sinks.One<UserDetails> sink : requested.getValue()) {
+				if (user != null && !user.authorities.isEmpty()) {
+					sink.tryEmitValue(user.toUserDetails(username));
+				}
+				else {
+					sink.tryEmitEmpty();
+				}
+			}
+		}
+		return retries;
+	}
+
+	/**
+	 * Sets the query used to load the users and their authorities. The query must accept
+	 * a {@code :usernames} collection parameter and return one row per authority with the
+	 * {@code username}, {@code password}, {@code enabled} and {@code authority} columns.
+	 * @param usersByUsernamesQuery the query used to load the users
+	 */
+	public void setUsersByUsernamesQuery(String usersByUsernamesQuery) {
+		Assert.hasText(usersByUsernamesQuery, "usersByUsernamesQuery cannot be empty");
+		this.usersByUsernamesQuery = usersByUsernamesQuery;
+	}
+
+	/**
+	 * Sets the query used to change the password of a user. The query must accept the
+	 * {@code :password} and {@code :username} parameters.
+	 * @param changePasswordQuery the query used to change the password of a user
+	 */
+	public void setChangePasswordQuery(String changePasswordQuery) {
+		Assert.hasText(changePasswordQuery, "changePasswordQuery cannot be empty");
+		this.changePasswordQuery = changePasswordQuery;
+	}
+
+	/**
+	 * Sets the maximum number of usernames loaded by a single query. The default is 100.
+	 * @param maxBatchSize the maximum number of usernames loaded by a single query
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of queries loading users that run at the same time. The
+	 * default is 4.
+	 * @param maxConcurrentQueries the maximum number of concurrent queries
+	 */
+	public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+		Assert.isTrue(maxConcurrentQueries > 0, "maxConcurrentQueries must be greater than 0");
+		this.maxConcurrentQueries = maxConcurrentQueries;
+	}
+
+	/**
+	 * The usernames loaded by a single query, along with the sinks of their waiters.
+	 */
+	private static final class Batch {
+
+		private final Map<String, List<Sinks.One<UserDetails>>> usernames = new LinkedHashMap<>();
+
+		private final ContextView context;
+
+		private final Disposable.Swap query = Disposables.swap();
+
+		private int waiters;
+
+		private Batch(ContextView context) {
+			this.context = context;
+		}
+
+		private void add(String username, Sinks.One<UserDetails> sink) {
+			this.usernames.computeIfAbsent(username, (key) -> new ArrayList<>(1)).add(sink);
+			this.waiters++;
+		}
+
+	}
+
+	private static final class UserRow {
+
+		private final String password;
+
+		private final boolean enabled;
+
+		private final List<GrantedAuthority> authorities = new ArrayList<>();
+
+		private UserRow(String password, boolean enabled) {
+			this.password = password;
+			this.enabled = enabled;
+		}
+
+		private UserDetails toUserDetails(String username) {
+			return User.withUsername(username)
+				.password(this.password)
+				.disabled(!this.enabled)
+				.authorities(this.authorities)
+				.build();
+		}
+
+	}
+
+}
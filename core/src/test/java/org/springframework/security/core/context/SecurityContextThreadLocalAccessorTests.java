@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.context;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+import reactor.util.context.ReactorContextAccessor;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link SecurityContextThreadLocalAccessor}.
+ */
+public class SecurityContextThreadLocalAccessorTests {
+
+	private final SecurityContextHolderStrategy strategy = new ThreadLocalSecurityContextHolderStrategy();
+
+	private final SecurityContextThreadLocalAccessor accessor = new SecurityContextThreadLocalAccessor(this.strategy);
+
+	@AfterEach
+	public void cleanup() {
+		this.strategy.clearContext();
+	}
+
+	@Test
+	public void constructorWhenNullStrategyThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new SecurityContextThreadLocalAccessor(null));
+	}
+
+	@Test
+	public void getValueWhenAuthenticatedThenSecurityContext() {
+		SecurityContext context = new SecurityContextImpl(new TestingAuthenticationToken("user", "password"));
+		this.strategy.setContext(context);
+		assertThat(this.accessor.getValue()).isSameAs(context);
+	}
+
+	@Test
+	public void getValueWhenEmptyThenNull() {
+		assertThat(this.accessor.getValue()).isNull();
+	}
+
+	@Test
+	public void setValueThenSecurityContextSet() {
+		SecurityContext context = new SecurityContextImpl(new TestingAuthenticationToken("user", "password"));
+		this.accessor.setValue(context);
+		assertThat(this.strategy.getContext()).isSameAs(context);
+		this.accessor.setValue();
+		assertThat(this.strategy.getContext().getAuthentication()).isNull();
+	}
+
+	@Test
+	public void setThreadLocalsFromWhenReactorContextHasKeyThenSecurityContextSetInScope() {
+		SecurityContext context = new SecurityContextImpl(new TestingAuthenticationToken("user", "password"));
+		ContextRegistry registry = new ContextRegistry().registerThreadLocalAccessor(this.accessor)
+			.registerContextAccessor(new ReactorContextAccessor());
+		ContextSnapshotFactory factory = ContextSnapshotFactory.builder().contextRegistry(registry).build();
+		try (ContextSnapshot.Scope scope = factory
+			.setThreadLocalsFrom(Context.of(SecurityContextThreadLocalAccessor.KEY, context))) {
+			assertThat(this.strategy.getContext()).isSameAs(context);
+		}
+		assertThat(this.strategy.getContext().getAuthentication()).isNull();
+	}
+
+}
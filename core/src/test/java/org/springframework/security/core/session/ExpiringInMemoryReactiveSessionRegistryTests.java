@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link ExpiringInMemoryReactiveSessionRegistry}.
+ */
+public class ExpiringInMemoryReactiveSessionRegistryTests {
+
+	private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+	private ExpiringInMemoryReactiveSessionRegistry registry;
+
+	@BeforeEach
+	public void setup() {
+		this.registry = new ExpiringInMemoryReactiveSessionRegistry();
+		this.registry.setClock(clockAt(NOW));
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.registry.destroy();
+	}
+
+	@Test
+	public void saveSessionInformationThenSessionsAvailable() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		this.registry.saveSessionInformation(session("5678", "user", NOW)).block();
+		List<ReactiveSessionInformation> sessions = this.registry.getAllSessions("user").collectList().block();
+		assertThat(sessions).extracting(ReactiveSessionInformation::getSessionId)
+			.containsExactlyInAnyOrder("1234", "5678");
+		assertThat(this.registry.getSessionInformation("1234").block().getSessionId()).isEqualTo("1234");
+	}
+
+	@Test
+	public void removeSessionInformationThenSessionRemovedFromPrincipal() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		ReactiveSessionInformation removed = this.registry.removeSessionInformation("1234").block();
+		assertThat(removed.getSessionId()).isEqualTo("1234");
+		assertThat(this.registry.getSessionInformation("1234").block()).isNull();
+		assertThat(this.registry.getAllSessions("user").collectList().block()).isEmpty();
+	}
+
+	@Test
+	public void removeSessionInformationWhenNotSubscribedThenNotRemoved() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		Mono<ReactiveSessionInformation> removed = this.registry.removeSessionInformation("1234");
+		assertThat(this.registry.getSessionInformation("1234").block()).isNotNull();
+		assertThat(removed.block().getSessionId()).isEqualTo("1234");
+		assertThat(this.registry.getSessionInformation("1234").block()).isNull();
+	}
+
+	@Test
+	public void getAllSessionsWhenSessionInactiveThenNotReturned() {
+		this.registry.setMaxInactiveInterval(Duration.ofMinutes(30));
+		this.registry.saveSessionInformation(session("1234", "user", NOW.minus(Duration.ofMinutes(31)))).block();
+		this.registry.saveSessionInformation(session("5678", "user", NOW)).block();
+		assertThat(this.registry.getAllSessions("user").collectList().block())
+			.extracting(ReactiveSessionInformation::getSessionId)
+			.containsExactly("5678");
+		assertThat(this.registry.getSessionInformation("1234").block()).isNull();
+		assertThat(this.registry.updateLastAccessTime("1234").block()).isNull();
+	}
+
+	@Test
+	public void removeExpiredSessionsThenInactiveSessionsRemoved() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		this.registry.saveSessionInformation(session("5678", "other", NOW)).block();
+		this.registry.updateLastAccessTime("5678").block();
+		this.registry.setClock(clockAt(NOW.plus(Duration.ofMinutes(20))));
+		this.registry.updateLastAccessTime("5678").block();
+		this.registry.setClock(clockAt(NOW.plus(Duration.ofMinutes(40))));
+		this.registry.removeExpiredSessions();
+		this.registry.setClock(clockAt(NOW));
+		assertThat(this.registry.getSessionInformation("1234").block()).isNull();
+		assertThat(this.registry.getAllSessions("user").collectList().block()).isEmpty();
+		assertThat(this.registry.getSessionInformation("5678").block()).isNotNull();
+	}
+
+	@Test
+	public void updateLastAccessTimeWhenWithinGranularityThenNotUpdated() {
+		this.registry.setAccessTimeGranularity(Duration.ofSeconds(10));
+		ReactiveSessionInformation session = spy(session("1234", "user", NOW));
+		this.registry.saveSessionInformation(session).block();
+		this.registry.setClock(clockAt(NOW.plusSeconds(5)));
+		assertThat(this.registry.updateLastAccessTime("1234").block()).isSameAs(session);
+		verify(session, never()).refreshLastRequest();
+		this.registry.setClock(clockAt(NOW.plusSeconds(10)));
+		assertThat(this.registry.updateLastAccessTime("1234").block()).isSameAs(session);
+		verify(session).refreshLastRequest();
+		assertThat(session.getLastAccessTime()).isAfter(NOW);
+	}
+
+	@Test
+	public void updateLastAccessTimeWhenNotSubscribedThenNotRefreshed() {
+		ReactiveSessionInformation session = spy(session("1234", "user", NOW));
+		this.registry.saveSessionInformation(session).block();
+		this.registry.setClock(clockAt(NOW.plusSeconds(10)));
+		this.registry.updateLastAccessTime("1234");
+		verify(session, never()).refreshLastRequest();
+	}
+
+	@Test
+	public void updateLastAccessTimeWhenUnknownSessionThenEmpty() {
+		assertThat(this.registry.updateLastAccessTime("unknown").block()).isNull();
+	}
+
+	@Test
+	public void saveSessionInformationWhenMaximumSessionsExceededThenLeastRecentlyUsedEvicted() {
+		this.registry.setMaximumSessions(3);
+		this.registry.saveSessionInformation(session("1", "user", NOW.minusSeconds(4))).block();
+		this.registry.saveSessionInformation(session("2", "user", NOW.minusSeconds(1))).block();
+		this.registry.saveSessionInformation(session("3", "other", NOW.minusSeconds(3))).block();
+		this.registry.saveSessionInformation(session("4", "other", NOW)).block();
+		assertThat(this.registry.getSessionInformation("1").block()).isNull();
+		assertThat(this.registry.getAllSessions("user").collectList().block())
+			.extracting(ReactiveSessionInformation::getSessionId)
+			.containsExactly("2");
+		assertThat(this.registry.getAllSessions("other").collectList().block())
+			.extracting(ReactiveSessionInformation::getSessionId)
+			.containsExactly("3", "4");
+	}
+
+	@Test
+	public void saveSessionInformationWhenSessionIdReusedByOtherPrincipalThenMoved() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		this.registry.saveSessionInformation(session("1234", "other", NOW)).block();
+		assertThat(this.registry.getAllSessions("user").collectList().block()).isEmpty();
+		assertThat(this.registry.getAllSessions("other").collectList().block()).hasSize(1);
+	}
+
+	@Test
+	public void saveSessionInformationWhenTaskSchedulerThenSweepScheduledOnceAndRescheduledWhenSweepIntervalChanges() {
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		ScheduledFuture<?> sweepTask = mock(ScheduledFuture.class);
+		willReturn(sweepTask).given(taskScheduler)
+			.scheduleWithFixedDelay(any(), any(Instant.class), any(Duration.class));
+		this.registry.setTaskScheduler(taskScheduler);
+		verifyNoInteractions(taskScheduler);
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		this.registry.saveSessionInformation(session("5678", "user", NOW)).block();
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofMinutes(1)));
+		this.registry.setSweepInterval(Duration.ofSeconds(30));
+		verify(sweepTask).cancel(false);
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofSeconds(30)));
+		this.registry.destroy();
+		verify(sweepTask, times(2)).cancel(false);
+	}
+
+	@Test
+	public void setTaskSchedulerWhenSessionsSavedThenThrowsIllegalStateException() {
+		this.registry.saveSessionInformation(session("1234", "user", NOW)).block();
+		assertThatIllegalStateException().isThrownBy(() -> this.registry.setTaskScheduler(mock(TaskScheduler.class)));
+	}
+
+	@Test
+	public void setMaximumSessionsWhenNotPositiveThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.registry.setMaximumSessions(0));
+	}
+
+	@Test
+	public void setMaxInactiveIntervalWhenZeroThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.registry.setMaxInactiveInterval(Duration.ZERO));
+	}
+
+	private static ReactiveSessionInformation session(String sessionId, String principal, Instant lastAccessTime) {
+		return new ReactiveSessionInformation(principal, sessionId, lastAccessTime);
+	}
+
+	private static Clock clockAt(Instant instant) {
+		return Clock.fixed(instant, ZoneOffset.UTC);
+	}
+
+}
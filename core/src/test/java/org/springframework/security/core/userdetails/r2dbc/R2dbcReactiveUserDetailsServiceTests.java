@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.userdetails.r2dbc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link R2dbcReactiveUserDetailsService}.
+ */
+public class R2dbcReactiveUserDetailsServiceTests {
+
+	private static final String USERS_SCHEMA_SQL_RESOURCE = "org/springframework/security/core/userdetails/jdbc/users.ddl";
+
+	private static int databaseId;
+
+	private GatedConnectionFactory connectionFactory;
+
+	private DatabaseClient databaseClient;
+
+	private R2dbcReactiveUserDetailsService userDetailsService;
+
+	@BeforeEach
+	public void setup() {
+		ConnectionFactory h2 = H2ConnectionFactory.inMemory("users-test-" + databaseId++);
+		new ResourceDatabasePopulator(new ClassPathResource(USERS_SCHEMA_SQL_RESOURCE)).populate(h2).block();
+		this.databaseClient = DatabaseClient.create(h2);
+		insertUser("user", "password", true, "ROLE_USER");
+		insertUser("admin", "password", true, "ROLE_USER", "ROLE_ADMIN");
+		insertUser("disabled", "password", false, "ROLE_USER");
+		insertUser("noauthorities", "password", true);
+		this.connectionFactory = new GatedConnectionFactory(h2);
+		this.userDetailsService = new R2dbcReactiveUserDetailsService(DatabaseClient.create(this.connectionFactory));
+	}
+
+	@Test
+	public void constructorWhenNullDatabaseClientThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new R2dbcReactiveUserDetailsService(null));
+	}
+
+	@Test
+	public void findByUsernameWhenUserExistsThenUserWithAuthorities() {
+		this.connectionFactory.open();
+		UserDetails user = this.userDetailsService.findByUsername("admin").block();
+		assertThat(user.getUsername()).isEqualTo("admin");
+		assertThat(user.getPassword()).isEqualTo("password");
+		assertThat(user.isEnabled()).isTrue();
+		assertThat(AuthorityUtils.authorityListToSet(user.getAuthorities())).containsOnly("ROLE_USER", "ROLE_ADMIN");
+	}
+
+	@Test
+	public void findByUsernameWhenDisabledThenUserDisabled() {
+		this.connectionFactory.open();
+		UserDetails user = this.userDetailsService.findByUsername("disabled").block();
+		assertThat(user.isEnabled()).isFalse();
+	}
+
+	@Test
+	public void findByUsernameWhenUnknownThenEmpty() {
+		this.connectionFactory.open();
+		assertThat(this.userDetailsService.findByUsername("unknown").block()).isNull();
+	}
+
+	@Test
+	public void findByUsernameWhenNoAuthoritiesThenEmpty() {
+		this.connectionFactory.open();
+		assertThat(this.userDetailsService.findByUsername("noauthorities").block()).isNull();
+	}
+
+	@Test
+	public void findByUsernameWhenDifferentCaseThenRequestedUsername() {
+		this.connectionFactory.open();
+		UserDetails user = this.userDetailsService.findByUsername("USER").block();
+		assertThat(user.getUsername()).isEqualTo("USER");
+		assertThat(AuthorityUtils.authorityListToSet(user.getAuthorities())).containsOnly("ROLE_USER");
+	}
+
+	@Test
+	public void findByUsernameWhenDifferentCaseInBatchThenQueriedAlone() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		Mono<UserDetails> first = this.userDetailsService.findByUsername("disabled").cache();
+		first.subscribe();
+		Mono<UserDetails> admin = this.userDetailsService.findByUsername("admin").cache();
+		Mono<UserDetails> user = this.userDetailsService.findByUsername("USER").cache();
+		admin.subscribe();
+		user.subscribe();
+		this.connectionFactory.open();
+		assertThat(admin.block().getUsername()).isEqualTo("admin");
+		assertThat(user.block().getUsername()).isEqualTo("USER");
+		assertThat(AuthorityUtils.authorityListToSet(user.block().getAuthorities())).containsOnly("ROLE_USER");
+		assertThat(this.connectionFactory.connections).hasValue(3);
+	}
+
+	@Test
+	public void findByUsernameWhenCaseSensitiveAndOtherCaseInBatchThenEmpty() {
+		this.databaseClient
+			.sql("CREATE TABLE case_sensitive_users (username VARCHAR(50) NOT NULL PRIMARY KEY, "
+					+ "password VARCHAR(500) NOT NULL, enabled BOOLEAN NOT NULL, authority VARCHAR(50) NOT NULL)")
+			.then()
+			.block();
+		this.databaseClient.sql("INSERT INTO case_sensitive_users VALUES ('Bob', 'password', TRUE, 'ROLE_USER')")
+			.then()
+			.block();
+		this.userDetailsService.setUsersByUsernamesQuery("SELECT username, password, enabled, authority "
+				+ "FROM case_sensitive_users WHERE username IN (:usernames)");
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		this.userDetailsService.findByUsername("unknown").subscribe();
+		Mono<UserDetails> lowerCase = this.userDetailsService.findByUsername("bob").cache();
+		Mono<UserDetails> upperCase = this.userDetailsService.findByUsername("Bob").cache();
+		lowerCase.subscribe();
+		upperCase.subscribe();
+		this.connectionFactory.open();
+		assertThat(lowerCase.block()).isNull();
+		assertThat(upperCase.block().getUsername()).isEqualTo("Bob");
+		assertThat(this.connectionFactory.connections).hasValue(2);
+	}
+
+	@Test
+	public void findByUsernameWhenQueryRunningThenPendingUsersLoadedByNextQuery() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		Mono<UserDetails> first = this.userDetailsService.findByUsername("user").cache();
+		first.subscribe();
+		Mono<UserDetails> admin = this.userDetailsService.findByUsername("admin").cache();
+		Mono<UserDetails> unknown = this.userDetailsService.findByUsername("unknown").cache();
+		Mono<UserDetails> user = this.userDetailsService.findByUsername("user").cache();
+		admin.subscribe();
+		unknown.subscribe();
+		user.subscribe();
+		assertThat(this.connectionFactory.connections).hasValue(1);
+		this.connectionFactory.open();
+		assertThat(first.block().getUsername()).isEqualTo("user");
+		assertThat(admin.block().getUsername()).isEqualTo("admin");
+		assertThat(unknown.block()).isNull();
+		assertThat(user.block()).isNotSameAs(first.block());
+		assertThat(this.connectionFactory.connections).hasValue(2);
+	}
+
+	@Test
+	public void findByUsernameWhenMoreThanMaxBatchSizePendingThenSeveralQueries() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		this.userDetailsService.setMaxBatchSize(2);
+		this.userDetailsService.findByUsername("unknown").subscribe();
+		Mono<UserDetails> user = this.userDetailsService.findByUsername("user").cache();
+		Mono<UserDetails> admin = this.userDetailsService.findByUsername("admin").cache();
+		Mono<UserDetails> disabled = this.userDetailsService.findByUsername("disabled").cache();
+		user.subscribe();
+		admin.subscribe();
+		disabled.subscribe();
+		this.connectionFactory.open();
+		assertThat(user.block().getUsername()).isEqualTo("user");
+		assertThat(admin.block().getUsername()).isEqualTo("admin");
+		assertThat(disabled.block().getUsername()).isEqualTo("disabled");
+		assertThat(this.connectionFactory.connections).hasValue(3);
+	}
+
+	@Test
+	public void findByUsernameThenQueriedWithCallerContext() {
+		this.connectionFactory.open();
+		this.userDetailsService.findByUsername("user").contextWrite(Context.of("caller", "first")).block();
+		String caller = this.connectionFactory.context.get().getOrDefault("caller", null);
+		assertThat(caller).isEqualTo("first");
+	}
+
+	@Test
+	public void findByUsernameWhenAllCallersCancelThenQueryCancelled() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		Disposable user = this.userDetailsService.findByUsername("user").subscribe();
+		user.dispose();
+		assertThat(this.connectionFactory.cancellations).hasValue(1);
+		Mono<UserDetails> admin = this.userDetailsService.findByUsername("admin").cache();
+		admin.subscribe();
+		this.connectionFactory.open();
+		assertThat(admin.block().getUsername()).isEqualTo("admin");
+		assertThat(this.connectionFactory.connections).hasValue(2);
+	}
+
+	@Test
+	public void findByUsernameWhenSomeCallersCancelThenQueryNotCancelled() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		this.userDetailsService.findByUsername("unknown").subscribe();
+		Disposable cancelled = this.userDetailsService.findByUsername("user").subscribe();
+		Mono<UserDetails> user = this.userDetailsService.findByUsername("user").cache();
+		user.subscribe();
+		cancelled.dispose();
+		this.connectionFactory.open();
+		assertThat(user.block().getUsername()).isEqualTo("user");
+		assertThat(this.connectionFactory.cancellations).hasValue(0);
+	}
+
+	@Test
+	public void findByUsernameWhenAllPendingCallersCancelThenBatchNotQueried() {
+		this.userDetailsService.setMaxConcurrentQueries(1);
+		Mono<UserDetails> first = this.userDetailsService.findByUsername("user").cache();
+		first.subscribe();
+		this.userDetailsService.findByUsername("admin").subscribe().dispose();
+		this.connectionFactory.open();
+		assertThat(first.block().getUsername()).isEqualTo("user");
+		assertThat(this.connectionFactory.connections).hasValue(1);
+	}
+
+	@Test
+	public void updatePasswordThenPasswordUpdated() {
+		this.connectionFactory.open();
+		UserDetails user = this.userDetailsService.findByUsername("user").block();
+		UserDetails updated = this.userDetailsService.updatePassword(user, "new-password").block();
+		assertThat(updated.getPassword()).isEqualTo("new-password");
+		assertThat(this.userDetailsService.findByUsername("user").block().getPassword()).isEqualTo("new-password");
+	}
+
+	@Test
+	public void setMaxBatchSizeWhenNotPositiveThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.userDetailsService.setMaxBatchSize(0));
+	}
+
+	private void insertUser(String username, String password, boolean enabled, String... authorities) {
+		this.databaseClient
+			.sql("INSERT INTO users (username, password, enabled) VALUES (:username, :password, :enabled)")
+			.bind("username", username)
+			.bind("password", password)
+			.bind("enabled", enabled)
+			.then()
+			.block();
+		for (String authority : authorities) {
+			this.databaseClient.sql("INSERT INTO authorities (username, authority) VALUES (:username, :authority)")
+				.bind("username", username)
+				.bind("authority", authority)
+				.then()
+				.block();
+		}
+	}
+
+	/**
+	 * Counts the connections and delays them until {@link #open()} is invoked
+	 */
+	private static final class GatedConnectionFactory implements ConnectionFactory {
+
+		private final ConnectionFactory delegate;
+
+		private final Sinks.Empty<Void> gate = Sinks.empty();
+
+		private final AtomicInteger connections = new AtomicInteger();
+
+		private final AtomicInteger cancellations = new AtomicInteger();
+
+		private final AtomicReference<ContextView> context = new AtomicReference<>();
+
+		private GatedConnectionFactory(ConnectionFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		private void open() {
+			this.gate.tryEmitEmpty();
+		}
+
+		@Override
+		public Publisher<? extends Connection> create() {
+			Mono<Connection> connection = Mono.deferContextual((context) -> {
+				this.context.set(context);
+				return Mono.from(this.delegate.create());
+			});
+			return connection.delaySubscription(this.gate.asMono())
+				.doOnSubscribe((subscription) -> this.connections.incrementAndGet())
+				.doOnCancel(this.cancellations::incrementAndGet);
+		}
+
+		@Override
+		public ConnectionFactoryMetadata getMetadata() {
+			return this.delegate.getMetadata();
+		}
+
+	}
+
+}
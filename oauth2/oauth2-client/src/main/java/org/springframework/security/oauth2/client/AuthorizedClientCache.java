@@ -0,0 +1,168 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.util.Assert;
+
+/**
+ * A per-node cache of the {@link OAuth2AuthorizedClient}s loaded by
+ * {@link JdbcOAuth2AuthorizedClientService} and
+ * {@link R2dbcReactiveOAuth2AuthorizedClientService}, so that an authorized client used
+ * by consecutive requests is not read from the database each time.
+ *
+ * <p>
+ * An authorized client is cached until its time to live elapses or its access token
+ * expires, whichever comes first, and is invalidated when it is saved or removed through
+ * the service. A client loaded while another was invalidated is not cached, since it may
+ * have been read before the invalidation. The services pass each cached client to
+ * {@link #withClientRegistration(OAuth2AuthorizedClient, ClientRegistration)} with the
+ * current {@link ClientRegistration}, so that an updated registration, such as a rotated
+ * client secret, is used right away rather than once the cached client expires.
+ *
+ * @since 6.5
+ */
+final class AuthorizedClientCache {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private final Map<OAuth2AuthorizedClientId, CachedAuthorizedClient> authorizedClients = new ConcurrentHashMap<>();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final Clock clock = Clock.systemUTC();
+
+	private volatile Duration timeToLive = Duration.ZERO;
+
+	boolean isEnabled() {
+		return !this.timeToLive.isZero();
+	}
+
+	OAuth2AuthorizedClient get(String clientRegistrationId, String principalName) {
+		if (!isEnabled()) {
+			return null;
+		}
+		OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(clientRegistrationId, principalName);
+		CachedAuthorizedClient cached = this.authorizedClients.get(id);
+		if (cached == null) {
+			return null;
+		}
+		if (!this.clock.instant().isBefore(cached.expiresAt)) {
+			this.authorizedClients.remove(id, cached);
+			return null;
+		}
+		return cached.authorizedClient;
+	}
+
+	/**
+	 * Returns the provided cached authorized client bound to the provided client
+	 * registration, which replaces it in the cache if the registration changed since it
+	 * was loaded.
+	 */
+	OAuth2AuthorizedClient withClientRegistration(OAuth2AuthorizedClient authorizedClient,
+			ClientRegistration clientRegistration) {
+		if (authorizedClient.getClientRegistration() == clientRegistration) {
+			return authorizedClient;
+		}
+		OAuth2AuthorizedClient updated = new OAuth2AuthorizedClient(clientRegistration,
+				authorizedClient.getPrincipalName(), authorizedClient.getAccessToken(),
+				authorizedClient.getRefreshToken());
+		OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(clientRegistration.getRegistrationId(),
+				authorizedClient.getPrincipalName());
+		this.authorizedClients.computeIfPresent(id, (key, cached) -> (cached.authorizedClient != authorizedClient)
+				? cached : new CachedAuthorizedClient(updated, cached.expiresAt));
+		return updated;
+	}
+
+	/**
+	 * Returns a stamp to be passed to {@link #put(OAuth2AuthorizedClient, long)},
+	 * obtained before the authorized client is loaded.
+	 */
+	long stamp() {
+		return this.invalidations.get();
+	}
+
+	void put(OAuth2AuthorizedClient authorizedClient, long stamp) {
+		if (!isEnabled()) {
+			return;
+		}
+		Instant now = this.clock.instant();
+		Instant expiresAt = now.plus(this.timeToLive);
+		Instant accessTokenExpiresAt = authorizedClient.getAccessToken().getExpiresAt();
+		if (accessTokenExpiresAt != null && accessTokenExpiresAt.isBefore(expiresAt)) {
+			expiresAt = accessTokenExpiresAt;
+		}
+		if (!now.isBefore(expiresAt) || !hasCapacity(now)) {
+			return;
+		}
+		OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(
+				authorizedClient.getClientRegistration().getRegistrationId(), authorizedClient.getPrincipalName());
+		CachedAuthorizedClient cached = new CachedAuthorizedClient(authorizedClient, expiresAt);
+		this.authorizedClients.put(id, cached);
+		// invalidate() increments before removing, so either it removes this entry or
+		// the increment is seen here
+		if (this.invalidations.get() != stamp) {
+			this.authorizedClients.remove(id, cached);
+		}
+	}
+
+	void invalidate(String clientRegistrationId, String principalName) {
+		if (!isEnabled()) {
+			return;
+		}
+		this.invalidations.incrementAndGet();
+		this.authorizedClients.remove(new OAuth2AuthorizedClientId(clientRegistrationId, principalName));
+	}
+
+	private boolean hasCapacity(Instant now) {
+		if (this.authorizedClients.size() < MAXIMUM_SIZE) {
+			return true;
+		}
+		this.authorizedClients.values().removeIf((cached) -> !now.isBefore(cached.expiresAt));
+		return this.authorizedClients.size() < MAXIMUM_SIZE;
+	}
+
+	void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.timeToLive = timeToLive;
+		if (timeToLive.isZero()) {
+			this.authorizedClients.clear();
+		}
+	}
+
+	private static final class CachedAuthorizedClient {
+
+		private final OAuth2AuthorizedClient authorizedClient;
+
+		private final Instant expiresAt;
+
+		private CachedAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Instant expiresAt) {
+			this.authorizedClient = authorizedClient;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -70,6 +70,15 @@ import org.springframework.web.server.ServerWebExchange;
  * {@link #setAuthorizationFailureHandler(ReactiveOAuth2AuthorizationFailureHandler)}.
  * </p>
  *
+ * <h2>Concurrent Authorizations</h2>
+ *
+ * <p>
+ * Concurrent authorizations of the same client for the same principal, for example when a
+ * shared access token expires, can be combined so that a single access token request is
+ * sent to the authorization server. This is disabled by default, see
+ * {@link #setCoalesceAuthorizations(boolean)}.
+ * </p>
+ *
  * @author Ankur Pathak
  * @author Phil Clay
  * @since 5.2.2
@@ -99,6 +108,8 @@ public final class AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager
 
 	private ReactiveOAuth2AuthorizationFailureHandler authorizationFailureHandler;
 
+	private ReactiveOAuth2AuthorizationCoalescer authorizationCoalescer;
+
 	/**
 	 * Constructs an {@code AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager}
 	 * using the provided parameters.
@@ -163,7 +174,7 @@ public final class AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager
 	 */
 	private Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizationContext authorizationContext,
 			Authentication principal) {
-		return this.authorizedClientProvider.authorize(authorizationContext)
+		return authorizeOrJoin(authorizationContext)
 			// Delegate to the authorizationSuccessHandler of the successful
 			// authorization
 			.flatMap((authorizedClient) -> this.authorizationSuccessHandler
@@ -177,6 +188,18 @@ public final class AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager
 			.switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(authorizationContext.getAuthorizedClient())));
 	}
 
+	/**
+	 * Invokes the {@link #authorizedClientProvider}, through the
+	 * {@link #authorizationCoalescer} when authorizations are combined.
+	 */
+	private Mono<OAuth2AuthorizedClient> authorizeOrJoin(OAuth2AuthorizationContext authorizationContext) {
+		ReactiveOAuth2AuthorizationCoalescer authorizationCoalescer = this.authorizationCoalescer;
+		if (authorizationCoalescer != null) {
+			return authorizationCoalescer.authorize(authorizationContext, this.authorizedClientProvider);
+		}
+		return this.authorizedClientProvider.authorize(authorizationContext);
+	}
+
 	/**
 	 * Sets the {@link ReactiveOAuth2AuthorizedClientProvider} used for authorizing (or
 	 * re-authorizing) an OAuth 2.0 Client.
@@ -232,6 +255,21 @@ public final class AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager
 		this.authorizationFailureHandler = authorizationFailureHandler;
 	}
 
+	/**
+	 * Sets whether concurrent authorizations of the same client for the same principal
+	 * are combined. When enabled, only the first one invokes the
+	 * {@link ReactiveOAuth2AuthorizedClientProvider} while the others use its result, or
+	 * its exception, and still run their own success or failure handler. Authorizations
+	 * are only combined when they start from the same access token and have the same
+	 * context attributes. The default is {@code false}.
+	 * @param coalesceAuthorizations whether to combine concurrent authorizations
+	 * @since 6.5
+	 * @see ReactiveOAuth2AuthorizationCoalescer
+	 */
+	public void setCoalesceAuthorizations(boolean coalesceAuthorizations) {
+		this.authorizationCoalescer = coalesceAuthorizations ? new ReactiveOAuth2AuthorizationCoalescer() : null;
+	}
+
 	/**
 	 * The default implementation of the {@link #setContextAttributesMapper(Function)
 	 * contextAttributesMapper}.
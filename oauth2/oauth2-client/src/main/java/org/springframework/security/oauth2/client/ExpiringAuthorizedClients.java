@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.util.Assert;
+
+/**
+ * The {@link OAuth2AuthorizedClient}s held by
+ * {@link ExpiringInMemoryOAuth2AuthorizedClientService} and
+ * {@link ExpiringInMemoryReactiveOAuth2AuthorizedClientService}.
+ *
+ * @since 6.5
+ */
+final class ExpiringAuthorizedClients {
+
+	private static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<OAuth2AuthorizedClientId, Entry> authorizedClients = new ConcurrentHashMap<>();
+
+	private final Object evictionLock = new Object();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private long maxIdleTimeMillis = Duration.ofMinutes(30).toMillis();
+
+	private int maximumAuthorizedClients = 10_000;
+
+	private Clock clock = Clock.systemUTC();
+
+	private final Object sweepLock = new Object();
+
+	private Duration sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+	private TaskScheduler taskScheduler;
+
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	private volatile ScheduledFuture<?> sweepTask;
+
+	private boolean destroyed;
+
+	OAuth2AuthorizedClient get(OAuth2AuthorizedClientId id) {
+		Entry entry = this.authorizedClients.get(id);
+		if (entry == null) {
+			return null;
+		}
+		long now = this.clock.millis();
+		if (isExpired(entry, now)) {
+			return null;
+		}
+		entry.lastAccessTime = now;
+		return entry.authorizedClient;
+	}
+
+	void put(OAuth2AuthorizedClientId id, OAuth2AuthorizedClient authorizedClient) {
+		if (this.sweepTask == null) {
+			scheduleSweep();
+		}
+		this.authorizedClients.put(id, new Entry(authorizedClient, this.clock.millis()));
+		if (this.authorizedClients.size() > this.maximumAuthorizedClients) {
+			evict();
+		}
+	}
+
+	void remove(OAuth2AuthorizedClientId id) {
+		this.authorizedClients.remove(id);
+	}
+
+	int size() {
+		return this.authorizedClients.size();
+	}
+
+	long getEvictionCount() {
+		return this.evictions.get();
+	}
+
+	void removeExpired() {
+		long now = this.clock.millis();
+		int removed = 0;
+		for (Map.Entry<OAuth2AuthorizedClientId, Entry> entry : this.authorizedClients.entrySet()) {
+			if (isExpired(entry.getValue(), now) && this.authorizedClients.remove(entry.getKey(), entry.getValue())) {
+				removed++;
+			}
+		}
+		if (removed > 0) {
+			this.evictions.addAndGet(removed);
+			this.logger.debug(LogMessage.format("Removed %d expired authorized clients", removed));
+		}
+	}
+
+	private void evict() {
+		synchronized (this.evictionLock) {
+			if (this.authorizedClients.size() <= this.maximumAuthorizedClients) {
+				return;
+			}
+			removeExpired();
+			// evict below the ceiling so that the next authorized clients do not trigger
+			// an eviction
+			int target = this.maximumAuthorizedClients - this.maximumAuthorizedClients / 10;
+			int excess = this.authorizedClients.size() - target;
+			if (excess <= 0) {
+				return;
+			}
+			List<Map.Entry<OAuth2AuthorizedClientId, Entry>> entries = new ArrayList<>(
+					this.authorizedClients.entrySet());
+			entries.sort(Comparator.comparingLong((entry) -> entry.getValue().lastAccessTime));
+			int removed = 0;
+			for (int i = 0; i < excess && i < entries.size(); i++) {
+				Map.Entry<OAuth2AuthorizedClientId, Entry> entry = entries.get(i);
+				if (this.authorizedClients.remove(entry.getKey(), entry.getValue())) {
+					removed++;
+				}
+			}
+			this.evictions.addAndGet(removed);
+			this.logger.debug(
+					LogMessage.format("Evicted %d least recently used authorized clients since more than %d were saved",
+							removed, this.maximumAuthorizedClients));
+		}
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return now >= entry.expiresAt || now - entry.lastAccessTime > this.maxIdleTimeMillis;
+	}
+
+	/**
+	 * Schedules the periodic removal of the expired authorized clients, once the first
+	 * one is saved so that a service that is never used starts no thread
+	 */
+	private void scheduleSweep() {
+		synchronized (this.sweepLock) {
+			if (this.sweepTask != null || this.destroyed) {
+				return;
+			}
+			if (this.taskScheduler == null) {
+				this.defaultTaskScheduler = createTaskScheduler();
+				this.taskScheduler = this.defaultTaskScheduler;
+			}
+			this.sweepTask = this.taskScheduler.scheduleWithFixedDelay(this::removeExpired,
+					Instant.now().plus(this.sweepInterval), this.sweepInterval);
+		}
+	}
+
+	void destroy() {
+		synchronized (this.sweepLock) {
+			this.destroyed = true;
+			if (this.sweepTask != null) {
+				this.sweepTask.cancel(false);
+			}
+			if (this.defaultTaskScheduler != null) {
+				this.defaultTaskScheduler.shutdown();
+			}
+		}
+	}
+
+	void setTaskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "taskScheduler cannot be null");
+		synchronized (this.sweepLock) {
+			Assert.state(this.sweepTask == null, "taskScheduler cannot be set once authorized clients were saved");
+			this.taskScheduler = taskScheduler;
+		}
+	}
+
+	void setMaxIdleTime(Duration maxIdleTime) {
+		Assert.notNull(maxIdleTime, "maxIdleTime cannot be null");
+		Assert.isTrue(!maxIdleTime.isNegative() && !maxIdleTime.isZero(), "maxIdleTime must be positive");
+		this.maxIdleTimeMillis = maxIdleTime.toMillis();
+	}
+
+	void setMaximumAuthorizedClients(int maximumAuthorizedClients) {
+		Assert.isTrue(maximumAuthorizedClients > 0, "maximumAuthorizedClients must be greater than 0");
+		this.maximumAuthorizedClients = maximumAuthorizedClients;
+	}
+
+	void setSweepInterval(Duration sweepInterval) {
+		Assert.notNull(sweepInterval, "sweepInterval cannot be null");
+		Assert.isTrue(!sweepInterval.isNegative() && !sweepInterval.isZero(), "sweepInterval must be positive");
+		synchronized (this.sweepLock) {
+			this.sweepInterval = sweepInterval;
+			if (this.sweepTask != null) {
+				this.sweepTask.cancel(false);
+				this.sweepTask = null;
+				scheduleSweep();
+			}
+		}
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static ThreadPoolTaskScheduler createTaskScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setThreadNamePrefix("spring-oauth2-authorized-clients-");
+		taskScheduler.setDaemon(true);
+		taskScheduler.initialize();
+		return taskScheduler;
+	}
+
+	private static final class Entry {
+
+		private final OAuth2AuthorizedClient authorizedClient;
+
+		private final long expiresAt;
+
+		private volatile long lastAccessTime;
+
+		private Entry(OAuth2AuthorizedClient authorizedClient, long now) {
+			this.authorizedClient = authorizedClient;
+			this.expiresAt = getExpiresAt(authorizedClient);
+			this.lastAccessTime = now;
+		}
+
+		/**
+		 * Returns the time after which the provided client can no longer be used, which
+		 * is the expiration of its refresh token if it has one, otherwise of its access
+		 * token
+		 */
+		private static long getExpiresAt(OAuth2AuthorizedClient authorizedClient) {
+			AbstractOAuth2Token token = (authorizedClient.getRefreshToken() != null)
+					? authorizedClient.getRefreshToken() : authorizedClient.getAccessToken();
+			Instant expiresAt = token.getExpiresAt();
+			return (expiresAt != null) ? expiresAt.toEpochMilli() : Long.MAX_VALUE;
+		}
+
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OAuth2AuthorizedClientService} that stores {@link OAuth2AuthorizedClient
+ * Authorized Client(s)} in-memory and forgets the ones that can no longer be used or are
+ * no longer used, so that its memory usage remains bounded however many principals
+ * authorize clients.
+ *
+ * <p>
+ * An authorized client is removed once its refresh token expires or, without a refresh
+ * token, once its access token expires. It is also removed when it was not loaded during
+ * the {@link #setMaxIdleTime(Duration) maximum idle time}. The removal happens on access
+ * and during a periodic sweep. When more than the
+ * {@link #setMaximumAuthorizedClients(int) maximum number of authorized clients} are
+ * saved, the least recently used ones are removed. The number of authorized clients held
+ * and the number of removals are reported by {@link #getAuthorizedClientCount()} and
+ * {@link #getEvictionCount()}.
+ *
+ * @since 6.5
+ * @see InMemoryOAuth2AuthorizedClientService
+ */
+public final class ExpiringInMemoryOAuth2AuthorizedClientService
+		implements OAuth2AuthorizedClientService, DisposableBean {
+
+	private final ExpiringAuthorizedClients authorizedClients = new ExpiringAuthorizedClients();
+
+	private final ClientRegistrationRepository clientRegistrationRepository;
+
+	/**
+	 * Constructs an {@code ExpiringInMemoryOAuth2AuthorizedClientService} using the
+	 * provided parameters.
+	 * @param clientRegistrationRepository the repository of client registrations
+	 */
+	public ExpiringInMemoryOAuth2AuthorizedClientService(ClientRegistrationRepository clientRegistrationRepository) {
+		Assert.notNull(clientRegistrationRepository, "clientRegistrationRepository cannot be null");
+		this.clientRegistrationRepository = clientRegistrationRepository;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+			String principalName) {
+		Assert.hasText(clientRegistrationId, "clientRegistrationId cannot be empty");
+		Assert.hasText(principalName, "principalName cannot be empty");
+		ClientRegistration registration = this.clientRegistrationRepository.findByRegistrationId(clientRegistrationId);
+		if (registration == null) {
+			return null;
+		}
+		OAuth2AuthorizedClient cachedAuthorizedClient = this.authorizedClients
+			.get(new OAuth2AuthorizedClientId(clientRegistrationId, principalName));
+		if (cachedAuthorizedClient == null) {
+			return null;
+		}
+		return (T) new OAuth2AuthorizedClient(registration, cachedAuthorizedClient.getPrincipalName(),
+				cachedAuthorizedClient.getAccessToken(), cachedAuthorizedClient.getRefreshToken());
+	}
+
+	@Override
+	public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+		Assert.notNull(authorizedClient, "authorizedClient cannot be null");
+		Assert.notNull(principal, "principal cannot be null");
+		this.authorizedClients.put(new OAuth2AuthorizedClientId(
+				authorizedClient.getClientRegistration().getRegistrationId(), principal.getName()), authorizedClient);
+	}
+
+	@Override
+	public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+		Assert.hasText(clientRegistrationId, "clientRegistrationId cannot be empty");
+		Assert.hasText(principalName, "principalName cannot be empty");
+		this.authorizedClients.remove(new OAuth2AuthorizedClientId(clientRegistrationId, principalName));
+	}
+
+	/**
+	 * Returns the number of authorized clients currently held, including the expired ones
+	 * that were not removed yet.
+	 * @return the number of authorized clients held
+	 */
+	public int getAuthorizedClientCount() {
+		return this.authorizedClients.size();
+	}
+
+	/**
+	 * Returns the number of authorized clients that were removed since they expired, were
+	 * idle or exceeded the maximum number of authorized clients.
+	 * @return the number of authorized clients removed by this service
+	 */
+	public long getEvictionCount() {
+		return this.authorizedClients.getEvictionCount();
+	}
+
+	/**
+	 * Removes the expired and idle authorized clients. This is invoked periodically and
+	 * does not need to be invoked by applications.
+	 */
+	public void removeExpiredAuthorizedClients() {
+		this.authorizedClients.removeExpired();
+	}
+
+	@Override
+	public void destroy() {
+		this.authorizedClients.destroy();
+	}
+
+	/**
+	 * Sets how long an authorized client can remain unused before it is removed. The
+	 * default is 30 minutes.
+	 * @param maxIdleTime the maximum idle time
+	 */
+	public void setMaxIdleTime(Duration maxIdleTime) {
+		this.authorizedClients.setMaxIdleTime(maxIdleTime);
+	}
+
+	/**
+	 * Sets the maximum number of authorized clients held by this service. When it is
+	 * exceeded, the least recently used authorized clients are removed. The default is
+	 * 10000.
+	 * @param maximumAuthorizedClients the maximum number of authorized clients
+	 */
+	public void setMaximumAuthorizedClients(int maximumAuthorizedClients) {
+		this.authorizedClients.setMaximumAuthorizedClients(maximumAuthorizedClients);
+	}
+
+	/**
+	 * Sets the interval between two removals of the expired and idle authorized clients.
+	 * The default is one minute.
+	 * @param sweepInterval the interval between two removals
+	 */
+	public void setSweepInterval(Duration sweepInterval) {
+		this.authorizedClients.setSweepInterval(sweepInterval);
+	}
+
+	/**
+	 * Sets the {@link TaskScheduler} that removes the expired and idle authorized
+	 * clients. It is not shut down when this service is destroyed. The default is a
+	 * scheduler with a single daemon thread, started when the first authorized client is
+	 * saved.
+	 * @param taskScheduler the {@link TaskScheduler} that removes the authorized clients
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.authorizedClients.setTaskScheduler(taskScheduler);
+	}
+
+	/**
+	 * Sets the {@link Clock} used to check the expiration of the authorized clients.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		this.authorizedClients.setClock(clock);
+	}
+
+}
@@ -22,6 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,6 +33,7 @@ import java.util.function.Function;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
@@ -58,6 +60,13 @@ import org.springframework.util.StringUtils;
  * "classpath:org/springframework/security/oauth2/client/oauth2-client-schema.sql" and
  * therefore MUST be defined in the database schema.
  *
+ * <p>
+ * An authorized client is saved with a single upsert statement on H2, MariaDB, MySQL and
+ * PostgreSQL. On other databases, it is updated and inserted when no row was updated.
+ * Authorized clients can also be cached per node by setting a
+ * {@link #setCacheTimeToLive(Duration) cache time to live}, so that consecutive requests
+ * do not read the same authorized client from the database.
+ *
  * @author Joe Grandja
  * @author Stav Shamir
  * @author Craig Andrews
@@ -106,6 +115,35 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 			+ " WHERE " + PK_FILTER;
 	// @formatter:on
 
+	// @formatter:off
+	private static final String H2_UPSERT_AUTHORIZED_CLIENT_SQL = "MERGE INTO " + TABLE_NAME
+			+ " (" + COLUMN_NAMES + ") KEY (client_registration_id, principal_name)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String MYSQL_UPSERT_AUTHORIZED_CLIENT_SQL = SAVE_AUTHORIZED_CLIENT_SQL
+			+ " ON DUPLICATE KEY UPDATE access_token_type = VALUES(access_token_type),"
+			+ " access_token_value = VALUES(access_token_value),"
+			+ " access_token_issued_at = VALUES(access_token_issued_at),"
+			+ " access_token_expires_at = VALUES(access_token_expires_at),"
+			+ " access_token_scopes = VALUES(access_token_scopes),"
+			+ " refresh_token_value = VALUES(refresh_token_value),"
+			+ " refresh_token_issued_at = VALUES(refresh_token_issued_at)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String POSTGRESQL_UPSERT_AUTHORIZED_CLIENT_SQL = SAVE_AUTHORIZED_CLIENT_SQL
+			+ " ON CONFLICT (client_registration_id, principal_name)"
+			+ " DO UPDATE SET access_token_type = EXCLUDED.access_token_type,"
+			+ " access_token_value = EXCLUDED.access_token_value,"
+			+ " access_token_issued_at = EXCLUDED.access_token_issued_at,"
+			+ " access_token_expires_at = EXCLUDED.access_token_expires_at,"
+			+ " access_token_scopes = EXCLUDED.access_token_scopes,"
+			+ " refresh_token_value = EXCLUDED.refresh_token_value,"
+			+ " refresh_token_issued_at = EXCLUDED.refresh_token_issued_at";
+	// @formatter:on
+
 	protected final JdbcOperations jdbcOperations;
 
 	protected RowMapper<OAuth2AuthorizedClient> authorizedClientRowMapper;
@@ -114,6 +152,12 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 
 	protected final LobHandler lobHandler;
 
+	private final ClientRegistrationRepository clientRegistrationRepository;
+
+	private final AuthorizedClientCache authorizedClientCache = new AuthorizedClientCache();
+
+	private volatile String upsertAuthorizedClientSql;
+
 	/**
 	 * Constructs a {@code JdbcOAuth2AuthorizedClientService} using the provided
 	 * parameters.
@@ -140,6 +184,7 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 		Assert.notNull(lobHandler, "lobHandler cannot be null");
 		this.jdbcOperations = jdbcOperations;
 		this.lobHandler = lobHandler;
+		this.clientRegistrationRepository = clientRegistrationRepository;
 		OAuth2AuthorizedClientRowMapper authorizedClientRowMapper = new OAuth2AuthorizedClientRowMapper(
 				clientRegistrationRepository);
 		authorizedClientRowMapper.setLobHandler(lobHandler);
@@ -153,55 +198,89 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 			String principalName) {
 		Assert.hasText(clientRegistrationId, "clientRegistrationId cannot be empty");
 		Assert.hasText(principalName, "principalName cannot be empty");
+		OAuth2AuthorizedClient cachedAuthorizedClient = this.authorizedClientCache.get(clientRegistrationId,
+				principalName);
+		if (cachedAuthorizedClient != null) {
+			ClientRegistration clientRegistration = this.clientRegistrationRepository
+				.findByRegistrationId(clientRegistrationId);
+			if (clientRegistration != null) {
+				return (T) this.authorizedClientCache.withClientRegistration(cachedAuthorizedClient,
+						clientRegistration);
+			}
+		}
+		long stamp = this.authorizedClientCache.stamp();
 		SqlParameterValue[] parameters = new SqlParameterValue[] {
 				new SqlParameterValue(Types.VARCHAR, clientRegistrationId),
 				new SqlParameterValue(Types.VARCHAR, principalName) };
 		PreparedStatementSetter pss = new ArgumentPreparedStatementSetter(parameters);
 		List<OAuth2AuthorizedClient> result = this.jdbcOperations.query(LOAD_AUTHORIZED_CLIENT_SQL, pss,
 				this.authorizedClientRowMapper);
-		return !result.isEmpty() ? (T) result.get(0) : null;
+		if (result.isEmpty()) {
+			return null;
+		}
+		OAuth2AuthorizedClient authorizedClient = result.get(0);
+		this.authorizedClientCache.put(authorizedClient, stamp);
+		return (T) authorizedClient;
 	}
 
 	@Override
 	public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
 		Assert.notNull(authorizedClient, "authorizedClient cannot be null");
 		Assert.notNull(principal, "principal cannot be null");
-		boolean existsAuthorizedClient = null != this
-			.loadAuthorizedClient(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName());
-		if (existsAuthorizedClient) {
-			updateAuthorizedClient(authorizedClient, principal);
-		}
-		else {
-			try {
-				insertAuthorizedClient(authorizedClient, principal);
+		String clientRegistrationId = authorizedClient.getClientRegistration().getRegistrationId();
+		List<SqlParameterValue> parameters = this.authorizedClientParametersMapper
+			.apply(new OAuth2AuthorizedClientHolder(authorizedClient, principal));
+		try {
+			String upsertAuthorizedClientSql = getUpsertAuthorizedClientSql();
+			if (StringUtils.hasText(upsertAuthorizedClientSql)) {
+				update(upsertAuthorizedClientSql, parameters);
 			}
-			catch (DuplicateKeyException ex) {
-				updateAuthorizedClient(authorizedClient, principal);
+			else if (updateAuthorizedClient(parameters) == 0) {
+				try {
+					update(SAVE_AUTHORIZED_CLIENT_SQL, parameters);
+				}
+				catch (DuplicateKeyException ex) {
+					updateAuthorizedClient(parameters);
+				}
 			}
 		}
+		finally {
+			this.authorizedClientCache.invalidate(clientRegistrationId, principal.getName());
+		}
 	}
 
-	private void updateAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
-		List<SqlParameterValue> parameters = this.authorizedClientParametersMapper
-			.apply(new OAuth2AuthorizedClientHolder(authorizedClient, principal));
-		SqlParameterValue clientRegistrationIdParameter = parameters.remove(0);
-		SqlParameterValue principalNameParameter = parameters.remove(0);
-		parameters.add(clientRegistrationIdParameter);
-		parameters.add(principalNameParameter);
-		try (LobCreator lobCreator = this.lobHandler.getLobCreator()) {
-			PreparedStatementSetter pss = new LobCreatorArgumentPreparedStatementSetter(lobCreator,
-					parameters.toArray());
-			this.jdbcOperations.update(UPDATE_AUTHORIZED_CLIENT_SQL, pss);
+	/**
+	 * Returns the statement inserting or updating an authorized client in the database,
+	 * or an empty {@code String} if the database is not known to support one
+	 */
+	private String getUpsertAuthorizedClientSql() {
+		String upsertAuthorizedClientSql = this.upsertAuthorizedClientSql;
+		if (upsertAuthorizedClientSql == null) {
+			String databaseProductName = this.jdbcOperations.execute(
+					(ConnectionCallback<String>) (connection) -> connection.getMetaData().getDatabaseProductName());
+			upsertAuthorizedClientSql = switch ((databaseProductName != null) ? databaseProductName : "") {
+				case "H2" -> H2_UPSERT_AUTHORIZED_CLIENT_SQL;
+				case "MariaDB", "MySQL" -> MYSQL_UPSERT_AUTHORIZED_CLIENT_SQL;
+				case "PostgreSQL" -> POSTGRESQL_UPSERT_AUTHORIZED_CLIENT_SQL;
+				default -> "";
+			};
+			this.upsertAuthorizedClientSql = upsertAuthorizedClientSql;
 		}
+		return upsertAuthorizedClientSql;
 	}
 
-	private void insertAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
-		List<SqlParameterValue> parameters = this.authorizedClientParametersMapper
-			.apply(new OAuth2AuthorizedClientHolder(authorizedClient, principal));
+	private int updateAuthorizedClient(List<SqlParameterValue> parameters) {
+		List<SqlParameterValue> updateParameters = new ArrayList<>(parameters.subList(2, parameters.size()));
+		updateParameters.add(parameters.get(0));
+		updateParameters.add(parameters.get(1));
+		return update(UPDATE_AUTHORIZED_CLIENT_SQL, updateParameters);
+	}
+
+	private int update(String sql, List<SqlParameterValue> parameters) {
 		try (LobCreator lobCreator = this.lobHandler.getLobCreator()) {
 			PreparedStatementSetter pss = new LobCreatorArgumentPreparedStatementSetter(lobCreator,
 					parameters.toArray());
-			this.jdbcOperations.update(SAVE_AUTHORIZED_CLIENT_SQL, pss);
+			return this.jdbcOperations.update(sql, pss);
 		}
 	}
 
@@ -213,7 +292,12 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 				new SqlParameterValue(Types.VARCHAR, clientRegistrationId),
 				new SqlParameterValue(Types.VARCHAR, principalName) };
 		PreparedStatementSetter pss = new ArgumentPreparedStatementSetter(parameters);
-		this.jdbcOperations.update(REMOVE_AUTHORIZED_CLIENT_SQL, pss);
+		try {
+			this.jdbcOperations.update(REMOVE_AUTHORIZED_CLIENT_SQL, pss);
+		}
+		finally {
+			this.authorizedClientCache.invalidate(clientRegistrationId, principalName);
+		}
 	}
 
 	/**
@@ -241,6 +325,21 @@ public class JdbcOAuth2AuthorizedClientService implements OAuth2AuthorizedClient
 		this.authorizedClientParametersMapper = authorizedClientParametersMapper;
 	}
 
+	/**
+	 * Sets how long a loaded authorized client is cached. An authorized client is never
+	 * cached after its access token expires, and is invalidated when it is saved or
+	 * removed by this service. Since the cache is local to this service, an authorized
+	 * client saved or removed by another node may be used for up to this duration. The
+	 * default is {@link Duration#ZERO}, which disables the cache.
+	 * @param cacheTimeToLive how long a loaded authorized client is cached
+	 * @since 6.5
+	 */
+	public final void setCacheTimeToLive(Duration cacheTimeToLive) {
+		Assert.notNull(cacheTimeToLive, "cacheTimeToLive cannot be null");
+		Assert.isTrue(!cacheTimeToLive.isNegative(), "cacheTimeToLive cannot be negative");
+		this.authorizedClientCache.setTimeToLive(cacheTimeToLive);
+	}
+
 	/**
 	 * The default {@link RowMapper} that maps the current row in
 	 * {@code java.sql.ResultSet} to {@link OAuth2AuthorizedClient}.
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizedClientManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Combines concurrent authorizations of the same client for the same principal, so that
+ * only the first one invokes the {@link OAuth2AuthorizedClientProvider} while the others
+ * wait for and use its result, or its exception.
+ *
+ * <p>
+ * Authorizations are only combined when they start from the same access token and have
+ * the same context attributes, so that the tokens of different sessions or grant
+ * parameters are never mixed. An authorization that was not needed is not shared, and a
+ * caller that waits longer than the join timeout for the one in progress invokes the
+ * {@link OAuth2AuthorizedClientProvider} itself. Principals without a name are not
+ * combined.
+ *
+ * @since 6.5
+ * @see AuthorizedClientServiceOAuth2AuthorizedClientManager#setCoalesceAuthorizations(boolean)
+ * @see DefaultOAuth2AuthorizedClientManager#setCoalesceAuthorizations(boolean)
+ */
+public final class OAuth2AuthorizationCoalescer {
+
+	private final Map<OAuth2AuthorizedClientId, InFlightAuthorization> inFlightAuthorizations = new ConcurrentHashMap<>();
+
+	private final Duration joinTimeout;
+
+	/**
+	 * Constructs an {@code OAuth2AuthorizationCoalescer} that waits up to 10 seconds for
+	 * an authorization in progress.
+	 */
+	public OAuth2AuthorizationCoalescer() {
+		this(Duration.ofSeconds(10));
+	}
+
+	/**
+	 * Constructs an {@code OAuth2AuthorizationCoalescer} using the provided parameters.
+	 * @param joinTimeout how long to wait for an authorization in progress before
+	 * authorizing independently
+	 */
+	public OAuth2AuthorizationCoalescer(Duration joinTimeout) {
+		Assert.notNull(joinTimeout, "joinTimeout cannot be null");
+		Assert.isTrue(!joinTimeout.isNegative(), "joinTimeout cannot be negative");
+		this.joinTimeout = joinTimeout;
+	}
+
+	/**
+	 * Invokes the {@link OAuth2AuthorizedClientProvider} unless the same authorization is
+	 * already in progress, in which case its result is used.
+	 * @param authorizationContext the context to authorize
+	 * @param authorizedClientProvider the provider that performs the authorization
+	 * @return the result of the authorization, or {@code null} if it was not needed
+	 */
+	public OAuth2AuthorizedClient authorize(OAuth2AuthorizationContext authorizationContext,
+			OAuth2AuthorizedClientProvider authorizedClientProvider) {
+		String principalName = authorizationContext.getPrincipal().getName();
+		if (!StringUtils.hasText(principalName)) {
+			return authorizedClientProvider.authorize(authorizationContext);
+		}
+		OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(
+				authorizationContext.getClientRegistration().getRegistrationId(), principalName);
+		InFlightAuthorization authorization = new InFlightAuthorization(authorizationContext);
+		InFlightAuthorization inFlight = this.inFlightAuthorizations.putIfAbsent(id, authorization);
+		if (inFlight != null) {
+			OAuth2AuthorizedClient authorizedClient = inFlight.isFor(authorizationContext)
+					? inFlight.join(this.joinTimeout) : null;
+			return (authorizedClient != null) ? authorizedClient
+					: authorizedClientProvider.authorize(authorizationContext);
+		}
+		try {
+			OAuth2AuthorizedClient authorizedClient = authorizedClientProvider.authorize(authorizationContext);
+			authorization.result.complete(authorizedClient);
+			return authorizedClient;
+		}
+		catch (RuntimeException ex) {
+			authorization.result.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlightAuthorizations.remove(id, authorization);
+			authorization.result.complete(null);
+		}
+	}
+
+	private static final class InFlightAuthorization {
+
+		private final String accessTokenValue;
+
+		private final Map<String, Object> attributes;
+
+		private final CompletableFuture<OAuth2AuthorizedClient> result = new CompletableFuture<>();
+
+		private InFlightAuthorization(OAuth2AuthorizationContext authorizationContext) {
+			this.accessTokenValue = getAccessTokenValue(authorizationContext);
+			this.attributes = authorizationContext.getAttributes();
+		}
+
+		private boolean isFor(OAuth2AuthorizationContext authorizationContext) {
+			return ObjectUtils.nullSafeEquals(this.accessTokenValue, getAccessTokenValue(authorizationContext))
+					&& this.attributes.equals(authorizationContext.getAttributes());
+		}
+
+		/**
+		 * Returns the result of the authorization, or {@code null} if it is not known
+		 * within the timeout
+		 */
+		private OAuth2AuthorizedClient join(Duration timeout) {
+			try {
+				return this.result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+			catch (ExecutionException ex) {
+				if (ex.getCause() instanceof RuntimeException cause) {
+					throw cause;
+				}
+				throw new IllegalStateException(ex.getCause());
+			}
+			catch (TimeoutException ex) {
+				return null;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+
+		private static String getAccessTokenValue(OAuth2AuthorizationContext authorizationContext) {
+			OAuth2AuthorizedClient authorizedClient = authorizationContext.getAuthorizedClient();
+			return (authorizedClient != null) ? authorizedClient.getAccessToken().getTokenValue() : null;
+		}
+
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.security.oauth2.client;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -55,6 +56,13 @@ import org.springframework.util.StringUtils;
  * "classpath:org/springframework/security/oauth2/client/oauth2-client-schema.sql" and
  * therefore MUST be defined in the database schema.
  *
+ * <p>
+ * An authorized client is saved with a single upsert statement on H2, MariaDB, MySQL and
+ * PostgreSQL. On other databases, it is updated and inserted when no row was updated.
+ * Authorized clients can also be cached per node by setting a
+ * {@link #setCacheTimeToLive(Duration) cache time to live}, so that consecutive requests
+ * do not read the same authorized client from the database.
+ *
  * @author Ovidiu Popa
  * @since 5.5
  * @see ReactiveOAuth2AuthorizedClientService
@@ -108,6 +116,40 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 			PK_FILTER;
 	// @formatter:on
 
+	private static final String INSERT_VALUES = " VALUES (:clientRegistrationId, :principalName, :accessTokenType,"
+			+ " :accessTokenValue, :accessTokenIssuedAt, :accessTokenExpiresAt, :accessTokenScopes,"
+			+ " :refreshTokenValue, :refreshTokenIssuedAt)";
+
+	// @formatter:off
+	private static final String H2_UPSERT_AUTHORIZED_CLIENT_SQL = "MERGE INTO " + TABLE_NAME
+			+ " (" + COLUMN_NAMES + ") KEY (client_registration_id, principal_name)" + INSERT_VALUES;
+	// @formatter:on
+
+	// @formatter:off
+	private static final String MYSQL_UPSERT_AUTHORIZED_CLIENT_SQL = "INSERT INTO " + TABLE_NAME
+			+ " (" + COLUMN_NAMES + ")" + INSERT_VALUES
+			+ " ON DUPLICATE KEY UPDATE access_token_type = VALUES(access_token_type),"
+			+ " access_token_value = VALUES(access_token_value),"
+			+ " access_token_issued_at = VALUES(access_token_issued_at),"
+			+ " access_token_expires_at = VALUES(access_token_expires_at),"
+			+ " access_token_scopes = VALUES(access_token_scopes),"
+			+ " refresh_token_value = VALUES(refresh_token_value),"
+			+ " refresh_token_issued_at = VALUES(refresh_token_issued_at)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String POSTGRESQL_UPSERT_AUTHORIZED_CLIENT_SQL = "INSERT INTO " + TABLE_NAME
+			+ " (" + COLUMN_NAMES + ")" + INSERT_VALUES
+			+ " ON CONFLICT (client_registration_id, principal_name)"
+			+ " DO UPDATE SET access_token_type = EXCLUDED.access_token_type,"
+			+ " access_token_value = EXCLUDED.access_token_value,"
+			+ " access_token_issued_at = EXCLUDED.access_token_issued_at,"
+			+ " access_token_expires_at = EXCLUDED.access_token_expires_at,"
+			+ " access_token_scopes = EXCLUDED.access_token_scopes,"
+			+ " refresh_token_value = EXCLUDED.refresh_token_value,"
+			+ " refresh_token_issued_at = EXCLUDED.refresh_token_issued_at";
+	// @formatter:on
+
 	protected final DatabaseClient databaseClient;
 
 	protected final ReactiveClientRegistrationRepository clientRegistrationRepository;
@@ -116,6 +158,10 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 
 	protected BiFunction<Row, RowMetadata, OAuth2AuthorizedClientHolder> authorizedClientRowMapper;
 
+	private final AuthorizedClientCache authorizedClientCache = new AuthorizedClientCache();
+
+	private volatile String upsertAuthorizedClientSql;
+
 	/**
 	 * Constructs a {@code R2dbcReactiveOAuth2AuthorizedClientService} using the provided
 	 * parameters.
@@ -139,12 +185,29 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 		Assert.hasText(clientRegistrationId, "clientRegistrationId cannot be empty");
 		Assert.hasText(principalName, "principalName cannot be empty");
 
-		return (Mono<T>) this.databaseClient.sql(LOAD_AUTHORIZED_CLIENT_SQL)
+		return (Mono<T>) Mono.defer(() -> {
+			OAuth2AuthorizedClient cachedAuthorizedClient = this.authorizedClientCache.get(clientRegistrationId,
+					principalName);
+			if (cachedAuthorizedClient == null) {
+				return loadAuthorizedClientFromDatabase(clientRegistrationId, principalName);
+			}
+			return this.clientRegistrationRepository.findByRegistrationId(clientRegistrationId)
+				.map((clientRegistration) -> this.authorizedClientCache.withClientRegistration(cachedAuthorizedClient,
+						clientRegistration))
+				.switchIfEmpty(Mono.defer(() -> loadAuthorizedClientFromDatabase(clientRegistrationId, principalName)));
+		});
+	}
+
+	private Mono<OAuth2AuthorizedClient> loadAuthorizedClientFromDatabase(String clientRegistrationId,
+			String principalName) {
+		long stamp = this.authorizedClientCache.stamp();
+		return this.databaseClient.sql(LOAD_AUTHORIZED_CLIENT_SQL)
 			.bind("clientRegistrationId", clientRegistrationId)
 			.bind("principalName", principalName)
 			.map(this.authorizedClientRowMapper)
 			.first()
-			.flatMap(this::getAuthorizedClient);
+			.flatMap(this::getAuthorizedClient)
+			.doOnNext((authorizedClient) -> this.authorizedClientCache.put(authorizedClient, stamp));
 	}
 
 	private Mono<OAuth2AuthorizedClient> getAuthorizedClient(OAuth2AuthorizedClientHolder authorizedClientHolder) {
@@ -164,28 +227,46 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 	public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
 		Assert.notNull(authorizedClient, "authorizedClient cannot be null");
 		Assert.notNull(principal, "principal cannot be null");
-		return this
-			.loadAuthorizedClient(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName())
-			.flatMap((dbAuthorizedClient) -> updateAuthorizedClient(authorizedClient, principal))
-			.switchIfEmpty(Mono.defer(() -> insertAuthorizedClient(authorizedClient, principal)))
+		String clientRegistrationId = authorizedClient.getClientRegistration().getRegistrationId();
+		OAuth2AuthorizedClientHolder authorizedClientHolder = new OAuth2AuthorizedClientHolder(authorizedClient,
+				principal);
+		return Mono.defer(() -> {
+			String upsertAuthorizedClientSql = getUpsertAuthorizedClientSql();
+			if (StringUtils.hasText(upsertAuthorizedClientSql)) {
+				return execute(upsertAuthorizedClientSql, authorizedClientHolder);
+			}
+			return execute(UPDATE_AUTHORIZED_CLIENT_SQL, authorizedClientHolder)
+				.filter((rowsUpdated) -> rowsUpdated > 0)
+				.switchIfEmpty(Mono.defer(() -> execute(SAVE_AUTHORIZED_CLIENT_SQL, authorizedClientHolder)));
+		})
+			.doFinally((signalType) -> this.authorizedClientCache.invalidate(clientRegistrationId, principal.getName()))
 			.then();
 	}
 
-	private Mono<Long> updateAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
-		GenericExecuteSpec executeSpec = this.databaseClient.sql(UPDATE_AUTHORIZED_CLIENT_SQL);
-		for (Entry<String, Parameter> entry : this.authorizedClientParametersMapper
-			.apply(new OAuth2AuthorizedClientHolder(authorizedClient, principal))
-			.entrySet()) {
-			executeSpec = executeSpec.bind(entry.getKey(), entry.getValue());
+	/**
+	 * Returns the statement inserting or updating an authorized client in the database,
+	 * or an empty {@code String} if the database is not known to support one
+	 */
+	private String getUpsertAuthorizedClientSql() {
+		String upsertAuthorizedClientSql = this.upsertAuthorizedClientSql;
+		if (upsertAuthorizedClientSql == null) {
+			upsertAuthorizedClientSql = switch (this.databaseClient.getConnectionFactory().getMetadata().getName()) {
+				case "H2" -> H2_UPSERT_AUTHORIZED_CLIENT_SQL;
+				case "MariaDB", "MySQL" -> MYSQL_UPSERT_AUTHORIZED_CLIENT_SQL;
+				case "PostgreSQL" -> POSTGRESQL_UPSERT_AUTHORIZED_CLIENT_SQL;
+				default -> "";
+			};
+			this.upsertAuthorizedClientSql = upsertAuthorizedClientSql;
 		}
-		return executeSpec.fetch().rowsUpdated();
+		return upsertAuthorizedClientSql;
 	}
 
-	private Mono<Long> insertAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
-		GenericExecuteSpec executeSpec = this.databaseClient.sql(SAVE_AUTHORIZED_CLIENT_SQL);
-		for (Entry<String, Parameter> entry : this.authorizedClientParametersMapper
-			.apply(new OAuth2AuthorizedClientHolder(authorizedClient, principal))
-			.entrySet()) {
+	private Mono<Long> execute(String sql, OAuth2AuthorizedClientHolder authorizedClientHolder) {
+		// binding consumes the ByteBuffer values, so each statement maps its own
+		// parameters
+		Map<String, Parameter> parameters = this.authorizedClientParametersMapper.apply(authorizedClientHolder);
+		GenericExecuteSpec executeSpec = this.databaseClient.sql(sql);
+		for (Entry<String, Parameter> entry : parameters.entrySet()) {
 			executeSpec = executeSpec.bind(entry.getKey(), entry.getValue());
 		}
 		return executeSpec.fetch().rowsUpdated();
@@ -198,7 +279,8 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 		return this.databaseClient.sql(REMOVE_AUTHORIZED_CLIENT_SQL)
 			.bind("clientRegistrationId", clientRegistrationId)
 			.bind("principalName", principalName)
-			.then();
+			.then()
+			.doFinally((signalType) -> this.authorizedClientCache.invalidate(clientRegistrationId, principalName));
 	}
 
 	/**
@@ -228,6 +310,21 @@ public class R2dbcReactiveOAuth2AuthorizedClientService implements ReactiveOAuth
 		this.authorizedClientRowMapper = authorizedClientRowMapper;
 	}
 
+	/**
+	 * Sets how long a loaded authorized client is cached. An authorized client is never
+	 * cached after its access token expires, and is invalidated when it is saved or
+	 * removed by this service. Since the cache is local to this service, an authorized
+	 * client saved or removed by another node may be used for up to this duration. The
+	 * default is {@link Duration#ZERO}, which disables the cache.
+	 * @param cacheTimeToLive how long a loaded authorized client is cached
+	 * @since 6.5
+	 */
+	public final void setCacheTimeToLive(Duration cacheTimeToLive) {
+		Assert.notNull(cacheTimeToLive, "cacheTimeToLive cannot be null");
+		Assert.isTrue(!cacheTimeToLive.isNegative(), "cacheTimeToLive cannot be negative");
+		this.authorizedClientCache.setTimeToLive(cacheTimeToLive);
+	}
+
 	/**
 	 * A holder for {@link OAuth2AuthorizedClient} data and End-User
 	 * {@link Authentication} (Resource Owner).
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import org.springframework.security.oauth2.client.web.DefaultReactiveOAuth2AuthorizedClientManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Combines concurrent authorizations of the same client for the same principal, so that
+ * only the first one subscribes to the {@link ReactiveOAuth2AuthorizedClientProvider}
+ * while the others use its result, or its error.
+ *
+ * <p>
+ * Authorizations are only combined when they start from the same access token and have
+ * the same context attributes. An authorization that was not needed or was cancelled is
+ * not shared, and a subscriber that does not receive the result of the authorization in
+ * progress within the join timeout invokes the
+ * {@link ReactiveOAuth2AuthorizedClientProvider} itself. Principals without a name are
+ * not combined.
+ *
+ * @since 6.5
+ * @see AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager#setCoalesceAuthorizations(boolean)
+ * @see DefaultReactiveOAuth2AuthorizedClientManager#setCoalesceAuthorizations(boolean)
+ */
+public final class ReactiveOAuth2AuthorizationCoalescer {
+
+	private final Map<OAuth2AuthorizedClientId, InFlightAuthorization> inFlightAuthorizations = new ConcurrentHashMap<>();
+
+	private final Duration joinTimeout;
+
+	/**
+	 * Constructs a {@code ReactiveOAuth2AuthorizationCoalescer} that waits up to 10
+	 * seconds for an authorization in progress.
+	 */
+	public ReactiveOAuth2AuthorizationCoalescer() {
+		this(Duration.ofSeconds(10));
+	}
+
+	/**
+	 * Constructs a {@code ReactiveOAuth2AuthorizationCoalescer} using the provided
+	 * parameters.
+	 * @param joinTimeout how long to wait for an authorization in progress before
+	 * authorizing independently
+	 */
+	public ReactiveOAuth2AuthorizationCoalescer(Duration joinTimeout) {
+		Assert.notNull(joinTimeout, "joinTimeout cannot be null");
+		Assert.isTrue(!joinTimeout.isNegative(), "joinTimeout cannot be negative");
+		this.joinTimeout = joinTimeout;
+	}
+
+	/**
+	 * Subscribes to the {@link ReactiveOAuth2AuthorizedClientProvider} unless the same
+	 * authorization is already in progress, in which case its result is used.
+	 * @param authorizationContext the context to authorize
+	 * @param authorizedClientProvider the provider that performs the authorization
+	 * @return the result of the authorization, which is empty if it was not needed
+	 */
+	public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizationContext authorizationContext,
+			ReactiveOAuth2AuthorizedClientProvider authorizedClientProvider) {
+		Mono<OAuth2AuthorizedClient> authorize = Mono
+			.defer(() -> authorizedClientProvider.authorize(authorizationContext));
+		String principalName = authorizationContext.getPrincipal().getName();
+		if (!StringUtils.hasText(principalName)) {
+			return authorize;
+		}
+		return Mono.defer(() -> {
+			OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(
+					authorizationContext.getClientRegistration().getRegistrationId(), principalName);
+			InFlightAuthorization authorization = new InFlightAuthorization(authorizationContext);
+			InFlightAuthorization inFlight = this.inFlightAuthorizations.putIfAbsent(id, authorization);
+			if (inFlight != null) {
+				// an empty result means that the authorization in progress is of no use
+				return inFlight.isFor(authorizationContext)
+						? inFlight.result.asMono().timeout(this.joinTimeout, Mono.empty()).switchIfEmpty(authorize)
+						: authorize;
+			}
+			return authorize.doOnNext(authorization.result::tryEmitValue)
+				.doOnError(authorization.result::tryEmitError)
+				.doFinally((signalType) -> {
+					this.inFlightAuthorizations.remove(id, authorization);
+					authorization.result.tryEmitEmpty();
+				});
+		});
+	}
+
+	private static final class InFlightAuthorization {
+
+		private final String accessTokenValue;
+
+		private final Map<String, Object> attributes;
+
+		private final Sinks.One<OAuth2AuthorizedClient> result = Sinks.one();
+
+		private InFlightAuthorization(OAuth2AuthorizationContext authorizationContext) {
+			this.accessTokenValue = getAccessTokenValue(authorizationContext);
+			this.attributes = authorizationContext.getAttributes();
+		}
+
+		private boolean isFor(OAuth2AuthorizationContext authorizationContext) {
+			return ObjectUtils.nullSafeEquals(this.accessTokenValue, getAccessTokenValue(authorizationContext))
+					&& this.attributes.equals(authorizationContext.getAttributes());
+		}
+
+		private static String getAccessTokenValue(OAuth2AuthorizationContext authorizationContext) {
+			OAuth2AuthorizedClient authorizedClient = authorizationContext.getAuthorizedClient();
+			return (authorizedClient != null) ? authorizedClient.getAccessToken().getTokenValue() : null;
+		}
+
+	}
+
+}
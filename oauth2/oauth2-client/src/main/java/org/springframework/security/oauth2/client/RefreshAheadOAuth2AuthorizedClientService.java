@@ -0,0 +1,481 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.log.LogMessage;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OAuth2AuthorizedClientService} that renews the access tokens of the
+ * {@link OAuth2AuthorizedClient}s saved through it in the background, before they expire,
+ * so that requests do not wait for the token endpoint. The authorized clients are stored
+ * by the provided {@link OAuth2AuthorizedClientService}.
+ *
+ * <p>
+ * The access token of a client registered with the
+ * {@link AuthorizationGrantType#CLIENT_CREDENTIALS client_credentials} grant, or
+ * authorized with a refresh token, is renewed once the {@link #setRefreshRatio(double)
+ * refresh ratio} of its lifetime has elapsed, minus a random jitter of up to the
+ * {@link #setJitterRatio(double) jitter ratio} of its lifetime so that the tokens saved
+ * at the same time are not renewed at the same time. When a renewal fails, the current
+ * access token remains in use and the renewal is retried after the
+ * {@link #setRetryInterval(Duration) retry interval}, which doubles after each failure,
+ * until the access token expires. An {@value OAuth2ErrorCodes#INVALID_GRANT} error is not
+ * retried.
+ *
+ * <p>
+ * Each renewal is observed with the {@link #setObservationRegistry(ObservationRegistry)
+ * observation registry} under the name {@value #OBSERVATION_NAME}, with the client
+ * registration, the grant type and the outcome as low cardinality key values and, as a
+ * high cardinality key value, the lag in milliseconds between the time the renewal was
+ * due and the time it started. When a {@link #setMeterRegistry(MeterRegistry) meter
+ * registry} is provided, the lag is also recorded by a {@link Timer} named
+ * {@value #LAG_METER_NAME}, tagged with the client registration, so that its distribution
+ * can be monitored.
+ *
+ * <p>
+ * Only the authorized clients saved through this service since it was created are
+ * renewed, and only as long as they are loaded: an authorized client that was not loaded
+ * during the {@link #setMaxIdleTime(Duration) maximum idle time} before its renewal is
+ * due is no longer renewed in the background, until it is saved again. The renewals run
+ * on a {@link ThreadPoolTaskScheduler} of daemon threads, created when the first renewal
+ * is scheduled and shut down by {@link #destroy()}, unless another
+ * {@link #setTaskScheduler(TaskScheduler) task scheduler} is provided.
+ *
+ * @since 6.5
+ * @see AuthorizedClientServiceOAuth2AuthorizedClientManager
+ */
+public final class RefreshAheadOAuth2AuthorizedClientService implements OAuth2AuthorizedClientService, DisposableBean {
+
+	static final String OBSERVATION_NAME = "spring.security.oauth2.client.token.refreshes";
+
+	static final String LAG_METER_NAME = "spring.security.oauth2.client.token.refresh.lag";
+
+	// the renewals are only invoked when due, so the providers must renew the access
+	// token whatever its expiration
+	private static final Duration RENEW_ALWAYS = Duration.ofDays(36500);
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final OAuth2AuthorizedClientService authorizedClientService;
+
+	private final Map<OAuth2AuthorizedClientId, Refresh> refreshes = new ConcurrentHashMap<>();
+
+	private OAuth2AuthorizedClientProvider authorizedClientProvider = OAuth2AuthorizedClientProviderBuilder.builder()
+		.refreshToken((refreshToken) -> refreshToken.clockSkew(RENEW_ALWAYS))
+		.clientCredentials((clientCredentials) -> clientCredentials.clockSkew(RENEW_ALWAYS))
+		.build();
+
+	private final Object schedulerLock = new Object();
+
+	private volatile TaskScheduler taskScheduler;
+
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	private boolean destroyed;
+
+	private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+	private MeterRegistry meterRegistry;
+
+	private Clock clock = Clock.systemUTC();
+
+	private double refreshRatio = 0.75;
+
+	private double jitterRatio = 0.1;
+
+	private Duration retryInterval = Duration.ofSeconds(5);
+
+	private long maxIdleTimeMillis = Duration.ofHours(1).toMillis();
+
+	/**
+	 * Constructs a {@code RefreshAheadOAuth2AuthorizedClientService} using the provided
+	 * parameters.
+	 * @param authorizedClientService the service storing the authorized clients
+	 */
+	public RefreshAheadOAuth2AuthorizedClientService(OAuth2AuthorizedClientService authorizedClientService) {
+		Assert.notNull(authorizedClientService, "authorizedClientService cannot be null");
+		this.authorizedClientService = authorizedClientService;
+	}
+
+	@Override
+	public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+			String principalName) {
+		T authorizedClient = this.authorizedClientService.loadAuthorizedClient(clientRegistrationId, principalName);
+		if (authorizedClient != null) {
+			Refresh refresh = this.refreshes.get(new OAuth2AuthorizedClientId(clientRegistrationId, principalName));
+			if (refresh != null) {
+				refresh.lastUsedTime = this.clock.millis();
+			}
+		}
+		return authorizedClient;
+	}
+
+	@Override
+	public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+		save(authorizedClient, principal, this.clock.millis());
+	}
+
+	private void save(OAuth2AuthorizedClient authorizedClient, Authentication principal, long lastUsedTime) {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, principal);
+		OAuth2AuthorizedClientId id = new OAuth2AuthorizedClientId(
+				authorizedClient.getClientRegistration().getRegistrationId(), principal.getName());
+		Instant refreshAt = getRefreshTime(authorizedClient);
+		if (refreshAt == null) {
+			cancel(this.refreshes.remove(id));
+			return;
+		}
+		schedule(id, new Refresh(authorizedClient, principal, refreshAt, 0, lastUsedTime));
+	}
+
+	@Override
+	public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+		cancel(this.refreshes.remove(new OAuth2AuthorizedClientId(clientRegistrationId, principalName)));
+		this.authorizedClientService.removeAuthorizedClient(clientRegistrationId, principalName);
+	}
+
+	/**
+	 * Returns the time at which the access token of the provided client should be
+	 * renewed, or {@code null} if it cannot be renewed in the background
+	 */
+	private Instant getRefreshTime(OAuth2AuthorizedClient authorizedClient) {
+		OAuth2AccessToken accessToken = authorizedClient.getAccessToken();
+		if (accessToken.getIssuedAt() == null || accessToken.getExpiresAt() == null) {
+			return null;
+		}
+		if (authorizedClient.getRefreshToken() == null && !AuthorizationGrantType.CLIENT_CREDENTIALS
+			.equals(authorizedClient.getClientRegistration().getAuthorizationGrantType())) {
+			return null;
+		}
+		long lifetime = Duration.between(accessToken.getIssuedAt(), accessToken.getExpiresAt()).toMillis();
+		if (lifetime <= 0) {
+			return null;
+		}
+		long jitter = (long) (lifetime * this.jitterRatio * ThreadLocalRandom.current().nextDouble());
+		return accessToken.getIssuedAt().plusMillis((long) (lifetime * this.refreshRatio) - jitter);
+	}
+
+	private void schedule(OAuth2AuthorizedClientId id, Refresh refresh) {
+		cancel(this.refreshes.put(id, refresh));
+		scheduleRefresh(id, refresh);
+	}
+
+	private void scheduleRefresh(OAuth2AuthorizedClientId id, Refresh refresh) {
+		TaskScheduler taskScheduler = getTaskScheduler();
+		if (taskScheduler == null) {
+			this.refreshes.remove(id, refresh);
+			return;
+		}
+		try {
+			refresh.future = taskScheduler.schedule(() -> refresh(id, refresh), refresh.refreshAt);
+		}
+		catch (TaskRejectedException ex) {
+			// destroyed concurrently
+			this.refreshes.remove(id, refresh);
+		}
+	}
+
+	/**
+	 * Returns the {@link TaskScheduler} running the renewals, creating the default one on
+	 * first use, or {@code null} if this service is destroyed
+	 */
+	private TaskScheduler getTaskScheduler() {
+		TaskScheduler taskScheduler = this.taskScheduler;
+		if (taskScheduler != null) {
+			return taskScheduler;
+		}
+		synchronized (this.schedulerLock) {
+			if (this.taskScheduler == null && !this.destroyed) {
+				this.defaultTaskScheduler = createTaskScheduler();
+				this.taskScheduler = this.defaultTaskScheduler;
+			}
+			return this.taskScheduler;
+		}
+	}
+
+	private static ThreadPoolTaskScheduler createTaskScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setPoolSize(2);
+		taskScheduler.setThreadNamePrefix("spring-oauth2-token-refresh-");
+		taskScheduler.setDaemon(true);
+		taskScheduler.initialize();
+		return taskScheduler;
+	}
+
+	private void cancel(Refresh refresh) {
+		if (refresh != null && refresh.future != null) {
+			refresh.future.cancel(false);
+		}
+	}
+
+	private void refresh(OAuth2AuthorizedClientId id, Refresh refresh) {
+		if (this.refreshes.get(id) != refresh) {
+			return;
+		}
+		Instant now = this.clock.instant();
+		if (now.toEpochMilli() - refresh.lastUsedTime > this.maxIdleTimeMillis) {
+			this.logger.debug(LogMessage.format(
+					"Stopped refreshing access token of client '%s' for principal '%s' since it is no longer used",
+					id.getClientRegistrationId(), id.getPrincipalName()));
+			this.refreshes.remove(id, refresh);
+			return;
+		}
+		ClientRegistration clientRegistration = refresh.authorizedClient.getClientRegistration();
+		Duration lag = Duration.between(refresh.refreshAt, now);
+		if (this.meterRegistry != null) {
+			recordLag(clientRegistration, lag);
+		}
+		Observation observation = Observation.createNotStarted(OBSERVATION_NAME, this.observationRegistry)
+			.contextualName("refresh " + clientRegistration.getRegistrationId())
+			.lowCardinalityKeyValue("client.registration.id", clientRegistration.getRegistrationId())
+			.lowCardinalityKeyValue("authorization.grant.type", getGrantType(refresh.authorizedClient))
+			.highCardinalityKeyValue("refresh.lag", String.valueOf(lag.toMillis()))
+			.start();
+		try {
+			OAuth2AuthorizationContext authorizationContext = OAuth2AuthorizationContext
+				.withAuthorizedClient(refresh.authorizedClient)
+				.principal(refresh.principal)
+				.build();
+			OAuth2AuthorizedClient authorizedClient = this.authorizedClientProvider.authorize(authorizationContext);
+			observation.lowCardinalityKeyValue("refresh.result", (authorizedClient != null) ? "success" : "n/a");
+			if (authorizedClient == null) {
+				this.refreshes.remove(id, refresh);
+				return;
+			}
+			this.logger.debug(LogMessage.format("Refreshed access token of client '%s' for principal '%s'",
+					id.getClientRegistrationId(), id.getPrincipalName()));
+			if (this.refreshes.get(id) == refresh) {
+				save(authorizedClient, refresh.principal, refresh.lastUsedTime);
+			}
+		}
+		catch (RuntimeException ex) {
+			observation.lowCardinalityKeyValue("refresh.result", "failure");
+			observation.error(ex);
+			retry(id, refresh, ex);
+		}
+		finally {
+			observation.stop();
+		}
+	}
+
+	private void retry(OAuth2AuthorizedClientId id, Refresh refresh, RuntimeException ex) {
+		Instant retryAt = this.clock.instant()
+			.plus(this.retryInterval.multipliedBy(1L << Math.min(refresh.failures, 16)));
+		Instant expiresAt = refresh.authorizedClient.getAccessToken().getExpiresAt();
+		if (isInvalidGrant(ex) || !retryAt.isBefore(expiresAt)) {
+			this.logger.debug(LogMessage.format(
+					"Failed to refresh access token of client '%s' for principal '%s', "
+							+ "which will be renewed when it is used after it expires",
+					id.getClientRegistrationId(), id.getPrincipalName()), ex);
+			this.refreshes.remove(id, refresh);
+			return;
+		}
+		this.logger.debug(LogMessage.format(
+				"Failed to refresh access token of client '%s' for principal '%s', " + "retrying at %s",
+				id.getClientRegistrationId(), id.getPrincipalName(), retryAt), ex);
+		Refresh next = new Refresh(refresh.authorizedClient, refresh.principal, retryAt, refresh.failures + 1,
+				refresh.lastUsedTime);
+		if (this.refreshes.replace(id, refresh, next)) {
+			scheduleRefresh(id, next);
+		}
+	}
+
+	private void recordLag(ClientRegistration clientRegistration, Duration lag) {
+		Timer.builder(LAG_METER_NAME)
+			.description("Time between the moment an access token renewal is due and the moment it starts")
+			.tag("client.registration.id", clientRegistration.getRegistrationId())
+			.register(this.meterRegistry)
+			.record(lag.isNegative() ? Duration.ZERO : lag);
+	}
+
+	private static boolean isInvalidGrant(RuntimeException ex) {
+		return ex instanceof OAuth2AuthorizationException authorizationException
+				&& OAuth2ErrorCodes.INVALID_GRANT.equals(authorizationException.getError().getErrorCode());
+	}
+
+	private static String getGrantType(OAuth2AuthorizedClient authorizedClient) {
+		if (authorizedClient.getRefreshToken() != null) {
+			return AuthorizationGrantType.REFRESH_TOKEN.getValue();
+		}
+		return authorizedClient.getClientRegistration().getAuthorizationGrantType().getValue();
+	}
+
+	@Override
+	public void destroy() {
+		this.refreshes.values().forEach(this::cancel);
+		this.refreshes.clear();
+		synchronized (this.schedulerLock) {
+			this.destroyed = true;
+			if (this.defaultTaskScheduler != null) {
+				this.defaultTaskScheduler.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Sets the {@link OAuth2AuthorizedClientProvider} used to renew the access tokens. It
+	 * must renew the access token of the provided client whenever it is invoked. The
+	 * default supports the {@code refresh_token} and {@code client_credentials} grants.
+	 * @param authorizedClientProvider the {@link OAuth2AuthorizedClientProvider} used to
+	 * renew the access tokens
+	 */
+	public void setAuthorizedClientProvider(OAuth2AuthorizedClientProvider authorizedClientProvider) {
+		Assert.notNull(authorizedClientProvider, "authorizedClientProvider cannot be null");
+		this.authorizedClientProvider = authorizedClientProvider;
+	}
+
+	/**
+	 * Sets the {@link TaskScheduler} running the renewals, which is not shut down by
+	 * {@link #destroy()}. By default, a {@link ThreadPoolTaskScheduler} of two daemon
+	 * threads is created when the first renewal is scheduled.
+	 * @param taskScheduler the {@link TaskScheduler} running the renewals
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "taskScheduler cannot be null");
+		synchronized (this.schedulerLock) {
+			Assert.state(this.defaultTaskScheduler == null,
+					"taskScheduler cannot be set once authorized clients were saved");
+			this.taskScheduler = taskScheduler;
+		}
+	}
+
+	/**
+	 * Sets the {@link ObservationRegistry} used to observe the renewals. The default does
+	 * not observe them.
+	 * @param observationRegistry the {@link ObservationRegistry} to use
+	 */
+	public void setObservationRegistry(ObservationRegistry observationRegistry) {
+		Assert.notNull(observationRegistry, "observationRegistry cannot be null");
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Sets the {@link MeterRegistry} recording the lag of the renewals in a
+	 * {@link Timer}. The default does not record it.
+	 * @param meterRegistry the {@link MeterRegistry} to use
+	 */
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry cannot be null");
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to compute the retries and the lag of the renewals.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the fraction of the lifetime of an access token after which it is renewed. The
+	 * default is 0.75.
+	 * @param refreshRatio the fraction of the lifetime after which an access token is
+	 * renewed, greater than 0 and less than 1
+	 */
+	public void setRefreshRatio(double refreshRatio) {
+		Assert.isTrue(refreshRatio > 0 && refreshRatio < 1, "refreshRatio must be greater than 0 and less than 1");
+		Assert.isTrue(this.jitterRatio < refreshRatio, "refreshRatio must be greater than jitterRatio");
+		this.refreshRatio = refreshRatio;
+	}
+
+	/**
+	 * Sets the largest fraction of the lifetime of an access token by which its renewal
+	 * is randomly brought forward. The default is 0.1.
+	 * @param jitterRatio the largest fraction of the lifetime by which a renewal is
+	 * brought forward, positive or 0 and less than the refresh ratio
+	 */
+	public void setJitterRatio(double jitterRatio) {
+		Assert.isTrue(jitterRatio >= 0, "jitterRatio cannot be negative");
+		Assert.isTrue(jitterRatio < this.refreshRatio, "jitterRatio must be less than refreshRatio");
+		this.jitterRatio = jitterRatio;
+	}
+
+	/**
+	 * Sets the time after which a failed renewal is retried the first time, doubling
+	 * after each failure. The default is 5 seconds.
+	 * @param retryInterval the time after which a failed renewal is first retried
+	 */
+	public void setRetryInterval(Duration retryInterval) {
+		Assert.notNull(retryInterval, "retryInterval cannot be null");
+		Assert.isTrue(!retryInterval.isNegative() && !retryInterval.isZero(), "retryInterval must be positive");
+		this.retryInterval = retryInterval;
+	}
+
+	/**
+	 * Sets how long an authorized client can remain without being loaded before its
+	 * access token is no longer renewed in the background. The default is one hour.
+	 * @param maxIdleTime the maximum idle time
+	 */
+	public void setMaxIdleTime(Duration maxIdleTime) {
+		Assert.notNull(maxIdleTime, "maxIdleTime cannot be null");
+		Assert.isTrue(!maxIdleTime.isNegative() && !maxIdleTime.isZero(), "maxIdleTime must be positive");
+		this.maxIdleTimeMillis = maxIdleTime.toMillis();
+	}
+
+	private static final class Refresh {
+
+		private final OAuth2AuthorizedClient authorizedClient;
+
+		private final Authentication principal;
+
+		private final Instant refreshAt;
+
+		private final int failures;
+
+		private volatile ScheduledFuture<?> future;
+
+		private volatile long lastUsedTime;
+
+		private Refresh(OAuth2AuthorizedClient authorizedClient, Authentication principal, Instant refreshAt,
+				int failures, long lastUsedTime) {
+			this.authorizedClient = authorizedClient;
+			this.principal = principal;
+			this.refreshAt = refreshAt;
+			this.failures = failures;
+			this.lastUsedTime = lastUsedTime;
+		}
+
+	}
+
+}
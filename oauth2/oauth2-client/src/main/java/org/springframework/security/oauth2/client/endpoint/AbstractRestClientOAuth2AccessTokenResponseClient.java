@@ -21,6 +21,7 @@ import java.util.function.Consumer;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.security.oauth2.client.http.OAuth2ClientHttpTransport;
 import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
@@ -43,6 +44,10 @@ import org.springframework.web.client.RestClientException;
  * Submits a form request body specific to the type of grant request and accepts a JSON
  * response body containing an OAuth 2.0 Access Token Response or OAuth 2.0 Error
  * Response.
+ * <p>
+ * By default, the requests are sent through the
+ * {@link OAuth2ClientHttpTransport#getDefault() default transport}, which reuses the
+ * connections to the Authorization Server and observes each request.
  *
  * @param <T> type of grant request
  * @author Steve Riesenberg
@@ -63,6 +68,7 @@ public abstract class AbstractRestClientOAuth2AccessTokenResponseClient<T extend
 
 	// @formatter:off
 	private RestClient restClient = RestClient.builder()
+			.requestFactory(OAuth2ClientHttpTransport.getDefault().getRequestFactory())
 			.messageConverters((messageConverters) -> {
 				messageConverters.clear();
 				messageConverters.add(new FormHttpMessageConverter());
@@ -136,6 +142,8 @@ public abstract class AbstractRestClientOAuth2AccessTokenResponseClient<T extend
 
 		return this.restClient.post()
 			.uri(grantRequest.getClientRegistration().getProviderDetails().getTokenUri())
+			.attributes(OAuth2ClientHttpTransport
+				.clientRegistrationId(grantRequest.getClientRegistration().getRegistrationId()))
 			.headers((headers) -> {
 				HttpHeaders headersToAdd = this.headersConverter.convert(grantRequest);
 				if (headersToAdd != null) {
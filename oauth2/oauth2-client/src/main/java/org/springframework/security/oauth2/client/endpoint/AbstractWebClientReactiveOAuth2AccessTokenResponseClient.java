@@ -23,6 +23,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.security.oauth2.client.http.OAuth2ClientHttpTransport;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
@@ -62,7 +63,9 @@ import org.springframework.web.reactive.function.client.WebClient.RequestHeaders
 public abstract class AbstractWebClientReactiveOAuth2AccessTokenResponseClient<T extends AbstractOAuth2AuthorizationGrantRequest>
 		implements ReactiveOAuth2AccessTokenResponseClient<T> {
 
-	private WebClient webClient = WebClient.builder().build();
+	private WebClient webClient = WebClient.builder()
+		.clientConnector(OAuth2ClientHttpTransport.getDefault().getConnector())
+		.build();
 
 	private Converter<T, RequestHeadersSpec<?>> requestEntityConverter = this::validatingPopulateRequest;
 
@@ -117,6 +120,8 @@ public abstract class AbstractWebClientReactiveOAuth2AccessTokenResponseClient<T
 
 		return this.webClient.post()
 			.uri(grantRequest.getClientRegistration().getProviderDetails().getTokenUri())
+			.attributes(OAuth2ClientHttpTransport
+				.clientRegistrationId(grantRequest.getClientRegistration().getRegistrationId()))
 			.headers((headers) -> {
 				HttpHeaders headersToAdd = this.headersConverter.convert(grantRequest);
 				if (headersToAdd != null) {
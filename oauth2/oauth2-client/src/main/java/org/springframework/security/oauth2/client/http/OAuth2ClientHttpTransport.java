@@ -0,0 +1,428 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.util.Assert;
+
+/**
+ * The HTTP transport used by default to call the Authorization Server, that is the Token
+ * Endpoint, the UserInfo Endpoint and the discovery endpoints of
+ * {@link org.springframework.security.oauth2.client.registration.ClientRegistrations}.
+ *
+ * <p>
+ * A transport is backed by a single {@link HttpClient}, which keeps the connections alive
+ * to reuse them across requests and negotiates HTTP/2 with the servers supporting it. The
+ * blocking requests sent through {@link #getRequestFactory()} are limited to
+ * {@link Builder#maxConcurrentRequestsPerHost(int) a maximum number of concurrent
+ * requests} to each host, and thus of connections to each Authorization Server. As with
+ * {@link org.springframework.http.client.SimpleClientHttpRequestFactory}, the redirects
+ * of the blocking {@code GET} requests are followed, except from {@code https} to
+ * {@code http}, while those of the other requests are not.
+ *
+ * <p>
+ * Each request, blocking or not, is observed with a {@link #OBSERVATION_NAME} observation
+ * whose low cardinality keys are the {@code client.registration.id} provided with
+ * {@link #clientRegistrationId(String)}, the {@code client.name} (the host), the
+ * {@code method} and the {@code status} of the response. The requests sent through the
+ * transport used by default are not observed until an {@link ObservationRegistry} is set
+ * with {@link #setObservationRegistry(ObservationRegistry)}, for example:
+ *
+ * <pre>
+ * OAuth2ClientHttpTransport.getDefault().setObservationRegistry(observationRegistry);
+ * </pre>
+ *
+ * <p>
+ * The transport used by default can be replaced by supplying a {@code RestClient},
+ * {@code RestOperations} or {@code WebClient} created with another transport, for
+ * example:
+ *
+ * <pre>
+ * OAuth2ClientHttpTransport transport = OAuth2ClientHttpTransport.builder()
+ * 	.readTimeout(Duration.ofSeconds(5))
+ * 	.maxConcurrentRequestsPerHost(20)
+ * 	.observationRegistry(observationRegistry)
+ * 	.build();
+ * RestClient restClient = RestClient.builder()
+ * 	.requestFactory(transport.getRequestFactory())
+ * 	...
+ * 	.build();
+ * </pre>
+ *
+ * @since 6.5
+ */
+public final class OAuth2ClientHttpTransport {
+
+	/**
+	 * The name of the observation of each request sent through a transport.
+	 */
+	public static final String OBSERVATION_NAME = "spring.security.oauth2.client.http.requests";
+
+	private static final String CLIENT_REGISTRATION_ID_ATTR_NAME = OAuth2ClientHttpTransport.class.getName()
+		.concat(".clientRegistrationId");
+
+	private static final String NONE = "none";
+
+	private final HttpClient httpClient;
+
+	private final Duration readTimeout;
+
+	private final int maxConcurrentRequestsPerHost;
+
+	private volatile ObservationRegistry observationRegistry;
+
+	private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private volatile ClientHttpConnector connector;
+
+	private OAuth2ClientHttpTransport(Builder builder) {
+		this.httpClient = httpClient(builder, HttpClient.Redirect.NEVER);
+		this.readTimeout = builder.readTimeout;
+		this.maxConcurrentRequestsPerHost = builder.maxConcurrentRequestsPerHost;
+		this.observationRegistry = builder.observationRegistry;
+		// the redirects can only be followed per client, so GET requests get their own
+		ClientHttpRequestFactory getRequestFactory = jdkRequestFactory(httpClient(builder, HttpClient.Redirect.NORMAL));
+		ClientHttpRequestFactory requestFactory = jdkRequestFactory(this.httpClient);
+		this.requestFactory = new InterceptingClientHttpRequestFactory(
+				(uri, method) -> (HttpMethod.GET.equals(method) ? getRequestFactory : requestFactory).createRequest(uri,
+						method),
+				List.of(this::intercept));
+	}
+
+	private static HttpClient httpClient(Builder builder, HttpClient.Redirect redirect) {
+		return HttpClient.newBuilder()
+			.connectTimeout(builder.connectTimeout)
+			.version(builder.version)
+			.followRedirects(redirect)
+			.build();
+	}
+
+	private ClientHttpRequestFactory jdkRequestFactory(HttpClient httpClient) {
+		JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+		requestFactory.setReadTimeout(this.readTimeout);
+		return requestFactory;
+	}
+
+	/**
+	 * Returns the transport used by default, created on first use with the defaults of
+	 * {@link Builder}.
+	 * @return the transport used by default
+	 */
+	public static OAuth2ClientHttpTransport getDefault() {
+		return DefaultTransportHolder.TRANSPORT;
+	}
+
+	/**
+	 * Returns a new {@link Builder}.
+	 * @return the {@link Builder}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Modifies the attributes of a request to include the
+	 * {@link ClientRegistration#getRegistrationId() clientRegistrationId} the request is
+	 * sent for, which is then used to observe the request.
+	 * @param clientRegistrationId the {@link ClientRegistration#getRegistrationId()
+	 * clientRegistrationId} the request is sent for
+	 * @return the {@link Consumer} to populate the attributes
+	 */
+	public static Consumer<Map<String, Object>> clientRegistrationId(String clientRegistrationId) {
+		Assert.hasText(clientRegistrationId, "clientRegistrationId cannot be empty");
+		return (attributes) -> attributes.put(CLIENT_REGISTRATION_ID_ATTR_NAME, clientRegistrationId);
+	}
+
+	/**
+	 * Sets the {@link ObservationRegistry} used to observe the requests sent through this
+	 * transport from now on, which is mostly useful to observe those sent through
+	 * {@link #getDefault() the transport used by default}.
+	 * @param observationRegistry the {@link ObservationRegistry}
+	 */
+	public void setObservationRegistry(ObservationRegistry observationRegistry) {
+		Assert.notNull(observationRegistry, "observationRegistry cannot be null");
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Returns the {@link ClientHttpRequestFactory} sending blocking requests through this
+	 * transport.
+	 * @return the {@link ClientHttpRequestFactory}
+	 */
+	public ClientHttpRequestFactory getRequestFactory() {
+		return this.requestFactory;
+	}
+
+	/**
+	 * Returns the {@link ClientHttpConnector} sending reactive requests through this
+	 * transport, which requires {@code spring-webflux}.
+	 * @return the {@link ClientHttpConnector}
+	 */
+	public ClientHttpConnector getConnector() {
+		ClientHttpConnector connector = this.connector;
+		if (connector == null) {
+			JdkClientHttpConnector jdkConnector = new JdkClientHttpConnector(this.httpClient);
+			jdkConnector.setReadTimeout(this.readTimeout);
+			connector = new ObservingClientHttpConnector(jdkConnector, this);
+			this.connector = connector;
+		}
+		return connector;
+	}
+
+	Observation createObservation(HttpMethod method, URI uri, Map<String, Object> attributes) {
+		return Observation.createNotStarted(OBSERVATION_NAME, this.observationRegistry)
+			.lowCardinalityKeyValue("client.registration.id", getClientRegistrationId(attributes))
+			.lowCardinalityKeyValue("client.name", (uri.getHost() != null) ? uri.getHost() : NONE)
+			.lowCardinalityKeyValue("method", method.name())
+			.lowCardinalityKeyValue("status", NONE);
+	}
+
+	static String getClientRegistrationId(Map<String, Object> attributes) {
+		Object clientRegistrationId = attributes.get(CLIENT_REGISTRATION_ID_ATTR_NAME);
+		return (clientRegistrationId != null) ? clientRegistrationId.toString() : NONE;
+	}
+
+	static void recordStatus(Observation observation, HttpStatusCode statusCode) {
+		observation.lowCardinalityKeyValue("status", String.valueOf(statusCode.value()));
+	}
+
+	private ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		Semaphore permits = acquirePermit(request.getURI());
+		Observation observation = createObservation(request.getMethod(), request.getURI(), request.getAttributes())
+			.start();
+		try {
+			ClientHttpResponse response = execution.execute(request, body);
+			recordStatus(observation, response.getStatusCode());
+			return new ReleasingClientHttpResponse(response, permits, observation);
+		}
+		catch (IOException | RuntimeException ex) {
+			observation.lowCardinalityKeyValue("status", "IO_ERROR");
+			observation.error(ex);
+			observation.stop();
+			if (permits != null) {
+				permits.release();
+			}
+			throw ex;
+		}
+	}
+
+	private Semaphore acquirePermit(URI uri) throws IOException {
+		if (this.maxConcurrentRequestsPerHost == Integer.MAX_VALUE || uri.getAuthority() == null) {
+			return null;
+		}
+		Semaphore permits = this.permitsByHost.computeIfAbsent(uri.getAuthority(),
+				(host) -> new Semaphore(this.maxConcurrentRequestsPerHost));
+		try {
+			if (!permits.tryAcquire(this.readTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new IOException("Timed out waiting for one of the " + this.maxConcurrentRequestsPerHost
+						+ " concurrent requests to " + uri.getAuthority() + " to complete");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to send a request to " + uri.getAuthority());
+		}
+		return permits;
+	}
+
+	/**
+	 * A builder of {@link OAuth2ClientHttpTransport}.
+	 */
+	public static final class Builder {
+
+		private Duration connectTimeout = Duration.ofSeconds(30);
+
+		private Duration readTimeout = Duration.ofSeconds(30);
+
+		private int maxConcurrentRequestsPerHost = 100;
+
+		private HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+		private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the maximum duration to establish a connection. The default is 30 seconds.
+		 * @param connectTimeout the maximum duration to establish a connection
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder connectTimeout(Duration connectTimeout) {
+			Assert.notNull(connectTimeout, "connectTimeout cannot be null");
+			Assert.isTrue(!connectTimeout.isNegative() && !connectTimeout.isZero(), "connectTimeout must be positive");
+			this.connectTimeout = connectTimeout;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum duration to receive a response, which is also the maximum
+		 * duration a request waits for another one to the same host to complete when the
+		 * maximum number of concurrent requests is reached. The default is 30 seconds.
+		 * @param readTimeout the maximum duration to receive a response
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder readTimeout(Duration readTimeout) {
+			Assert.notNull(readTimeout, "readTimeout cannot be null");
+			Assert.isTrue(!readTimeout.isNegative() && !readTimeout.isZero(), "readTimeout must be positive");
+			this.readTimeout = readTimeout;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of concurrent blocking requests to each host, use
+		 * {@link Integer#MAX_VALUE} to not limit them. The default is 100.
+		 * @param maxConcurrentRequestsPerHost the maximum number of concurrent requests
+		 * to each host
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder maxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+			Assert.isTrue(maxConcurrentRequestsPerHost > 0, "maxConcurrentRequestsPerHost must be greater than 0");
+			this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+			return this;
+		}
+
+		/**
+		 * Sets the preferred HTTP version. The default is
+		 * {@link HttpClient.Version#HTTP_2}, which falls back to HTTP/1.1 with the
+		 * servers not supporting HTTP/2.
+		 * @param version the preferred HTTP version
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder version(HttpClient.Version version) {
+			Assert.notNull(version, "version cannot be null");
+			this.version = version;
+			return this;
+		}
+
+		/**
+		 * Sets the {@link ObservationRegistry} used to observe the requests. The default
+		 * is {@link ObservationRegistry#NOOP}.
+		 * @param observationRegistry the {@link ObservationRegistry}
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder observationRegistry(ObservationRegistry observationRegistry) {
+			Assert.notNull(observationRegistry, "observationRegistry cannot be null");
+			this.observationRegistry = observationRegistry;
+			return this;
+		}
+
+		/**
+		 * Builds the {@link OAuth2ClientHttpTransport}.
+		 * @return the {@link OAuth2ClientHttpTransport}
+		 */
+		public OAuth2ClientHttpTransport build() {
+			return new OAuth2ClientHttpTransport(this);
+		}
+
+	}
+
+	private static final class DefaultTransportHolder {
+
+		private static final OAuth2ClientHttpTransport TRANSPORT = builder().build();
+
+	}
+
+	/**
+	 * Releases the permit of a request and stops its observation once its response is
+	 * closed.
+	 */
+	private static final class ReleasingClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+
+		private final Semaphore permits;
+
+		private final Observation observation;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private ReleasingClientHttpResponse(ClientHttpResponse delegate, Semaphore permits, Observation observation) {
+			this.delegate = delegate;
+			this.permits = permits;
+			this.observation = observation;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return this.delegate.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.delegate.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.delegate.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return this.delegate.getBody();
+		}
+
+		@Override
+		public void close() {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				if (this.closed.compareAndSet(false, true)) {
+					this.observation.stop();
+					if (this.permits != null) {
+						this.permits.release();
+					}
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.http;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.function.Function;
+
+import io.micrometer.observation.Observation;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpConnector} observing the requests sent through an
+ * {@link OAuth2ClientHttpTransport}.
+ *
+ * @since 6.5
+ */
+final class ObservingClientHttpConnector implements ClientHttpConnector {
+
+	private final ClientHttpConnector delegate;
+
+	private final OAuth2ClientHttpTransport transport;
+
+	ObservingClientHttpConnector(ClientHttpConnector delegate, OAuth2ClientHttpTransport transport) {
+		this.delegate = delegate;
+		this.transport = transport;
+	}
+
+	@Override
+	public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+			Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+		return Mono.defer(() -> {
+			Observation observation = this.transport.createObservation(method, uri, Collections.emptyMap()).start();
+			return this.delegate.connect(method, uri, (request) -> {
+				Mono<Void> write = requestCallback.apply(request);
+				// the attributes of the request are copied by the callback
+				observation.lowCardinalityKeyValue("client.registration.id",
+						OAuth2ClientHttpTransport.getClientRegistrationId(request.getAttributes()));
+				return write;
+			})
+				.doOnNext((response) -> OAuth2ClientHttpTransport.recordStatus(observation, response.getStatusCode()))
+				.doOnError((ex) -> {
+					observation.lowCardinalityKeyValue("status", "IO_ERROR");
+					observation.error(ex);
+				})
+				.doFinally((signalType) -> observation.stop());
+		});
+	}
+
+}
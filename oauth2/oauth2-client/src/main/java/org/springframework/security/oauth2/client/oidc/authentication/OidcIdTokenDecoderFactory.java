@@ -22,14 +22,28 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import javax.crypto.spec.SecretKeySpec;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.log.LogMessage;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2Error;
@@ -38,6 +52,7 @@ import org.springframework.security.oauth2.core.converter.ClaimConversionService
 import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
 import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
 import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
 import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
@@ -55,6 +70,12 @@ import org.springframework.util.StringUtils;
  * {@link OidcIdToken} signature verification. The provided {@link JwtDecoder} is
  * associated to a specific {@link ClientRegistration}.
  *
+ * <p>
+ * The {@link JwtDecoder}s of the {@link ClientRegistration}s sharing a JWK Set URI, such
+ * as the tenants of the same issuer, share the JWK Set retrieved from it. The JWK Sets
+ * can be retrieved ahead of the first authentications with
+ * {@link #prefetchJwkSets(Iterable)}.
+ *
  * @author Joe Grandja
  * @author Rafael Dominguez
  * @author Mark Heckler
@@ -78,8 +99,14 @@ public final class OidcIdTokenDecoderFactory implements JwtDecoderFactory<Client
 
 	private static final ClaimTypeConverter DEFAULT_CLAIM_TYPE_CONVERTER = createDefaultClaimTypeConverter();
 
+	private static final JWKSelector ALL_KEYS = new JWKSelector(new JWKMatcher.Builder().build());
+
+	private final Log logger = LogFactory.getLog(getClass());
+
 	private final Map<String, JwtDecoder> jwtDecoders = new ConcurrentHashMap<>();
 
+	private final Map<String, JWKSource<SecurityContext>> jwkSources = new ConcurrentHashMap<>();
+
 	private Function<ClientRegistration, OAuth2TokenValidator<Jwt>> jwtValidatorFactory = new DefaultOidcIdTokenValidatorFactory();
 
 	private Function<ClientRegistration, JwsAlgorithm> jwsAlgorithmResolver = (
@@ -174,7 +201,10 @@ public final class OidcIdTokenDecoderFactory implements JwtDecoderFactory<Client
 						null);
 				throw new OAuth2AuthenticationException(oauth2Error, oauth2Error.toString());
 			}
-			return NimbusJwtDecoder.withJwkSetUri(jwkSetUri).jwsAlgorithm((SignatureAlgorithm) jwsAlgorithm).build();
+			return NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+				.jwsAlgorithm((SignatureAlgorithm) jwsAlgorithm)
+				.jwtProcessorCustomizer((jwtProcessor) -> shareJwkSource(jwkSetUri, jwsAlgorithm, jwtProcessor))
+				.build();
 		}
 		if (jwsAlgorithm != null && MacAlgorithm.class.isAssignableFrom(jwsAlgorithm.getClass())) {
 			// https://openid.net/specs/openid-connect-core-1_0.html#IDTokenValidation
@@ -208,6 +238,60 @@ public final class OidcIdTokenDecoderFactory implements JwtDecoderFactory<Client
 		throw new OAuth2AuthenticationException(oauth2Error, oauth2Error.toString());
 	}
 
+	/**
+	 * Replaces the {@link JWKSource} of the provided processor with the one shared by all
+	 * the decoders of the JWK Set URI, which is the source of the first decoder.
+	 */
+	@SuppressWarnings("unchecked")
+	private void shareJwkSource(String jwkSetUri, JwsAlgorithm jwsAlgorithm,
+			ConfigurableJWTProcessor<SecurityContext> jwtProcessor) {
+		if (jwtProcessor.getJWSKeySelector() instanceof JWSVerificationKeySelector<SecurityContext> keySelector) {
+			JWKSource<SecurityContext> jwkSource = this.jwkSources.computeIfAbsent(jwkSetUri,
+					(uri) -> keySelector.getJWKSource());
+			jwtProcessor.setJWSKeySelector(
+					new JWSVerificationKeySelector<>(JWSAlgorithm.parse(jwsAlgorithm.getName()), jwkSource));
+		}
+	}
+
+	/**
+	 * Creates the {@link JwtDecoder}s of the provided OpenID Connect
+	 * {@link ClientRegistration}s and retrieves their JWK Sets, so that the first
+	 * authentications do not wait for them. For example, with an
+	 * {@link org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository}:
+	 *
+	 * <pre>
+	 * &#64;EventListener(ApplicationReadyEvent.class)
+	 * public void prefetchJwkSets() {
+	 * 	this.idTokenDecoderFactory.prefetchJwkSets(this.clientRegistrationRepository);
+	 * }
+	 * </pre>
+	 *
+	 * A JWK Set that cannot be retrieved is logged and retrieved again on first use.
+	 * @param clientRegistrations the {@link ClientRegistration}s
+	 * @since 6.5
+	 */
+	public void prefetchJwkSets(Iterable<ClientRegistration> clientRegistrations) {
+		Assert.notNull(clientRegistrations, "clientRegistrations cannot be null");
+		Set<String> prefetched = new HashSet<>();
+		for (ClientRegistration clientRegistration : clientRegistrations) {
+			String jwkSetUri = clientRegistration.getProviderDetails().getJwkSetUri();
+			if (!clientRegistration.getScopes().contains(OidcScopes.OPENID) || !StringUtils.hasText(jwkSetUri)) {
+				continue;
+			}
+			try {
+				createDecoder(clientRegistration);
+				JWKSource<SecurityContext> jwkSource = this.jwkSources.get(jwkSetUri);
+				if (jwkSource != null && prefetched.add(jwkSetUri)) {
+					jwkSource.get(ALL_KEYS, null);
+				}
+			}
+			catch (KeySourceException | RuntimeException ex) {
+				this.logger.warn(LogMessage.format("Failed to prefetch the JWK Set of Client Registration '%s'",
+						clientRegistration.getRegistrationId()), ex);
+			}
+		}
+	}
+
 	/**
 	 * Sets the factory that provides an {@link OAuth2TokenValidator}, which is used by
 	 * the {@link JwtDecoder}. The default composes {@link JwtTimestampValidator} and
@@ -18,18 +18,33 @@ package org.springframework.security.oauth2.client.oidc.authentication;
 
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import javax.crypto.spec.SecretKeySpec;
 
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.log.LogMessage;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2Error;
@@ -38,6 +53,7 @@ import org.springframework.security.oauth2.core.converter.ClaimConversionService
 import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
 import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
 import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
 import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
@@ -49,12 +65,19 @@ import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoderFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * A {@link ReactiveJwtDecoderFactory factory} that provides a {@link ReactiveJwtDecoder}
  * used for {@link OidcIdToken} signature verification. The provided
  * {@link ReactiveJwtDecoder} is associated to a specific {@link ClientRegistration}.
  *
+ * <p>
+ * The {@link ReactiveJwtDecoder}s of the {@link ClientRegistration}s sharing a JWK Set
+ * URI, such as the tenants of the same issuer, share the JWK Set retrieved from it. The
+ * JWK Sets can be retrieved ahead of the first authentications with
+ * {@link #prefetchJwkSets(Iterable)}.
+ *
  * @author Joe Grandja
  * @author Rafael Dominguez
  * @author Mark Heckler
@@ -80,8 +103,12 @@ public final class ReactiveOidcIdTokenDecoderFactory implements ReactiveJwtDecod
 	private static final ClaimTypeConverter DEFAULT_CLAIM_TYPE_CONVERTER = new ClaimTypeConverter(
 			createDefaultClaimTypeConverters());
 
+	private final Log logger = LogFactory.getLog(getClass());
+
 	private final Map<String, ReactiveJwtDecoder> jwtDecoders = new ConcurrentHashMap<>();
 
+	private final Map<String, SharedJwkSetSource> jwkSetSources = new ConcurrentHashMap<>();
+
 	private Function<ClientRegistration, OAuth2TokenValidator<Jwt>> jwtValidatorFactory = new DefaultOidcIdTokenValidatorFactory();
 
 	private Function<ClientRegistration, JwsAlgorithm> jwsAlgorithmResolver = (
@@ -164,8 +191,9 @@ public final class ReactiveOidcIdTokenDecoderFactory implements ReactiveJwtDecod
 						null);
 				throw new OAuth2AuthenticationException(oauth2Error, oauth2Error.toString());
 			}
-			return NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri)
-				.jwsAlgorithm((SignatureAlgorithm) jwsAlgorithm)
+			return NimbusReactiveJwtDecoder
+				.withJwkSource(this.jwkSetSources.computeIfAbsent(jwkSetUri, SharedJwkSetSource::new))
+				.jwsAlgorithm(jwsAlgorithm)
 				.build();
 		}
 		if (jwsAlgorithm != null && MacAlgorithm.class.isAssignableFrom(jwsAlgorithm.getClass())) {
@@ -203,6 +231,37 @@ public final class ReactiveOidcIdTokenDecoderFactory implements ReactiveJwtDecod
 		throw new OAuth2AuthenticationException(oauth2Error, oauth2Error.toString());
 	}
 
+	/**
+	 * Creates the {@link ReactiveJwtDecoder}s of the provided OpenID Connect
+	 * {@link ClientRegistration}s and retrieves their JWK Sets, so that the first
+	 * authentications do not wait for them. A JWK Set that cannot be retrieved is logged
+	 * and retrieved again on first use.
+	 * @param clientRegistrations the {@link ClientRegistration}s
+	 * @return a {@link Mono} completing once the JWK Sets are retrieved
+	 * @since 6.5
+	 */
+	public Mono<Void> prefetchJwkSets(Iterable<ClientRegistration> clientRegistrations) {
+		Assert.notNull(clientRegistrations, "clientRegistrations cannot be null");
+		// @formatter:off
+		return Flux.fromIterable(clientRegistrations)
+			.filter((clientRegistration) -> clientRegistration.getScopes().contains(OidcScopes.OPENID)
+					&& StringUtils.hasText(clientRegistration.getProviderDetails().getJwkSetUri()))
+			.flatMap((clientRegistration) -> Mono.fromRunnable(() -> createDecoder(clientRegistration))
+				.then(Mono.defer(() -> prefetchJwkSet(clientRegistration.getProviderDetails().getJwkSetUri())))
+				.onErrorResume((ex) -> {
+					this.logger.warn(LogMessage.format("Failed to prefetch the JWK Set of Client Registration '%s'",
+							clientRegistration.getRegistrationId()), ex);
+					return Mono.empty();
+				}))
+			.then();
+		// @formatter:on
+	}
+
+	private Mono<Void> prefetchJwkSet(String jwkSetUri) {
+		SharedJwkSetSource jwkSetSource = this.jwkSetSources.get(jwkSetUri);
+		return (jwkSetSource != null) ? jwkSetSource.prefetch() : Mono.empty();
+	}
+
 	/**
 	 * Sets the factory that provides an {@link OAuth2TokenValidator}, which is used by
 	 * the {@link ReactiveJwtDecoder}. The default composes {@link JwtTimestampValidator}
@@ -242,4 +301,72 @@ public final class ReactiveOidcIdTokenDecoderFactory implements ReactiveJwtDecod
 		this.claimTypeConverterFactory = claimTypeConverterFactory;
 	}
 
+	/**
+	 * The JWK Set retrieved from a JWK Set URI, shared by the decoders of the
+	 * {@link ClientRegistration}s using it. The JWK Set is retrieved again when a JWT is
+	 * signed with a key it does not contain, since the keys may have been rotated.
+	 */
+	private static final class SharedJwkSetSource implements Function<SignedJWT, Flux<JWK>> {
+
+		private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+		private final WebClient webClient = WebClient.create();
+
+		private final String jwkSetUri;
+
+		private final AtomicReference<Mono<JWKSet>> jwkSet = new AtomicReference<>();
+
+		private SharedJwkSetSource(String jwkSetUri) {
+			this.jwkSetUri = jwkSetUri;
+			this.jwkSet.set(retrieve());
+		}
+
+		@Override
+		public Flux<JWK> apply(SignedJWT jwt) {
+			JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+			String keyId = jwt.getHeader().getKeyID();
+			Mono<JWKSet> current = this.jwkSet.get();
+			return current.flatMapMany((jwkSet) -> {
+				List<JWK> jwks = selector.select(jwkSet);
+				if (!jwks.isEmpty() || keyId == null || jwkSet.getKeyByKeyId(keyId) != null) {
+					return Flux.fromIterable(jwks);
+				}
+				return refresh(current).flatMapIterable(selector::select);
+			});
+		}
+
+		private Mono<Void> prefetch() {
+			return this.jwkSet.get().then();
+		}
+
+		/**
+		 * Retrieves the JWK Set again unless another decoder already did.
+		 */
+		private Mono<JWKSet> refresh(Mono<JWKSet> stale) {
+			Mono<JWKSet> refreshed = retrieve();
+			return this.jwkSet.compareAndSet(stale, refreshed) ? refreshed : this.jwkSet.get();
+		}
+
+		private Mono<JWKSet> retrieve() {
+			// @formatter:off
+			return this.webClient.get()
+				.uri(this.jwkSetUri)
+				.retrieve()
+				.bodyToMono(String.class)
+				.map(this::parse)
+				.cache((jwkSet) -> FOREVER, (ex) -> Duration.ZERO, () -> Duration.ZERO);
+			// @formatter:on
+		}
+
+		private JWKSet parse(String body) {
+			try {
+				return JWKSet.parse(body);
+			}
+			catch (ParseException ex) {
+				throw new IllegalStateException("Failed to parse the JWK Set of " + this.jwkSetUri, ex);
+			}
+		}
+
+	}
+
 }
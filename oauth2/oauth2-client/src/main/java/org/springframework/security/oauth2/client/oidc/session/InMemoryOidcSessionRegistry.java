@@ -16,6 +16,8 @@
 
 package org.springframework.security.oauth2.client.oidc.session;
 
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -33,6 +35,11 @@ import org.springframework.security.oauth2.client.oidc.authentication.logout.Oid
 /**
  * An in-memory implementation of {@link OidcSessionRegistry}
  *
+ * <p>
+ * The sessions are indexed by issuer and provider session id, and by issuer and subject,
+ * so that removing the sessions matching an {@link OidcLogoutToken} only looks at the
+ * sessions of the same provider session or subject.
+ *
  * @author Josh Cummings
  * @since 6.2
  */
@@ -42,15 +49,24 @@ public final class InMemoryOidcSessionRegistry implements OidcSessionRegistry {
 
 	private final Map<String, OidcSessionInformation> sessions = new ConcurrentHashMap<>();
 
+	private final Map<String, Set<String>> sessionIdsByProviderSessionId = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> sessionIdsBySubject = new ConcurrentHashMap<>();
+
 	@Override
 	public void saveSessionInformation(OidcSessionInformation info) {
-		this.sessions.put(info.getSessionId(), info);
+		OidcSessionInformation previous = this.sessions.put(info.getSessionId(), info);
+		if (previous != null) {
+			unindex(previous);
+		}
+		index(info);
 	}
 
 	@Override
 	public OidcSessionInformation removeSessionInformation(String clientSessionId) {
 		OidcSessionInformation information = this.sessions.remove(clientSessionId);
 		if (information != null) {
+			unindex(information);
 			this.logger.trace("Removed client session");
 		}
 		return information;
@@ -73,25 +89,84 @@ public final class InMemoryOidcSessionRegistry implements OidcSessionRegistry {
 				this.logger.trace(String.format(message, issuer, LogoutTokenClaimNames.SUB, subject));
 			}
 		}
-		int size = this.sessions.size();
+		Set<String> candidates = (providerSessionId != null)
+				? this.sessionIdsByProviderSessionId.get(indexKey(issuer, providerSessionId))
+				: this.sessionIdsBySubject.get(indexKey(issuer, subject));
 		Set<OidcSessionInformation> infos = new HashSet<>();
-		this.sessions.values().removeIf((info) -> {
-			boolean result = matcher.test(info);
-			if (result) {
-				infos.add(info);
+		if (candidates != null) {
+			for (String sessionId : new ArrayList<>(candidates)) {
+				OidcSessionInformation info = this.sessions.get(sessionId);
+				if (info != null && matcher.test(info) && this.sessions.remove(sessionId, info)) {
+					unindex(info);
+					infos.add(info);
+				}
 			}
-			return result;
-		});
+		}
 		if (infos.isEmpty()) {
 			this.logger.debug("Failed to remove any sessions since none matched");
 		}
 		else if (this.logger.isTraceEnabled()) {
 			String message = "Found and removed %d session(s) from mapping of %d session(s)";
-			this.logger.trace(String.format(message, infos.size(), size));
+			this.logger.trace(String.format(message, infos.size(), this.sessions.size() + infos.size()));
 		}
 		return infos;
 	}
 
+	private void index(OidcSessionInformation info) {
+		String issuer = getIssuer(info);
+		if (issuer == null) {
+			return;
+		}
+		String providerSessionId = info.getPrincipal().getClaimAsString(LogoutTokenClaimNames.SID);
+		if (providerSessionId != null) {
+			add(this.sessionIdsByProviderSessionId, indexKey(issuer, providerSessionId), info.getSessionId());
+		}
+		String subject = info.getPrincipal().getSubject();
+		if (subject != null) {
+			add(this.sessionIdsBySubject, indexKey(issuer, subject), info.getSessionId());
+		}
+	}
+
+	private void unindex(OidcSessionInformation info) {
+		String issuer = getIssuer(info);
+		if (issuer == null) {
+			return;
+		}
+		String providerSessionId = info.getPrincipal().getClaimAsString(LogoutTokenClaimNames.SID);
+		if (providerSessionId != null) {
+			remove(this.sessionIdsByProviderSessionId, indexKey(issuer, providerSessionId), info.getSessionId());
+		}
+		String subject = info.getPrincipal().getSubject();
+		if (subject != null) {
+			remove(this.sessionIdsBySubject, indexKey(issuer, subject), info.getSessionId());
+		}
+	}
+
+	private static String getIssuer(OidcSessionInformation info) {
+		URL issuer = info.getPrincipal().getIssuer();
+		return (issuer != null) ? issuer.toString() : null;
+	}
+
+	private static String indexKey(String issuer, String value) {
+		// an issuer is a URL, which cannot contain a space
+		return issuer + ' ' + value;
+	}
+
+	private static void add(Map<String, Set<String>> index, String key, String sessionId) {
+		index.compute(key, (k, sessionIds) -> {
+			Set<String> result = (sessionIds != null) ? sessionIds : ConcurrentHashMap.newKeySet();
+			result.add(sessionId);
+			return result;
+		});
+	}
+
+	private static void remove(Map<String, Set<String>> index, String key, String sessionId) {
+		index.computeIfPresent(key, (k, sessionIds) -> {
+			sessionIds.remove(sessionId);
+			return sessionIds.isEmpty() ? null : sessionIds;
+		});
+	}
+
 	private static Predicate<OidcSessionInformation> sessionIdMatcher(List<String> audience, String issuer,
 			String sessionId) {
 		return (session) -> {
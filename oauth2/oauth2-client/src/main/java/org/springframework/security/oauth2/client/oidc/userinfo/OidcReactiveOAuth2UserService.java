@@ -17,8 +17,10 @@
 package org.springframework.security.oauth2.client.oidc.userinfo;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -75,6 +77,8 @@ public class OidcReactiveOAuth2UserService implements ReactiveOAuth2UserService<
 
 	private BiFunction<OidcUserRequest, OidcUserInfo, Mono<OidcUser>> oidcUserMapper = this::getUser;
 
+	private Set<String> userInfoClaimNames = Collections.emptySet();
+
 	/**
 	 * Returns the default {@link Converter}'s used for type conversion of claim values
 	 * for an {@link OidcUserInfo}.
@@ -113,7 +117,8 @@ public class OidcReactiveOAuth2UserService implements ReactiveOAuth2UserService<
 	}
 
 	private Mono<OidcUserInfo> getUserInfo(OidcUserRequest userRequest) {
-		if (!this.retrieveUserInfo.test(userRequest)) {
+		if (!this.retrieveUserInfo.test(userRequest)
+				|| OidcUserRequestUtils.idTokenContainsClaims(userRequest, this.userInfoClaimNames)) {
 			return Mono.empty();
 		}
 		// @formatter:off
@@ -179,6 +184,20 @@ public class OidcReactiveOAuth2UserService implements ReactiveOAuth2UserService<
 		this.retrieveUserInfo = retrieveUserInfo;
 	}
 
+	/**
+	 * Sets the names of the claims the {@link OidcUser} is mapped from. When the ID Token
+	 * already contains all of them, the UserInfo Endpoint is not called, regardless of
+	 * {@link #setRetrieveUserInfo(Predicate)}. The default is empty, that is the ID Token
+	 * is not checked.
+	 * @param userInfoClaimNames the names of the claims the {@link OidcUser} is mapped
+	 * from
+	 * @since 6.5
+	 */
+	public final void setUserInfoClaimNames(Set<String> userInfoClaimNames) {
+		Assert.notNull(userInfoClaimNames, "userInfoClaimNames cannot be null");
+		this.userInfoClaimNames = Set.copyOf(userInfoClaimNames);
+	}
+
 	/**
 	 * Sets the {@code BiFunction} used to map the {@link OidcUser user} from the
 	 * {@link OidcUserRequest user request} and {@link OidcUserInfo user info}.
@@ -76,6 +76,18 @@ final class OidcUserRequestUtils {
 		return false;
 	}
 
+	/**
+	 * Determines if the ID Token of an {@link OidcUserRequest} contains all of the
+	 * provided claims, in which case there is no need to retrieve them from the user info
+	 * endpoint.
+	 * @param userRequest the {@link OidcUserRequest}
+	 * @param claimNames the names of the claims the user is mapped from
+	 * @return true if the ID Token contains all of the claims
+	 */
+	static boolean idTokenContainsClaims(OidcUserRequest userRequest, Set<String> claimNames) {
+		return !claimNames.isEmpty() && userRequest.getIdToken().getClaims().keySet().containsAll(claimNames);
+	}
+
 	static OidcUser getUser(OidcUserRequest userRequest, OidcUserInfo userInfo) {
 		Set<GrantedAuthority> authorities = new LinkedHashSet<>();
 		ClientRegistration.ProviderDetails providerDetails = userRequest.getClientRegistration().getProviderDetails();
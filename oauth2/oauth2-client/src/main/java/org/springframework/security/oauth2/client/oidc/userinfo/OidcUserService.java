@@ -18,6 +18,7 @@ package org.springframework.security.oauth2.client.oidc.userinfo;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -84,6 +85,8 @@ public class OidcUserService implements OAuth2UserService<OidcUserRequest, OidcU
 
 	private BiFunction<OidcUserRequest, OidcUserInfo, OidcUser> oidcUserMapper = OidcUserRequestUtils::getUser;
 
+	private Set<String> userInfoClaimNames = Collections.emptySet();
+
 	/**
 	 * Returns the default {@link Converter}'s used for type conversion of claim values
 	 * for an {@link OidcUserInfo}.
@@ -111,7 +114,8 @@ public class OidcUserService implements OAuth2UserService<OidcUserRequest, OidcU
 	public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
 		Assert.notNull(userRequest, "userRequest cannot be null");
 		OidcUserInfo userInfo = null;
-		if (this.retrieveUserInfo.test(userRequest)) {
+		if (this.retrieveUserInfo.test(userRequest)
+				&& !OidcUserRequestUtils.idTokenContainsClaims(userRequest, this.userInfoClaimNames)) {
 			OAuth2User oauth2User = this.oauth2UserService.loadUser(userRequest);
 			Map<String, Object> claims = getClaims(userRequest, oauth2User);
 			userInfo = new OidcUserInfo(claims);
@@ -243,6 +247,20 @@ public class OidcUserService implements OAuth2UserService<OidcUserRequest, OidcU
 		this.retrieveUserInfo = retrieveUserInfo;
 	}
 
+	/**
+	 * Sets the names of the claims the {@link OidcUser} is mapped from. When the ID Token
+	 * already contains all of them, the UserInfo Endpoint is not called, regardless of
+	 * {@link #setRetrieveUserInfo(Predicate)}. The default is empty, that is the ID Token
+	 * is not checked.
+	 * @param userInfoClaimNames the names of the claims the {@link OidcUser} is mapped
+	 * from
+	 * @since 6.5
+	 */
+	public final void setUserInfoClaimNames(Set<String> userInfoClaimNames) {
+		Assert.notNull(userInfoClaimNames, "userInfoClaimNames cannot be null");
+		this.userInfoClaimNames = Set.copyOf(userInfoClaimNames);
+	}
+
 	/**
 	 * Sets the {@code BiFunction} used to map the {@link OidcUser user} from the
 	 * {@link OidcUserRequest user request} and {@link OidcUserInfo user info}.
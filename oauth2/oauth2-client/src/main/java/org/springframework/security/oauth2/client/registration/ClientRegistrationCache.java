@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.util.Assert;
+
+/**
+ * A per-node cache of the {@link ClientRegistration}s loaded by
+ * {@link JdbcClientRegistrationRepository} and
+ * {@link R2dbcReactiveClientRegistrationRepository}, so that only the registrations in
+ * use are held in memory.
+ *
+ * <p>
+ * A registration is cached until its time to live elapses, and is invalidated when it is
+ * saved or removed through the repository, or when the repository is told that it
+ * changed. When more than the maximum number of registrations are cached, the least
+ * recently used ones are evicted. A registration loaded while another was invalidated is
+ * not cached, since it may have been read before the invalidation.
+ *
+ * @since 6.5
+ */
+final class ClientRegistrationCache {
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<String, CachedClientRegistration> clientRegistrations = new ConcurrentHashMap<>();
+
+	private final Object evictionLock = new Object();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final AtomicLong accesses = new AtomicLong();
+
+	private final Clock clock = Clock.systemUTC();
+
+	private volatile long timeToLiveMillis = Duration.ofHours(1).toMillis();
+
+	private volatile int maximumSize = 10_000;
+
+	ClientRegistration get(String registrationId) {
+		CachedClientRegistration cached = this.clientRegistrations.get(registrationId);
+		if (cached == null) {
+			return null;
+		}
+		long now = this.clock.millis();
+		if (now >= cached.expiresAt) {
+			this.clientRegistrations.remove(registrationId, cached);
+			return null;
+		}
+		cached.lastAccess = this.accesses.incrementAndGet();
+		return cached.clientRegistration;
+	}
+
+	/**
+	 * Returns a stamp to be passed to {@link #put(ClientRegistration, long)}, obtained
+	 * before the registration is loaded.
+	 */
+	long stamp() {
+		return this.invalidations.get();
+	}
+
+	void put(ClientRegistration clientRegistration, long stamp) {
+		if (this.timeToLiveMillis == 0) {
+			return;
+		}
+		long now = this.clock.millis();
+		String registrationId = clientRegistration.getRegistrationId();
+		CachedClientRegistration cached = new CachedClientRegistration(clientRegistration,
+				this.accesses.incrementAndGet(), now + this.timeToLiveMillis);
+		this.clientRegistrations.put(registrationId, cached);
+		// invalidate() increments before removing, so either it removes this entry or
+		// the increment is seen here
+		if (this.invalidations.get() != stamp) {
+			this.clientRegistrations.remove(registrationId, cached);
+			return;
+		}
+		if (this.clientRegistrations.size() > this.maximumSize) {
+			evict();
+		}
+	}
+
+	void invalidate(String registrationId) {
+		this.invalidations.incrementAndGet();
+		this.clientRegistrations.remove(registrationId);
+	}
+
+	void invalidateAll() {
+		this.invalidations.incrementAndGet();
+		this.clientRegistrations.clear();
+	}
+
+	int size() {
+		return this.clientRegistrations.size();
+	}
+
+	private void evict() {
+		synchronized (this.evictionLock) {
+			if (this.clientRegistrations.size() <= this.maximumSize) {
+				return;
+			}
+			long now = this.clock.millis();
+			this.clientRegistrations.values().removeIf((cached) -> now >= cached.expiresAt);
+			// evict below the ceiling so that the next registrations do not trigger an
+			// eviction
+			int target = this.maximumSize - this.maximumSize / 10;
+			int excess = this.clientRegistrations.size() - target;
+			if (excess <= 0) {
+				return;
+			}
+			List<Map.Entry<String, CachedClientRegistration>> entries = new ArrayList<>(
+					this.clientRegistrations.entrySet());
+			entries.sort(Comparator.comparingLong((entry) -> entry.getValue().lastAccess));
+			int removed = 0;
+			for (int i = 0; i < excess && i < entries.size(); i++) {
+				Map.Entry<String, CachedClientRegistration> entry = entries.get(i);
+				if (this.clientRegistrations.remove(entry.getKey(), entry.getValue())) {
+					removed++;
+				}
+			}
+			this.logger.debug(LogMessage.format(
+					"Evicted %d least recently used client registrations since more than %d were cached", removed,
+					this.maximumSize));
+		}
+	}
+
+	void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.timeToLiveMillis = timeToLive.toMillis();
+		if (timeToLive.isZero()) {
+			invalidateAll();
+		}
+	}
+
+	void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+		this.maximumSize = maximumSize;
+	}
+
+	private static final class CachedClientRegistration {
+
+		private final ClientRegistration clientRegistration;
+
+		private final long expiresAt;
+
+		private volatile long lastAccess;
+
+		private CachedClientRegistration(ClientRegistration clientRegistration, long access, long expiresAt) {
+			this.clientRegistration = clientRegistration;
+			this.lastAccess = access;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.oauth2.sdk.util.JSONObjectUtils;
+import net.minidev.json.JSONObject;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.security.oauth2.client.registration.ClientRegistrations.ProviderConfiguration;
+import org.springframework.util.Assert;
+
+/**
+ * Creates the {@link ClientRegistration}s of several providers from their
+ * <a href="https://openid.net/specs/openid-connect-discovery-1_0.html#ProviderConfig">
+ * OpenID Provider Configuration</a> or
+ * <a href="https://tools.ietf.org/html/rfc8414#section-3">Authorization Server
+ * Metadata</a>, the same way as {@link ClientRegistrations}, but querying all the
+ * providers in parallel instead of one after the other.
+ *
+ * <p>
+ * The discovered configurations can be saved to a {@link #setMetadataCacheFile(Path)
+ * file}, so that an application that restarts does not have to query the providers again
+ * while the configurations are {@link #setMetadataCacheTimeToLive(Duration) fresh}. And,
+ * with {@link #discoverOnFirstUse()}, a provider is not queried before one of its
+ * {@link ClientRegistration}s is first needed, so that an application starts, and its
+ * other registrations are used, even when a provider is slow or unavailable.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ * <pre>
+ * ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+ *     .oidcIssuerLocation("okta", "https://example.okta.com", (registration) -&gt; registration
+ *         .clientId("client-id")
+ *         .clientSecret("client-secret"))
+ *     .issuerLocation("keycloak", "https://example.org/realms/example", (registration) -&gt; registration
+ *         .clientId("client-id")
+ *         .clientSecret("client-secret"));
+ * discovery.setMetadataCacheFile(Path.of("client-registrations.json"));
+ * ClientRegistrationRepository clientRegistrationRepository = discovery.discoverOnFirstUse();
+ * </pre>
+ *
+ * @since 6.5
+ * @see ClientRegistrations
+ */
+public final class ClientRegistrationDiscovery {
+
+	private static final String TYPE = "type";
+
+	private static final String OIDC = "oidc";
+
+	private static final String OAUTH = "oauth";
+
+	private static final String DISCOVERED_AT = "discovered_at";
+
+	private static final String CONFIGURATION = "configuration";
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<String, Registration> registrations = new LinkedHashMap<>();
+
+	private Executor executor = createExecutor();
+
+	private Path metadataCacheFile;
+
+	private Duration metadataCacheTimeToLive = Duration.ofDays(1);
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Adds a {@link ClientRegistration} whose provider is discovered the same way as
+	 * {@link ClientRegistrations#fromIssuerLocation(String)}.
+	 * @param registrationId the registration id of the {@link ClientRegistration}
+	 * @param issuer the <a href=
+	 * "https://openid.net/specs/openid-connect-core-1_0.html#IssuerIdentifier">Issuer</a>
+	 * @param registrationCustomizer the {@link Consumer} providing access to the
+	 * {@link ClientRegistration.Builder} initialized by the discovered configuration,
+	 * typically to set the client id and secret
+	 * @return the {@link ClientRegistrationDiscovery} for further configuration
+	 */
+	public ClientRegistrationDiscovery issuerLocation(String registrationId, String issuer,
+			Consumer<ClientRegistration.Builder> registrationCustomizer) {
+		return registration(registrationId, issuer, false, registrationCustomizer);
+	}
+
+	/**
+	 * Adds a {@link ClientRegistration} whose provider is discovered the same way as
+	 * {@link ClientRegistrations#fromOidcIssuerLocation(String)}.
+	 * @param registrationId the registration id of the {@link ClientRegistration}
+	 * @param issuer the <a href=
+	 * "https://openid.net/specs/openid-connect-core-1_0.html#IssuerIdentifier">Issuer</a>
+	 * @param registrationCustomizer the {@link Consumer} providing access to the
+	 * {@link ClientRegistration.Builder} initialized by the discovered configuration,
+	 * typically to set the client id and secret
+	 * @return the {@link ClientRegistrationDiscovery} for further configuration
+	 */
+	public ClientRegistrationDiscovery oidcIssuerLocation(String registrationId, String issuer,
+			Consumer<ClientRegistration.Builder> registrationCustomizer) {
+		return registration(registrationId, issuer, true, registrationCustomizer);
+	}
+
+	private ClientRegistrationDiscovery registration(String registrationId, String issuer, boolean oidc,
+			Consumer<ClientRegistration.Builder> registrationCustomizer) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		Assert.hasText(issuer, "issuer cannot be empty");
+		Assert.notNull(registrationCustomizer, "registrationCustomizer cannot be null");
+		Assert.state(!this.registrations.containsKey(registrationId),
+				() -> "A registration with the id \"" + registrationId + "\" was already added");
+		this.registrations.put(registrationId, new Registration(registrationId, issuer, oidc, registrationCustomizer));
+		return this;
+	}
+
+	/**
+	 * Sets the {@link Executor} that queries the providers. The default creates a thread
+	 * per provider.
+	 * @param executor the {@link Executor} that queries the providers
+	 */
+	public void setExecutor(Executor executor) {
+		Assert.notNull(executor, "executor cannot be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the file where the discovered configurations are saved, and from which they
+	 * are read back instead of querying the providers again, while they are
+	 * {@link #setMetadataCacheTimeToLive(Duration) fresh}. A file that cannot be read or
+	 * written is ignored. The default is not to save the configurations.
+	 * @param metadataCacheFile the file where the discovered configurations are saved
+	 */
+	public void setMetadataCacheFile(Path metadataCacheFile) {
+		Assert.notNull(metadataCacheFile, "metadataCacheFile cannot be null");
+		this.metadataCacheFile = metadataCacheFile;
+	}
+
+	/**
+	 * Sets how long a configuration saved to the {@link #setMetadataCacheFile(Path)
+	 * metadata cache file} is used before querying its provider again. The default is 1
+	 * day.
+	 * @param metadataCacheTimeToLive how long a saved configuration is used
+	 */
+	public void setMetadataCacheTimeToLive(Duration metadataCacheTimeToLive) {
+		Assert.notNull(metadataCacheTimeToLive, "metadataCacheTimeToLive cannot be null");
+		Assert.isTrue(!metadataCacheTimeToLive.isNegative(), "metadataCacheTimeToLive cannot be negative");
+		this.metadataCacheTimeToLive = metadataCacheTimeToLive;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to decide whether a saved configuration is fresh.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Queries all the providers in parallel, and returns the discovered
+	 * {@link ClientRegistration}s.
+	 * @return the {@link InMemoryClientRegistrationRepository} holding the discovered
+	 * {@link ClientRegistration}s
+	 * @throws IllegalArgumentException if the configuration of a provider could not be
+	 * resolved
+	 */
+	public InMemoryClientRegistrationRepository discover() {
+		Assert.state(!this.registrations.isEmpty(), "registrations cannot be empty");
+		JSONObject saved = readMetadataCache();
+		Map<String, ProviderConfiguration> discovered = new ConcurrentHashMap<>();
+		Map<String, CompletableFuture<ProviderConfiguration>> configurations = new ConcurrentHashMap<>();
+		List<CompletableFuture<ClientRegistration>> clientRegistrations = new ArrayList<>();
+		for (Registration registration : this.registrations.values()) {
+			// registrations of the same provider share its configuration
+			CompletableFuture<ProviderConfiguration> configuration = configurations.computeIfAbsent(
+					registration.configurationKey(),
+					(key) -> getProviderConfiguration(registration.issuer, registration.oidc, saved, discovered));
+			clientRegistrations.add(configuration.thenApply(registration::build));
+		}
+		try {
+			join(CompletableFuture.allOf(clientRegistrations.toArray(new CompletableFuture<?>[0])));
+		}
+		finally {
+			writeMetadataCache(saved, discovered);
+		}
+		return new InMemoryClientRegistrationRepository(
+				clientRegistrations.stream().map(CompletableFuture::join).toList());
+	}
+
+	/**
+	 * Returns a {@link DiscoveringClientRegistrationRepository} that discovers the
+	 * provider of a {@link ClientRegistration} when the registration is first requested.
+	 * Each provider is discovered on its own, so that a provider that is slow or
+	 * unavailable only delays or fails the lookups of its own registrations, and its
+	 * discovery is attempted again on the next lookup if it failed.
+	 * @return the {@link DiscoveringClientRegistrationRepository} discovering each
+	 * provider on first use
+	 */
+	public DiscoveringClientRegistrationRepository discoverOnFirstUse() {
+		Assert.state(!this.registrations.isEmpty(), "registrations cannot be empty");
+		return new DiscoveringClientRegistrationRepository(this);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw ex;
+		}
+	}
+
+	private CompletableFuture<ProviderConfiguration> getProviderConfiguration(String issuer, boolean oidc,
+			JSONObject saved, Map<String, ProviderConfiguration> discovered) {
+		JSONObject entry = (JSONObject) saved.get(issuer);
+		if (entry != null && (OIDC.equals(entry.get(TYPE)) || !oidc)) {
+			this.logger.trace(LogMessage.format("Using the saved configuration of issuer %s", issuer));
+			ProviderConfiguration configuration = new ProviderConfiguration(issuer, OIDC.equals(entry.get(TYPE)),
+					(JSONObject) entry.get(CONFIGURATION));
+			return CompletableFuture.completedFuture(configuration);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			ProviderConfiguration configuration = ClientRegistrations.getProviderConfiguration(issuer, oidc);
+			discovered.put(issuer, configuration);
+			return configuration;
+		}, this.executor);
+	}
+
+	/**
+	 * Returns the fresh entries of the metadata cache file, keyed by issuer
+	 */
+	private JSONObject readMetadataCache() {
+		JSONObject saved = new JSONObject();
+		if (this.metadataCacheFile == null || !Files.exists(this.metadataCacheFile)) {
+			return saved;
+		}
+		long now = this.clock.millis();
+		try {
+			String content = Files.readString(this.metadataCacheFile, StandardCharsets.UTF_8);
+			JSONObject entries = JSONObjectUtils.parse(content);
+			for (String issuer : entries.keySet()) {
+				JSONObject entry = JSONObjectUtils.getJSONObject(entries, issuer);
+				// fail now rather than when the configuration is used
+				JSONObjectUtils.getJSONObject(entry, CONFIGURATION);
+				if (now - JSONObjectUtils.getLong(entry, DISCOVERED_AT) < this.metadataCacheTimeToLive.toMillis()) {
+					saved.put(issuer, entry);
+				}
+			}
+		}
+		catch (IOException | ParseException ex) {
+			this.logger
+				.warn(LogMessage.format("Unable to read the saved configurations from %s", this.metadataCacheFile), ex);
+			saved.clear();
+		}
+		return saved;
+	}
+
+	private synchronized void writeMetadataCache(JSONObject saved, Map<String, ProviderConfiguration> discovered) {
+		if (this.metadataCacheFile == null || discovered.isEmpty()) {
+			return;
+		}
+		long now = this.clock.millis();
+		JSONObject entries = new JSONObject(saved);
+		for (ProviderConfiguration configuration : discovered.values()) {
+			JSONObject entry = new JSONObject();
+			entry.put(TYPE, configuration.isOidc() ? OIDC : OAUTH);
+			entry.put(DISCOVERED_AT, now);
+			entry.put(CONFIGURATION, new JSONObject(configuration.getConfiguration()));
+			entries.put(configuration.getIssuer(), entry);
+		}
+		try {
+			// write to a temporary file first so that the file is never read half-written
+			Path directory = this.metadataCacheFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path file = Files.createTempFile(directory, this.metadataCacheFile.getFileName().toString(), ".tmp");
+			try {
+				Files.writeString(file, entries.toJSONString(), StandardCharsets.UTF_8);
+				Files.move(file, this.metadataCacheFile, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(file);
+			}
+		}
+		catch (IOException ex) {
+			this.logger.warn(
+					LogMessage.format("Unable to save the discovered configurations to %s", this.metadataCacheFile),
+					ex);
+		}
+	}
+
+	private static Executor createExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("spring-oauth2-client-discovery-");
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	/**
+	 * A {@link ClientRegistrationRepository} that discovers the provider of a
+	 * {@link ClientRegistration} when the registration is first requested.
+	 *
+	 * <p>
+	 * Iterating over the repository discovers the providers not discovered yet in
+	 * parallel, and skips the {@link ClientRegistration}s whose provider could not be
+	 * discovered.
+	 *
+	 * @see ClientRegistrationDiscovery#discoverOnFirstUse()
+	 */
+	public static final class DiscoveringClientRegistrationRepository
+			implements ClientRegistrationRepository, Iterable<ClientRegistration> {
+
+		private final Log logger = LogFactory.getLog(getClass());
+
+		private final ClientRegistrationDiscovery discovery;
+
+		private final Map<String, CompletableFuture<ProviderConfiguration>> configurations = new ConcurrentHashMap<>();
+
+		private final Map<String, ProviderConfiguration> discovered = new ConcurrentHashMap<>();
+
+		private final Map<String, ClientRegistration> clientRegistrations = new ConcurrentHashMap<>();
+
+		private volatile JSONObject saved;
+
+		private DiscoveringClientRegistrationRepository(ClientRegistrationDiscovery discovery) {
+			this.discovery = discovery;
+		}
+
+		/**
+		 * Returns the {@link ClientRegistration} with the provided registration id,
+		 * discovering its provider if it was not discovered yet.
+		 * @param registrationId the registration id
+		 * @return the {@link ClientRegistration}, or {@code null} if there is no
+		 * registration with this id
+		 * @throws IllegalArgumentException if the configuration of the provider could not
+		 * be resolved
+		 */
+		@Override
+		public ClientRegistration findByRegistrationId(String registrationId) {
+			Assert.hasText(registrationId, "registrationId cannot be empty");
+			Registration registration = this.discovery.registrations.get(registrationId);
+			if (registration == null) {
+				return null;
+			}
+			ClientRegistration clientRegistration = this.clientRegistrations.get(registrationId);
+			if (clientRegistration != null) {
+				return clientRegistration;
+			}
+			return build(registration, join(getProviderConfiguration(registration)));
+		}
+
+		@Override
+		public Iterator<ClientRegistration> iterator() {
+			Map<Registration, CompletableFuture<ProviderConfiguration>> configurations = new LinkedHashMap<>();
+			for (Registration registration : this.discovery.registrations.values()) {
+				if (!this.clientRegistrations.containsKey(registration.registrationId)) {
+					configurations.put(registration, getProviderConfiguration(registration));
+				}
+			}
+			List<ClientRegistration> clientRegistrations = new ArrayList<>();
+			for (Registration registration : this.discovery.registrations.values()) {
+				ClientRegistration clientRegistration = this.clientRegistrations.get(registration.registrationId);
+				if (clientRegistration == null) {
+					try {
+						clientRegistration = build(registration, join(configurations.get(registration)));
+					}
+					catch (RuntimeException ex) {
+						this.logger
+							.debug(LogMessage.format("Skipping registration %s whose provider could not be discovered",
+									registration.registrationId), ex);
+						continue;
+					}
+				}
+				clientRegistrations.add(clientRegistration);
+			}
+			return clientRegistrations.iterator();
+		}
+
+		private ClientRegistration build(Registration registration, ProviderConfiguration configuration) {
+			return this.clientRegistrations.computeIfAbsent(registration.registrationId,
+					(registrationId) -> registration.build(configuration));
+		}
+
+		/**
+		 * Returns the configuration of the provider of a registration, discovering it
+		 * again if its previous discovery failed
+		 */
+		private CompletableFuture<ProviderConfiguration> getProviderConfiguration(Registration registration) {
+			JSONObject saved = getSaved();
+			return this.configurations.compute(registration.configurationKey(), (key, configuration) -> {
+				if (configuration != null && !configuration.isCompletedExceptionally()) {
+					return configuration;
+				}
+				return this.discovery
+					.getProviderConfiguration(registration.issuer, registration.oidc, saved, this.discovered)
+					.whenComplete((discovered, ex) -> {
+						if (ex == null) {
+							this.discovery.writeMetadataCache(saved, this.discovered);
+						}
+					});
+			});
+		}
+
+		private JSONObject getSaved() {
+			JSONObject saved = this.saved;
+			if (saved == null) {
+				synchronized (this) {
+					saved = this.saved;
+					if (saved == null) {
+						saved = this.discovery.readMetadataCache();
+						this.saved = saved;
+					}
+				}
+			}
+			return saved;
+		}
+
+	}
+
+	private static final class Registration {
+
+		private final String registrationId;
+
+		private final String issuer;
+
+		private final boolean oidc;
+
+		private final Consumer<ClientRegistration.Builder> registrationCustomizer;
+
+		private Registration(String registrationId, String issuer, boolean oidc,
+				Consumer<ClientRegistration.Builder> registrationCustomizer) {
+			this.registrationId = registrationId;
+			this.issuer = issuer;
+			this.oidc = oidc;
+			this.registrationCustomizer = registrationCustomizer;
+		}
+
+		private String configurationKey() {
+			return (this.oidc ? OIDC : OAUTH) + " " + this.issuer;
+		}
+
+		private ClientRegistration build(ProviderConfiguration configuration) {
+			ClientRegistration.Builder builder = configuration.builder().registrationId(this.registrationId);
+			this.registrationCustomizer.accept(builder);
+			return builder.build();
+		}
+
+	}
+
+}
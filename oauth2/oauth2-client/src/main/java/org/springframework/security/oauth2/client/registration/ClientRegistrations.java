@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.nimbusds.oauth2.sdk.ParseException;
@@ -30,7 +31,7 @@ import net.minidev.json.JSONObject;
 
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.RequestEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.client.http.OAuth2ClientHttpTransport;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
@@ -57,14 +58,8 @@ public final class ClientRegistrations {
 
 	private static final String OAUTH_METADATA_PATH = "/.well-known/oauth-authorization-server";
 
-	private static final RestTemplate rest = new RestTemplate();
-
-	static {
-		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-		requestFactory.setConnectTimeout(30_000);
-		requestFactory.setReadTimeout(30_000);
-		rest.setRequestFactory(requestFactory);
-	}
+	private static final RestTemplate rest = new RestTemplate(
+			OAuth2ClientHttpTransport.getDefault().getRequestFactory());
 
 	private static final ParameterizedTypeReference<Map<String, Object>> typeReference = new ParameterizedTypeReference<>() {
 	};
@@ -192,68 +187,92 @@ public final class ClientRegistrations {
 		return getBuilder(issuer, oidc(uri), oidcRfc8414(uri), oauth(uri));
 	}
 
-	private static Supplier<ClientRegistration.Builder> oidc(URI issuer) {
+	/**
+	 * Retrieves the configuration of the provided issuer the same way as
+	 * {@link #fromOidcIssuerLocation(String)} or, if {@code oidc} is {@code false},
+	 * {@link #fromIssuerLocation(String)}.
+	 */
+	static ProviderConfiguration getProviderConfiguration(String issuer, boolean oidc) {
+		Assert.hasText(issuer, "issuer cannot be empty");
+		URI uri = URI.create(issuer);
+		Function<ProviderConfiguration, ProviderConfiguration> validated = (configuration) -> {
+			configuration.builder();
+			return configuration;
+		};
+		if (oidc) {
+			return resolve(issuer, validated, oidc(uri));
+		}
+		return resolve(issuer, validated, oidc(uri), oidcRfc8414(uri), oauth(uri));
+	}
+
+	private static Supplier<ProviderConfiguration> oidc(URI issuer) {
 		// @formatter:off
 		URI uri = UriComponentsBuilder.fromUri(issuer)
 				.replacePath(issuer.getPath() + OIDC_METADATA_PATH)
 				.build(Collections.emptyMap());
 		// @formatter:on
-		return () -> {
-			RequestEntity<Void> request = RequestEntity.get(uri).build();
-			Map<String, Object> configuration = rest.exchange(request, typeReference).getBody();
-			OIDCProviderMetadata metadata = parse(configuration, OIDCProviderMetadata::parse);
-			ClientRegistration.Builder builder = withProviderConfiguration(metadata, issuer.toASCIIString())
-				.jwkSetUri(metadata.getJWKSetURI().toASCIIString());
-			if (metadata.getUserInfoEndpointURI() != null) {
-				builder.userInfoUri(metadata.getUserInfoEndpointURI().toASCIIString());
-			}
-			return builder;
-		};
+		return () -> new ProviderConfiguration(issuer.toASCIIString(), true, retrieve(uri));
 	}
 
-	private static Supplier<ClientRegistration.Builder> oidcRfc8414(URI issuer) {
+	private static Supplier<ProviderConfiguration> oidcRfc8414(URI issuer) {
 		// @formatter:off
 		URI uri = UriComponentsBuilder.fromUri(issuer)
 				.replacePath(OIDC_METADATA_PATH + issuer.getPath())
 				.build(Collections.emptyMap());
 		// @formatter:on
-		return getRfc8414Builder(issuer, uri);
+		return () -> new ProviderConfiguration(issuer.toASCIIString(), false, retrieve(uri));
 	}
 
-	private static Supplier<ClientRegistration.Builder> oauth(URI issuer) {
+	private static Supplier<ProviderConfiguration> oauth(URI issuer) {
 		// @formatter:off
 		URI uri = UriComponentsBuilder.fromUri(issuer)
 				.replacePath(OAUTH_METADATA_PATH + issuer.getPath())
 				.build(Collections.emptyMap());
 		// @formatter:on
-		return getRfc8414Builder(issuer, uri);
+		return () -> new ProviderConfiguration(issuer.toASCIIString(), false, retrieve(uri));
 	}
 
-	private static Supplier<ClientRegistration.Builder> getRfc8414Builder(URI issuer, URI uri) {
-		return () -> {
-			RequestEntity<Void> request = RequestEntity.get(uri).build();
-			Map<String, Object> configuration = rest.exchange(request, typeReference).getBody();
-			AuthorizationServerMetadata metadata = parse(configuration, AuthorizationServerMetadata::parse);
-			ClientRegistration.Builder builder = withProviderConfiguration(metadata, issuer.toASCIIString());
-			URI jwkSetUri = metadata.getJWKSetURI();
-			if (jwkSetUri != null) {
-				builder.jwkSetUri(jwkSetUri.toASCIIString());
-			}
-			String userinfoEndpoint = (String) configuration.get("userinfo_endpoint");
-			if (userinfoEndpoint != null) {
-				builder.userInfoUri(userinfoEndpoint);
-			}
-			return builder;
-		};
+	private static Map<String, Object> retrieve(URI uri) {
+		RequestEntity<Void> request = RequestEntity.get(uri).build();
+		return rest.exchange(request, typeReference).getBody();
+	}
+
+	private static ClientRegistration.Builder oidcBuilder(String issuer, Map<String, Object> configuration) {
+		OIDCProviderMetadata metadata = parse(configuration, OIDCProviderMetadata::parse);
+		ClientRegistration.Builder builder = withProviderConfiguration(metadata, issuer)
+			.jwkSetUri(metadata.getJWKSetURI().toASCIIString());
+		if (metadata.getUserInfoEndpointURI() != null) {
+			builder.userInfoUri(metadata.getUserInfoEndpointURI().toASCIIString());
+		}
+		return builder;
+	}
+
+	private static ClientRegistration.Builder rfc8414Builder(String issuer, Map<String, Object> configuration) {
+		AuthorizationServerMetadata metadata = parse(configuration, AuthorizationServerMetadata::parse);
+		ClientRegistration.Builder builder = withProviderConfiguration(metadata, issuer);
+		URI jwkSetUri = metadata.getJWKSetURI();
+		if (jwkSetUri != null) {
+			builder.jwkSetUri(jwkSetUri.toASCIIString());
+		}
+		String userinfoEndpoint = (String) configuration.get("userinfo_endpoint");
+		if (userinfoEndpoint != null) {
+			builder.userInfoUri(userinfoEndpoint);
+		}
+		return builder;
+	}
+
+	@SafeVarargs
+	private static ClientRegistration.Builder getBuilder(String issuer, Supplier<ProviderConfiguration>... suppliers) {
+		return resolve(issuer, ProviderConfiguration::builder, suppliers);
 	}
 
 	@SafeVarargs
-	private static ClientRegistration.Builder getBuilder(String issuer,
-			Supplier<ClientRegistration.Builder>... suppliers) {
+	private static <T> T resolve(String issuer, Function<ProviderConfiguration, T> mapper,
+			Supplier<ProviderConfiguration>... suppliers) {
 		String errorMessage = "Unable to resolve Configuration with the provided Issuer of \"" + issuer + "\"";
-		for (Supplier<ClientRegistration.Builder> supplier : suppliers) {
+		for (Supplier<ProviderConfiguration> supplier : suppliers) {
 			try {
-				return supplier.get();
+				return mapper.apply(supplier.get());
 			}
 			catch (HttpClientErrorException ex) {
 				if (!ex.getStatusCode().is4xxClientError()) {
@@ -325,4 +344,44 @@ public final class ClientRegistrations {
 
 	}
 
+	/**
+	 * The configuration retrieved from one of the discovery endpoints of an issuer.
+	 */
+	static final class ProviderConfiguration {
+
+		private final String issuer;
+
+		private final boolean oidc;
+
+		private final Map<String, Object> configuration;
+
+		ProviderConfiguration(String issuer, boolean oidc, Map<String, Object> configuration) {
+			this.issuer = issuer;
+			this.oidc = oidc;
+			this.configuration = configuration;
+		}
+
+		String getIssuer() {
+			return this.issuer;
+		}
+
+		/**
+		 * Whether the configuration is an OpenID Provider Configuration Response, as
+		 * opposed to Authorization Server Metadata
+		 */
+		boolean isOidc() {
+			return this.oidc;
+		}
+
+		Map<String, Object> getConfiguration() {
+			return this.configuration;
+		}
+
+		ClientRegistration.Builder builder() {
+			return this.oidc ? oidcBuilder(this.issuer, this.configuration)
+					: rfc8414Builder(this.issuer, this.configuration);
+		}
+
+	}
+
 }
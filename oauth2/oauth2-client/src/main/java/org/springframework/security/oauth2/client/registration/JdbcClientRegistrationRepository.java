@@ -0,0 +1,431 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.oauth2.sdk.util.JSONObjectUtils;
+import net.minidev.json.JSONObject;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.support.lob.DefaultLobHandler;
+import org.springframework.jdbc.support.lob.LobCreator;
+import org.springframework.jdbc.support.lob.LobHandler;
+import org.springframework.security.oauth2.core.AuthenticationMethod;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A JDBC implementation of a {@link ClientRegistrationRepository} that uses a
+ * {@link JdbcOperations} for {@link ClientRegistration} persistence.
+ *
+ * <p>
+ * <b>NOTE:</b> This {@code ClientRegistrationRepository} depends on the table definition
+ * described in
+ * "classpath:org/springframework/security/oauth2/client/oauth2-client-registration-schema.sql"
+ * and therefore MUST be defined in the database schema.
+ *
+ * <p>
+ * A registration is loaded by its primary key the first time it is requested, and is then
+ * cached per node so that memory use is proportional to the registrations in use: the
+ * least recently used registrations are evicted once more than the
+ * {@link #setCacheMaximumSize(int) maximum size} are cached, and a registration is loaded
+ * again after the {@link #setCacheTimeToLive(Duration) cache time to live}. A
+ * registration saved or removed through this repository is invalidated immediately. One
+ * changed by another node, or directly in the database, can be invalidated by calling
+ * {@link #invalidate(String)} from a change notification, such as a message or a database
+ * notification.
+ *
+ * @since 6.5
+ * @see ClientRegistrationRepository
+ * @see ClientRegistration
+ * @see JdbcOperations
+ * @see RowMapper
+ */
+public class JdbcClientRegistrationRepository implements ClientRegistrationRepository {
+
+	// @formatter:off
+	private static final String COLUMN_NAMES = "registration_id, "
+			+ "client_id, "
+			+ "client_secret, "
+			+ "client_authentication_method, "
+			+ "authorization_grant_type, "
+			+ "redirect_uri, "
+			+ "scopes, "
+			+ "client_name, "
+			+ "authorization_uri, "
+			+ "token_uri, "
+			+ "user_info_uri, "
+			+ "user_info_authentication_method, "
+			+ "user_name_attribute_name, "
+			+ "jwk_set_uri, "
+			+ "issuer_uri, "
+			+ "configuration_metadata";
+	// @formatter:on
+
+	private static final String TABLE_NAME = "oauth2_client_registration";
+
+	private static final String PK_FILTER = "registration_id = ?";
+
+	// @formatter:off
+	private static final String LOAD_CLIENT_REGISTRATION_SQL = "SELECT " + COLUMN_NAMES
+			+ " FROM " + TABLE_NAME
+			+ " WHERE " + PK_FILTER;
+	// @formatter:on
+
+	// @formatter:off
+	private static final String SAVE_CLIENT_REGISTRATION_SQL = "INSERT INTO " + TABLE_NAME
+			+ " (" + COLUMN_NAMES + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String UPDATE_CLIENT_REGISTRATION_SQL = "UPDATE " + TABLE_NAME
+			+ " SET client_id = ?, client_secret = ?, client_authentication_method = ?,"
+			+ " authorization_grant_type = ?, redirect_uri = ?, scopes = ?, client_name = ?,"
+			+ " authorization_uri = ?, token_uri = ?, user_info_uri = ?, user_info_authentication_method = ?,"
+			+ " user_name_attribute_name = ?, jwk_set_uri = ?, issuer_uri = ?, configuration_metadata = ?"
+			+ " WHERE " + PK_FILTER;
+	// @formatter:on
+
+	private static final String REMOVE_CLIENT_REGISTRATION_SQL = "DELETE FROM " + TABLE_NAME + " WHERE " + PK_FILTER;
+
+	protected final JdbcOperations jdbcOperations;
+
+	protected RowMapper<ClientRegistration> clientRegistrationRowMapper;
+
+	protected Function<ClientRegistration, List<SqlParameterValue>> clientRegistrationParametersMapper;
+
+	protected final LobHandler lobHandler;
+
+	private final ClientRegistrationCache clientRegistrationCache = new ClientRegistrationCache();
+
+	/**
+	 * Constructs a {@code JdbcClientRegistrationRepository} using the provided
+	 * parameters.
+	 * @param jdbcOperations the JDBC operations
+	 */
+	public JdbcClientRegistrationRepository(JdbcOperations jdbcOperations) {
+		this(jdbcOperations, new DefaultLobHandler());
+	}
+
+	/**
+	 * Constructs a {@code JdbcClientRegistrationRepository} using the provided
+	 * parameters.
+	 * @param jdbcOperations the JDBC operations
+	 * @param lobHandler the handler for large binary fields and large text fields
+	 */
+	public JdbcClientRegistrationRepository(JdbcOperations jdbcOperations, LobHandler lobHandler) {
+		Assert.notNull(jdbcOperations, "jdbcOperations cannot be null");
+		Assert.notNull(lobHandler, "lobHandler cannot be null");
+		this.jdbcOperations = jdbcOperations;
+		this.lobHandler = lobHandler;
+		ClientRegistrationRowMapper clientRegistrationRowMapper = new ClientRegistrationRowMapper();
+		clientRegistrationRowMapper.setLobHandler(lobHandler);
+		this.clientRegistrationRowMapper = clientRegistrationRowMapper;
+		this.clientRegistrationParametersMapper = new ClientRegistrationParametersMapper();
+	}
+
+	@Override
+	public ClientRegistration findByRegistrationId(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		ClientRegistration cachedClientRegistration = this.clientRegistrationCache.get(registrationId);
+		if (cachedClientRegistration != null) {
+			return cachedClientRegistration;
+		}
+		long stamp = this.clientRegistrationCache.stamp();
+		SqlParameterValue[] parameters = new SqlParameterValue[] {
+				new SqlParameterValue(Types.VARCHAR, registrationId) };
+		PreparedStatementSetter pss = new ArgumentPreparedStatementSetter(parameters);
+		List<ClientRegistration> result = this.jdbcOperations.query(LOAD_CLIENT_REGISTRATION_SQL, pss,
+				this.clientRegistrationRowMapper);
+		if (result.isEmpty()) {
+			return null;
+		}
+		ClientRegistration clientRegistration = result.get(0);
+		this.clientRegistrationCache.put(clientRegistration, stamp);
+		return clientRegistration;
+	}
+
+	/**
+	 * Saves the provided {@link ClientRegistration}, replacing the registration with the
+	 * same registration id if there is one.
+	 * @param clientRegistration the {@link ClientRegistration} to save
+	 */
+	public void save(ClientRegistration clientRegistration) {
+		Assert.notNull(clientRegistration, "clientRegistration cannot be null");
+		List<SqlParameterValue> parameters = this.clientRegistrationParametersMapper.apply(clientRegistration);
+		try {
+			if (updateClientRegistration(parameters) == 0) {
+				try {
+					update(SAVE_CLIENT_REGISTRATION_SQL, parameters);
+				}
+				catch (DuplicateKeyException ex) {
+					updateClientRegistration(parameters);
+				}
+			}
+		}
+		finally {
+			this.clientRegistrationCache.invalidate(clientRegistration.getRegistrationId());
+		}
+	}
+
+	private int updateClientRegistration(List<SqlParameterValue> parameters) {
+		List<SqlParameterValue> updateParameters = new ArrayList<>(parameters.subList(1, parameters.size()));
+		updateParameters.add(parameters.get(0));
+		return update(UPDATE_CLIENT_REGISTRATION_SQL, updateParameters);
+	}
+
+	private int update(String sql, List<SqlParameterValue> parameters) {
+		try (LobCreator lobCreator = this.lobHandler.getLobCreator()) {
+			PreparedStatementSetter pss = new LobCreatorArgumentPreparedStatementSetter(lobCreator,
+					parameters.toArray());
+			return this.jdbcOperations.update(sql, pss);
+		}
+	}
+
+	/**
+	 * Removes the {@link ClientRegistration} with the provided registration id.
+	 * @param registrationId the registration id
+	 */
+	public void remove(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		SqlParameterValue[] parameters = new SqlParameterValue[] {
+				new SqlParameterValue(Types.VARCHAR, registrationId) };
+		PreparedStatementSetter pss = new ArgumentPreparedStatementSetter(parameters);
+		try {
+			this.jdbcOperations.update(REMOVE_CLIENT_REGISTRATION_SQL, pss);
+		}
+		finally {
+			this.clientRegistrationCache.invalidate(registrationId);
+		}
+	}
+
+	/**
+	 * Removes the {@link ClientRegistration} with the provided registration id from the
+	 * cache of this node, so that it is loaded again from the database the next time it
+	 * is requested. This is meant to be called when notified that the registration was
+	 * changed by another node.
+	 * @param registrationId the registration id
+	 */
+	public void invalidate(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		this.clientRegistrationCache.invalidate(registrationId);
+	}
+
+	/**
+	 * Removes all the {@link ClientRegistration}s from the cache of this node.
+	 */
+	public void invalidateAll() {
+		this.clientRegistrationCache.invalidateAll();
+	}
+
+	/**
+	 * Sets the {@link RowMapper} used for mapping the current row in
+	 * {@code java.sql.ResultSet} to {@link ClientRegistration}. The default is
+	 * {@link ClientRegistrationRowMapper}.
+	 * @param clientRegistrationRowMapper the {@link RowMapper} used for mapping the
+	 * current row in {@code java.sql.ResultSet} to {@link ClientRegistration}
+	 */
+	public final void setClientRegistrationRowMapper(RowMapper<ClientRegistration> clientRegistrationRowMapper) {
+		Assert.notNull(clientRegistrationRowMapper, "clientRegistrationRowMapper cannot be null");
+		this.clientRegistrationRowMapper = clientRegistrationRowMapper;
+	}
+
+	/**
+	 * Sets the {@code Function} used for mapping {@link ClientRegistration} to a
+	 * {@code List} of {@link SqlParameterValue}. The default is
+	 * {@link ClientRegistrationParametersMapper}.
+	 * @param clientRegistrationParametersMapper the {@code Function} used for mapping
+	 * {@link ClientRegistration} to a {@code List} of {@link SqlParameterValue}
+	 */
+	public final void setClientRegistrationParametersMapper(
+			Function<ClientRegistration, List<SqlParameterValue>> clientRegistrationParametersMapper) {
+		Assert.notNull(clientRegistrationParametersMapper, "clientRegistrationParametersMapper cannot be null");
+		this.clientRegistrationParametersMapper = clientRegistrationParametersMapper;
+	}
+
+	/**
+	 * Sets how long a loaded registration is cached before it is loaded again. The
+	 * default is 1 hour. {@link Duration#ZERO} disables the cache.
+	 * @param cacheTimeToLive how long a loaded registration is cached
+	 */
+	public final void setCacheTimeToLive(Duration cacheTimeToLive) {
+		this.clientRegistrationCache.setTimeToLive(cacheTimeToLive);
+	}
+
+	/**
+	 * Sets how many registrations are cached before the least recently used ones are
+	 * evicted. The default is 10,000.
+	 * @param cacheMaximumSize the maximum number of cached registrations
+	 */
+	public final void setCacheMaximumSize(int cacheMaximumSize) {
+		this.clientRegistrationCache.setMaximumSize(cacheMaximumSize);
+	}
+
+	/**
+	 * The default {@link RowMapper} that maps the current row in
+	 * {@code java.sql.ResultSet} to {@link ClientRegistration}.
+	 */
+	public static class ClientRegistrationRowMapper implements RowMapper<ClientRegistration> {
+
+		protected LobHandler lobHandler = new DefaultLobHandler();
+
+		public final void setLobHandler(LobHandler lobHandler) {
+			Assert.notNull(lobHandler, "lobHandler cannot be null");
+			this.lobHandler = lobHandler;
+		}
+
+		@Override
+		public ClientRegistration mapRow(ResultSet rs, int rowNum) throws SQLException {
+			String registrationId = rs.getString("registration_id");
+			// @formatter:off
+			ClientRegistration.Builder builder = ClientRegistration.withRegistrationId(registrationId)
+					.clientId(rs.getString("client_id"))
+					.clientSecret(rs.getString("client_secret"))
+					.clientAuthenticationMethod(new ClientAuthenticationMethod(rs.getString("client_authentication_method")))
+					.authorizationGrantType(new AuthorizationGrantType(rs.getString("authorization_grant_type")))
+					.redirectUri(rs.getString("redirect_uri"))
+					.clientName(rs.getString("client_name"))
+					.authorizationUri(rs.getString("authorization_uri"))
+					.tokenUri(rs.getString("token_uri"))
+					.userInfoUri(rs.getString("user_info_uri"))
+					.userNameAttributeName(rs.getString("user_name_attribute_name"))
+					.jwkSetUri(rs.getString("jwk_set_uri"))
+					.issuerUri(rs.getString("issuer_uri"));
+			// @formatter:on
+			String scopes = rs.getString("scopes");
+			if (scopes != null) {
+				builder.scope(StringUtils.commaDelimitedListToSet(scopes));
+			}
+			String userInfoAuthenticationMethod = rs.getString("user_info_authentication_method");
+			if (userInfoAuthenticationMethod != null) {
+				builder.userInfoAuthenticationMethod(new AuthenticationMethod(userInfoAuthenticationMethod));
+			}
+			byte[] configurationMetadata = this.lobHandler.getBlobAsBytes(rs, "configuration_metadata");
+			if (configurationMetadata != null) {
+				try {
+					builder.providerConfigurationMetadata(
+							JSONObjectUtils.parse(new String(configurationMetadata, StandardCharsets.UTF_8)));
+				}
+				catch (ParseException ex) {
+					throw new DataRetrievalFailureException("The configuration metadata of the ClientRegistration "
+							+ "with id '" + registrationId + "' is not a JSON object.", ex);
+				}
+			}
+			return builder.build();
+		}
+
+	}
+
+	/**
+	 * The default {@code Function} that maps {@link ClientRegistration} to a {@code List}
+	 * of {@link SqlParameterValue}.
+	 */
+	public static class ClientRegistrationParametersMapper
+			implements Function<ClientRegistration, List<SqlParameterValue>> {
+
+		@Override
+		public List<SqlParameterValue> apply(ClientRegistration clientRegistration) {
+			ClientRegistration.ProviderDetails providerDetails = clientRegistration.getProviderDetails();
+			ClientRegistration.ProviderDetails.UserInfoEndpoint userInfoEndpoint = providerDetails
+				.getUserInfoEndpoint();
+			List<SqlParameterValue> parameters = new ArrayList<>();
+			parameters.add(new SqlParameterValue(Types.VARCHAR, clientRegistration.getRegistrationId()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, clientRegistration.getClientId()));
+			parameters
+				.add(new SqlParameterValue(Types.VARCHAR, StringUtils.hasText(clientRegistration.getClientSecret())
+						? clientRegistration.getClientSecret() : null));
+			parameters.add(new SqlParameterValue(Types.VARCHAR,
+					clientRegistration.getClientAuthenticationMethod().getValue()));
+			parameters
+				.add(new SqlParameterValue(Types.VARCHAR, clientRegistration.getAuthorizationGrantType().getValue()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, clientRegistration.getRedirectUri()));
+			String scopes = null;
+			if (!CollectionUtils.isEmpty(clientRegistration.getScopes())) {
+				scopes = StringUtils.collectionToDelimitedString(clientRegistration.getScopes(), ",");
+			}
+			parameters.add(new SqlParameterValue(Types.VARCHAR, scopes));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, clientRegistration.getClientName()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, providerDetails.getAuthorizationUri()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, providerDetails.getTokenUri()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, userInfoEndpoint.getUri()));
+			String userInfoAuthenticationMethod = null;
+			if (userInfoEndpoint.getAuthenticationMethod() != null) {
+				userInfoAuthenticationMethod = userInfoEndpoint.getAuthenticationMethod().getValue();
+			}
+			parameters.add(new SqlParameterValue(Types.VARCHAR, userInfoAuthenticationMethod));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, userInfoEndpoint.getUserNameAttributeName()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, providerDetails.getJwkSetUri()));
+			parameters.add(new SqlParameterValue(Types.VARCHAR, providerDetails.getIssuerUri()));
+			byte[] configurationMetadata = null;
+			Map<String, Object> metadata = providerDetails.getConfigurationMetadata();
+			if (!CollectionUtils.isEmpty(metadata)) {
+				configurationMetadata = new JSONObject(metadata).toJSONString().getBytes(StandardCharsets.UTF_8);
+			}
+			parameters.add(new SqlParameterValue(Types.BLOB, configurationMetadata));
+			return parameters;
+		}
+
+	}
+
+	private static final class LobCreatorArgumentPreparedStatementSetter extends ArgumentPreparedStatementSetter {
+
+		protected final LobCreator lobCreator;
+
+		private LobCreatorArgumentPreparedStatementSetter(LobCreator lobCreator, Object[] args) {
+			super(args);
+			this.lobCreator = lobCreator;
+		}
+
+		@Override
+		protected void doSetValue(PreparedStatement ps, int parameterPosition, Object argValue) throws SQLException {
+			if (argValue instanceof SqlParameterValue paramValue) {
+				if (paramValue.getSqlType() == Types.BLOB) {
+					if (paramValue.getValue() != null) {
+						Assert.isInstanceOf(byte[].class, paramValue.getValue(),
+								"Value of blob parameter must be byte[]");
+					}
+					byte[] valueBytes = (byte[]) paramValue.getValue();
+					this.lobCreator.setBlobAsBytes(ps, parameterPosition, valueBytes);
+					return;
+				}
+			}
+			super.doSetValue(ps, parameterPosition, argValue);
+		}
+
+	}
+
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.oauth2.sdk.util.JSONObjectUtils;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import net.minidev.json.JSONObject;
+import reactor.core.publisher.Mono;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.security.oauth2.core.AuthenticationMethod;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A R2DBC implementation of {@link ReactiveClientRegistrationRepository} that uses a
+ * {@link DatabaseClient} for {@link ClientRegistration} persistence.
+ *
+ * <p>
+ * <b>NOTE:</b> This {@code ReactiveClientRegistrationRepository} depends on the table
+ * definition described in
+ * "classpath:org/springframework/security/oauth2/client/oauth2-client-registration-schema.sql"
+ * and therefore MUST be defined in the database schema.
+ *
+ * <p>
+ * Registrations are loaded and cached the same way as by
+ * {@link JdbcClientRegistrationRepository}: on first request, per node, evicting the
+ * least recently used ones once more than the {@link #setCacheMaximumSize(int) maximum
+ * size} are cached, and invalidating those saved or removed through this repository or
+ * passed to {@link #invalidate(String)}.
+ *
+ * @since 6.5
+ * @see ReactiveClientRegistrationRepository
+ * @see ClientRegistration
+ * @see DatabaseClient
+ */
+public class R2dbcReactiveClientRegistrationRepository implements ReactiveClientRegistrationRepository {
+
+	// @formatter:off
+	private static final String COLUMN_NAMES = "registration_id, "
+			+ "client_id, "
+			+ "client_secret, "
+			+ "client_authentication_method, "
+			+ "authorization_grant_type, "
+			+ "redirect_uri, "
+			+ "scopes, "
+			+ "client_name, "
+			+ "authorization_uri, "
+			+ "token_uri, "
+			+ "user_info_uri, "
+			+ "user_info_authentication_method, "
+			+ "user_name_attribute_name, "
+			+ "jwk_set_uri, "
+			+ "issuer_uri, "
+			+ "configuration_metadata";
+	// @formatter:on
+
+	private static final String TABLE_NAME = "oauth2_client_registration";
+
+	private static final String PK_FILTER = "registration_id = :registrationId";
+
+	// @formatter:off
+	private static final String LOAD_CLIENT_REGISTRATION_SQL = "SELECT " + COLUMN_NAMES + " FROM " + TABLE_NAME
+			+ " WHERE " + PK_FILTER;
+	// @formatter:on
+
+	// @formatter:off
+	private static final String SAVE_CLIENT_REGISTRATION_SQL = "INSERT INTO " + TABLE_NAME + " (" + COLUMN_NAMES + ")"
+			+ " VALUES (:registrationId, :clientId, :clientSecret, :clientAuthenticationMethod,"
+			+ " :authorizationGrantType, :redirectUri, :scopes, :clientName, :authorizationUri, :tokenUri,"
+			+ " :userInfoUri, :userInfoAuthenticationMethod, :userNameAttributeName, :jwkSetUri, :issuerUri,"
+			+ " :configurationMetadata)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String UPDATE_CLIENT_REGISTRATION_SQL = "UPDATE " + TABLE_NAME
+			+ " SET client_id = :clientId, client_secret = :clientSecret,"
+			+ " client_authentication_method = :clientAuthenticationMethod,"
+			+ " authorization_grant_type = :authorizationGrantType, redirect_uri = :redirectUri,"
+			+ " scopes = :scopes, client_name = :clientName, authorization_uri = :authorizationUri,"
+			+ " token_uri = :tokenUri, user_info_uri = :userInfoUri,"
+			+ " user_info_authentication_method = :userInfoAuthenticationMethod,"
+			+ " user_name_attribute_name = :userNameAttributeName, jwk_set_uri = :jwkSetUri,"
+			+ " issuer_uri = :issuerUri, configuration_metadata = :configurationMetadata"
+			+ " WHERE " + PK_FILTER;
+	// @formatter:on
+
+	private static final String REMOVE_CLIENT_REGISTRATION_SQL = "DELETE FROM " + TABLE_NAME + " WHERE " + PK_FILTER;
+
+	protected final DatabaseClient databaseClient;
+
+	protected Function<ClientRegistration, Map<String, Parameter>> clientRegistrationParametersMapper;
+
+	protected BiFunction<Row, RowMetadata, ClientRegistration> clientRegistrationRowMapper;
+
+	private final ClientRegistrationCache clientRegistrationCache = new ClientRegistrationCache();
+
+	/**
+	 * Constructs a {@code R2dbcReactiveClientRegistrationRepository} using the provided
+	 * parameters.
+	 * @param databaseClient the database client
+	 */
+	public R2dbcReactiveClientRegistrationRepository(DatabaseClient databaseClient) {
+		Assert.notNull(databaseClient, "databaseClient cannot be null");
+		this.databaseClient = databaseClient;
+		this.clientRegistrationParametersMapper = new ClientRegistrationParametersMapper();
+		this.clientRegistrationRowMapper = new ClientRegistrationRowMapper();
+	}
+
+	@Override
+	public Mono<ClientRegistration> findByRegistrationId(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		return Mono.defer(() -> {
+			ClientRegistration cachedClientRegistration = this.clientRegistrationCache.get(registrationId);
+			if (cachedClientRegistration != null) {
+				return Mono.just(cachedClientRegistration);
+			}
+			long stamp = this.clientRegistrationCache.stamp();
+			return this.databaseClient.sql(LOAD_CLIENT_REGISTRATION_SQL)
+				.bind("registrationId", registrationId)
+				.map(this.clientRegistrationRowMapper)
+				.first()
+				.doOnNext((clientRegistration) -> this.clientRegistrationCache.put(clientRegistration, stamp));
+		});
+	}
+
+	/**
+	 * Saves the provided {@link ClientRegistration}, replacing the registration with the
+	 * same registration id if there is one.
+	 * @param clientRegistration the {@link ClientRegistration} to save
+	 * @return a {@code Mono} completing when the registration is saved
+	 */
+	public Mono<Void> save(ClientRegistration clientRegistration) {
+		Assert.notNull(clientRegistration, "clientRegistration cannot be null");
+		return Mono.defer(() -> {
+			Map<String, Parameter> parameters = this.clientRegistrationParametersMapper.apply(clientRegistration);
+			// the parameters are mapped again for the insert since binding consumes the
+			// configuration metadata buffer
+			return execute(UPDATE_CLIENT_REGISTRATION_SQL, parameters).filter((rowsUpdated) -> rowsUpdated > 0)
+				.switchIfEmpty(Mono.defer(() -> execute(SAVE_CLIENT_REGISTRATION_SQL,
+						this.clientRegistrationParametersMapper.apply(clientRegistration))));
+		})
+			.doFinally((signalType) -> this.clientRegistrationCache.invalidate(clientRegistration.getRegistrationId()))
+			.then();
+	}
+
+	private Mono<Long> execute(String sql, Map<String, Parameter> parameters) {
+		GenericExecuteSpec executeSpec = this.databaseClient.sql(sql);
+		for (Entry<String, Parameter> entry : parameters.entrySet()) {
+			executeSpec = executeSpec.bind(entry.getKey(), entry.getValue());
+		}
+		return executeSpec.fetch().rowsUpdated();
+	}
+
+	/**
+	 * Removes the {@link ClientRegistration} with the provided registration id.
+	 * @param registrationId the registration id
+	 * @return a {@code Mono} completing when the registration is removed
+	 */
+	public Mono<Void> remove(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		return this.databaseClient.sql(REMOVE_CLIENT_REGISTRATION_SQL)
+			.bind("registrationId", registrationId)
+			.then()
+			.doFinally((signalType) -> this.clientRegistrationCache.invalidate(registrationId));
+	}
+
+	/**
+	 * Removes the {@link ClientRegistration} with the provided registration id from the
+	 * cache of this node, so that it is loaded again from the database the next time it
+	 * is requested. This is meant to be called when notified that the registration was
+	 * changed by another node.
+	 * @param registrationId the registration id
+	 */
+	public void invalidate(String registrationId) {
+		Assert.hasText(registrationId, "registrationId cannot be empty");
+		this.clientRegistrationCache.invalidate(registrationId);
+	}
+
+	/**
+	 * Removes all the {@link ClientRegistration}s from the cache of this node.
+	 */
+	public void invalidateAll() {
+		this.clientRegistrationCache.invalidateAll();
+	}
+
+	/**
+	 * Sets the {@code Function} used for mapping {@link ClientRegistration} to a
+	 * {@code Map} of {@link String} and {@link Parameter}. The default is
+	 * {@link ClientRegistrationParametersMapper}.
+	 * @param clientRegistrationParametersMapper the {@code Function} used for mapping
+	 * {@link ClientRegistration} to a {@code Map} of {@link String} and {@link Parameter}
+	 */
+	public final void setClientRegistrationParametersMapper(
+			Function<ClientRegistration, Map<String, Parameter>> clientRegistrationParametersMapper) {
+		Assert.notNull(clientRegistrationParametersMapper, "clientRegistrationParametersMapper cannot be null");
+		this.clientRegistrationParametersMapper = clientRegistrationParametersMapper;
+	}
+
+	/**
+	 * Sets the {@link BiFunction} used for mapping the current {@code io.r2dbc.spi.Row}
+	 * to {@link ClientRegistration}. The default is {@link ClientRegistrationRowMapper}.
+	 * @param clientRegistrationRowMapper the {@link BiFunction} used for mapping the
+	 * current {@code io.r2dbc.spi.Row} to {@link ClientRegistration}
+	 */
+	public final void setClientRegistrationRowMapper(
+			BiFunction<Row, RowMetadata, ClientRegistration> clientRegistrationRowMapper) {
+		Assert.notNull(clientRegistrationRowMapper, "clientRegistrationRowMapper cannot be null");
+		this.clientRegistrationRowMapper = clientRegistrationRowMapper;
+	}
+
+	/**
+	 * Sets how long a loaded registration is cached before it is loaded again. The
+	 * default is 1 hour. {@link Duration#ZERO} disables the cache.
+	 * @param cacheTimeToLive how long a loaded registration is cached
+	 */
+	public final void setCacheTimeToLive(Duration cacheTimeToLive) {
+		this.clientRegistrationCache.setTimeToLive(cacheTimeToLive);
+	}
+
+	/**
+	 * Sets how many registrations are cached before the least recently used ones are
+	 * evicted. The default is 10,000.
+	 * @param cacheMaximumSize the maximum number of cached registrations
+	 */
+	public final void setCacheMaximumSize(int cacheMaximumSize) {
+		this.clientRegistrationCache.setMaximumSize(cacheMaximumSize);
+	}
+
+	/**
+	 * The default {@code Function} that maps {@link ClientRegistration} to a {@code Map}
+	 * of {@link String} and {@link Parameter}.
+	 */
+	public static class ClientRegistrationParametersMapper
+			implements Function<ClientRegistration, Map<String, Parameter>> {
+
+		@Override
+		public Map<String, Parameter> apply(ClientRegistration clientRegistration) {
+			ClientRegistration.ProviderDetails providerDetails = clientRegistration.getProviderDetails();
+			ClientRegistration.ProviderDetails.UserInfoEndpoint userInfoEndpoint = providerDetails
+				.getUserInfoEndpoint();
+			Map<String, Parameter> parameters = new HashMap<>();
+			parameters.put("registrationId",
+					Parameter.fromOrEmpty(clientRegistration.getRegistrationId(), String.class));
+			parameters.put("clientId", Parameter.fromOrEmpty(clientRegistration.getClientId(), String.class));
+			parameters.put("clientSecret",
+					Parameter.fromOrEmpty(StringUtils.hasText(clientRegistration.getClientSecret())
+							? clientRegistration.getClientSecret() : null, String.class));
+			parameters.put("clientAuthenticationMethod",
+					Parameter.fromOrEmpty(clientRegistration.getClientAuthenticationMethod().getValue(), String.class));
+			parameters.put("authorizationGrantType",
+					Parameter.fromOrEmpty(clientRegistration.getAuthorizationGrantType().getValue(), String.class));
+			parameters.put("redirectUri", Parameter.fromOrEmpty(clientRegistration.getRedirectUri(), String.class));
+			String scopes = null;
+			if (!CollectionUtils.isEmpty(clientRegistration.getScopes())) {
+				scopes = StringUtils.collectionToDelimitedString(clientRegistration.getScopes(), ",");
+			}
+			parameters.put("scopes", Parameter.fromOrEmpty(scopes, String.class));
+			parameters.put("clientName", Parameter.fromOrEmpty(clientRegistration.getClientName(), String.class));
+			parameters.put("authorizationUri",
+					Parameter.fromOrEmpty(providerDetails.getAuthorizationUri(), String.class));
+			parameters.put("tokenUri", Parameter.fromOrEmpty(providerDetails.getTokenUri(), String.class));
+			parameters.put("userInfoUri", Parameter.fromOrEmpty(userInfoEndpoint.getUri(), String.class));
+			String userInfoAuthenticationMethod = null;
+			if (userInfoEndpoint.getAuthenticationMethod() != null) {
+				userInfoAuthenticationMethod = userInfoEndpoint.getAuthenticationMethod().getValue();
+			}
+			parameters.put("userInfoAuthenticationMethod",
+					Parameter.fromOrEmpty(userInfoAuthenticationMethod, String.class));
+			parameters.put("userNameAttributeName",
+					Parameter.fromOrEmpty(userInfoEndpoint.getUserNameAttributeName(), String.class));
+			parameters.put("jwkSetUri", Parameter.fromOrEmpty(providerDetails.getJwkSetUri(), String.class));
+			parameters.put("issuerUri", Parameter.fromOrEmpty(providerDetails.getIssuerUri(), String.class));
+			ByteBuffer configurationMetadata = null;
+			Map<String, Object> metadata = providerDetails.getConfigurationMetadata();
+			if (!CollectionUtils.isEmpty(metadata)) {
+				configurationMetadata = ByteBuffer
+					.wrap(new JSONObject(metadata).toJSONString().getBytes(StandardCharsets.UTF_8));
+			}
+			parameters.put("configurationMetadata", Parameter.fromOrEmpty(configurationMetadata, ByteBuffer.class));
+			return parameters;
+		}
+
+	}
+
+	/**
+	 * The default {@link BiFunction} that maps the current {@code io.r2dbc.spi.Row} to a
+	 * {@link ClientRegistration}.
+	 */
+	public static class ClientRegistrationRowMapper implements BiFunction<Row, RowMetadata, ClientRegistration> {
+
+		@Override
+		public ClientRegistration apply(Row row, RowMetadata rowMetadata) {
+			String registrationId = row.get("registration_id", String.class);
+			// @formatter:off
+			ClientRegistration.Builder builder = ClientRegistration.withRegistrationId(registrationId)
+					.clientId(row.get("client_id", String.class))
+					.clientSecret(row.get("client_secret", String.class))
+					.clientAuthenticationMethod(new ClientAuthenticationMethod(row.get("client_authentication_method", String.class)))
+					.authorizationGrantType(new AuthorizationGrantType(row.get("authorization_grant_type", String.class)))
+					.redirectUri(row.get("redirect_uri", String.class))
+					.clientName(row.get("client_name", String.class))
+					.authorizationUri(row.get("authorization_uri", String.class))
+					.tokenUri(row.get("token_uri", String.class))
+					.userInfoUri(row.get("user_info_uri", String.class))
+					.userNameAttributeName(row.get("user_name_attribute_name", String.class))
+					.jwkSetUri(row.get("jwk_set_uri", String.class))
+					.issuerUri(row.get("issuer_uri", String.class));
+			// @formatter:on
+			String scopes = row.get("scopes", String.class);
+			if (scopes != null) {
+				builder.scope(StringUtils.commaDelimitedListToSet(scopes));
+			}
+			String userInfoAuthenticationMethod = row.get("user_info_authentication_method", String.class);
+			if (userInfoAuthenticationMethod != null) {
+				builder.userInfoAuthenticationMethod(new AuthenticationMethod(userInfoAuthenticationMethod));
+			}
+			ByteBuffer configurationMetadata = row.get("configuration_metadata", ByteBuffer.class);
+			if (configurationMetadata != null) {
+				try {
+					builder.providerConfigurationMetadata(
+							JSONObjectUtils.parse(new String(configurationMetadata.array(), StandardCharsets.UTF_8)));
+				}
+				catch (ParseException ex) {
+					throw new DataRetrievalFailureException("The configuration metadata of the ClientRegistration "
+							+ "with id '" + registrationId + "' is not a JSON object.", ex);
+				}
+			}
+			return builder.build();
+		}
+
+	}
+
+}
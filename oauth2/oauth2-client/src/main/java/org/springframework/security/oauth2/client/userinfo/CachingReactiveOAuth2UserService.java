@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.userinfo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ReactiveOAuth2UserService} caching the {@link OAuth2User}s loaded by another
+ * {@link ReactiveOAuth2UserService}, so that the UserInfo Endpoint is called once for
+ * each access token rather than for each request to load the user.
+ *
+ * <p>
+ * A user is cached for the {@link #setTimeToLive(Duration) time to live} or until its
+ * access token expires, whichever comes first, and the concurrent requests to load the
+ * user of the same access token share a single call to the delegate. The users that could
+ * not be loaded are not cached.
+ *
+ * @param <R> The type of OAuth 2.0 User Request
+ * @param <U> The type of OAuth 2.0 User
+ * @since 6.5
+ * @see CachingOAuth2UserService
+ */
+public final class CachingReactiveOAuth2UserService<R extends OAuth2UserRequest, U extends OAuth2User>
+		implements ReactiveOAuth2UserService<R, U> {
+
+	private final ReactiveOAuth2UserService<R, U> delegate;
+
+	private final UserInfoCache<U> cache = new UserInfoCache<>();
+
+	private final Map<UserInfoCache.Key, Sinks.One<U>> inFlightRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a {@code CachingReactiveOAuth2UserService} using the provided
+	 * parameters.
+	 * @param delegate the {@link ReactiveOAuth2UserService} loading the users to cache
+	 */
+	public CachingReactiveOAuth2UserService(ReactiveOAuth2UserService<R, U> delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Mono<U> loadUser(R userRequest) throws OAuth2AuthenticationException {
+		Assert.notNull(userRequest, "userRequest cannot be null");
+		return Mono.defer(() -> {
+			UserInfoCache.Key key = UserInfoCache.key(userRequest);
+			U user = this.cache.get(key);
+			if (user != null) {
+				return Mono.just(user);
+			}
+			Sinks.One<U> request = Sinks.one();
+			Sinks.One<U> inFlight = this.inFlightRequests.putIfAbsent(key, request);
+			if (inFlight != null) {
+				// a request that was cancelled is not shared
+				return inFlight.asMono().switchIfEmpty(Mono.defer(() -> this.delegate.loadUser(userRequest)));
+			}
+			return this.delegate.loadUser(userRequest)
+				.doOnNext((loaded) -> this.cache.put(key, userRequest.getAccessToken(), loaded))
+				.doOnNext(request::tryEmitValue)
+				.doOnError(request::tryEmitError)
+				.doFinally((signalType) -> {
+					this.inFlightRequests.remove(key, request);
+					request.tryEmitEmpty();
+				});
+		});
+	}
+
+	/**
+	 * Sets the maximum duration a user is cached, which is capped by the expiration of
+	 * its access token. The default is 5 minutes.
+	 * @param timeToLive the maximum duration a user is cached
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		this.cache.setTimeToLive(timeToLive);
+	}
+
+	/**
+	 * Sets the maximum number of cached users. The default is 10,000.
+	 * @param maximumSize the maximum number of cached users
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.cache.setMaximumSize(maximumSize);
+	}
+
+	/**
+	 * Sets the {@link Clock} used to expire the cached users.
+	 * @param clock the {@link Clock}
+	 */
+	public void setClock(Clock clock) {
+		this.cache.setClock(clock);
+	}
+
+}
@@ -32,6 +32,7 @@ import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.http.OAuth2ClientHttpTransport;
 import org.springframework.security.oauth2.core.AuthenticationMethod;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -82,7 +83,9 @@ public class DefaultReactiveOAuth2UserService implements ReactiveOAuth2UserServi
 	private Converter<OAuth2UserRequest, Converter<Map<String, Object>, Map<String, Object>>> attributesConverter = (
 			request) -> (attributes) -> attributes;
 
-	private WebClient webClient = WebClient.create();
+	private WebClient webClient = WebClient.builder()
+		.clientConnector(OAuth2ClientHttpTransport.getDefault().getConnector())
+		.build();
 
 	@Override
 	public Mono<OAuth2User> loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -174,6 +177,8 @@ public class DefaultReactiveOAuth2UserService implements ReactiveOAuth2UserServi
 			// @formatter:off
 			return this.webClient.post()
 					.uri(userInfoUri)
+					.attributes(OAuth2ClientHttpTransport.clientRegistrationId(
+							userRequest.getClientRegistration().getRegistrationId()))
 					.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
 					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
 					.bodyValue("access_token=" + userRequest.getAccessToken().getTokenValue());
@@ -182,6 +187,8 @@ public class DefaultReactiveOAuth2UserService implements ReactiveOAuth2UserServi
 		// @formatter:off
 		return this.webClient.get()
 				.uri(userInfoUri)
+				.attributes(OAuth2ClientHttpTransport.clientRegistrationId(
+						userRequest.getClientRegistration().getRegistrationId()))
 				.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
 				.headers((headers) -> headers
 						.setBearerAuth(userRequest.getAccessToken().getTokenValue())
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.userinfo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.util.Assert;
+
+/**
+ * The {@link OAuth2User}s cached by {@link CachingOAuth2UserService} and
+ * {@link CachingReactiveOAuth2UserService}, keyed by the {@link ClientRegistration} and
+ * its issuer, and a hash of the {@link OAuth2AccessToken access token} the user was
+ * loaded with.
+ *
+ * <p>
+ * A user is cached until the time to live elapses or the access token expires, whichever
+ * comes first. When the maximum number of users is reached, the expired users are
+ * removed, and the next users are not cached until some expire.
+ *
+ * @param <U> the type of the cached {@link OAuth2User}
+ * @since 6.5
+ */
+final class UserInfoCache<U extends OAuth2User> {
+
+	private final Map<Key, CachedUser<U>> users = new ConcurrentHashMap<>();
+
+	private volatile Duration timeToLive = Duration.ofMinutes(5);
+
+	private volatile int maximumSize = 10_000;
+
+	private volatile Clock clock = Clock.systemUTC();
+
+	U get(Key key) {
+		CachedUser<U> cached = this.users.get(key);
+		if (cached == null) {
+			return null;
+		}
+		if (!this.clock.instant().isBefore(cached.expiresAt)) {
+			this.users.remove(key, cached);
+			return null;
+		}
+		return cached.user;
+	}
+
+	void put(Key key, OAuth2AccessToken accessToken, U user) {
+		Instant now = this.clock.instant();
+		Instant expiresAt = now.plus(this.timeToLive);
+		if (accessToken.getExpiresAt() != null && accessToken.getExpiresAt().isBefore(expiresAt)) {
+			expiresAt = accessToken.getExpiresAt();
+		}
+		if (now.isBefore(expiresAt) && hasCapacity(now)) {
+			this.users.put(key, new CachedUser<>(user, expiresAt));
+		}
+	}
+
+	int size() {
+		return this.users.size();
+	}
+
+	private boolean hasCapacity(Instant now) {
+		if (this.users.size() < this.maximumSize) {
+			return true;
+		}
+		this.users.values().removeIf((cached) -> !now.isBefore(cached.expiresAt));
+		return this.users.size() < this.maximumSize;
+	}
+
+	void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "timeToLive must be positive");
+		this.timeToLive = timeToLive;
+	}
+
+	void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+		this.maximumSize = maximumSize;
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	static Key key(OAuth2UserRequest userRequest) {
+		ClientRegistration clientRegistration = userRequest.getClientRegistration();
+		return new Key(clientRegistration.getRegistrationId(), clientRegistration.getProviderDetails().getIssuerUri(),
+				hash(userRequest.getAccessToken().getTokenValue()));
+	}
+
+	private static String hash(String tokenValue) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(tokenValue.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * The key of a cached user, which holds a hash of the access token rather than its
+	 * value.
+	 */
+	static final class Key {
+
+		private final String clientRegistrationId;
+
+		private final String issuer;
+
+		private final String accessTokenHash;
+
+		private Key(String clientRegistrationId, String issuer, String accessTokenHash) {
+			this.clientRegistrationId = clientRegistrationId;
+			this.issuer = issuer;
+			this.accessTokenHash = accessTokenHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key other)) {
+				return false;
+			}
+			return this.clientRegistrationId.equals(other.clientRegistrationId)
+					&& Objects.equals(this.issuer, other.issuer) && this.accessTokenHash.equals(other.accessTokenHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.clientRegistrationId, this.issuer, this.accessTokenHash);
+		}
+
+	}
+
+	private static final class CachedUser<U> {
+
+		private final U user;
+
+		private final Instant expiresAt;
+
+		private CachedUser(U user, Instant expiresAt) {
+			this.user = user;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -27,6 +27,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationCoalescer;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationFailureHandler;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationSuccessHandler;
@@ -78,6 +79,14 @@ import org.springframework.web.context.request.ServletRequestAttributes;
  * {@link OAuth2AuthorizationFailureHandler} via
  * {@link #setAuthorizationFailureHandler(OAuth2AuthorizationFailureHandler)}.
  *
+ * <h2>Concurrent Authorizations</h2>
+ *
+ * <p>
+ * Concurrent authorizations of the same client for the same principal, for example when a
+ * shared access token expires, can be combined so that a single access token request is
+ * sent to the authorization server. This is disabled by default, see
+ * {@link #setCoalesceAuthorizations(boolean)}.
+ *
  * @author Joe Grandja
  * @since 5.2
  * @see OAuth2AuthorizedClientManager
@@ -108,6 +117,8 @@ public final class DefaultOAuth2AuthorizedClientManager implements OAuth2Authori
 
 	private OAuth2AuthorizationFailureHandler authorizationFailureHandler;
 
+	private OAuth2AuthorizationCoalescer authorizationCoalescer;
+
 	/**
 	 * Constructs a {@code DefaultOAuth2AuthorizedClientManager} using the provided
 	 * parameters.
@@ -173,7 +184,7 @@ public final class DefaultOAuth2AuthorizedClientManager implements OAuth2Authori
 				.build();
 		// @formatter:on
 		try {
-			authorizedClient = this.authorizedClientProvider.authorize(authorizationContext);
+			authorizedClient = authorizeOrJoin(authorizationContext);
 		}
 		catch (OAuth2AuthorizationException ex) {
 			this.authorizationFailureHandler.onAuthorizationFailure(ex, principal,
@@ -226,6 +237,18 @@ public final class DefaultOAuth2AuthorizedClientManager implements OAuth2Authori
 		return servletResponse;
 	}
 
+	/**
+	 * Invokes the {@link #authorizedClientProvider}, through the
+	 * {@link #authorizationCoalescer} when authorizations are combined.
+	 */
+	private OAuth2AuthorizedClient authorizeOrJoin(OAuth2AuthorizationContext authorizationContext) {
+		OAuth2AuthorizationCoalescer authorizationCoalescer = this.authorizationCoalescer;
+		if (authorizationCoalescer != null) {
+			return authorizationCoalescer.authorize(authorizationContext, this.authorizedClientProvider);
+		}
+		return this.authorizedClientProvider.authorize(authorizationContext);
+	}
+
 	/**
 	 * Sets the {@link OAuth2AuthorizedClientProvider} used for authorizing (or
 	 * re-authorizing) an OAuth 2.0 Client.
@@ -284,6 +307,21 @@ public final class DefaultOAuth2AuthorizedClientManager implements OAuth2Authori
 		this.authorizationFailureHandler = authorizationFailureHandler;
 	}
 
+	/**
+	 * Sets whether concurrent authorizations of the same client for the same principal
+	 * are combined. When enabled, only the first one invokes the
+	 * {@link OAuth2AuthorizedClientProvider} while the others use its result, or its
+	 * exception, and still run their own success or failure handler. Authorizations are
+	 * only combined when they start from the same access token and have the same context
+	 * attributes. The default is {@code false}.
+	 * @param coalesceAuthorizations whether to combine concurrent authorizations
+	 * @since 6.5
+	 * @see OAuth2AuthorizationCoalescer
+	 */
+	public void setCoalesceAuthorizations(boolean coalesceAuthorizations) {
+		this.authorizationCoalescer = coalesceAuthorizations ? new OAuth2AuthorizationCoalescer() : null;
+	}
+
 	/**
 	 * The default implementation of the {@link #setContextAttributesMapper(Function)
 	 * contextAttributesMapper}.
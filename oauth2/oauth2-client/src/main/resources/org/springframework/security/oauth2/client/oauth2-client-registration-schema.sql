@@ -0,0 +1,20 @@
+CREATE TABLE oauth2_client_registration (
+  registration_id varchar(100) NOT NULL,
+  client_id varchar(100) NOT NULL,
+  client_secret varchar(200) DEFAULT NULL,
+  client_authentication_method varchar(100) NOT NULL,
+  authorization_grant_type varchar(100) NOT NULL,
+  redirect_uri varchar(1000) DEFAULT NULL,
+  scopes varchar(1000) DEFAULT NULL,
+  client_name varchar(200) NOT NULL,
+  authorization_uri varchar(1000) DEFAULT NULL,
+  token_uri varchar(1000) DEFAULT NULL,
+  user_info_uri varchar(1000) DEFAULT NULL,
+  user_info_authentication_method varchar(100) DEFAULT NULL,
+  user_name_attribute_name varchar(100) DEFAULT NULL,
+  jwk_set_uri varchar(1000) DEFAULT NULL,
+  issuer_uri varchar(1000) DEFAULT NULL,
+  configuration_metadata blob DEFAULT NULL,
+  created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  PRIMARY KEY (registration_id)
+);
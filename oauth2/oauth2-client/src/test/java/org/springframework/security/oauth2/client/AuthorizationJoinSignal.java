@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A context attribute value that signals when an authorization is compared with the
+ * authorization in progress, which is the point after which it is combined with it.
+ */
+public final class AuthorizationJoinSignal {
+
+	private final CountDownLatch compared = new CountDownLatch(1);
+
+	/**
+	 * Returns the attributes to add to the contexts of the authorizations to combine,
+	 * which must be distinct instances for their attributes to be compared
+	 * @return the context attributes
+	 */
+	public Map<String, Object> attributes() {
+		return Map.of(AuthorizationJoinSignal.class.getName(), this);
+	}
+
+	/**
+	 * Waits until an authorization was compared with the one in progress
+	 * @return {@code true} if an authorization was compared within 5 seconds
+	 */
+	public boolean await() throws InterruptedException {
+		return this.compared.await(5, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			this.compared.countDown();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+}
@@ -17,6 +17,12 @@
 package org.springframework.security.oauth2.client;
 
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -43,6 +49,7 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -371,4 +378,141 @@ public class AuthorizedClientServiceOAuth2AuthorizedClientManagerTests {
 		verifyNoInteractions(this.authorizedClientService);
 	}
 
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressThenUsesItsResult() throws Exception {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		AuthorizationJoinSignal joinSignal = new AuthorizationJoinSignal();
+		given(this.contextAttributesMapper.apply(any())).willReturn(joinSignal.attributes());
+		OAuth2AuthorizedClient reauthorizedClient = new OAuth2AuthorizedClient(this.clientRegistration,
+				this.principal.getName(), TestOAuth2AccessTokens.noScopes(), TestOAuth2RefreshTokens.refreshToken());
+		CountDownLatch invoked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willAnswer((invocation) -> {
+				invoked.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return reauthorizedClient;
+			});
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<OAuth2AuthorizedClient> second = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(joinSignal.await()).isTrue();
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(reauthorizedClient);
+			assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(reauthorizedClient);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.authorizedClientProvider).authorize(any(OAuth2AuthorizationContext.class));
+		verify(this.authorizationSuccessHandler, times(2)).onAuthorizationSuccess(eq(reauthorizedClient),
+				eq(this.principal), any());
+	}
+
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressFailsThenThrowsItsException() throws Exception {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		AuthorizationJoinSignal joinSignal = new AuthorizationJoinSignal();
+		given(this.contextAttributesMapper.apply(any())).willReturn(joinSignal.attributes());
+		ClientAuthorizationException authorizationException = new ClientAuthorizationException(
+				new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT, null, null),
+				this.clientRegistration.getRegistrationId());
+		CountDownLatch invoked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willAnswer((invocation) -> {
+				invoked.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				throw authorizationException;
+			});
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<OAuth2AuthorizedClient> second = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(joinSignal.await()).isTrue();
+			release.countDown();
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+				.withCause(authorizationException);
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+				.withCause(authorizationException);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.authorizedClientProvider).authorize(any(OAuth2AuthorizationContext.class));
+		verify(this.authorizationFailureHandler, times(2)).onAuthorizationFailure(eq(authorizationException),
+				eq(this.principal), any());
+	}
+
+	@Test
+	public void reauthorizeWhenReauthorizationOfOtherAccessTokenInProgressThenReauthorized() throws Exception {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		OAuth2AuthorizedClient otherAuthorizedClient = new OAuth2AuthorizedClient(this.clientRegistration,
+				this.principal.getName(), TestOAuth2AccessTokens.noScopes(), TestOAuth2RefreshTokens.refreshToken());
+		OAuth2AuthorizeRequest otherReauthorizeRequest = OAuth2AuthorizeRequest
+			.withAuthorizedClient(otherAuthorizedClient)
+			.principal(this.principal)
+			.build();
+		assertThat(authorizeDuringReauthorization(otherReauthorizeRequest)).isSameAs(otherAuthorizedClient);
+		verify(this.authorizedClientProvider, times(2)).authorize(any(OAuth2AuthorizationContext.class));
+	}
+
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressAndNotCoalescedThenReauthorized() throws Exception {
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		assertThat(authorizeDuringReauthorization(reauthorizeRequest)).isSameAs(this.authorizedClient);
+		verify(this.authorizedClientProvider, times(2)).authorize(any(OAuth2AuthorizationContext.class));
+	}
+
+	/**
+	 * Authorizes while a reauthorization of {@link #authorizedClient} is in progress. The
+	 * provider returns the authorized client of the context, after the reauthorization in
+	 * progress is released.
+	 */
+	private OAuth2AuthorizedClient authorizeDuringReauthorization(OAuth2AuthorizeRequest authorizeRequest)
+			throws Exception {
+		CountDownLatch invoked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willAnswer((invocation) -> {
+				OAuth2AuthorizationContext authorizationContext = invocation.getArgument(0);
+				if (authorizationContext.getAuthorizedClient() == this.authorizedClient && invoked.getCount() > 0) {
+					invoked.countDown();
+					release.await(5, TimeUnit.SECONDS);
+				}
+				return authorizationContext.getAuthorizedClient();
+			});
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			OAuth2AuthorizedClient authorizedClient = this.authorizedClientManager.authorize(authorizeRequest);
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(this.authorizedClient);
+			return authorizedClient;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 }
@@ -17,12 +17,14 @@
 package org.springframework.security.oauth2.client;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 import reactor.test.publisher.PublisherProbe;
 
@@ -46,6 +48,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -508,4 +511,26 @@ public class AuthorizedClientServiceReactiveOAuth2AuthorizedClientManagerTests {
 		assertThat(requestScopeAttribute).contains("read", "write");
 	}
 
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressThenUsesItsResult() {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		OAuth2AuthorizedClient reauthorizedClient = new OAuth2AuthorizedClient(this.clientRegistration,
+				this.principal.getName(), TestOAuth2AccessTokens.noScopes(), TestOAuth2RefreshTokens.refreshToken());
+		Sinks.One<OAuth2AuthorizedClient> reauthorization = Sinks.one();
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willReturn(reauthorization.asMono());
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		CompletableFuture<OAuth2AuthorizedClient> first = this.authorizedClientManager.authorize(reauthorizeRequest)
+			.toFuture();
+		CompletableFuture<OAuth2AuthorizedClient> second = this.authorizedClientManager.authorize(reauthorizeRequest)
+			.toFuture();
+		reauthorization.tryEmitValue(reauthorizedClient);
+		assertThat(first.join()).isSameAs(reauthorizedClient);
+		assertThat(second.join()).isSameAs(reauthorizedClient);
+		verify(this.authorizedClientProvider).authorize(any(OAuth2AuthorizationContext.class));
+		verify(this.authorizedClientService, times(2)).saveAuthorizedClient(eq(reauthorizedClient), eq(this.principal));
+	}
+
 }
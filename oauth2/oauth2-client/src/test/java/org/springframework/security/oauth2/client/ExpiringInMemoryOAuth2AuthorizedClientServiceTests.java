@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link ExpiringInMemoryOAuth2AuthorizedClientService}.
+ */
+public class ExpiringInMemoryOAuth2AuthorizedClientServiceTests {
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration().build();
+
+	private final ClientRegistrationRepository clientRegistrationRepository = new InMemoryClientRegistrationRepository(
+			this.clientRegistration);
+
+	private ExpiringInMemoryOAuth2AuthorizedClientService authorizedClientService;
+
+	@BeforeEach
+	public void setup() {
+		this.authorizedClientService = new ExpiringInMemoryOAuth2AuthorizedClientService(
+				this.clientRegistrationRepository);
+		setTime(this.now);
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.authorizedClientService.destroy();
+	}
+
+	@Test
+	public void constructorWhenClientRegistrationRepositoryIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new ExpiringInMemoryOAuth2AuthorizedClientService(null))
+			.withMessage("clientRegistrationRepository cannot be null");
+	}
+
+	@Test
+	public void setMaximumAuthorizedClientsWhenNotPositiveThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> this.authorizedClientService.setMaximumAuthorizedClients(0))
+			.withMessage("maximumAuthorizedClients must be greater than 0");
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenSavedThenReturned() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient("principal", null);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, principal("principal"));
+		OAuth2AuthorizedClient loaded = load("principal");
+		assertThat(loaded.getClientRegistration()).isEqualTo(this.clientRegistration);
+		assertThat(loaded.getPrincipalName()).isEqualTo("principal");
+		assertThat(loaded.getAccessToken()).isEqualTo(authorizedClient.getAccessToken());
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenClientRegistrationNotFoundThenNull() {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal", null), principal("principal"));
+		assertThat((OAuth2AuthorizedClient) this.authorizedClientService.loadAuthorizedClient("unknown", "principal"))
+			.isNull();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenAccessTokenExpiredAndNoRefreshTokenThenNull() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofHours(2));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal", null), principal("principal"));
+		setTime(this.now.plus(Duration.ofMinutes(61)));
+		assertThat(load("principal")).isNull();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenAccessTokenExpiredAndRefreshTokenValidThenReturned() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofHours(2));
+		this.authorizedClientService.saveAuthorizedClient(
+				authorizedClient("principal", refreshToken(this.now.plus(Duration.ofDays(1)))), principal("principal"));
+		setTime(this.now.plus(Duration.ofMinutes(61)));
+		assertThat(load("principal")).isNotNull();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenRefreshTokenExpiredThenNull() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofDays(2));
+		this.authorizedClientService.saveAuthorizedClient(
+				authorizedClient("principal", refreshToken(this.now.plus(Duration.ofDays(1)))), principal("principal"));
+		setTime(this.now.plus(Duration.ofDays(1)));
+		assertThat(load("principal")).isNull();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenIdleThenNull() {
+		this.authorizedClientService.saveAuthorizedClient(
+				authorizedClient("principal", refreshToken(this.now.plus(Duration.ofDays(1)))), principal("principal"));
+		setTime(this.now.plus(Duration.ofMinutes(20)));
+		assertThat(load("principal")).isNotNull();
+		setTime(this.now.plus(Duration.ofMinutes(40)));
+		assertThat(load("principal")).isNotNull();
+		setTime(this.now.plus(Duration.ofMinutes(71)));
+		assertThat(load("principal")).isNull();
+	}
+
+	@Test
+	public void removeExpiredAuthorizedClientsWhenExpiredThenRemovedAndCounted() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofHours(2));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("expired", null), principal("expired"));
+		this.authorizedClientService.saveAuthorizedClient(
+				authorizedClient("valid", refreshToken(this.now.plus(Duration.ofDays(1)))), principal("valid"));
+		setTime(this.now.plus(Duration.ofMinutes(61)));
+		this.authorizedClientService.removeExpiredAuthorizedClients();
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isEqualTo(1);
+		assertThat(this.authorizedClientService.getEvictionCount()).isEqualTo(1);
+		assertThat(load("valid")).isNotNull();
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenMaximumExceededThenLeastRecentlyUsedEvicted() {
+		this.authorizedClientService.setMaximumAuthorizedClients(10);
+		for (int i = 0; i < 10; i++) {
+			setTime(this.now.plusSeconds(i));
+			this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal" + i, null),
+					principal("principal" + i));
+		}
+		setTime(this.now.plusSeconds(10));
+		load("principal0");
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal10", null),
+				principal("principal10"));
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isEqualTo(9);
+		assertThat(this.authorizedClientService.getEvictionCount()).isEqualTo(2);
+		assertThat(load("principal0")).isNotNull();
+		assertThat(load("principal1")).isNull();
+		assertThat(load("principal2")).isNull();
+		assertThat(load("principal10")).isNotNull();
+	}
+
+	@Test
+	public void removeAuthorizedClientWhenSavedThenRemoved() {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal", null), principal("principal"));
+		this.authorizedClientService.removeAuthorizedClient(this.clientRegistration.getRegistrationId(), "principal");
+		assertThat(load("principal")).isNull();
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isZero();
+		assertThat(this.authorizedClientService.getEvictionCount()).isZero();
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenTaskSchedulerThenSweepScheduledOnceAndRescheduledWhenSweepIntervalChanges() {
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		ScheduledFuture<?> sweepTask = mock(ScheduledFuture.class);
+		willReturn(sweepTask).given(taskScheduler)
+			.scheduleWithFixedDelay(any(), any(Instant.class), any(Duration.class));
+		this.authorizedClientService.setTaskScheduler(taskScheduler);
+		verifyNoInteractions(taskScheduler);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal1", null),
+				principal("principal1"));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("principal2", null),
+				principal("principal2"));
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofMinutes(1)));
+		this.authorizedClientService.setSweepInterval(Duration.ofSeconds(30));
+		verify(sweepTask).cancel(false);
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofSeconds(30)));
+		assertThatIllegalStateException()
+			.isThrownBy(() -> this.authorizedClientService.setTaskScheduler(mock(TaskScheduler.class)));
+	}
+
+	private OAuth2AuthorizedClient load(String principalName) {
+		return this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principalName);
+	}
+
+	private void setTime(Instant instant) {
+		this.authorizedClientService.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+	}
+
+	private OAuth2AuthorizedClient authorizedClient(String principalName, OAuth2RefreshToken refreshToken) {
+		OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", this.now,
+				this.now.plus(Duration.ofHours(1)));
+		return new OAuth2AuthorizedClient(this.clientRegistration, principalName, accessToken, refreshToken);
+	}
+
+	private OAuth2RefreshToken refreshToken(Instant expiresAt) {
+		return new OAuth2RefreshToken("refresh-token", this.now, expiresAt);
+	}
+
+	private static Authentication principal(String name) {
+		return new TestingAuthenticationToken(name, "password");
+	}
+
+}
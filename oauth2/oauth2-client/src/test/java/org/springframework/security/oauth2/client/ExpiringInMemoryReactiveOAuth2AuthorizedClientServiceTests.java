@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link ExpiringInMemoryReactiveOAuth2AuthorizedClientService}.
+ */
+public class ExpiringInMemoryReactiveOAuth2AuthorizedClientServiceTests {
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration().build();
+
+	private final Authentication principal = new TestingAuthenticationToken("principal", "password");
+
+	private ExpiringInMemoryReactiveOAuth2AuthorizedClientService authorizedClientService;
+
+	@BeforeEach
+	public void setup() {
+		this.authorizedClientService = new ExpiringInMemoryReactiveOAuth2AuthorizedClientService(
+				new InMemoryReactiveClientRegistrationRepository(this.clientRegistration));
+		setTime(this.now);
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.authorizedClientService.destroy();
+	}
+
+	@Test
+	public void constructorWhenClientRegistrationRepositoryIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new ExpiringInMemoryReactiveOAuth2AuthorizedClientService(null))
+			.withMessage("clientRegistrationRepository cannot be null");
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenSavedThenReturned() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient(null);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal).block();
+		StepVerifier.create(load()).assertNext((loaded) -> {
+			assertThat(loaded.getClientRegistration()).isEqualTo(this.clientRegistration);
+			assertThat(loaded.getPrincipalName()).isEqualTo(this.principal.getName());
+			assertThat(loaded.getAccessToken()).isEqualTo(authorizedClient.getAccessToken());
+		}).verifyComplete();
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenClientRegistrationNotFoundThenEmpty() {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient(null), this.principal).block();
+		StepVerifier.create(this.authorizedClientService.loadAuthorizedClient("unknown", this.principal.getName()))
+			.verifyComplete();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenRefreshTokenExpiredThenEmpty() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofDays(2));
+		this.authorizedClientService
+			.saveAuthorizedClient(authorizedClient(refreshToken(this.now.plus(Duration.ofDays(1)))), this.principal)
+			.block();
+		setTime(this.now.plus(Duration.ofHours(2)));
+		StepVerifier.create(load()).expectNextCount(1).verifyComplete();
+		setTime(this.now.plus(Duration.ofDays(1)));
+		StepVerifier.create(load()).verifyComplete();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenIdleThenEmpty() {
+		this.authorizedClientService
+			.saveAuthorizedClient(authorizedClient(refreshToken(this.now.plus(Duration.ofDays(1)))), this.principal)
+			.block();
+		setTime(this.now.plus(Duration.ofMinutes(31)));
+		StepVerifier.create(load()).verifyComplete();
+		this.authorizedClientService.removeExpiredAuthorizedClients();
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isZero();
+		assertThat(this.authorizedClientService.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void removeAuthorizedClientWhenSavedThenRemoved() {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient(null), this.principal).block();
+		this.authorizedClientService
+			.removeAuthorizedClient(this.clientRegistration.getRegistrationId(), this.principal.getName())
+			.block();
+		StepVerifier.create(load()).verifyComplete();
+		assertThat(this.authorizedClientService.getAuthorizedClientCount()).isZero();
+	}
+
+	private Mono<OAuth2AuthorizedClient> load() {
+		return this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				this.principal.getName());
+	}
+
+	private void setTime(Instant instant) {
+		this.authorizedClientService.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+	}
+
+	private OAuth2AuthorizedClient authorizedClient(OAuth2RefreshToken refreshToken) {
+		OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", this.now,
+				this.now.plus(Duration.ofHours(1)));
+		return new OAuth2AuthorizedClient(this.clientRegistration, this.principal.getName(), accessToken, refreshToken);
+	}
+
+	private OAuth2RefreshToken refreshToken(Instant expiresAt) {
+		return new OAuth2RefreshToken("refresh-token", this.now, expiresAt);
+	}
+
+}
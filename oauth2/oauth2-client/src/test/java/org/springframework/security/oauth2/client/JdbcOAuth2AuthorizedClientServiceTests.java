@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
@@ -62,6 +63,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -309,6 +311,120 @@ public class JdbcOAuth2AuthorizedClientServiceTests {
 		verify(authorizedClientParametersMapper).apply(any());
 	}
 
+	@Test
+	public void saveAuthorizedClientWhenUpsertSupportedThenInsertedThenUpdated() {
+		EmbeddedDatabase h2 = createDb(EmbeddedDatabaseType.H2, OAUTH2_CLIENT_SCHEMA_SQL_RESOURCE);
+		try {
+			JdbcOAuth2AuthorizedClientService authorizedClientService = new JdbcOAuth2AuthorizedClientService(
+					new JdbcTemplate(h2), this.clientRegistrationRepository);
+			Authentication principal = createPrincipal();
+			authorizedClientService.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration),
+					principal);
+			OAuth2AuthorizedClient updatedClient = createAuthorizedClient(principal, this.clientRegistration, true);
+			authorizedClientService.saveAuthorizedClient(updatedClient, principal);
+			OAuth2AuthorizedClient savedClient = authorizedClientService
+				.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName());
+			assertThat(savedClient.getAccessToken().getTokenValue())
+				.isEqualTo(updatedClient.getAccessToken().getTokenValue());
+			assertThat(savedClient.getRefreshToken()).isNull();
+		}
+		finally {
+			h2.shutdown();
+		}
+	}
+
+	@Test
+	public void setCacheTimeToLiveWhenNegativeThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> this.authorizedClientService.setCacheTimeToLive(Duration.ofSeconds(-1)))
+			.withMessage("cacheTimeToLive cannot be negative");
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedThenNotLoadedAgain() throws Exception {
+		RowMapper<OAuth2AuthorizedClient> authorizedClientRowMapper = spy(
+				new JdbcOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper(
+						this.clientRegistrationRepository));
+		this.authorizedClientService.setAuthorizedClientRowMapper(authorizedClientRowMapper);
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		OAuth2AuthorizedClient authorizedClient = createAuthorizedClient(principal, this.clientRegistration);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, principal);
+		OAuth2AuthorizedClient loadedClient = this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName());
+		assertThat((OAuth2AuthorizedClient) this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName()))
+			.isSameAs(loadedClient);
+		verify(authorizedClientRowMapper).mapRow(any(), anyInt());
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedAndClientRegistrationUpdatedThenUpdatedClientRegistration()
+			throws Exception {
+		RowMapper<OAuth2AuthorizedClient> authorizedClientRowMapper = spy(
+				new JdbcOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper(
+						this.clientRegistrationRepository));
+		this.authorizedClientService.setAuthorizedClientRowMapper(authorizedClientRowMapper);
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		this.authorizedClientService.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration),
+				principal);
+		this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principal.getName());
+		ClientRegistration updatedClientRegistration = ClientRegistration
+			.withClientRegistration(this.clientRegistration)
+			.clientSecret("rotated-secret")
+			.build();
+		given(this.clientRegistrationRepository.findByRegistrationId(any())).willReturn(updatedClientRegistration);
+		OAuth2AuthorizedClient loadedClient = this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName());
+		assertThat(loadedClient.getClientRegistration()).isSameAs(updatedClientRegistration);
+		assertThat((OAuth2AuthorizedClient) this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName()))
+			.isSameAs(loadedClient);
+		verify(authorizedClientRowMapper).mapRow(any(), anyInt());
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedAndSavedThenLoadsSaved() {
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		this.authorizedClientService.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration),
+				principal);
+		this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principal.getName());
+		OAuth2AuthorizedClient updatedClient = createAuthorizedClient(principal, this.clientRegistration, true);
+		this.authorizedClientService.saveAuthorizedClient(updatedClient, principal);
+		OAuth2AuthorizedClient loadedClient = this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName());
+		assertThat(loadedClient.getAccessToken().getTokenValue())
+			.isEqualTo(updatedClient.getAccessToken().getTokenValue());
+		this.authorizedClientService.removeAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principal.getName());
+		assertThat((OAuth2AuthorizedClient) this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())).isNull();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenAccessTokenExpiredThenNotCached() throws Exception {
+		RowMapper<OAuth2AuthorizedClient> authorizedClientRowMapper = spy(
+				new JdbcOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper(
+						this.clientRegistrationRepository));
+		this.authorizedClientService.setAuthorizedClientRowMapper(authorizedClientRowMapper);
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		Instant issuedAt = Instant.now().minus(Duration.ofHours(2));
+		OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "expired", issuedAt,
+				issuedAt.plus(Duration.ofHours(1)));
+		this.authorizedClientService.saveAuthorizedClient(
+				new OAuth2AuthorizedClient(this.clientRegistration, principal.getName(), accessToken), principal);
+		this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principal.getName());
+		this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				principal.getName());
+		verify(authorizedClientRowMapper, times(2)).mapRow(any(), anyInt());
+	}
+
 	@Test
 	public void removeAuthorizedClientWhenClientRegistrationIdIsNullThenThrowIllegalArgumentException() {
 		assertThatIllegalArgumentException()
@@ -361,10 +477,14 @@ public class JdbcOAuth2AuthorizedClientServiceTests {
 	}
 
 	private static EmbeddedDatabase createDb(String schema) {
+		return createDb(EmbeddedDatabaseType.HSQL, schema);
+	}
+
+	private static EmbeddedDatabase createDb(EmbeddedDatabaseType type, String schema) {
 		// @formatter:off
 		return new EmbeddedDatabaseBuilder()
 				.generateUniqueName(true)
-				.setType(EmbeddedDatabaseType.HSQL)
+				.setType(type)
 				.setScriptEncoding("UTF-8")
 				.addScript(schema)
 				.build();
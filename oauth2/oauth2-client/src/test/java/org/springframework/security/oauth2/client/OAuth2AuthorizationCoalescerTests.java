@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.TestOAuth2AccessTokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link OAuth2AuthorizationCoalescer}.
+ */
+public class OAuth2AuthorizationCoalescerTests {
+
+	private final AuthorizationJoinSignal joinSignal = new AuthorizationJoinSignal();
+
+	private final CountDownLatch invoked = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private OAuth2AuthorizedClientProvider authorizedClientProvider;
+
+	private OAuth2AuthorizedClient authorizedClient;
+
+	private OAuth2AuthorizedClient reauthorizedClient;
+
+	@BeforeEach
+	public void setup() {
+		this.authorizedClientProvider = mock(OAuth2AuthorizedClientProvider.class);
+		this.authorizedClient = new OAuth2AuthorizedClient(TestClientRegistrations.clientRegistration().build(),
+				"principal", TestOAuth2AccessTokens.scopes("read"));
+		this.reauthorizedClient = new OAuth2AuthorizedClient(this.authorizedClient.getClientRegistration(), "principal",
+				TestOAuth2AccessTokens.noScopes());
+	}
+
+	@Test
+	public void constructorWhenJoinTimeoutNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new OAuth2AuthorizationCoalescer(null));
+	}
+
+	@Test
+	public void authorizeWhenAuthorizationInProgressNotNeededThenAuthorizesIndependently() throws Exception {
+		OAuth2AuthorizationCoalescer coalescer = new OAuth2AuthorizationCoalescer();
+		OAuth2AuthorizationContext authorizationContext = authorizationContext(principal("principal"));
+		OAuth2AuthorizationContext sameAuthorizationContext = authorizationContext(principal("principal"));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> coalescer.authorize(authorizationContext, blockingProvider(null)));
+			assertThat(this.invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<OAuth2AuthorizedClient> second = executor
+				.submit(() -> coalescer.authorize(sameAuthorizationContext, this.authorizedClientProvider));
+			assertThat(this.joinSignal.await()).isTrue();
+			this.release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isNull();
+			assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(this.reauthorizedClient);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.authorizedClientProvider).authorize(authorizationContext);
+		verify(this.authorizedClientProvider).authorize(sameAuthorizationContext);
+	}
+
+	@Test
+	public void authorizeWhenJoinTimeoutElapsesThenAuthorizesIndependently() throws Exception {
+		OAuth2AuthorizationCoalescer coalescer = new OAuth2AuthorizationCoalescer(Duration.ZERO);
+		OAuth2AuthorizationContext authorizationContext = authorizationContext(principal("principal"));
+		assertThat(authorizeDuringAuthorization(coalescer, authorizationContext)).isSameAs(this.reauthorizedClient);
+		verify(this.authorizedClientProvider, times(2)).authorize(authorizationContext);
+	}
+
+	@Test
+	public void authorizeWhenPrincipalHasNoNameThenNotCombined() throws Exception {
+		OAuth2AuthorizationCoalescer coalescer = new OAuth2AuthorizationCoalescer();
+		OAuth2AuthorizationContext authorizationContext = authorizationContext(principal(""));
+		assertThat(authorizeDuringAuthorization(coalescer, authorizationContext)).isSameAs(this.reauthorizedClient);
+		verify(this.authorizedClientProvider, times(2)).authorize(authorizationContext);
+	}
+
+	private OAuth2AuthorizedClient authorizeDuringAuthorization(OAuth2AuthorizationCoalescer coalescer,
+			OAuth2AuthorizationContext authorizationContext) throws Exception {
+		OAuth2AuthorizedClientProvider blockingProvider = blockingProvider(this.reauthorizedClient);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> coalescer.authorize(authorizationContext, blockingProvider));
+			assertThat(this.invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			OAuth2AuthorizedClient authorizedClient = coalescer.authorize(authorizationContext, blockingProvider);
+			this.release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(this.reauthorizedClient);
+			return authorizedClient;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the {@link #authorizedClientProvider}, whose first invocation returns the
+	 * provided result once released while the others return {@link #reauthorizedClient}
+	 */
+	private OAuth2AuthorizedClientProvider blockingProvider(OAuth2AuthorizedClient result) {
+		given(this.authorizedClientProvider.authorize(any())).willAnswer((invocation) -> {
+			if (this.invoked.getCount() > 0) {
+				this.invoked.countDown();
+				this.release.await(5, TimeUnit.SECONDS);
+				return result;
+			}
+			return this.reauthorizedClient;
+		});
+		return this.authorizedClientProvider;
+	}
+
+	private OAuth2AuthorizationContext authorizationContext(Authentication principal) {
+		return OAuth2AuthorizationContext.withAuthorizedClient(this.authorizedClient)
+			.principal(principal)
+			.attributes((attributes) -> attributes.putAll(this.joinSignal.attributes()))
+			.build();
+	}
+
+	private static Authentication principal(String name) {
+		return new TestingAuthenticationToken(name, "password");
+	}
+
+}
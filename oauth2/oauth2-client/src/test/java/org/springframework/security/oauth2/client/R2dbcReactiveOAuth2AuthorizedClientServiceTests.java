@@ -22,10 +22,13 @@ import java.util.Arrays;
 import java.util.HashSet;
 
 import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
 import io.r2dbc.spi.Result;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -36,6 +39,7 @@ import org.springframework.r2dbc.connection.init.CompositeDatabasePopulator;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.binding.BindMarkersFactoryResolver;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
@@ -50,6 +54,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link R2dbcReactiveOAuth2AuthorizedClientService}
@@ -293,6 +299,143 @@ public class R2dbcReactiveOAuth2AuthorizedClientServiceTests {
 			});
 	}
 
+	@Test
+	public void saveAuthorizedClientWhenSaveClientWithoutRefreshTokenThenRefreshTokenRemoved() {
+		Authentication principal = createPrincipal();
+		this.authorizedClientService
+			.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration, true), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.assertNext((savedClient) -> {
+				assertThat(savedClient.getAccessToken().getTokenValue()).isEqualTo("no-scopes");
+				assertThat(savedClient.getRefreshToken()).isNull();
+			})
+			.verifyComplete();
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenUpsertNotSupportedThenInsertedThenUpdated() {
+		ConnectionFactory connectionFactory = createDb();
+		DatabaseClient databaseClient = DatabaseClient.builder()
+			.connectionFactory(withoutUpsert(connectionFactory))
+			.bindMarkers(BindMarkersFactoryResolver.resolve(connectionFactory))
+			.build();
+		R2dbcReactiveOAuth2AuthorizedClientService authorizedClientService = new R2dbcReactiveOAuth2AuthorizedClientService(
+				databaseClient, this.clientRegistrationRepository);
+		Authentication principal = createPrincipal();
+		OAuth2AuthorizedClient authorizedClient = createAuthorizedClient(principal, this.clientRegistration);
+		authorizedClientService.saveAuthorizedClient(authorizedClient, principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.assertNext((savedClient) -> {
+				assertThat(savedClient.getAccessToken().getTokenValue()).isEqualTo("scopes");
+				assertThat(savedClient.getAccessToken().getScopes()).containsExactlyInAnyOrder("read", "write");
+				assertThat(savedClient.getRefreshToken().getTokenValue()).isEqualTo("refresh-token");
+			})
+			.verifyComplete();
+		authorizedClientService
+			.saveAuthorizedClient(createAuthorizedClient(principal, this.clientRegistration, true), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.assertNext((savedClient) -> {
+				assertThat(savedClient.getAccessToken().getTokenValue()).isEqualTo("no-scopes");
+				assertThat(savedClient.getRefreshToken()).isNull();
+			})
+			.verifyComplete();
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedThenNotLoadedAgain() {
+		R2dbcReactiveOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper authorizedClientRowMapper = spy(
+				new R2dbcReactiveOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper());
+		this.authorizedClientService.setAuthorizedClientRowMapper(authorizedClientRowMapper);
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		this.authorizedClientService
+			.saveAuthorizedClient(createUnexpiredAuthorizedClient(principal, "token"), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		OAuth2AuthorizedClient loadedClient = this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.block();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.expectNext(loadedClient)
+			.verifyComplete();
+		verify(authorizedClientRowMapper).apply(any(), any());
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedAndClientRegistrationUpdatedThenUpdatedClientRegistration() {
+		R2dbcReactiveOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper authorizedClientRowMapper = spy(
+				new R2dbcReactiveOAuth2AuthorizedClientService.OAuth2AuthorizedClientRowMapper());
+		this.authorizedClientService.setAuthorizedClientRowMapper(authorizedClientRowMapper);
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		this.authorizedClientService
+			.saveAuthorizedClient(createUnexpiredAuthorizedClient(principal, "token"), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.block();
+		ClientRegistration updatedClientRegistration = ClientRegistration
+			.withClientRegistration(this.clientRegistration)
+			.clientSecret("rotated-secret")
+			.build();
+		given(this.clientRegistrationRepository.findByRegistrationId(anyString()))
+			.willReturn(Mono.just(updatedClientRegistration));
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.assertNext((loadedClient) -> assertThat(loadedClient.getClientRegistration())
+				.isSameAs(updatedClientRegistration))
+			.verifyComplete();
+		verify(authorizedClientRowMapper).apply(any(), any());
+	}
+
+	@Test
+	public void loadAuthorizedClientWhenCachedAndSavedThenLoadsSaved() {
+		this.authorizedClientService.setCacheTimeToLive(Duration.ofMinutes(1));
+		Authentication principal = createPrincipal();
+		this.authorizedClientService
+			.saveAuthorizedClient(createUnexpiredAuthorizedClient(principal, "token"), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.block();
+		this.authorizedClientService
+			.saveAuthorizedClient(createUnexpiredAuthorizedClient(principal, "updated"), principal)
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.assertNext((savedClient) -> assertThat(savedClient.getAccessToken().getTokenValue()).isEqualTo("updated"))
+			.verifyComplete();
+		this.authorizedClientService
+			.removeAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.verifyComplete();
+		this.authorizedClientService
+			.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), principal.getName())
+			.as(StepVerifier::create)
+			.verifyComplete();
+	}
+
 	@Test
 	public void removeAuthorizedClientWhenClientRegistrationIdIsNullThenThrowIllegalArgumentException() {
 		assertThatExceptionOfType(IllegalArgumentException.class)
@@ -366,6 +509,24 @@ public class R2dbcReactiveOAuth2AuthorizedClientServiceTests {
 		return connectionFactory;
 	}
 
+	// hides the H2 metadata so that the UPDATE then INSERT statements are used
+	private static ConnectionFactory withoutUpsert(ConnectionFactory connectionFactory) {
+		ConnectionFactoryMetadata metadata = () -> "Unknown";
+		return new ConnectionFactory() {
+
+			@Override
+			public Publisher<? extends Connection> create() {
+				return connectionFactory.create();
+			}
+
+			@Override
+			public ConnectionFactoryMetadata getMetadata() {
+				return metadata;
+			}
+
+		};
+	}
+
 	private static ConnectionFactoryInitializer createDb(String schema) {
 		ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
 
@@ -379,6 +540,13 @@ public class R2dbcReactiveOAuth2AuthorizedClientServiceTests {
 		return new TestingAuthenticationToken("principal-" + principalId++, "password");
 	}
 
+	private OAuth2AuthorizedClient createUnexpiredAuthorizedClient(Authentication principal, String tokenValue) {
+		Instant issuedAt = Instant.now();
+		OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue, issuedAt,
+				issuedAt.plus(Duration.ofHours(1)));
+		return new OAuth2AuthorizedClient(this.clientRegistration, principal.getName(), accessToken);
+	}
+
 	private static OAuth2AuthorizedClient createAuthorizedClient(Authentication principal,
 			ClientRegistration clientRegistration) {
 		return createAuthorizedClient(principal, clientRegistration, false);
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.TestOAuth2AccessTokens;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ReactiveOAuth2AuthorizationCoalescer}.
+ */
+public class ReactiveOAuth2AuthorizationCoalescerTests {
+
+	private final Sinks.One<OAuth2AuthorizedClient> inProgress = Sinks.one();
+
+	private ReactiveOAuth2AuthorizedClientProvider authorizedClientProvider;
+
+	private OAuth2AuthorizationContext authorizationContext;
+
+	private OAuth2AuthorizedClient reauthorizedClient;
+
+	@BeforeEach
+	public void setup() {
+		OAuth2AuthorizedClient authorizedClient = new OAuth2AuthorizedClient(
+				TestClientRegistrations.clientRegistration().build(), "principal",
+				TestOAuth2AccessTokens.scopes("read"));
+		this.reauthorizedClient = new OAuth2AuthorizedClient(authorizedClient.getClientRegistration(), "principal",
+				TestOAuth2AccessTokens.noScopes());
+		this.authorizationContext = OAuth2AuthorizationContext.withAuthorizedClient(authorizedClient)
+			.principal(new TestingAuthenticationToken("principal", "password"))
+			.build();
+		this.authorizedClientProvider = mock(ReactiveOAuth2AuthorizedClientProvider.class);
+		// the first authorization remains in progress
+		given(this.authorizedClientProvider.authorize(any())).willReturn(this.inProgress.asMono(),
+				Mono.just(this.reauthorizedClient));
+	}
+
+	@Test
+	public void constructorWhenJoinTimeoutNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new ReactiveOAuth2AuthorizationCoalescer(null));
+	}
+
+	@Test
+	public void authorizeWhenAuthorizationInProgressFailsThenSameError() {
+		ReactiveOAuth2AuthorizationCoalescer coalescer = new ReactiveOAuth2AuthorizationCoalescer();
+		IllegalStateException failure = new IllegalStateException("failed");
+		StepVerifier first = StepVerifier.create(authorize(coalescer))
+			.expectErrorMatches((ex) -> ex == failure)
+			.verifyLater();
+		StepVerifier second = StepVerifier.create(authorize(coalescer))
+			.expectErrorMatches((ex) -> ex == failure)
+			.verifyLater();
+		this.inProgress.tryEmitError(failure);
+		first.verify(Duration.ofSeconds(5));
+		second.verify(Duration.ofSeconds(5));
+		verify(this.authorizedClientProvider).authorize(this.authorizationContext);
+	}
+
+	@Test
+	public void authorizeWhenAuthorizationInProgressCancelledThenAuthorizesIndependently() {
+		ReactiveOAuth2AuthorizationCoalescer coalescer = new ReactiveOAuth2AuthorizationCoalescer();
+		Disposable first = authorize(coalescer).subscribe();
+		StepVerifier second = StepVerifier.create(authorize(coalescer))
+			.expectNext(this.reauthorizedClient)
+			.expectComplete()
+			.verifyLater();
+		first.dispose();
+		second.verify(Duration.ofSeconds(5));
+		verify(this.authorizedClientProvider, times(2)).authorize(this.authorizationContext);
+	}
+
+	@Test
+	public void authorizeWhenJoinTimeoutElapsesThenAuthorizesIndependently() {
+		ReactiveOAuth2AuthorizationCoalescer coalescer = new ReactiveOAuth2AuthorizationCoalescer();
+		Disposable first = authorize(coalescer).subscribe();
+		StepVerifier.withVirtualTime(() -> authorize(coalescer))
+			.expectSubscription()
+			.expectNoEvent(Duration.ofSeconds(9))
+			.thenAwait(Duration.ofSeconds(1))
+			.expectNext(this.reauthorizedClient)
+			.verifyComplete();
+		first.dispose();
+		verify(this.authorizedClientProvider, times(2)).authorize(this.authorizationContext);
+	}
+
+	private Mono<OAuth2AuthorizedClient> authorize(ReactiveOAuth2AuthorizationCoalescer coalescer) {
+		return coalescer.authorize(this.authorizationContext, this.authorizedClientProvider);
+	}
+
+}
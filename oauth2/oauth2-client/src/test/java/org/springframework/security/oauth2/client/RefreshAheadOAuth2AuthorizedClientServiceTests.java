@@ -0,0 +1,294 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link RefreshAheadOAuth2AuthorizedClientService}.
+ */
+public class RefreshAheadOAuth2AuthorizedClientServiceTests {
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final ClientRegistration clientRegistration = TestClientRegistrations.clientCredentials().build();
+
+	private final Authentication principal = new TestingAuthenticationToken("principal", "password");
+
+	private OAuth2AuthorizedClientService delegate;
+
+	private OAuth2AuthorizedClientProvider authorizedClientProvider;
+
+	private TaskScheduler taskScheduler;
+
+	private ScheduledFuture<?> future;
+
+	private RefreshAheadOAuth2AuthorizedClientService authorizedClientService;
+
+	@BeforeEach
+	public void setup() {
+		this.delegate = mock(OAuth2AuthorizedClientService.class);
+		this.authorizedClientProvider = mock(OAuth2AuthorizedClientProvider.class);
+		this.taskScheduler = mock(TaskScheduler.class);
+		this.future = mock(ScheduledFuture.class);
+		willReturn(this.future).given(this.taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+		this.authorizedClientService = new RefreshAheadOAuth2AuthorizedClientService(this.delegate);
+		this.authorizedClientService.setAuthorizedClientProvider(this.authorizedClientProvider);
+		this.authorizedClientService.setTaskScheduler(this.taskScheduler);
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		this.authorizedClientService.setJitterRatio(0);
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.authorizedClientService.destroy();
+	}
+
+	@Test
+	public void constructorWhenAuthorizedClientServiceIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new RefreshAheadOAuth2AuthorizedClientService(null))
+			.withMessage("authorizedClientService cannot be null");
+	}
+
+	@Test
+	public void setRefreshRatioWhenNotBetweenZeroAndOneThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.authorizedClientService.setRefreshRatio(1))
+			.withMessage("refreshRatio must be greater than 0 and less than 1");
+	}
+
+	@Test
+	public void setJitterRatioWhenNotLessThanRefreshRatioThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.authorizedClientService.setJitterRatio(0.75))
+			.withMessage("jitterRatio must be less than refreshRatio");
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenClientCredentialsThenSavedAndRefreshScheduled() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient("token", this.now);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal);
+		verify(this.delegate).saveAuthorizedClient(authorizedClient, this.principal);
+		verify(this.taskScheduler).schedule(any(Runnable.class), eq(this.now.plus(Duration.ofMinutes(45))));
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenJitterThenRefreshScheduledEarlier() {
+		this.authorizedClientService.setJitterRatio(0.25);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		ArgumentCaptor<Instant> refreshAt = ArgumentCaptor.forClass(Instant.class);
+		verify(this.taskScheduler).schedule(any(Runnable.class), refreshAt.capture());
+		assertThat(refreshAt.getValue()).isBetween(this.now.plus(Duration.ofMinutes(30)),
+				this.now.plus(Duration.ofMinutes(45)));
+	}
+
+	@Test
+	public void saveAuthorizedClientWhenNotRenewableThenRefreshNotScheduled() {
+		ClientRegistration registration = TestClientRegistrations.clientRegistration().build();
+		OAuth2AuthorizedClient authorizedClient = new OAuth2AuthorizedClient(registration, this.principal.getName(),
+				accessToken("token", this.now));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal);
+		verify(this.delegate).saveAuthorizedClient(authorizedClient, this.principal);
+		verifyNoInteractions(this.taskScheduler);
+	}
+
+	@Test
+	public void refreshWhenDueThenRenewedClientSavedAndRefreshRescheduled() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient("token", this.now);
+		OAuth2AuthorizedClient renewedClient = authorizedClient("renewed", this.now.plus(Duration.ofMinutes(45)));
+		given(this.authorizedClientProvider.authorize(any())).willReturn(renewedClient);
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal);
+		runScheduledRefresh();
+		ArgumentCaptor<OAuth2AuthorizationContext> context = ArgumentCaptor.forClass(OAuth2AuthorizationContext.class);
+		verify(this.authorizedClientProvider).authorize(context.capture());
+		assertThat(context.getValue().getAuthorizedClient()).isSameAs(authorizedClient);
+		assertThat(context.getValue().getPrincipal()).isSameAs(this.principal);
+		verify(this.delegate).saveAuthorizedClient(renewedClient, this.principal);
+		verify(this.taskScheduler).schedule(any(Runnable.class), eq(this.now.plus(Duration.ofMinutes(90))));
+	}
+
+	@Test
+	public void refreshWhenFailsThenRetriedWithBackoffAndClientKept() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient("token", this.now);
+		given(this.authorizedClientProvider.authorize(any())).willThrow(new ClientAuthorizationException(
+				new OAuth2Error(OAuth2ErrorCodes.SERVER_ERROR), this.clientRegistration.getRegistrationId()));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal);
+		runScheduledRefresh();
+		Instant failedAt = this.now.plus(Duration.ofMinutes(45));
+		verify(this.taskScheduler).schedule(any(Runnable.class), eq(failedAt.plusSeconds(5)));
+		runScheduledRefresh();
+		verify(this.taskScheduler).schedule(any(Runnable.class), eq(failedAt.plusSeconds(10)));
+		verify(this.delegate).saveAuthorizedClient(authorizedClient, this.principal);
+		verify(this.delegate, never()).removeAuthorizedClient(any(), any());
+	}
+
+	@Test
+	public void refreshWhenInvalidGrantThenNotRetried() {
+		given(this.authorizedClientProvider.authorize(any())).willThrow(new ClientAuthorizationException(
+				new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT), this.clientRegistration.getRegistrationId()));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		runScheduledRefresh();
+		verify(this.taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+	}
+
+	@Test
+	public void refreshWhenRemovedThenNotRenewed() {
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		this.authorizedClientService.removeAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				this.principal.getName());
+		verify(this.future).cancel(false);
+		verify(this.delegate).removeAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				this.principal.getName());
+		runScheduledRefresh();
+		verifyNoInteractions(this.authorizedClientProvider);
+	}
+
+	@Test
+	public void refreshWhenObservationRegistryThenObserved() {
+		ObservationHandler<Observation.Context> handler = mock(ObservationHandler.class);
+		given(handler.supportsContext(any())).willReturn(true);
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(handler);
+		this.authorizedClientService.setObservationRegistry(registry);
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(46)), ZoneOffset.UTC));
+		given(this.authorizedClientProvider.authorize(any()))
+			.willReturn(authorizedClient("renewed", this.now.plus(Duration.ofMinutes(46))));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		runScheduledRefresh();
+		ArgumentCaptor<Observation.Context> captor = ArgumentCaptor.forClass(Observation.Context.class);
+		verify(handler).onStop(captor.capture());
+		Observation.Context context = captor.getValue();
+		assertThat(context.getName()).isEqualTo(RefreshAheadOAuth2AuthorizedClientService.OBSERVATION_NAME);
+		assertThat(context.getLowCardinalityKeyValues()).contains(
+				KeyValue.of("client.registration.id", this.clientRegistration.getRegistrationId()),
+				KeyValue.of("authorization.grant.type", "client_credentials"),
+				KeyValue.of("refresh.result", "success"));
+		assertThat(context.getHighCardinalityKeyValue("refresh.lag").getValue()).isEqualTo("60000");
+	}
+
+	@Test
+	public void refreshWhenMeterRegistryThenLagRecorded() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		this.authorizedClientService.setMeterRegistry(meterRegistry);
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(46)), ZoneOffset.UTC));
+		given(this.authorizedClientProvider.authorize(any()))
+			.willReturn(authorizedClient("renewed", this.now.plus(Duration.ofMinutes(46))));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		runScheduledRefresh();
+		Timer lag = meterRegistry.get(RefreshAheadOAuth2AuthorizedClientService.LAG_METER_NAME)
+			.tag("client.registration.id", this.clientRegistration.getRegistrationId())
+			.timer();
+		assertThat(lag.count()).isEqualTo(1);
+		assertThat(lag.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(60000);
+	}
+
+	@Test
+	public void refreshWhenNotLoadedDuringMaxIdleTimeThenNotRenewed() {
+		this.authorizedClientService.setMaxIdleTime(Duration.ofMinutes(30));
+		this.authorizedClientService.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient("token", this.now), this.principal);
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		runScheduledRefresh();
+		verifyNoInteractions(this.authorizedClientProvider);
+	}
+
+	@Test
+	public void refreshWhenLoadedDuringMaxIdleTimeThenRenewed() {
+		OAuth2AuthorizedClient authorizedClient = authorizedClient("token", this.now);
+		given(this.delegate.loadAuthorizedClient(this.clientRegistration.getRegistrationId(), this.principal.getName()))
+			.willReturn(authorizedClient);
+		given(this.authorizedClientProvider.authorize(any()))
+			.willReturn(authorizedClient("renewed", this.now.plus(Duration.ofMinutes(45))));
+		this.authorizedClientService.setMaxIdleTime(Duration.ofMinutes(30));
+		this.authorizedClientService.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+		this.authorizedClientService.saveAuthorizedClient(authorizedClient, this.principal);
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC));
+		this.authorizedClientService.loadAuthorizedClient(this.clientRegistration.getRegistrationId(),
+				this.principal.getName());
+		this.authorizedClientService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		runScheduledRefresh();
+		verify(this.authorizedClientProvider).authorize(any());
+	}
+
+	@Test
+	public void setTaskSchedulerWhenDefaultTaskSchedulerCreatedThenThrowIllegalStateException() {
+		RefreshAheadOAuth2AuthorizedClientService authorizedClientService = new RefreshAheadOAuth2AuthorizedClientService(
+				this.delegate);
+		try {
+			authorizedClientService.saveAuthorizedClient(authorizedClient("token", Instant.now()), this.principal);
+			assertThatIllegalStateException()
+				.isThrownBy(() -> authorizedClientService.setTaskScheduler(this.taskScheduler));
+		}
+		finally {
+			authorizedClientService.destroy();
+		}
+	}
+
+	private void runScheduledRefresh() {
+		ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.taskScheduler, atLeastOnce()).schedule(refresh.capture(), any(Instant.class));
+		refresh.getValue().run();
+	}
+
+	private OAuth2AuthorizedClient authorizedClient(String tokenValue, Instant issuedAt) {
+		return new OAuth2AuthorizedClient(this.clientRegistration, this.principal.getName(),
+				accessToken(tokenValue, issuedAt));
+	}
+
+	private static OAuth2AccessToken accessToken(String tokenValue, Instant issuedAt) {
+		return new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue, issuedAt,
+				issuedAt.plus(Duration.ofHours(1)));
+	}
+
+}
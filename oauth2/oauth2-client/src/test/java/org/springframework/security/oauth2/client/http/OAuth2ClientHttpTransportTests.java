@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link OAuth2ClientHttpTransport}.
+ */
+public class OAuth2ClientHttpTransportTests {
+
+	private MockWebServer server;
+
+	private ObservationHandler<Observation.Context> handler;
+
+	private OAuth2ClientHttpTransport transport;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		this.server = new MockWebServer();
+		this.server.start();
+		this.handler = mock(ObservationHandler.class);
+		given(this.handler.supportsContext(any())).willReturn(true);
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(this.handler);
+		this.transport = OAuth2ClientHttpTransport.builder()
+			.readTimeout(Duration.ofSeconds(1))
+			.maxConcurrentRequestsPerHost(1)
+			.observationRegistry(registry)
+			.build();
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		this.server.shutdown();
+	}
+
+	@Test
+	public void builderWhenMaxConcurrentRequestsPerHostNotPositiveThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> OAuth2ClientHttpTransport.builder().maxConcurrentRequestsPerHost(0))
+			.withMessage("maxConcurrentRequestsPerHost must be greater than 0");
+	}
+
+	@Test
+	public void builderWhenReadTimeoutZeroThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> OAuth2ClientHttpTransport.builder().readTimeout(Duration.ZERO))
+			.withMessage("readTimeout must be positive");
+	}
+
+	@Test
+	public void getDefaultThenSameTransport() {
+		assertThat(OAuth2ClientHttpTransport.getDefault()).isSameAs(OAuth2ClientHttpTransport.getDefault());
+	}
+
+	@Test
+	public void requestFactoryWhenClientRegistrationIdThenObserved() {
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+		RestClient restClient = RestClient.builder().requestFactory(this.transport.getRequestFactory()).build();
+		String body = restClient.get()
+			.uri(this.server.url("/token").toString())
+			.attributes(OAuth2ClientHttpTransport.clientRegistrationId("registration-id"))
+			.retrieve()
+			.body(String.class);
+		assertThat(body).isEqualTo("ok");
+		assertObserved("registration-id", "GET", "200");
+	}
+
+	@Test
+	public void requestFactoryWhenNoClientRegistrationIdThenObservedWithNone() {
+		this.server.enqueue(new MockResponse().setResponseCode(400));
+		RestClient restClient = RestClient.builder().requestFactory(this.transport.getRequestFactory()).build();
+		restClient.post()
+			.uri(this.server.url("/token").toString())
+			.retrieve()
+			.onStatus((status) -> true, (request, response) -> {
+			})
+			.toBodilessEntity();
+		assertObserved("none", "POST", "400");
+	}
+
+	@Test
+	public void requestFactoryWhenGetRedirectedThenFollowed() {
+		this.server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/moved"));
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+		RestClient restClient = RestClient.builder().requestFactory(this.transport.getRequestFactory()).build();
+		String body = restClient.get().uri(this.server.url("/userinfo").toString()).retrieve().body(String.class);
+		assertThat(body).isEqualTo("ok");
+		assertThat(this.server.getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void requestFactoryWhenPostRedirectedThenNotFollowed() {
+		this.server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/moved"));
+		RestClient restClient = RestClient.builder().requestFactory(this.transport.getRequestFactory()).build();
+		HttpStatusCode status = restClient.post()
+			.uri(this.server.url("/token").toString())
+			.retrieve()
+			.toBodilessEntity()
+			.getStatusCode();
+		assertThat(status.value()).isEqualTo(302);
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void setObservationRegistryThenObservedWithRegistry() {
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+		OAuth2ClientHttpTransport transport = OAuth2ClientHttpTransport.builder().build();
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(this.handler);
+		transport.setObservationRegistry(registry);
+		RestClient restClient = RestClient.builder().requestFactory(transport.getRequestFactory()).build();
+		restClient.get()
+			.uri(this.server.url("/userinfo").toString())
+			.attributes(OAuth2ClientHttpTransport.clientRegistrationId("registration-id"))
+			.retrieve()
+			.toBodilessEntity();
+		assertObserved("registration-id", "GET", "200");
+	}
+
+	@Test
+	public void setObservationRegistryWhenNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.transport.setObservationRegistry(null))
+			.withMessage("observationRegistry cannot be null");
+	}
+
+	@Test
+	public void requestFactoryWhenMaxConcurrentRequestsPerHostReachedThenWaitsAndTimesOut() throws Exception {
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("first"));
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("second"));
+		URI uri = this.server.url("/token").uri();
+		ClientHttpResponse first = this.transport.getRequestFactory().createRequest(uri, HttpMethod.GET).execute();
+		assertThatExceptionOfType(IOException.class)
+			.isThrownBy(() -> this.transport.getRequestFactory().createRequest(uri, HttpMethod.GET).execute())
+			.withMessageContaining("Timed out waiting for one of the 1 concurrent requests");
+		first.close();
+		try (ClientHttpResponse second = this.transport.getRequestFactory()
+			.createRequest(uri, HttpMethod.GET)
+			.execute()) {
+			assertThat(second.getStatusCode().value()).isEqualTo(200);
+		}
+	}
+
+	@Test
+	public void connectorWhenClientRegistrationIdThenObserved() {
+		this.server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+		WebClient webClient = WebClient.builder().clientConnector(this.transport.getConnector()).build();
+		String body = webClient.get()
+			.uri(this.server.url("/userinfo").toString())
+			.attributes(OAuth2ClientHttpTransport.clientRegistrationId("registration-id"))
+			.retrieve()
+			.bodyToMono(String.class)
+			.block();
+		assertThat(body).isEqualTo("ok");
+		assertObserved("registration-id", "GET", "200");
+	}
+
+	private void assertObserved(String clientRegistrationId, String method, String status) {
+		ArgumentCaptor<Observation.Context> captor = ArgumentCaptor.forClass(Observation.Context.class);
+		// the reactive observation is stopped once the response is emitted
+		verify(this.handler, timeout(1000)).onStop(captor.capture());
+		Observation.Context context = captor.getValue();
+		assertThat(context.getName()).isEqualTo(OAuth2ClientHttpTransport.OBSERVATION_NAME);
+		assertThat(context.getLowCardinalityKeyValues()).contains(
+				KeyValue.of("client.registration.id", clientRegistrationId),
+				KeyValue.of("client.name", this.server.getHostName()), KeyValue.of("method", method),
+				KeyValue.of("status", status));
+	}
+
+}
@@ -16,13 +16,24 @@
 
 package org.springframework.security.oauth2.client.oidc.authentication;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -30,10 +41,17 @@ import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
 import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
 import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.jose.TestJwks;
 import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -177,4 +195,75 @@ public class ReactiveOidcIdTokenDecoderFactoryTests {
 		verify(customClaimTypeConverterFactory).apply(same(clientRegistration));
 	}
 
+	@Test
+	public void createDecoderWhenSameJwkSetUriThenJwkSetShared() throws Exception {
+		try (MockWebServer server = jwkSetServer()) {
+			String jwkSetUri = server.url("/jwks").toString();
+			this.idTokenDecoderFactory.setJwtValidatorFactory((clientRegistration) -> JwtValidators.createDefault());
+			ReactiveJwtDecoder tenant1 = this.idTokenDecoderFactory
+				.createDecoder(registration("tenant1", jwkSetUri).build());
+			ReactiveJwtDecoder tenant2 = this.idTokenDecoderFactory
+				.createDecoder(registration("tenant2", jwkSetUri).build());
+			assertThat(tenant1).isNotSameAs(tenant2);
+			assertThat(tenant1.decode(idToken("tenant1")).block().getSubject()).isEqualTo("subject");
+			assertThat(tenant2.decode(idToken("tenant2")).block().getSubject()).isEqualTo("subject");
+			assertThat(server.getRequestCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void prefetchJwkSetsWhenClientRegistrationsThenJwkSetsRetrievedOnce() throws Exception {
+		try (MockWebServer server = jwkSetServer()) {
+			String jwkSetUri = server.url("/jwks").toString();
+			this.idTokenDecoderFactory.setJwtValidatorFactory((clientRegistration) -> JwtValidators.createDefault());
+			ClientRegistration tenant1 = registration("tenant1", jwkSetUri).build();
+			ClientRegistration oauth2 = registration("oauth2", jwkSetUri).scope("read").build();
+			StepVerifier
+				.create(this.idTokenDecoderFactory
+					.prefetchJwkSets(List.of(tenant1, registration("tenant2", jwkSetUri).build(), oauth2)))
+				.verifyComplete();
+			assertThat(server.getRequestCount()).isEqualTo(1);
+			this.idTokenDecoderFactory.createDecoder(tenant1).decode(idToken("tenant1")).block();
+			assertThat(server.getRequestCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void prefetchJwkSetsWhenJwkSetUnavailableThenIgnored() {
+		ClientRegistration clientRegistration = registration("tenant", "https://localhost:1/jwks").build();
+		StepVerifier.create(this.idTokenDecoderFactory.prefetchJwkSets(List.of(clientRegistration))).verifyComplete();
+		assertThat(this.idTokenDecoderFactory.createDecoder(clientRegistration)).isNotNull();
+	}
+
+	private ClientRegistration.Builder registration(String registrationId, String jwkSetUri) {
+		return TestClientRegistrations.clientRegistration()
+			.registrationId(registrationId)
+			.scope("openid")
+			.jwkSetUri(jwkSetUri);
+	}
+
+	private static String idToken(String audience) {
+		NimbusJwtEncoder jwtEncoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(TestJwks.DEFAULT_RSA_JWK)));
+		JwtClaimsSet claims = JwtClaimsSet.builder()
+			.subject("subject")
+			.audience(List.of(audience))
+			.expiresAt(Instant.now().plusSeconds(60))
+			.build();
+		return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(SignatureAlgorithm.RS256).build(), claims))
+			.getTokenValue();
+	}
+
+	private static MockWebServer jwkSetServer() throws Exception {
+		MockWebServer server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.setBody(new JWKSet(TestJwks.DEFAULT_RSA_JWK).toString());
+			}
+		});
+		server.start();
+		return server;
+	}
+
 }
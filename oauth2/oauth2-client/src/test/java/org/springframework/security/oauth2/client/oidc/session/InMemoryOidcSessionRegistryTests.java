@@ -16,6 +16,8 @@
 
 package org.springframework.security.oauth2.client.oidc.session;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.security.core.authority.AuthorityUtils;
@@ -100,4 +102,48 @@ public class InMemoryOidcSessionRegistryTests {
 		assertThat(infos).isEmpty();
 	}
 
+	@Test
+	public void unregisterWhenSessionRemovedByClientSessionIdThenNotRemovedAgain() {
+		InMemoryOidcSessionRegistry sessionRegistry = new InMemoryOidcSessionRegistry();
+		OidcIdToken idToken = TestOidcIdTokens.idToken().claim("sid", "provider").build();
+		OidcUser user = new DefaultOidcUser(AuthorityUtils.NO_AUTHORITIES, idToken);
+		OidcSessionInformation info = TestOidcSessionInformations.create("client", user);
+		sessionRegistry.saveSessionInformation(info);
+		assertThat(sessionRegistry.removeSessionInformation("client")).isSameAs(info);
+		OidcLogoutToken logoutToken = TestOidcLogoutTokens.withSessionId(idToken.getIssuer().toString(), "provider")
+			.build();
+		assertThat(sessionRegistry.removeSessionInformation(logoutToken)).isEmpty();
+	}
+
+	@Test
+	public void unregisterWhenSessionReplacedThenPreviousProviderSessionIdNotMatched() {
+		InMemoryOidcSessionRegistry sessionRegistry = new InMemoryOidcSessionRegistry();
+		OidcIdToken idToken = TestOidcIdTokens.idToken().claim("sid", "providerOne").build();
+		OidcUser user = new DefaultOidcUser(AuthorityUtils.NO_AUTHORITIES, idToken);
+		sessionRegistry.saveSessionInformation(TestOidcSessionInformations.create("client", user));
+		idToken = TestOidcIdTokens.idToken().claim("sid", "providerTwo").build();
+		user = new DefaultOidcUser(AuthorityUtils.NO_AUTHORITIES, idToken);
+		OidcSessionInformation replaced = TestOidcSessionInformations.create("client", user);
+		sessionRegistry.saveSessionInformation(replaced);
+		String issuer = idToken.getIssuer().toString();
+		OidcLogoutToken logoutToken = TestOidcLogoutTokens.withSessionId(issuer, "providerOne").build();
+		assertThat(sessionRegistry.removeSessionInformation(logoutToken)).isEmpty();
+		logoutToken = TestOidcLogoutTokens.withSessionId(issuer, "providerTwo").build();
+		assertThat(sessionRegistry.removeSessionInformation(logoutToken)).containsExactly(replaced);
+	}
+
+	@Test
+	public void unregisterWhenAudienceDiffersThenNotRemoved() {
+		InMemoryOidcSessionRegistry sessionRegistry = new InMemoryOidcSessionRegistry();
+		OidcIdToken idToken = TestOidcIdTokens.idToken().claim("sid", "provider").build();
+		OidcUser user = new DefaultOidcUser(AuthorityUtils.NO_AUTHORITIES, idToken);
+		OidcSessionInformation info = TestOidcSessionInformations.create("client", user);
+		sessionRegistry.saveSessionInformation(info);
+		OidcLogoutToken logoutToken = TestOidcLogoutTokens.withSessionId(idToken.getIssuer().toString(), "provider")
+			.audience(List.of("other-client"))
+			.build();
+		assertThat(sessionRegistry.removeSessionInformation(logoutToken)).isEmpty();
+		assertThat(sessionRegistry.removeSessionInformation("client")).isSameAs(info);
+	}
+
 }
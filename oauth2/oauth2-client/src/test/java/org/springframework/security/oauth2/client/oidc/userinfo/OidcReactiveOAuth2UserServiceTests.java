@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -73,6 +74,7 @@ import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -130,6 +132,14 @@ public class OidcReactiveOAuth2UserServiceTests {
 		assertThat(user.getUserInfo()).isNull();
 	}
 
+	@Test
+	public void loadUserWhenIdTokenContainsUserInfoClaimNamesThenUserInfoNotRetrieved() {
+		this.userService.setUserInfoClaimNames(Set.of(IdTokenClaimNames.ISS, IdTokenClaimNames.SUB));
+		OidcUser user = this.userService.loadUser(userRequest()).block();
+		assertThat(user.getUserInfo()).isNull();
+		verify(this.oauth2UserService, never()).loadUser(any());
+	}
+
 	@Test
 	public void loadUserWhenOAuth2UserEmptyThenNullUserInfo() {
 		given(this.oauth2UserService.loadUser(any())).willReturn(Mono.empty());
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -177,6 +178,37 @@ public class OidcUserServiceTests {
 		assertThat(user.getUserInfo()).isNull();
 	}
 
+	@Test
+	public void setUserInfoClaimNamesWhenNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.userService.setUserInfoClaimNames(null))
+			.withMessage("userInfoClaimNames cannot be null");
+	}
+
+	@Test
+	public void loadUserWhenIdTokenContainsUserInfoClaimNamesThenUserInfoEndpointNotRequested() {
+		ClientRegistration clientRegistration = this.clientRegistrationBuilder
+			.userInfoUri(this.server.url("/user").toString())
+			.build();
+		this.userService.setUserInfoClaimNames(Set.of(IdTokenClaimNames.ISS, IdTokenClaimNames.SUB));
+		OidcUser user = this.userService
+			.loadUser(new OidcUserRequest(clientRegistration, this.accessToken, this.idToken));
+		assertThat(user.getUserInfo()).isNull();
+		assertThat(user.getName()).isEqualTo("subject1");
+		assertThat(this.server.getRequestCount()).isZero();
+	}
+
+	@Test
+	public void loadUserWhenIdTokenMissesUserInfoClaimNamesThenUserInfoEndpointRequested() {
+		this.server.enqueue(jsonResponse("{\"sub\": \"subject1\", \"email\": \"user1@example.com\"}"));
+		ClientRegistration clientRegistration = this.clientRegistrationBuilder
+			.userInfoUri(this.server.url("/user").toString())
+			.build();
+		this.userService.setUserInfoClaimNames(Set.of(IdTokenClaimNames.SUB, StandardClaimNames.EMAIL));
+		OidcUser user = this.userService
+			.loadUser(new OidcUserRequest(clientRegistration, this.accessToken, this.idToken));
+		assertThat(user.getUserInfo().getEmail()).isEqualTo("user1@example.com");
+	}
+
 	// gh-6886
 	@Test
 	public void loadUserWhenNonStandardScopesAuthorizedAndAccessibleScopesMatchThenUserInfoEndpointRequested() {
@@ -398,7 +430,7 @@ public class OidcUserServiceTests {
 			.isThrownBy(() -> this.userService
 				.loadUser(new OidcUserRequest(clientRegistration, this.accessToken, this.idToken)))
 			.withMessageContaining(
-					"[invalid_user_info_response] An error occurred while attempting to retrieve the UserInfo Resource: 500 Server Error");
+					"[invalid_user_info_response] An error occurred while attempting to retrieve the UserInfo Resource: 500 Internal Server Error");
 	}
 
 	@Test
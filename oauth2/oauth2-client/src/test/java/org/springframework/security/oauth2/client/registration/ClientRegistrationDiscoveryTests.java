@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ClientRegistrationDiscovery}.
+ */
+public class ClientRegistrationDiscoveryTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TempDir
+	private Path directory;
+
+	private MockWebServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		this.server = new MockWebServer();
+		this.server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return switch (request.getPath()) {
+					case "/issuer1/.well-known/openid-configuration" -> response(oidcConfiguration("issuer1"));
+					case "/issuer2/.well-known/openid-configuration" -> response(oidcConfiguration("issuer2"));
+					case "/.well-known/oauth-authorization-server/oauth" -> response(oauthConfiguration("oauth"));
+					default -> new MockResponse().setResponseCode(404);
+				};
+			}
+		});
+		this.server.start();
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception {
+		this.server.shutdown();
+	}
+
+	@Test
+	public void oidcIssuerLocationWhenRegistrationIdAlreadyAddedThenThrowIllegalStateException() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery().oidcIssuerLocation("one",
+				issuer("issuer1"), (registration) -> registration.clientId("client-id"));
+		assertThatIllegalStateException()
+			.isThrownBy(() -> discovery.oidcIssuerLocation("one", issuer("issuer2"),
+					(registration) -> registration.clientId("client-id")))
+			.withMessage("A registration with the id \"one\" was already added");
+	}
+
+	@Test
+	public void discoverWhenIssuersThenClientRegistrationsCustomized() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+			.oidcIssuerLocation("one", issuer("issuer1"), (registration) -> registration.clientId("client-one"))
+			.issuerLocation("two", issuer("issuer2"), (registration) -> registration.clientId("client-two"))
+			.issuerLocation("oauth", issuer("oauth"), (registration) -> registration.clientId("client-oauth"));
+		InMemoryClientRegistrationRepository repository = discovery.discover();
+		ClientRegistration one = repository.findByRegistrationId("one");
+		assertThat(one.getClientId()).isEqualTo("client-one");
+		assertThat(one.getProviderDetails().getIssuerUri()).isEqualTo(issuer("issuer1"));
+		assertThat(one.getProviderDetails().getJwkSetUri()).isEqualTo(issuer("issuer1") + "/jwks");
+		ClientRegistration two = repository.findByRegistrationId("two");
+		assertThat(two.getClientId()).isEqualTo("client-two");
+		assertThat(two.getProviderDetails().getIssuerUri()).isEqualTo(issuer("issuer2"));
+		ClientRegistration oauth = repository.findByRegistrationId("oauth");
+		assertThat(oauth.getClientId()).isEqualTo("client-oauth");
+		assertThat(oauth.getProviderDetails().getTokenUri()).isEqualTo(issuer("oauth") + "/token");
+	}
+
+	@Test
+	public void discoverWhenSameIssuerThenConfigurationRetrievedOnce() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+			.oidcIssuerLocation("one", issuer("issuer1"), (registration) -> registration.clientId("client-one"))
+			.oidcIssuerLocation("two", issuer("issuer1"), (registration) -> registration.clientId("client-two"));
+		InMemoryClientRegistrationRepository repository = discovery.discover();
+		assertThat(repository.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(repository.findByRegistrationId("two").getClientId()).isEqualTo("client-two");
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void discoverWhenIssuerUnavailableThenThrowIllegalArgumentException() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery().issuerLocation("unknown",
+				issuer("unknown"), (registration) -> registration.clientId("client-id"));
+		assertThatIllegalArgumentException().isThrownBy(discovery::discover)
+			.withMessageContaining("Unable to resolve Configuration with the provided Issuer");
+	}
+
+	@Test
+	public void discoverWhenMetadataCacheFileThenConfigurationsSavedAndReused() {
+		Path file = this.directory.resolve("client-registrations.json");
+		InMemoryClientRegistrationRepository discovered = discovery(file, this.now).discover();
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+		assertThat(file).exists();
+		InMemoryClientRegistrationRepository restored = discovery(file, this.now.plus(Duration.ofHours(23))).discover();
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+		assertThat(restored.findByRegistrationId("one").getProviderDetails().getConfigurationMetadata())
+			.isEqualTo(discovered.findByRegistrationId("one").getProviderDetails().getConfigurationMetadata());
+		assertThat(restored.findByRegistrationId("oauth").getProviderDetails().getTokenUri())
+			.isEqualTo(issuer("oauth") + "/token");
+	}
+
+	@Test
+	public void discoverWhenMetadataCacheExpiredThenConfigurationsRetrievedAgain() {
+		Path file = this.directory.resolve("client-registrations.json");
+		discovery(file, this.now).discover();
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+		discovery(file, this.now.plus(Duration.ofDays(1))).discover();
+		assertThat(this.server.getRequestCount()).isEqualTo(8);
+	}
+
+	@Test
+	public void discoverWhenMetadataCacheFileUnreadableThenConfigurationsRetrieved() throws Exception {
+		Path file = this.directory.resolve("client-registrations.json");
+		Files.writeString(file, "{\"" + issuer("issuer1") + "\": \"malformed\"}");
+		InMemoryClientRegistrationRepository repository = discovery(file, this.now).discover();
+		assertThat(repository.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+		discovery(file, this.now).discover();
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+	}
+
+	@Test
+	public void discoverOnFirstUseThenDiscoveredWhenFirstUsed() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery().oidcIssuerLocation("one",
+				issuer("issuer1"), (registration) -> registration.clientId("client-one"));
+		ClientRegistrationDiscovery.DiscoveringClientRegistrationRepository repository = discovery.discoverOnFirstUse();
+		assertThat(this.server.getRequestCount()).isZero();
+		assertThat(repository.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(repository).hasSize(1);
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void discoverOnFirstUseThenEachProviderDiscoveredWhenItsRegistrationFirstUsed() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+			.oidcIssuerLocation("one", issuer("issuer1"), (registration) -> registration.clientId("client-one"))
+			.oidcIssuerLocation("two", issuer("issuer2"), (registration) -> registration.clientId("client-two"));
+		ClientRegistrationDiscovery.DiscoveringClientRegistrationRepository repository = discovery.discoverOnFirstUse();
+		assertThat(repository.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+		assertThat(repository.findByRegistrationId("one")).isSameAs(repository.findByRegistrationId("one"));
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+		assertThat(repository.findByRegistrationId("two").getClientId()).isEqualTo("client-two");
+		assertThat(this.server.getRequestCount()).isEqualTo(2);
+		assertThat(repository.findByRegistrationId("unknown")).isNull();
+	}
+
+	@Test
+	public void discoverOnFirstUseWhenIssuerUnavailableThenOtherRegistrationsFoundAndDiscoveryRetried() {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+			.oidcIssuerLocation("one", issuer("issuer1"), (registration) -> registration.clientId("client-one"))
+			.oidcIssuerLocation("unavailable", issuer("unavailable"),
+					(registration) -> registration.clientId("client-unavailable"));
+		ClientRegistrationDiscovery.DiscoveringClientRegistrationRepository repository = discovery.discoverOnFirstUse();
+		assertThatIllegalArgumentException().isThrownBy(() -> repository.findByRegistrationId("unavailable"))
+			.withMessageContaining("Unable to resolve Configuration with the provided Issuer");
+		int requests = this.server.getRequestCount();
+		assertThat(repository.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(repository).extracting(ClientRegistration::getRegistrationId).containsExactly("one");
+		assertThatIllegalArgumentException().isThrownBy(() -> repository.findByRegistrationId("unavailable"));
+		assertThat(this.server.getRequestCount()).isEqualTo(requests + 3);
+	}
+
+	@Test
+	public void discoverOnFirstUseWhenMetadataCacheFileThenEachConfigurationSaved() {
+		Path file = this.directory.resolve("client-registrations.json");
+		discovery(file, this.now).discoverOnFirstUse().findByRegistrationId("one");
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+		ClientRegistrationDiscovery.DiscoveringClientRegistrationRepository restored = discovery(file, this.now)
+			.discoverOnFirstUse();
+		assertThat(restored.findByRegistrationId("one").getClientId()).isEqualTo("client-one");
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+		assertThat(restored.findByRegistrationId("oauth").getClientId()).isEqualTo("client-oauth");
+		assertThat(this.server.getRequestCount()).isEqualTo(4);
+	}
+
+	private ClientRegistrationDiscovery discovery(Path file, Instant now) {
+		ClientRegistrationDiscovery discovery = new ClientRegistrationDiscovery()
+			.oidcIssuerLocation("one", issuer("issuer1"), (registration) -> registration.clientId("client-one"))
+			.issuerLocation("oauth", issuer("oauth"), (registration) -> registration.clientId("client-oauth"));
+		discovery.setMetadataCacheFile(file);
+		discovery.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		return discovery;
+	}
+
+	private String issuer(String path) {
+		return this.server.url(path).toString();
+	}
+
+	private Map<String, Object> oidcConfiguration(String path) {
+		Map<String, Object> configuration = oauthConfiguration(path);
+		configuration.put("jwks_uri", issuer(path) + "/jwks");
+		configuration.put("subject_types_supported", List.of("public"));
+		configuration.put("id_token_signing_alg_values_supported", List.of("RS256"));
+		return configuration;
+	}
+
+	private Map<String, Object> oauthConfiguration(String path) {
+		Map<String, Object> configuration = new LinkedHashMap<>();
+		configuration.put("issuer", issuer(path));
+		configuration.put("authorization_endpoint", issuer(path) + "/authorize");
+		configuration.put("token_endpoint", issuer(path) + "/token");
+		configuration.put("response_types_supported", List.of("code"));
+		return configuration;
+	}
+
+	private MockResponse response(Map<String, Object> configuration) {
+		try {
+			return new MockResponse().setBody(this.mapper.writeValueAsString(configuration))
+				.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
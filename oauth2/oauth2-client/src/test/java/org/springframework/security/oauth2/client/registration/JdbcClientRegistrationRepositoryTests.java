@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link JdbcClientRegistrationRepository}.
+ */
+public class JdbcClientRegistrationRepositoryTests {
+
+	private static final String OAUTH2_CLIENT_REGISTRATION_SCHEMA_SQL_RESOURCE = "org/springframework/security/oauth2/client/oauth2-client-registration-schema.sql";
+
+	private EmbeddedDatabase db;
+
+	private JdbcOperations jdbcOperations;
+
+	private JdbcClientRegistrationRepository clientRegistrationRepository;
+
+	@BeforeEach
+	public void setUp() {
+		this.db = createDb();
+		this.jdbcOperations = spy(new JdbcTemplate(this.db));
+		this.clientRegistrationRepository = new JdbcClientRegistrationRepository(this.jdbcOperations);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.db.shutdown();
+	}
+
+	@Test
+	public void constructorWhenJdbcOperationsIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new JdbcClientRegistrationRepository(null))
+			.withMessage("jdbcOperations cannot be null");
+	}
+
+	@Test
+	public void findByRegistrationIdWhenRegistrationIdIsEmptyThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> this.clientRegistrationRepository.findByRegistrationId(""))
+			.withMessage("registrationId cannot be empty");
+	}
+
+	@Test
+	public void findByRegistrationIdWhenNotFoundThenNull() {
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("unknown")).isNull();
+	}
+
+	@Test
+	public void findByRegistrationIdWhenSavedThenFound() {
+		ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration()
+			.providerConfigurationMetadata(
+					Map.of("end_session_endpoint", "https://example.com/logout", "scopes_supported", List.of("openid")))
+			.build();
+		this.clientRegistrationRepository.save(clientRegistration);
+		this.clientRegistrationRepository.invalidateAll();
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		assertThat(found).usingRecursiveComparison().isEqualTo(clientRegistration);
+	}
+
+	@Test
+	public void findByRegistrationIdWhenClientCredentialsThenFound() {
+		ClientRegistration clientRegistration = TestClientRegistrations.clientCredentials().build();
+		this.clientRegistrationRepository.save(clientRegistration);
+		this.clientRegistrationRepository.invalidateAll();
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("client-credentials");
+		assertThat(found).usingRecursiveComparison().isEqualTo(clientRegistration);
+	}
+
+	@Test
+	public void findByRegistrationIdWhenFoundThenCached() {
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build());
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id")).isSameAs(found);
+		verifyLoaded(1);
+	}
+
+	@Test
+	public void findByRegistrationIdWhenCacheDisabledThenLoadedEachTime() {
+		this.clientRegistrationRepository.setCacheTimeToLive(Duration.ZERO);
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build());
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		verifyLoaded(2);
+	}
+
+	@Test
+	public void findByRegistrationIdWhenCacheMaximumSizeExceededThenLeastRecentlyUsedEvicted() {
+		this.clientRegistrationRepository.setCacheMaximumSize(2);
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build());
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration2().build());
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientCredentials().build());
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		this.clientRegistrationRepository.findByRegistrationId("registration-id-2");
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		this.clientRegistrationRepository.findByRegistrationId("client-credentials");
+		verifyLoaded(3);
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		verifyLoaded(3);
+		this.clientRegistrationRepository.findByRegistrationId("registration-id-2");
+		verifyLoaded(4);
+	}
+
+	@Test
+	public void saveWhenExistingThenUpdatedAndInvalidated() {
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build());
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		this.clientRegistrationRepository
+			.save(TestClientRegistrations.clientRegistration().clientSecret("updated-secret").build());
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		assertThat(found.getClientSecret()).isEqualTo("updated-secret");
+	}
+
+	@Test
+	public void removeWhenSavedThenNotFound() {
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build());
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		this.clientRegistrationRepository.remove("registration-id");
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id")).isNull();
+	}
+
+	@Test
+	public void invalidateWhenChangedByAnotherRepositoryThenReloaded() {
+		JdbcClientRegistrationRepository other = new JdbcClientRegistrationRepository(new JdbcTemplate(this.db));
+		other.save(TestClientRegistrations.clientRegistration().build());
+		this.clientRegistrationRepository.findByRegistrationId("registration-id");
+		other.save(TestClientRegistrations.clientRegistration().clientSecret("updated-secret").build());
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id").getClientSecret())
+			.isEqualTo("client-secret");
+		this.clientRegistrationRepository.invalidate("registration-id");
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id").getClientSecret())
+			.isEqualTo("updated-secret");
+	}
+
+	@SuppressWarnings("unchecked")
+	private void verifyLoaded(int times) {
+		verify(this.jdbcOperations, times(times)).query(anyString(), any(PreparedStatementSetter.class),
+				any(RowMapper.class));
+	}
+
+	private static EmbeddedDatabase createDb() {
+		// @formatter:off
+		return new EmbeddedDatabaseBuilder()
+				.generateUniqueName(true)
+				.setType(EmbeddedDatabaseType.HSQL)
+				.setScriptEncoding("UTF-8")
+				.addScript(OAUTH2_CLIENT_REGISTRATION_SCHEMA_SQL_RESOURCE)
+				.build();
+		// @formatter:on
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.registration;
+
+import java.util.List;
+import java.util.Map;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link R2dbcReactiveClientRegistrationRepository}.
+ */
+public class R2dbcReactiveClientRegistrationRepositoryTests {
+
+	private static final String OAUTH2_CLIENT_REGISTRATION_SCHEMA_SQL_RESOURCE = "org/springframework/security/oauth2/client/oauth2-client-registration-schema.sql";
+
+	private DatabaseClient databaseClient;
+
+	private R2dbcReactiveClientRegistrationRepository clientRegistrationRepository;
+
+	@BeforeEach
+	public void setUp() {
+		this.databaseClient = DatabaseClient.create(createDb());
+		this.clientRegistrationRepository = new R2dbcReactiveClientRegistrationRepository(this.databaseClient);
+	}
+
+	@Test
+	public void constructorWhenDatabaseClientIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new R2dbcReactiveClientRegistrationRepository(null))
+			.withMessage("databaseClient cannot be null");
+	}
+
+	@Test
+	public void findByRegistrationIdWhenNotFoundThenEmpty() {
+		this.clientRegistrationRepository.findByRegistrationId("unknown").as(StepVerifier::create).verifyComplete();
+	}
+
+	@Test
+	public void findByRegistrationIdWhenSavedThenFound() {
+		ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration()
+			.providerConfigurationMetadata(
+					Map.of("end_session_endpoint", "https://example.com/logout", "scopes_supported", List.of("openid")))
+			.build();
+		this.clientRegistrationRepository.save(clientRegistration).block();
+		this.clientRegistrationRepository.invalidateAll();
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("registration-id").block();
+		assertThat(found).usingRecursiveComparison().isEqualTo(clientRegistration);
+	}
+
+	@Test
+	public void findByRegistrationIdWhenChangedByAnotherRepositoryThenCachedUntilInvalidated() {
+		R2dbcReactiveClientRegistrationRepository other = new R2dbcReactiveClientRegistrationRepository(
+				this.databaseClient);
+		other.save(TestClientRegistrations.clientRegistration().build()).block();
+		ClientRegistration found = this.clientRegistrationRepository.findByRegistrationId("registration-id").block();
+		other.save(TestClientRegistrations.clientRegistration().clientSecret("updated-secret").build()).block();
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id").block()).isSameAs(found);
+		this.clientRegistrationRepository.invalidate("registration-id");
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id").block().getClientSecret())
+			.isEqualTo("updated-secret");
+	}
+
+	@Test
+	public void saveWhenExistingThenUpdatedAndInvalidated() {
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build()).block();
+		this.clientRegistrationRepository.findByRegistrationId("registration-id").block();
+		this.clientRegistrationRepository
+			.save(TestClientRegistrations.clientRegistration().clientSecret("updated-secret").build())
+			.block();
+		assertThat(this.clientRegistrationRepository.findByRegistrationId("registration-id").block().getClientSecret())
+			.isEqualTo("updated-secret");
+	}
+
+	@Test
+	public void removeWhenSavedThenNotFound() {
+		this.clientRegistrationRepository.save(TestClientRegistrations.clientRegistration().build()).block();
+		this.clientRegistrationRepository.findByRegistrationId("registration-id").block();
+		this.clientRegistrationRepository.remove("registration-id").block();
+		this.clientRegistrationRepository.findByRegistrationId("registration-id")
+			.as(StepVerifier::create)
+			.verifyComplete();
+	}
+
+	private static ConnectionFactory createDb() {
+		ConnectionFactory connectionFactory = H2ConnectionFactory.inMemory("oauth-client-registration-test");
+		Mono.from(connectionFactory.create())
+			.flatMapMany((connection) -> Flux
+				.from(connection.createStatement("drop table oauth2_client_registration").execute())
+				.flatMap(Result::getRowsUpdated)
+				.onErrorResume((e) -> Mono.empty())
+				.thenMany(connection.close()))
+			.as(StepVerifier::create)
+			.verifyComplete();
+		ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+		initializer.setDatabasePopulator(
+				new ResourceDatabasePopulator(new ClassPathResource(OAUTH2_CLIENT_REGISTRATION_SCHEMA_SQL_RESOURCE)));
+		initializer.setConnectionFactory(connectionFactory);
+		initializer.afterPropertiesSet();
+		return connectionFactory;
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.userinfo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CachingOAuth2UserService}.
+ */
+public class CachingOAuth2UserServiceTests {
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration().build();
+
+	private final OAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+			Map.of("user-name", "user"), "user-name");
+
+	private OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+	private CachingOAuth2UserService<OAuth2UserRequest, OAuth2User> userService;
+
+	@BeforeEach
+	public void setup() {
+		this.delegate = mock(OAuth2UserService.class);
+		given(this.delegate.loadUser(any())).willReturn(this.user);
+		this.userService = new CachingOAuth2UserService<>(this.delegate);
+		this.userService.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenDelegateIsNullThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new CachingOAuth2UserService<>(null))
+			.withMessage("delegate cannot be null");
+	}
+
+	@Test
+	public void setTimeToLiveWhenZeroThenThrowIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.userService.setTimeToLive(Duration.ZERO))
+			.withMessage("timeToLive must be positive");
+	}
+
+	@Test
+	public void loadUserWhenSameAccessTokenThenLoadedOnce() {
+		assertThat(this.userService.loadUser(userRequest("token"))).isSameAs(this.user);
+		assertThat(this.userService.loadUser(userRequest("token"))).isSameAs(this.user);
+		verify(this.delegate, times(1)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenOtherAccessTokenThenLoaded() {
+		this.userService.loadUser(userRequest("token"));
+		this.userService.loadUser(userRequest("other"));
+		verify(this.delegate, times(2)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenTimeToLiveElapsedThenLoadedAgain() {
+		this.userService.setTimeToLive(Duration.ofMinutes(1));
+		this.userService.loadUser(userRequest("token"));
+		this.userService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(1)), ZoneOffset.UTC));
+		this.userService.loadUser(userRequest("token"));
+		verify(this.delegate, times(2)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenAccessTokenExpiredThenLoadedAgain() {
+		OAuth2UserRequest userRequest = new OAuth2UserRequest(this.clientRegistration, new OAuth2AccessToken(
+				OAuth2AccessToken.TokenType.BEARER, "token", this.now, this.now.plus(Duration.ofSeconds(30))));
+		this.userService.loadUser(userRequest);
+		this.userService.setClock(Clock.fixed(this.now.plus(Duration.ofSeconds(30)), ZoneOffset.UTC));
+		this.userService.loadUser(userRequest);
+		verify(this.delegate, times(2)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenDelegateFailsThenNotCached() {
+		given(this.delegate.loadUser(any())).willThrow(new OAuth2AuthenticationException(new OAuth2Error("error")))
+			.willReturn(this.user);
+		assertThatExceptionOfType(OAuth2AuthenticationException.class)
+			.isThrownBy(() -> this.userService.loadUser(userRequest("token")));
+		assertThat(this.userService.loadUser(userRequest("token"))).isSameAs(this.user);
+		verify(this.delegate, times(2)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenMaximumSizeReachedThenNotCached() {
+		this.userService.setMaximumSize(1);
+		this.userService.loadUser(userRequest("token"));
+		this.userService.loadUser(userRequest("other"));
+		this.userService.loadUser(userRequest("token"));
+		this.userService.loadUser(userRequest("other"));
+		verify(this.delegate, times(3)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenConcurrentThenLoadedOnce() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.delegate.loadUser(any())).willAnswer((invocation) -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return this.user;
+		});
+		CompletableFuture<OAuth2User> first = CompletableFuture
+			.supplyAsync(() -> this.userService.loadUser(userRequest("token")));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<OAuth2User> second = CompletableFuture
+			.supplyAsync(() -> this.userService.loadUser(userRequest("token")));
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(this.user);
+		assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(this.user);
+		verify(this.delegate, times(1)).loadUser(any());
+	}
+
+	private OAuth2UserRequest userRequest(String tokenValue) {
+		return new OAuth2UserRequest(this.clientRegistration, new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+				tokenValue, this.now, this.now.plus(Duration.ofHours(1))));
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.client.userinfo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.TestClientRegistrations;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CachingReactiveOAuth2UserService}.
+ */
+public class CachingReactiveOAuth2UserServiceTests {
+
+	private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final ClientRegistration clientRegistration = TestClientRegistrations.clientRegistration().build();
+
+	private final OAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+			Map.of("user-name", "user"), "user-name");
+
+	private ReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+	private CachingReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> userService;
+
+	@BeforeEach
+	public void setup() {
+		this.delegate = mock(ReactiveOAuth2UserService.class);
+		given(this.delegate.loadUser(any())).willReturn(Mono.just(this.user));
+		this.userService = new CachingReactiveOAuth2UserService<>(this.delegate);
+		this.userService.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void loadUserWhenSameAccessTokenThenLoadedOnce() {
+		assertThat(this.userService.loadUser(userRequest("token")).block()).isSameAs(this.user);
+		assertThat(this.userService.loadUser(userRequest("token")).block()).isSameAs(this.user);
+		verify(this.delegate, times(1)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenTimeToLiveElapsedThenLoadedAgain() {
+		this.userService.setTimeToLive(Duration.ofMinutes(1));
+		this.userService.loadUser(userRequest("token")).block();
+		this.userService.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(1)), ZoneOffset.UTC));
+		this.userService.loadUser(userRequest("token")).block();
+		verify(this.delegate, times(2)).loadUser(any());
+	}
+
+	@Test
+	public void loadUserWhenDelegateFailsThenNotCached() {
+		given(this.delegate.loadUser(any()))
+			.willReturn(Mono.error(new OAuth2AuthenticationException(new OAuth2Error("error"))))
+			.willReturn(Mono.just(this.user));
+		StepVerifier.create(this.userService.loadUser(userRequest("token")))
+			.verifyError(OAuth2AuthenticationException.class);
+		assertThat(this.userService.loadUser(userRequest("token")).block()).isSameAs(this.user);
+	}
+
+	@Test
+	public void loadUserWhenConcurrentThenLoadedOnce() {
+		PublisherProbe<OAuth2User> loading = PublisherProbe
+			.of(Mono.just(this.user).delayElement(Duration.ofMillis(100)));
+		given(this.delegate.loadUser(any())).willReturn(loading.mono());
+		Mono<OAuth2User> first = this.userService.loadUser(userRequest("token"));
+		Mono<OAuth2User> second = this.userService.loadUser(userRequest("token"));
+		StepVerifier.create(Mono.zip(first, second))
+			.assertNext((users) -> assertThat(users.getT2()).isSameAs(users.getT1()))
+			.verifyComplete();
+		assertThat(loading.subscribeCount()).isEqualTo(1);
+	}
+
+	private OAuth2UserRequest userRequest(String tokenValue) {
+		return new OAuth2UserRequest(this.clientRegistration, new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+				tokenValue, this.now, this.now.plus(Duration.ofHours(1))));
+	}
+
+}
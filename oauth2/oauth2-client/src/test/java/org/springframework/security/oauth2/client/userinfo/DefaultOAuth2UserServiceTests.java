@@ -274,7 +274,7 @@ public class DefaultOAuth2UserServiceTests {
 		assertThatExceptionOfType(OAuth2AuthenticationException.class)
 			.isThrownBy(() -> this.userService.loadUser(new OAuth2UserRequest(clientRegistration, this.accessToken)))
 			.withMessageContaining(
-					"[invalid_user_info_response] An error occurred while attempting to retrieve the UserInfo Resource: 500 Server Error");
+					"[invalid_user_info_response] An error occurred while attempting to retrieve the UserInfo Resource: 500 Internal Server Error");
 	}
 
 	@Test
@@ -18,6 +18,11 @@ package org.springframework.security.oauth2.client.web;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +35,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.AuthorizationJoinSignal;
 import org.springframework.security.oauth2.client.ClientAuthorizationException;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationFailureHandler;
@@ -57,6 +63,7 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -478,4 +485,46 @@ public class DefaultOAuth2AuthorizedClientManagerTests {
 		verifyNoInteractions(this.authorizedClientRepository);
 	}
 
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressThenUsesItsResult() throws Exception {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		AuthorizationJoinSignal joinSignal = new AuthorizationJoinSignal();
+		given(this.contextAttributesMapper.apply(any())).willReturn(joinSignal.attributes());
+		OAuth2AuthorizedClient reauthorizedClient = new OAuth2AuthorizedClient(this.clientRegistration,
+				this.principal.getName(), TestOAuth2AccessTokens.noScopes(), TestOAuth2RefreshTokens.refreshToken());
+		CountDownLatch invoked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willAnswer((invocation) -> {
+				invoked.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return reauthorizedClient;
+			});
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.attributes((attrs) -> {
+				attrs.put(HttpServletRequest.class.getName(), this.request);
+				attrs.put(HttpServletResponse.class.getName(), this.response);
+			})
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<OAuth2AuthorizedClient> first = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(invoked.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<OAuth2AuthorizedClient> second = executor
+				.submit(() -> this.authorizedClientManager.authorize(reauthorizeRequest));
+			assertThat(joinSignal.await()).isTrue();
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(reauthorizedClient);
+			assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(reauthorizedClient);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.authorizedClientProvider).authorize(any(OAuth2AuthorizationContext.class));
+		verify(this.authorizationSuccessHandler, times(2)).onAuthorizationSuccess(eq(reauthorizedClient),
+				eq(this.principal), any());
+	}
+
 }
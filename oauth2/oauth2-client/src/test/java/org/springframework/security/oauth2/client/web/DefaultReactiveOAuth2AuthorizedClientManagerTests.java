@@ -19,12 +19,14 @@ package org.springframework.security.oauth2.client.web;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.publisher.PublisherProbe;
 import reactor.util.context.Context;
 
@@ -59,6 +61,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -571,4 +574,29 @@ public class DefaultReactiveOAuth2AuthorizedClientManagerTests {
 			.map((c) -> c.get(ServerWebExchange.class));
 	}
 
+	@Test
+	public void reauthorizeWhenReauthorizationInProgressThenUsesItsResult() {
+		this.authorizedClientManager.setCoalesceAuthorizations(true);
+		OAuth2AuthorizedClient reauthorizedClient = new OAuth2AuthorizedClient(this.clientRegistration,
+				this.principal.getName(), TestOAuth2AccessTokens.noScopes(), TestOAuth2RefreshTokens.refreshToken());
+		Sinks.One<OAuth2AuthorizedClient> reauthorization = Sinks.one();
+		given(this.authorizedClientProvider.authorize(any(OAuth2AuthorizationContext.class)))
+			.willReturn(reauthorization.asMono());
+		OAuth2AuthorizeRequest reauthorizeRequest = OAuth2AuthorizeRequest.withAuthorizedClient(this.authorizedClient)
+			.principal(this.principal)
+			.build();
+		CompletableFuture<OAuth2AuthorizedClient> first = this.authorizedClientManager.authorize(reauthorizeRequest)
+			.contextWrite(this.context)
+			.toFuture();
+		CompletableFuture<OAuth2AuthorizedClient> second = this.authorizedClientManager.authorize(reauthorizeRequest)
+			.contextWrite(this.context)
+			.toFuture();
+		reauthorization.tryEmitValue(reauthorizedClient);
+		assertThat(first.join()).isSameAs(reauthorizedClient);
+		assertThat(second.join()).isSameAs(reauthorizedClient);
+		verify(this.authorizedClientProvider).authorize(any(OAuth2AuthorizationContext.class));
+		verify(this.authorizedClientRepository, times(2)).saveAuthorizedClient(eq(reauthorizedClient),
+				eq(this.principal), eq(this.serverWebExchange));
+	}
+
 }
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.authentication.rememberme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.log.LogMessage;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link PersistentTokenRepository} that decorates another
+ * {@link PersistentTokenRepository} with a read-through cache of recently used series and
+ * write-behind batching of {@link #updateToken(String, String, Date)}.
+ *
+ * <p>
+ * Token updates are applied to the cache immediately and written to the delegate with
+ * {@link PersistentTokenRepository#updateTokens(Collection)} either every
+ * {@link #setFlushInterval(Duration) flush interval} or as soon as
+ * {@link #setBatchSize(int) batch size} updates are pending, whichever comes first. The
+ * flush interval is therefore the window during which an update can be lost if the
+ * application stops abruptly.
+ *
+ * <p>
+ * New tokens and token removals are never deferred. Removing the tokens of a user, as
+ * done by {@link PersistentTokenBasedRememberMeServices} when a cookie theft is detected
+ * or on logout, evicts the cached series and discards the pending updates of that user
+ * before the delegate is invoked, so a removed series can no longer be used. A pending
+ * update of a series that was not cached has no known owner, so it is looked up in the
+ * delegate once the tokens are removed and discarded if the series no longer exists.
+ *
+ * <p>
+ * Since the cache always holds the latest value of a series that was updated on this
+ * node, cookie theft detection is as accurate as with the delegate alone as long as the
+ * requests of a given remember-me cookie are handled by the same node. When requests are
+ * spread across several nodes without affinity, other nodes can observe the previous
+ * token value for up to the flush interval.
+ *
+ * <p>
+ * The periodic flush is scheduled on the first token update, with the
+ * {@link #setTaskScheduler(TaskScheduler) provided TaskScheduler} or else with a single
+ * daemon thread, which is stopped when this repository is {@link #destroy() destroyed}.
+ *
+ * @since 6.5
+ * @see JdbcTokenRepositoryImpl
+ */
+public final class CachingPersistentTokenRepository implements PersistentTokenRepository, DisposableBean {
+
+	private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final PersistentTokenRepository delegate;
+
+	private final Object lock = new Object();
+
+	private final Object flushLock = new Object();
+
+	private final Map<String, PersistentRememberMeToken> tokens = new LinkedHashMap<>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PersistentRememberMeToken> eldest) {
+			return size() > CachingPersistentTokenRepository.this.maxCacheSize;
+		}
+
+	};
+
+	private Map<String, PersistentRememberMeToken> pendingUpdates = new LinkedHashMap<>();
+
+	private Map<String, PersistentRememberMeToken> flushingUpdates = Collections.emptyMap();
+
+	private long removals;
+
+	private final AtomicBoolean batchFlushScheduled = new AtomicBoolean();
+
+	private int maxCacheSize = 10000;
+
+	private int batchSize = 100;
+
+	private final Object schedulerLock = new Object();
+
+	private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	private TaskScheduler taskScheduler;
+
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	private volatile ScheduledFuture<?> flushTask;
+
+	private boolean destroyed;
+
+	/**
+	 * Constructs a {@code CachingPersistentTokenRepository} using the provided
+	 * parameters.
+	 * @param delegate the {@link PersistentTokenRepository} holding the tokens
+	 */
+	public CachingPersistentTokenRepository(PersistentTokenRepository delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void createNewToken(PersistentRememberMeToken token) {
+		this.delegate.createNewToken(token);
+		synchronized (this.lock) {
+			this.tokens.put(token.getSeries(), token);
+		}
+	}
+
+	@Override
+	public void updateToken(String series, String tokenValue, Date lastUsed) {
+		boolean flush;
+		synchronized (this.lock) {
+			PersistentRememberMeToken current = this.tokens.get(series);
+			String username = (current != null) ? current.getUsername() : null;
+			PersistentRememberMeToken token = new PersistentRememberMeToken(username, series, tokenValue, lastUsed);
+			this.tokens.put(series, token);
+			this.pendingUpdates.put(series, token);
+			flush = this.pendingUpdates.size() >= this.batchSize;
+		}
+		TaskScheduler taskScheduler = startFlushing();
+		if (flush && taskScheduler != null && this.batchFlushScheduled.compareAndSet(false, true)) {
+			try {
+				taskScheduler.schedule(this::batchFlush, Instant.now());
+			}
+			catch (TaskRejectedException ex) {
+				// destroyed concurrently, which flushes the pending updates
+				this.batchFlushScheduled.set(false);
+			}
+		}
+	}
+
+	private void batchFlush() {
+		// the updates made from now on are not part of this flush and may need another
+		this.batchFlushScheduled.set(false);
+		flush();
+	}
+
+	/**
+	 * Schedules the periodic flush unless it is already scheduled, and returns the
+	 * {@link TaskScheduler} or {@code null} if this repository is destroyed
+	 */
+	private TaskScheduler startFlushing() {
+		if (this.flushTask != null) {
+			// the scheduler is assigned before the task
+			return this.taskScheduler;
+		}
+		synchronized (this.schedulerLock) {
+			if (this.destroyed) {
+				return null;
+			}
+			if (this.taskScheduler == null) {
+				this.defaultTaskScheduler = createTaskScheduler();
+				this.taskScheduler = this.defaultTaskScheduler;
+			}
+			if (this.flushTask == null) {
+				this.flushTask = this.taskScheduler.scheduleWithFixedDelay(this::flush,
+						Instant.now().plus(this.flushInterval), this.flushInterval);
+			}
+			return this.taskScheduler;
+		}
+	}
+
+	/**
+	 * Cancels the periodic flush, which is scheduled again on the next token update
+	 */
+	private void stopFlushing() {
+		synchronized (this.schedulerLock) {
+			if (this.flushTask != null) {
+				this.flushTask.cancel(false);
+				this.flushTask = null;
+			}
+		}
+	}
+
+	@Override
+	public PersistentRememberMeToken getTokenForSeries(String seriesId) {
+		long removals;
+		synchronized (this.lock) {
+			PersistentRememberMeToken token = this.tokens.get(seriesId);
+			if (token != null && token.getUsername() != null) {
+				return token;
+			}
+			removals = this.removals;
+		}
+		PersistentRememberMeToken token = this.delegate.getTokenForSeries(seriesId);
+		if (token == null) {
+			return null;
+		}
+		synchronized (this.lock) {
+			PersistentRememberMeToken pending = this.pendingUpdates.get(seriesId);
+			if (pending == null) {
+				pending = this.flushingUpdates.get(seriesId);
+			}
+			if (pending != null) {
+				// an update that is not written yet is more recent than the delegate
+				token = new PersistentRememberMeToken(token.getUsername(), seriesId, pending.getTokenValue(),
+						pending.getDate());
+				if (this.pendingUpdates.containsKey(seriesId)) {
+					this.pendingUpdates.put(seriesId, token);
+				}
+			}
+			if (removals == this.removals) {
+				// otherwise the token may have been removed while it was being read
+				this.tokens.put(seriesId, token);
+			}
+		}
+		return token;
+	}
+
+	@Override
+	public void removeUserTokens(String username) {
+		Set<String> usernames = Set.of(username);
+		evict(usernames);
+		try {
+			this.delegate.removeUserTokens(username);
+		}
+		finally {
+			// evict again in case a concurrent read cached a token being removed
+			evict(usernames);
+		}
+		resolveUnknownOwners(usernames);
+	}
+
+	@Override
+	public void removeAllUserTokens(Collection<String> usernames) {
+		Set<String> usernameSet = new HashSet<>(usernames);
+		evict(usernameSet);
+		try {
+			this.delegate.removeAllUserTokens(usernames);
+		}
+		finally {
+			evict(usernameSet);
+		}
+		resolveUnknownOwners(usernameSet);
+	}
+
+	private void evict(Set<String> usernames) {
+		synchronized (this.lock) {
+			this.removals++;
+			this.tokens.values().removeIf((token) -> isOwnedBy(token, usernames));
+			this.pendingUpdates.values().removeIf((token) -> isOwnedBy(token, usernames));
+		}
+	}
+
+	private static boolean isOwnedBy(PersistentRememberMeToken token, Set<String> usernames) {
+		return token.getUsername() != null && usernames.contains(token.getUsername());
+	}
+
+	/**
+	 * Looks up the owner of the pending updates of series that were not cached when they
+	 * were updated, so that the updates of the removed series are discarded rather than
+	 * written, while those of other users are kept
+	 */
+	private void resolveUnknownOwners(Set<String> usernames) {
+		List<String> unknownOwners = new ArrayList<>();
+		synchronized (this.lock) {
+			this.pendingUpdates.forEach((series, token) -> {
+				if (token.getUsername() == null) {
+					unknownOwners.add(series);
+				}
+			});
+		}
+		for (String series : unknownOwners) {
+			PersistentRememberMeToken stored = this.delegate.getTokenForSeries(series);
+			synchronized (this.lock) {
+				PersistentRememberMeToken pending = this.pendingUpdates.get(series);
+				if (pending == null || pending.getUsername() != null) {
+					continue;
+				}
+				if (stored == null || usernames.contains(stored.getUsername())) {
+					this.pendingUpdates.remove(series);
+				}
+				else {
+					this.pendingUpdates.put(series, new PersistentRememberMeToken(stored.getUsername(), series,
+							pending.getTokenValue(), pending.getDate()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all pending token updates to the delegate. This is invoked automatically
+	 * every flush interval, when the batch size is reached and when this repository is
+	 * destroyed.
+	 */
+	public void flush() {
+		synchronized (this.flushLock) {
+			List<PersistentRememberMeToken> updates;
+			synchronized (this.lock) {
+				if (this.pendingUpdates.isEmpty()) {
+					return;
+				}
+				this.flushingUpdates = this.pendingUpdates;
+				this.pendingUpdates = new LinkedHashMap<>();
+				updates = new ArrayList<>(this.flushingUpdates.values());
+			}
+			try {
+				this.delegate.updateTokens(updates);
+				this.logger.trace(LogMessage.format("Wrote %d remember-me token updates", updates.size()));
+			}
+			catch (RuntimeException ex) {
+				this.logger.error(LogMessage.format("Failed to write %d remember-me token updates", updates.size()),
+						ex);
+				synchronized (this.lock) {
+					// retry on the next flush unless a more recent update is pending
+					this.flushingUpdates.forEach(this.pendingUpdates::putIfAbsent);
+				}
+			}
+			finally {
+				synchronized (this.lock) {
+					this.flushingUpdates = Collections.emptyMap();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (this.schedulerLock) {
+			stopFlushing();
+			this.destroyed = true;
+			if (this.defaultTaskScheduler != null) {
+				this.defaultTaskScheduler.shutdown();
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Sets the {@link TaskScheduler} that writes the token updates to the delegate, which
+	 * is not shut down when this repository is destroyed. The default is a scheduler with
+	 * a single daemon thread, created on the first token update.
+	 * @param taskScheduler the {@link TaskScheduler} that writes the token updates
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "taskScheduler cannot be null");
+		synchronized (this.schedulerLock) {
+			Assert.state(this.defaultTaskScheduler == null, "taskScheduler cannot be set once tokens were updated");
+			this.taskScheduler = taskScheduler;
+		}
+	}
+
+	/**
+	 * Sets the maximum time a token update is kept in memory before it is written to the
+	 * delegate. The default is one second.
+	 * @param flushInterval the maximum time before a token update is written
+	 */
+	public void setFlushInterval(Duration flushInterval) {
+		Assert.notNull(flushInterval, "flushInterval cannot be null");
+		Assert.isTrue(!flushInterval.isNegative() && !flushInterval.isZero(), "flushInterval must be positive");
+		synchronized (this.schedulerLock) {
+			this.flushInterval = flushInterval;
+			if (this.flushTask != null) {
+				stopFlushing();
+				startFlushing();
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of pending token updates that triggers a write to the delegate
+	 * before the flush interval elapses. The default is 100.
+	 * @param batchSize the number of pending token updates
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the maximum number of series held in the cache. The least recently used series
+	 * are evicted first. The default is 10000.
+	 * @param maxCacheSize the maximum number of cached series
+	 */
+	public void setMaxCacheSize(int maxCacheSize) {
+		Assert.isTrue(maxCacheSize > 0, "maxCacheSize must be greater than 0");
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	private static ThreadPoolTaskScheduler createTaskScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setThreadNamePrefix("spring-remember-me-tokens-");
+		taskScheduler.setDaemon(true);
+		taskScheduler.initialize();
+		return taskScheduler;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,10 @@ package org.springframework.security.web.authentication.rememberme;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import org.springframework.core.log.LogMessage;
 import org.springframework.dao.DataAccessException;
@@ -78,6 +81,19 @@ public class JdbcTokenRepositoryImpl extends JdbcDaoSupport implements Persisten
 		getJdbcTemplate().update(this.updateTokenSql, tokenValue, lastUsed, series);
 	}
 
+	/**
+	 * Updates the tokens with a single JDBC batch.
+	 * @since 6.5
+	 */
+	@Override
+	public void updateTokens(Collection<PersistentRememberMeToken> tokens) {
+		List<Object[]> batchArgs = new ArrayList<>(tokens.size());
+		for (PersistentRememberMeToken token : tokens) {
+			batchArgs.add(new Object[] { token.getTokenValue(), token.getDate(), token.getSeries() });
+		}
+		getJdbcTemplate().batchUpdate(this.updateTokenSql, batchArgs);
+	}
+
 	/**
 	 * Loads the token data for the supplied series identifier.
 	 *
@@ -115,6 +131,19 @@ public class JdbcTokenRepositoryImpl extends JdbcDaoSupport implements Persisten
 		getJdbcTemplate().update(this.removeUserTokensSql, username);
 	}
 
+	/**
+	 * Removes the tokens of all the users with a single JDBC batch.
+	 * @since 6.5
+	 */
+	@Override
+	public void removeAllUserTokens(Collection<String> usernames) {
+		List<Object[]> batchArgs = new ArrayList<>(usernames.size());
+		for (String username : usernames) {
+			batchArgs.add(new Object[] { username });
+		}
+		getJdbcTemplate().batchUpdate(this.removeUserTokensSql, batchArgs);
+	}
+
 	/**
 	 * Intended for convenience in debugging. Will create the persistent_tokens database
 	 * table when the class is initialized during the initDao method.
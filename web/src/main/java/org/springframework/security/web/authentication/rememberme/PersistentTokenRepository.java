@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.security.web.authentication.rememberme;
 
+import java.util.Collection;
 import java.util.Date;
 
 /**
@@ -37,4 +38,29 @@ public interface PersistentTokenRepository {
 
 	void removeUserTokens(String username);
 
+	/**
+	 * Updates the value and last used date of several tokens at once. The default
+	 * implementation invokes {@link #updateToken(String, String, Date)} for each token.
+	 * @param tokens the tokens holding the series to update along with the new value and
+	 * last used date
+	 * @since 6.5
+	 */
+	default void updateTokens(Collection<PersistentRememberMeToken> tokens) {
+		for (PersistentRememberMeToken token : tokens) {
+			updateToken(token.getSeries(), token.getTokenValue(), token.getDate());
+		}
+	}
+
+	/**
+	 * Removes the tokens of several users at once. The default implementation invokes
+	 * {@link #removeUserTokens(String)} for each username.
+	 * @param usernames the users whose tokens should be removed
+	 * @since 6.5
+	 */
+	default void removeAllUserTokens(Collection<String> usernames) {
+		for (String username : usernames) {
+			removeUserTokens(username);
+		}
+	}
+
 }
@@ -88,7 +88,7 @@ public final class DelegatingSecurityContextRepository implements SecurityContex
 		return false;
 	}
 
-	static final class DelegatingDeferredSecurityContext implements DeferredSecurityContext {
+	static final class DelegatingDeferredSecurityContext implements ResponseAwareDeferredSecurityContext {
 
 		private final DeferredSecurityContext previous;
 
@@ -113,6 +113,16 @@ public final class DelegatingSecurityContextRepository implements SecurityContex
 			return this.previous.isGenerated() && this.next.isGenerated();
 		}
 
+		@Override
+		public void setResponse(HttpServletResponse response) {
+			if (this.previous instanceof ResponseAwareDeferredSecurityContext previousContext) {
+				previousContext.setResponse(response);
+			}
+			if (this.next instanceof ResponseAwareDeferredSecurityContext nextContext) {
+				nextContext.setResponse(response);
+			}
+		}
+
 	}
 
 }
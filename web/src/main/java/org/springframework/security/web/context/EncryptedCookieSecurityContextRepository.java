@@ -0,0 +1,327 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.crypto.SecretKey;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.log.LogMessage;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.web.context.SecurityContextCookieCodec.DecodedSecurityContext;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * A {@link SecurityContextRepository} that stores the {@link SecurityContext} in an
+ * encrypted cookie, so that the {@link SecurityContext} is available on subsequent
+ * requests without an {@code HttpSession} or any other server-side storage.
+ *
+ * <p>
+ * The cookie value is created by a {@link SecurityContextCookieCodec} and expires after
+ * the {@link #setMaxAge(Duration) maximum age}. The expiration is sliding: when less than
+ * half of the maximum age remains, a new cookie is issued as the {@link SecurityContext}
+ * is loaded, provided that the response is not committed yet. The response is available
+ * to {@link #loadContext(HttpRequestResponseHolder)} and, when the
+ * {@link SecurityContext} is loaded by {@link SecurityContextHolderFilter}, to the
+ * {@link DeferredSecurityContext} returned by
+ * {@link #loadDeferredContext(HttpServletRequest)}, so that active users remain
+ * authenticated.
+ *
+ * <p>
+ * Since the cookie is the only copy of the {@link SecurityContext}, it cannot be revoked
+ * before it expires other than by changing the keys. A {@link SecurityContext} that is
+ * anonymous, {@link Transient} or whose encoded value exceeds the
+ * {@link #setMaxCookieSize(int) maximum cookie size} is not saved.
+ *
+ * @since 6.5
+ * @see HttpSessionSecurityContextRepository
+ */
+public final class EncryptedCookieSecurityContextRepository implements SecurityContextRepository {
+
+	private static final String DEFAULT_COOKIE_NAME = "SECURITY_CONTEXT";
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final SecurityContextCookieCodec codec;
+
+	private String cookieName = DEFAULT_COOKIE_NAME;
+
+	private Duration maxAge = Duration.ofMinutes(30);
+
+	private int maxCookieSize = 3072;
+
+	private Clock clock = Clock.systemUTC();
+
+	private Consumer<Cookie> cookieCustomizer = (cookie) -> {
+	};
+
+	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+	private SecurityContextHolderStrategy securityContextHolderStrategy = SecurityContextHolder
+		.getContextHolderStrategy();
+
+	/**
+	 * Constructs an {@code EncryptedCookieSecurityContextRepository} using the provided
+	 * parameters.
+	 * @param encryptor the {@link BytesEncryptor} used to encrypt the cookie value
+	 * @param macKey the key of at least 256 bits used to authenticate the encrypted
+	 * cookie value with HMAC-SHA256
+	 * @see SecurityContextCookieCodec#SecurityContextCookieCodec(BytesEncryptor,
+	 * SecretKey)
+	 */
+	public EncryptedCookieSecurityContextRepository(BytesEncryptor encryptor, SecretKey macKey) {
+		this(new SecurityContextCookieCodec(encryptor, macKey));
+	}
+
+	/**
+	 * Constructs an {@code EncryptedCookieSecurityContextRepository} using the provided
+	 * parameters.
+	 * @param codec the {@link SecurityContextCookieCodec} used to create and read the
+	 * cookie value
+	 */
+	public EncryptedCookieSecurityContextRepository(SecurityContextCookieCodec codec) {
+		Assert.notNull(codec, "codec cannot be null");
+		this.codec = codec;
+	}
+
+	@Override
+	public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+		HttpServletRequest request = requestResponseHolder.getRequest();
+		DecodedSecurityContext decoded = readSecurityContext(request);
+		if (decoded == null) {
+			return this.securityContextHolderStrategy.createEmptyContext();
+		}
+		if (isRenewalDue(decoded)) {
+			this.logger.trace("Renewing security context cookie");
+			writeCookie(decoded.getSecurityContext(), request, requestResponseHolder.getResponse());
+		}
+		return decoded.getSecurityContext();
+	}
+
+	@Override
+	public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+		return new RenewingDeferredSecurityContext(request);
+	}
+
+	@Override
+	public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+		Authentication authentication = (context != null) ? context.getAuthentication() : null;
+		if (authentication == null || this.trustResolver.isAnonymous(authentication)) {
+			if (WebUtils.getCookie(request, this.cookieName) != null) {
+				this.logger.debug("Removing security context cookie since the SecurityContext is empty");
+				response.addCookie(createCookie("", 0, request));
+			}
+			return;
+		}
+		if (isTransient(context) || isTransient(authentication)) {
+			return;
+		}
+		writeCookie(context, request, response);
+	}
+
+	@Override
+	public boolean containsContext(HttpServletRequest request) {
+		return readSecurityContext(request) != null;
+	}
+
+	private DecodedSecurityContext readSecurityContext(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, this.cookieName);
+		if (cookie == null) {
+			return null;
+		}
+		DecodedSecurityContext decoded = this.codec.decode(cookie.getValue());
+		if (decoded == null) {
+			return null;
+		}
+		if (!decoded.getExpiresAt().isAfter(this.clock.instant())) {
+			this.logger.debug(
+					LogMessage.format("Ignoring security context cookie that expired at %s", decoded.getExpiresAt()));
+			return null;
+		}
+		return decoded;
+	}
+
+	private boolean isRenewalDue(DecodedSecurityContext decoded) {
+		return decoded.getExpiresAt().minus(this.maxAge.dividedBy(2)).isBefore(this.clock.instant());
+	}
+
+	private void writeCookie(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+		String cookieValue = this.codec.encode(context, this.clock.instant().plus(this.maxAge));
+		if (cookieValue.length() > this.maxCookieSize) {
+			this.logger.warn(LogMessage
+				.format("Did not save SecurityContext %s since the cookie would exceed the maximum size", context));
+			return;
+		}
+		response.addCookie(createCookie(cookieValue, (int) this.maxAge.getSeconds(), request));
+	}
+
+	private Cookie createCookie(String value, int maxAge, HttpServletRequest request) {
+		Cookie cookie = new Cookie(this.cookieName, value);
+		cookie.setMaxAge(maxAge);
+		cookie.setSecure(request.isSecure());
+		cookie.setPath(getCookiePath(request));
+		cookie.setHttpOnly(true);
+		this.cookieCustomizer.accept(cookie);
+		return cookie;
+	}
+
+	private static String getCookiePath(HttpServletRequest request) {
+		String contextPath = request.getContextPath();
+		return (StringUtils.hasLength(contextPath)) ? contextPath : "/";
+	}
+
+	private static boolean isTransient(Object object) {
+		return AnnotationUtils.getAnnotation(object.getClass(), Transient.class) != null;
+	}
+
+	/**
+	 * Sets the name of the cookie holding the {@link SecurityContext}. The default is
+	 * {@code SECURITY_CONTEXT}.
+	 * @param cookieName the name of the cookie
+	 */
+	public void setCookieName(String cookieName) {
+		Assert.hasText(cookieName, "cookieName cannot be empty");
+		this.cookieName = cookieName;
+	}
+
+	/**
+	 * Sets how long a saved {@link SecurityContext} remains usable without being renewed.
+	 * The default is 30 minutes.
+	 * @param maxAge the maximum age of a saved {@link SecurityContext}
+	 */
+	public void setMaxAge(Duration maxAge) {
+		Assert.notNull(maxAge, "maxAge cannot be null");
+		Assert.isTrue(!maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Sets the maximum length of the cookie value. The default is 3072 characters, which
+	 * leaves room for the cookie name and attributes within the 4096 bytes that browsers
+	 * are required to support.
+	 * @param maxCookieSize the maximum length of the cookie value
+	 */
+	public void setMaxCookieSize(int maxCookieSize) {
+		Assert.isTrue(maxCookieSize > 0, "maxCookieSize must be greater than 0");
+		this.maxCookieSize = maxCookieSize;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to compute and check the expiration of the cookie.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the {@link Consumer}, allowing customization of cookie.
+	 * @param cookieCustomizer customize for cookie
+	 */
+	public void setCookieCustomizer(Consumer<Cookie> cookieCustomizer) {
+		Assert.notNull(cookieCustomizer, "cookieCustomizer cannot be null");
+		this.cookieCustomizer = cookieCustomizer;
+	}
+
+	/**
+	 * Sets the {@link AuthenticationTrustResolver} to be used. The default is
+	 * {@link AuthenticationTrustResolverImpl}.
+	 * @param trustResolver the {@link AuthenticationTrustResolver} to use. Cannot be
+	 * null.
+	 */
+	public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+		Assert.notNull(trustResolver, "trustResolver cannot be null");
+		this.trustResolver = trustResolver;
+	}
+
+	/**
+	 * Sets the {@link SecurityContextHolderStrategy} to use. The default action is to use
+	 * the {@link SecurityContextHolderStrategy} stored in {@link SecurityContextHolder}.
+	 */
+	public void setSecurityContextHolderStrategy(SecurityContextHolderStrategy securityContextHolderStrategy) {
+		Assert.notNull(securityContextHolderStrategy, "securityContextHolderStrategy cannot be null");
+		this.securityContextHolderStrategy = securityContextHolderStrategy;
+	}
+
+	/**
+	 * A {@link DeferredSecurityContext} renewing the cookie when it is loaded if the
+	 * response was provided and is not committed.
+	 */
+	private final class RenewingDeferredSecurityContext implements ResponseAwareDeferredSecurityContext {
+
+		private final DeferredSecurityContext delegate;
+
+		private volatile HttpServletResponse response;
+
+		private RenewingDeferredSecurityContext(HttpServletRequest request) {
+			Supplier<SecurityContext> supplier = () -> load(request);
+			this.delegate = new SupplierDeferredSecurityContext(supplier,
+					EncryptedCookieSecurityContextRepository.this.securityContextHolderStrategy);
+		}
+
+		private SecurityContext load(HttpServletRequest request) {
+			DecodedSecurityContext decoded = readSecurityContext(request);
+			if (decoded == null) {
+				return null;
+			}
+			HttpServletResponse response = this.response;
+			if (response != null && !response.isCommitted() && isRenewalDue(decoded)) {
+				EncryptedCookieSecurityContextRepository.this.logger.trace("Renewing security context cookie");
+				writeCookie(decoded.getSecurityContext(), request, response);
+			}
+			return decoded.getSecurityContext();
+		}
+
+		@Override
+		public SecurityContext get() {
+			return this.delegate.get();
+		}
+
+		@Override
+		public boolean isGenerated() {
+			return this.delegate.isGenerated();
+		}
+
+		@Override
+		public void setResponse(HttpServletResponse response) {
+			this.response = response;
+		}
+
+	}
+
+}
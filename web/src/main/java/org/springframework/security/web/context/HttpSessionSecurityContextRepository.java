@@ -79,6 +79,14 @@ import org.springframework.web.util.WebUtils;
  * need to conserve server memory and ensure all classes using the
  * {@code SecurityContextHolder} are designed to have no persistence of the
  * {@code SecurityContext} between web requests.
+ * <p>
+ * The {@code SecurityContext} read by {@link #loadDeferredContext(HttpServletRequest)} is
+ * remembered in a request attribute, so that the {@code HttpSession} is read at most once
+ * for all the dispatches (for example {@code ASYNC} and {@code ERROR}) of a given
+ * request, as long as the session is not replaced. Saving a context through
+ * {@link #saveContext(SecurityContext, HttpServletRequest, HttpServletResponse)} discards
+ * the remembered value. Code that modifies the session attribute directly during a
+ * request should therefore save the context through this repository instead.
  *
  * @author Luke Taylor
  * @since 3.0
@@ -107,6 +115,8 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 
 	private String springSecurityContextKey = SPRING_SECURITY_CONTEXT_KEY;
 
+	private String loadedContextAttributeName = loadedContextAttributeName(SPRING_SECURITY_CONTEXT_KEY);
+
 	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
 
 	/**
@@ -140,12 +150,13 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 
 	@Override
 	public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
-		Supplier<SecurityContext> supplier = () -> readSecurityContextFromSession(request.getSession(false));
+		Supplier<SecurityContext> supplier = () -> readSecurityContextFromSession(request);
 		return new SupplierDeferredSecurityContext(supplier, this.securityContextHolderStrategy);
 	}
 
 	@Override
 	public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+		request.removeAttribute(this.loadedContextAttributeName);
 		SaveContextOnUpdateOrErrorResponseWrapper responseWrapper = WebUtils.getNativeResponse(response,
 				SaveContextOnUpdateOrErrorResponseWrapper.class);
 		if (responseWrapper == null) {
@@ -198,6 +209,21 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		return session.getAttribute(this.springSecurityContextKey) != null;
 	}
 
+	private SecurityContext readSecurityContextFromSession(HttpServletRequest request) {
+		HttpSession httpSession = request.getSession(false);
+		if (httpSession == null) {
+			return readSecurityContextFromSession((HttpSession) null);
+		}
+		String sessionId = httpSession.getId();
+		if (request.getAttribute(this.loadedContextAttributeName) instanceof LoadedSecurityContext loaded
+				&& loaded.sessionId.equals(sessionId)) {
+			return loaded.context;
+		}
+		SecurityContext context = readSecurityContextFromSession(httpSession);
+		request.setAttribute(this.loadedContextAttributeName, new LoadedSecurityContext(sessionId, context));
+		return context;
+	}
+
 	/**
 	 * @param httpSession the session obtained from the request.
 	 */
@@ -280,6 +306,11 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 	public void setSpringSecurityContextKey(String springSecurityContextKey) {
 		Assert.hasText(springSecurityContextKey, "springSecurityContextKey cannot be empty");
 		this.springSecurityContextKey = springSecurityContextKey;
+		this.loadedContextAttributeName = loadedContextAttributeName(springSecurityContextKey);
+	}
+
+	private static String loadedContextAttributeName(String springSecurityContextKey) {
+		return HttpSessionSecurityContextRepository.class.getName() + ".LOADED_CONTEXT." + springSecurityContextKey;
 	}
 
 	/**
@@ -311,6 +342,22 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		this.trustResolver = trustResolver;
 	}
 
+	/**
+	 * The {@link SecurityContext}, possibly {@code null}, read from a given session
+	 */
+	private static final class LoadedSecurityContext {
+
+		private final String sessionId;
+
+		private final SecurityContext context;
+
+		private LoadedSecurityContext(String sessionId, SecurityContext context) {
+			this.sessionId = sessionId;
+			this.context = context;
+		}
+
+	}
+
 	private static class SaveToSessionRequestWrapper extends HttpServletRequestWrapper {
 
 		private final SaveContextOnUpdateOrErrorResponseWrapper response;
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+
+/**
+ * A {@link DeferredSecurityContext} that may update the response of the current request
+ * once it is loaded, such as to renew the cookie holding the {@link SecurityContext}.
+ * {@link SecurityContextHolderFilter} provides the response before continuing the filter
+ * chain.
+ *
+ * @since 6.5
+ * @see EncryptedCookieSecurityContextRepository
+ */
+interface ResponseAwareDeferredSecurityContext extends DeferredSecurityContext {
+
+	/**
+	 * Sets the response of the request the {@link SecurityContext} is loaded for.
+	 * @param response the response of the current request
+	 */
+	void setResponse(HttpServletResponse response);
+
+}
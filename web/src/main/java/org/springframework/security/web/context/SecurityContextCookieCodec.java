@@ -0,0 +1,236 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.util.Assert;
+
+/**
+ * Encodes a {@link SecurityContext} and its expiration time into a value that can be
+ * stored in a cookie, and decodes it back.
+ *
+ * <p>
+ * The {@link SecurityContext} is serialized and compressed, encrypted with the provided
+ * {@link BytesEncryptor}, such as
+ * {@link Encryptors#stronger(CharSequence, CharSequence)}, and followed by an HMAC-SHA256
+ * of the encrypted bytes. The result is encoded with URL-safe Base64. When decoding, the
+ * HMAC is verified before anything is decrypted, so that only values created by this
+ * application are ever deserialized, whatever the encryptor. The deserialized classes are
+ * also restricted by an {@link #setObjectInputFilter(ObjectInputFilter)
+ * ObjectInputFilter}, which by default only accepts the classes of the {@code java.lang},
+ * {@code java.util} and {@code java.time} packages and of Spring Security.
+ *
+ * <p>
+ * This is used by both {@link EncryptedCookieSecurityContextRepository} and
+ * {@code EncryptedCookieServerSecurityContextRepository}.
+ *
+ * @since 6.5
+ */
+public final class SecurityContextCookieCodec {
+
+	private static final byte VERSION = 1;
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private static final int MAC_LENGTH = 32;
+
+	// @formatter:off
+	private static final ObjectInputFilter DEFAULT_OBJECT_INPUT_FILTER = ObjectInputFilter.Config.createFilter(
+			"maxdepth=32;maxrefs=10000;maxarray=10000;"
+			+ "java.lang.*;java.util.*;java.time.*;java.net.URI;java.net.URL;"
+			+ "org.springframework.security.**;!*");
+	// @formatter:on
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final BytesEncryptor encryptor;
+
+	private final SecretKey macKey;
+
+	private ObjectInputFilter objectInputFilter = DEFAULT_OBJECT_INPUT_FILTER;
+
+	/**
+	 * Constructs a {@code SecurityContextCookieCodec} using the provided parameters.
+	 * @param encryptor the {@link BytesEncryptor} used to encrypt the cookie value
+	 * @param macKey the key of at least 256 bits used to authenticate the encrypted
+	 * cookie value with HMAC-SHA256, which should be different from the encryption key
+	 */
+	public SecurityContextCookieCodec(BytesEncryptor encryptor, SecretKey macKey) {
+		Assert.notNull(encryptor, "encryptor cannot be null");
+		Assert.notNull(macKey, "macKey cannot be null");
+		byte[] encoded = macKey.getEncoded();
+		Assert.isTrue(encoded == null || encoded.length >= MAC_LENGTH, "macKey must be at least 256 bits");
+		this.encryptor = encryptor;
+		this.macKey = macKey;
+		// fail now if the key cannot be used with HMAC-SHA256
+		mac(new byte[0]);
+	}
+
+	/**
+	 * Sets the {@link ObjectInputFilter} that restricts the classes deserialized when
+	 * decoding. The default accepts the classes of the {@code java.lang},
+	 * {@code java.util} and {@code java.time} packages and of Spring Security, so it must
+	 * be replaced when the {@link SecurityContext} holds other classes, such as a custom
+	 * principal.
+	 * @param objectInputFilter the {@link ObjectInputFilter} to use
+	 */
+	public void setObjectInputFilter(ObjectInputFilter objectInputFilter) {
+		Assert.notNull(objectInputFilter, "objectInputFilter cannot be null");
+		this.objectInputFilter = objectInputFilter;
+	}
+
+	/**
+	 * Encodes the provided {@link SecurityContext}.
+	 * @param context the {@link SecurityContext} to encode
+	 * @param expiresAt the time after which the encoded value must be ignored
+	 * @return the encoded value
+	 */
+	public String encode(SecurityContext context, Instant expiresAt) {
+		Assert.notNull(context, "context cannot be null");
+		Assert.notNull(expiresAt, "expiresAt cannot be null");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		try {
+			DataOutputStream header = new DataOutputStream(bytes);
+			header.writeByte(VERSION);
+			header.writeLong(expiresAt.getEpochSecond());
+			header.flush();
+			try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+				out.writeObject(context);
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to encode security context", ex);
+		}
+		byte[] encrypted = this.encryptor.encrypt(bytes.toByteArray());
+		byte[] value = Arrays.copyOf(encrypted, encrypted.length + MAC_LENGTH);
+		System.arraycopy(mac(encrypted), 0, value, encrypted.length, MAC_LENGTH);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+	}
+
+	/**
+	 * Decodes a value that was created with {@link #encode(SecurityContext, Instant)}.
+	 * @param value the encoded value, typically provided by the client
+	 * @return the decoded value or {@code null} if the value cannot be decoded
+	 */
+	public DecodedSecurityContext decode(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		byte[] decrypted;
+		try {
+			byte[] decoded = Base64.getUrlDecoder().decode(value);
+			if (decoded.length <= MAC_LENGTH) {
+				return null;
+			}
+			byte[] encrypted = Arrays.copyOf(decoded, decoded.length - MAC_LENGTH);
+			byte[] mac = Arrays.copyOfRange(decoded, encrypted.length, decoded.length);
+			if (!MessageDigest.isEqual(mac, mac(encrypted))) {
+				this.logger.debug("Failed to authenticate security context cookie");
+				return null;
+			}
+			decrypted = this.encryptor.decrypt(encrypted);
+		}
+		catch (RuntimeException ex) {
+			this.logger.debug("Failed to decrypt security context cookie", ex);
+			return null;
+		}
+		ByteArrayInputStream bytes = new ByteArrayInputStream(decrypted);
+		try {
+			DataInputStream header = new DataInputStream(bytes);
+			if (header.readByte() != VERSION) {
+				return null;
+			}
+			Instant expiresAt = Instant.ofEpochSecond(header.readLong());
+			try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(bytes))) {
+				in.setObjectInputFilter(this.objectInputFilter);
+				return new DecodedSecurityContext((SecurityContext) in.readObject(), expiresAt);
+			}
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException ex) {
+			this.logger.debug("Failed to decode security context cookie", ex);
+			return null;
+		}
+	}
+
+	private byte[] mac(byte[] bytes) {
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(this.macKey);
+			return mac.doFinal(bytes);
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalArgumentException("Unable to compute HMAC-SHA256 with the provided macKey", ex);
+		}
+	}
+
+	/**
+	 * A {@link SecurityContext} decoded with {@link #decode(String)}.
+	 */
+	public static final class DecodedSecurityContext {
+
+		private final SecurityContext securityContext;
+
+		private final Instant expiresAt;
+
+		private DecodedSecurityContext(SecurityContext securityContext, Instant expiresAt) {
+			this.securityContext = securityContext;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * Returns the decoded {@link SecurityContext}
+		 * @return the {@link SecurityContext}
+		 */
+		public SecurityContext getSecurityContext() {
+			return this.securityContext;
+		}
+
+		/**
+		 * Returns the time after which the {@link SecurityContext} must be ignored
+		 * @return the expiration time
+		 */
+		public Instant getExpiresAt() {
+			return this.expiresAt;
+		}
+
+	}
+
+}
@@ -77,6 +77,9 @@ public class SecurityContextHolderFilter extends GenericFilterBean {
 		}
 		request.setAttribute(FILTER_APPLIED, Boolean.TRUE);
 		Supplier<SecurityContext> deferredContext = this.securityContextRepository.loadDeferredContext(request);
+		if (deferredContext instanceof ResponseAwareDeferredSecurityContext responseAwareContext) {
+			responseAwareContext.setResponse(response);
+		}
 		try {
 			this.securityContextHolderStrategy.setDeferredContext(deferredContext);
 			chain.doFilter(request, response);
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.csrf;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * Masks and unmasks the value of a {@link CsrfToken} by combining it with random bytes
+ * using XOR, so that the value sent to the client is different on each request.
+ *
+ * <p>
+ * The masked value is the URL-safe Base64 encoding of the random bytes followed by the
+ * token bytes XORed with the random bytes. Both are written into a single buffer, and
+ * unmasking is performed in place on the decoded value in constant time with respect to
+ * its content.
+ *
+ * <p>
+ * By default, random bytes are drawn from a set of {@code DRBG} {@link SecureRandom}
+ * instances that are selected by the current thread, created on first use, and that each
+ * buffer their output, which avoids contention on a single {@link SecureRandom}, or on
+ * the lock shared by the {@code NativePRNG} instances, under load. When a
+ * {@link SecureRandom} is provided, it is used directly instead.
+ *
+ * <p>
+ * This is used by both {@link XorCsrfTokenRequestAttributeHandler} and
+ * {@code XorServerCsrfTokenRequestAttributeHandler}.
+ *
+ * @since 6.5
+ */
+public final class XorCsrfTokenCodec {
+
+	private static final int RANDOM_BUFFER_SIZE = 512;
+
+	private final RandomBytes randomBytes;
+
+	/**
+	 * Creates a new instance that draws random bytes from a set of buffered
+	 * {@link SecureRandom} instances, each created when first used
+	 */
+	public XorCsrfTokenCodec() {
+		this.randomBytes = new StripedRandomBytes(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new instance that draws random bytes from the provided
+	 * {@link SecureRandom}
+	 * @param secureRandom the {@link SecureRandom} to use to generate random bytes
+	 */
+	public XorCsrfTokenCodec(SecureRandom secureRandom) {
+		Assert.notNull(secureRandom, "secureRandom cannot be null");
+		this.randomBytes = new SecureRandomBytes(secureRandom);
+	}
+
+	/**
+	 * Masks the provided token value with freshly generated random bytes.
+	 * @param token the raw token value
+	 * @return the masked token value
+	 * @throws IllegalArgumentException if the token contains a lone surrogate, which has
+	 * no UTF-8 encoding
+	 */
+	public String encode(String token) {
+		Assert.notNull(token, "token cannot be null");
+		int tokenSize = utf8Length(token);
+		Assert.isTrue(tokenSize >= 0, "token cannot contain a lone surrogate");
+		byte[] combinedBytes = new byte[tokenSize * 2];
+		this.randomBytes.nextBytes(combinedBytes, tokenSize);
+		CoderResult result = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT)
+			.encode(CharBuffer.wrap(token), ByteBuffer.wrap(combinedBytes, tokenSize, tokenSize), true);
+		Assert.isTrue(!result.isError(), "token cannot contain a lone surrogate");
+		for (int i = 0; i < tokenSize; i++) {
+			combinedBytes[tokenSize + i] ^= combinedBytes[i];
+		}
+		return Base64.getUrlEncoder().encodeToString(combinedBytes);
+	}
+
+	/**
+	 * Resolves the raw token value from a value that was masked with
+	 * {@link #encode(String)}.
+	 * @param encodedToken the masked token value, typically provided by the client
+	 * @param token the raw token value that is expected, used to determine the expected
+	 * length of the masked token
+	 * @return the raw token value or {@code null} if the masked token value is malformed
+	 */
+	public String decode(String encodedToken, String token) {
+		if (encodedToken == null || token == null) {
+			return null;
+		}
+		byte[] actualBytes;
+		try {
+			actualBytes = Base64.getUrlDecoder().decode(encodedToken);
+		}
+		catch (Exception ex) {
+			return null;
+		}
+		int tokenSize = utf8Length(token);
+		if (tokenSize < 0 || actualBytes.length != tokenSize * 2) {
+			return null;
+		}
+		for (int i = 0; i < tokenSize; i++) {
+			actualBytes[i] ^= actualBytes[tokenSize + i];
+		}
+		return new String(actualBytes, 0, tokenSize, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the length of the UTF-8 encoding of the provided value without encoding it,
+	 * or -1 if it contains a lone surrogate, which the encoder used by
+	 * {@link #encode(String)} reports as malformed.
+	 */
+	private static int utf8Length(String value) {
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length++;
+			}
+			else if (c < 0x800) {
+				length += 2;
+			}
+			else if (!Character.isSurrogate(c)) {
+				length += 3;
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				length += 4;
+				i++;
+			}
+			else {
+				return -1;
+			}
+		}
+		return length;
+	}
+
+	private interface RandomBytes {
+
+		/**
+		 * Fills at least the first {@code length} bytes of the provided array with random
+		 * bytes, the following ones may be overwritten as well
+		 */
+		void nextBytes(byte[] bytes, int length);
+
+	}
+
+	private static final class SecureRandomBytes implements RandomBytes {
+
+		private final SecureRandom secureRandom;
+
+		private SecureRandomBytes(SecureRandom secureRandom) {
+			this.secureRandom = secureRandom;
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes, int length) {
+			// SecureRandom cannot fill a range, and the token is written over the rest
+			this.secureRandom.nextBytes(bytes);
+		}
+
+	}
+
+	private static final class StripedRandomBytes implements RandomBytes {
+
+		private final AtomicReferenceArray<BufferedSecureRandom> stripes;
+
+		private final int mask;
+
+		private StripedRandomBytes(int concurrency) {
+			int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+			this.stripes = new AtomicReferenceArray<>(size);
+			this.mask = size - 1;
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes, int length) {
+			int index = Long.hashCode(Thread.currentThread().getId()) & this.mask;
+			BufferedSecureRandom stripe = this.stripes.get(index);
+			if (stripe == null) {
+				this.stripes.compareAndSet(index, null, new BufferedSecureRandom());
+				stripe = this.stripes.get(index);
+			}
+			stripe.nextBytes(bytes, length);
+		}
+
+	}
+
+	private static final class BufferedSecureRandom {
+
+		private final SecureRandom secureRandom = createSecureRandom();
+
+		private final byte[] buffer = new byte[RANDOM_BUFFER_SIZE];
+
+		private int position = RANDOM_BUFFER_SIZE;
+
+		private synchronized void nextBytes(byte[] bytes, int length) {
+			int offset = 0;
+			while (offset < length) {
+				if (this.position == RANDOM_BUFFER_SIZE) {
+					this.secureRandom.nextBytes(this.buffer);
+					this.position = 0;
+				}
+				int count = Math.min(length - offset, RANDOM_BUFFER_SIZE - this.position);
+				System.arraycopy(this.buffer, this.position, bytes, offset, count);
+				// do not keep random bytes that are already in use around
+				Arrays.fill(this.buffer, this.position, this.position + count, (byte) 0);
+				this.position += count;
+				offset += count;
+			}
+		}
+
+		private static SecureRandom createSecureRandom() {
+			try {
+				// unlike the default NativePRNG, DRBG instances do not share a global
+				// lock
+				return SecureRandom.getInstance("DRBG");
+			}
+			catch (NoSuchAlgorithmException ex) {
+				return new SecureRandom();
+			}
+		}
+
+	}
+
+}
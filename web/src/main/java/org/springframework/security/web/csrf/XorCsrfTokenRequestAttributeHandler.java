@@ -17,13 +17,11 @@
 package org.springframework.security.web.csrf;
 
 import java.security.SecureRandom;
-import java.util.Base64;
 import java.util.function.Supplier;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.crypto.codec.Utf8;
 import org.springframework.util.Assert;
 
 /**
@@ -36,7 +34,7 @@ import org.springframework.util.Assert;
  */
 public final class XorCsrfTokenRequestAttributeHandler extends CsrfTokenRequestAttributeHandler {
 
-	private SecureRandom secureRandom = new SecureRandom();
+	private XorCsrfTokenCodec tokenCodec = new XorCsrfTokenCodec();
 
 	/**
 	 * Specifies the {@code SecureRandom} used to generate random bytes that are used to
@@ -45,7 +43,7 @@ public final class XorCsrfTokenRequestAttributeHandler extends CsrfTokenRequestA
 	 */
 	public void setSecureRandom(SecureRandom secureRandom) {
 		Assert.notNull(secureRandom, "secureRandom cannot be null");
-		this.secureRandom = secureRandom;
+		this.tokenCodec = new XorCsrfTokenCodec(secureRandom);
 	}
 
 	@Override
@@ -62,7 +60,7 @@ public final class XorCsrfTokenRequestAttributeHandler extends CsrfTokenRequestA
 		return new CachedCsrfTokenSupplier(() -> {
 			CsrfToken csrfToken = csrfTokenSupplier.get();
 			Assert.state(csrfToken != null, "csrfToken supplier returned null");
-			String updatedToken = createXoredCsrfToken(this.secureRandom, csrfToken.getToken());
+			String updatedToken = this.tokenCodec.encode(csrfToken.getToken());
 			return new DefaultCsrfToken(csrfToken.getHeaderName(), csrfToken.getParameterName(), updatedToken);
 		});
 	}
@@ -70,57 +68,7 @@ public final class XorCsrfTokenRequestAttributeHandler extends CsrfTokenRequestA
 	@Override
 	public String resolveCsrfTokenValue(HttpServletRequest request, CsrfToken csrfToken) {
 		String actualToken = super.resolveCsrfTokenValue(request, csrfToken);
-		return getTokenValue(actualToken, csrfToken.getToken());
-	}
-
-	private static String getTokenValue(String actualToken, String token) {
-		byte[] actualBytes;
-		try {
-			actualBytes = Base64.getUrlDecoder().decode(actualToken);
-		}
-		catch (Exception ex) {
-			return null;
-		}
-
-		byte[] tokenBytes = Utf8.encode(token);
-		int tokenSize = tokenBytes.length;
-		if (actualBytes.length != tokenSize * 2) {
-			return null;
-		}
-
-		// extract token and random bytes
-		byte[] xoredCsrf = new byte[tokenSize];
-		byte[] randomBytes = new byte[tokenSize];
-
-		System.arraycopy(actualBytes, 0, randomBytes, 0, tokenSize);
-		System.arraycopy(actualBytes, tokenSize, xoredCsrf, 0, tokenSize);
-
-		byte[] csrfBytes = xorCsrf(randomBytes, xoredCsrf);
-		return Utf8.decode(csrfBytes);
-	}
-
-	private static String createXoredCsrfToken(SecureRandom secureRandom, String token) {
-		byte[] tokenBytes = Utf8.encode(token);
-		byte[] randomBytes = new byte[tokenBytes.length];
-		secureRandom.nextBytes(randomBytes);
-
-		byte[] xoredBytes = xorCsrf(randomBytes, tokenBytes);
-		byte[] combinedBytes = new byte[tokenBytes.length + randomBytes.length];
-		System.arraycopy(randomBytes, 0, combinedBytes, 0, randomBytes.length);
-		System.arraycopy(xoredBytes, 0, combinedBytes, randomBytes.length, xoredBytes.length);
-
-		return Base64.getUrlEncoder().encodeToString(combinedBytes);
-	}
-
-	private static byte[] xorCsrf(byte[] randomBytes, byte[] csrfBytes) {
-		Assert.isTrue(randomBytes.length == csrfBytes.length, "arrays must be equal length");
-		int len = csrfBytes.length;
-		byte[] xoredCsrf = new byte[len];
-		System.arraycopy(csrfBytes, 0, xoredCsrf, 0, len);
-		for (int i = 0; i < len; i++) {
-			xoredCsrf[i] ^= randomBytes[i];
-		}
-		return xoredCsrf;
+		return this.tokenCodec.decode(actualToken, csrfToken.getToken());
 	}
 
 	private static final class CachedCsrfTokenSupplier implements Supplier<CsrfToken> {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,10 @@
 package org.springframework.security.web.header;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.RequestDispatcher;
@@ -28,8 +31,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
+import org.springframework.security.web.header.writers.StaticHeadersWriter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
 import org.springframework.security.web.util.OnCommittedResponseWrapper;
 import org.springframework.util.Assert;
+import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
@@ -50,6 +57,12 @@ public class HeaderWriterFilter extends OncePerRequestFilter {
 	 */
 	private final List<HeaderWriter> headerWriters;
 
+	/**
+	 * The {@link HeaderWriter}s that are invoked for each response. Either the same as
+	 * {@link #headerWriters} or their precomputed form.
+	 */
+	private List<HeaderWriter> effectiveHeaderWriters;
+
 	/**
 	 * Indicates whether to write the headers at the beginning of the request.
 	 */
@@ -63,6 +76,7 @@ public class HeaderWriterFilter extends OncePerRequestFilter {
 	public HeaderWriterFilter(List<HeaderWriter> headerWriters) {
 		Assert.notEmpty(headerWriters, "headerWriters cannot be null or empty");
 		this.headerWriters = headerWriters;
+		this.effectiveHeaderWriters = headerWriters;
 	}
 
 	@Override
@@ -95,7 +109,7 @@ public class HeaderWriterFilter extends OncePerRequestFilter {
 	}
 
 	void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
-		for (HeaderWriter writer : this.headerWriters) {
+		for (HeaderWriter writer : this.effectiveHeaderWriters) {
 			writer.writeHeaders(request, response);
 		}
 	}
@@ -110,6 +124,96 @@ public class HeaderWriterFilter extends OncePerRequestFilter {
 		this.shouldWriteHeadersEagerly = shouldWriteHeadersEagerly;
 	}
 
+	/**
+	 * Allow computing the headers of {@link RequestIndependentHeaderWriter}s once, when
+	 * this method is invoked, instead of on every response. Consecutive request
+	 * independent writers are merged into a single block of header names and values that
+	 * is written in one pass, while every other {@link HeaderWriter} is still invoked for
+	 * each response in its original position, as are the subclasses of
+	 * {@link StaticHeadersWriter} and {@link ReferrerPolicyHeaderWriter}, which may
+	 * depend on the request. Changes made to the writers after this method is invoked are
+	 * not reflected.
+	 * @param precomputeHeaders boolean to allow precomputing request independent headers
+	 * @since 6.5
+	 */
+	public void setPrecomputeHeaders(boolean precomputeHeaders) {
+		this.effectiveHeaderWriters = precomputeHeaders ? precompute(this.headerWriters) : this.headerWriters;
+	}
+
+	private static List<HeaderWriter> precompute(List<HeaderWriter> headerWriters) {
+		List<HeaderWriter> precomputed = new ArrayList<>();
+		Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+		for (HeaderWriter writer : headerWriters) {
+			if (isRequestIndependent(writer)) {
+				for (Header header : ((RequestIndependentHeaderWriter) writer).getHeaders()) {
+					// a later writer never overrides a header written by an earlier one
+					headers.putIfAbsent(header.getName(), header.getValues());
+				}
+				continue;
+			}
+			if (!headers.isEmpty()) {
+				precomputed.add(new PrecomputedHeaderWriter(headers));
+				headers = new LinkedCaseInsensitiveMap<>();
+			}
+			precomputed.add(writer);
+		}
+		if (!headers.isEmpty()) {
+			precomputed.add(new PrecomputedHeaderWriter(headers));
+		}
+		return precomputed;
+	}
+
+	private static boolean isRequestIndependent(HeaderWriter writer) {
+		if (!(writer instanceof RequestIndependentHeaderWriter)) {
+			return false;
+		}
+		// the following classes are not final, and subclasses may override writeHeaders
+		Class<?> type = writer.getClass();
+		if (writer instanceof StaticHeadersWriter) {
+			return type == StaticHeadersWriter.class || type == XContentTypeOptionsHeaderWriter.class;
+		}
+		if (writer instanceof ReferrerPolicyHeaderWriter) {
+			return type == ReferrerPolicyHeaderWriter.class;
+		}
+		return true;
+	}
+
+	private static final class PrecomputedHeaderWriter implements HeaderWriter {
+
+		private final String[] names;
+
+		private final String[][] values;
+
+		PrecomputedHeaderWriter(Map<String, List<String>> headers) {
+			this.names = new String[headers.size()];
+			this.values = new String[headers.size()][];
+			int i = 0;
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				this.names[i] = header.getKey();
+				this.values[i] = header.getValue().toArray(new String[0]);
+				i++;
+			}
+		}
+
+		@Override
+		public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+			for (int i = 0; i < this.names.length; i++) {
+				String name = this.names[i];
+				if (!response.containsHeader(name)) {
+					for (String value : this.values[i]) {
+						response.addHeader(name, value);
+					}
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + " [headers=" + Arrays.toString(this.names) + "]";
+		}
+
+	}
+
 	class HeaderWriterResponse extends OnCommittedResponseWrapper {
 
 		private final HttpServletRequest request;
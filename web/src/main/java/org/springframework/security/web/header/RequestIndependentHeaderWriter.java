@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.header;
+
+import java.util.List;
+
+/**
+ * A {@link HeaderWriter} that always writes the same headers, regardless of the current
+ * request, and only when the response does not already contain a header with the same
+ * name.
+ *
+ * <p>
+ * Since the headers do not depend on the request, a {@link HeaderWriterFilter} can
+ * compute them once ahead of time instead of invoking the writer on every response. See
+ * {@link HeaderWriterFilter#setPrecomputeHeaders(boolean)}.
+ *
+ * @since 6.5
+ */
+public interface RequestIndependentHeaderWriter extends HeaderWriter {
+
+	/**
+	 * Gets the headers that this writer would write to a response that does not already
+	 * contain them.
+	 * @return the headers to write, never {@code null}
+	 */
+	List<Header> getHeaders();
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,15 @@
 
 package org.springframework.security.web.header.writers;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.security.web.header.Header;
 import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -81,7 +86,7 @@ import org.springframework.util.Assert;
  * @author Ankur Pathak
  * @since 4.1
  */
-public final class ContentSecurityPolicyHeaderWriter implements HeaderWriter {
+public final class ContentSecurityPolicyHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String CONTENT_SECURITY_POLICY_HEADER = "Content-Security-Policy";
 
@@ -111,6 +116,13 @@ public final class ContentSecurityPolicyHeaderWriter implements HeaderWriter {
 		this.reportOnly = false;
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		String headerName = (!this.reportOnly) ? CONTENT_SECURITY_POLICY_HEADER
+				: CONTENT_SECURITY_POLICY_REPORT_ONLY_HEADER;
+		return Collections.singletonList(new Header(headerName, this.policyDirectives));
+	}
+
 	/**
 	 * @see org.springframework.security.web.header.HeaderWriter#writeHeaders(jakarta.servlet.http.HttpServletRequest,
 	 * jakarta.servlet.http.HttpServletResponse)
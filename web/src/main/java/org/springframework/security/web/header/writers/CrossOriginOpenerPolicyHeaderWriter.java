@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.security.web.header.writers;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.Header;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -31,7 +35,7 @@ import org.springframework.util.Assert;
  * "https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Cross-Origin-Opener-Policy">
  * Cross-Origin-Opener-Policy</a>
  */
-public final class CrossOriginOpenerPolicyHeaderWriter implements HeaderWriter {
+public final class CrossOriginOpenerPolicyHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String OPENER_POLICY = "Cross-Origin-Opener-Policy";
 
@@ -47,6 +51,14 @@ public final class CrossOriginOpenerPolicyHeaderWriter implements HeaderWriter {
 		this.policy = openerPolicy;
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		if (this.policy == null) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(new Header(OPENER_POLICY, this.policy.getPolicy()));
+	}
+
 	@Override
 	public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
 		if (this.policy != null && !response.containsHeader(OPENER_POLICY)) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.security.web.header.writers;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.Header;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -36,7 +40,7 @@ import org.springframework.util.Assert;
  * @author Ankur Pathak
  * @since 5.1
  */
-public final class FeaturePolicyHeaderWriter implements HeaderWriter {
+public final class FeaturePolicyHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String FEATURE_POLICY_HEADER = "Feature-Policy";
 
@@ -52,6 +56,11 @@ public final class FeaturePolicyHeaderWriter implements HeaderWriter {
 		setPolicyDirectives(policyDirectives);
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		return Collections.singletonList(new Header(FEATURE_POLICY_HEADER, this.policyDirectives));
+	}
+
 	@Override
 	public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
 		if (!response.containsHeader(FEATURE_POLICY_HEADER)) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.security.web.header.writers;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.Header;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -35,7 +39,7 @@ import org.springframework.util.Assert;
  * @author Christophe Gilles
  * @since 5.5
  */
-public final class PermissionsPolicyHeaderWriter implements HeaderWriter {
+public final class PermissionsPolicyHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String PERMISSIONS_POLICY_HEADER = "Permissions-Policy";
 
@@ -67,6 +71,14 @@ public final class PermissionsPolicyHeaderWriter implements HeaderWriter {
 		this.policy = policy;
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		if (this.policy == null) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(new Header(PERMISSIONS_POLICY_HEADER, this.policy));
+	}
+
 	@Override
 	public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
 		if (!response.containsHeader(PERMISSIONS_POLICY_HEADER)) {
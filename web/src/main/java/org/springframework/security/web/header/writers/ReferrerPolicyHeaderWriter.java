@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,15 @@ package org.springframework.security.web.header.writers;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.security.web.header.Header;
 import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -55,7 +58,7 @@ import org.springframework.util.Assert;
  * @author Ankur Pathak
  * @since 4.2
  */
-public class ReferrerPolicyHeaderWriter implements HeaderWriter {
+public class ReferrerPolicyHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String REFERRER_POLICY_HEADER = "Referrer-Policy";
 
@@ -87,6 +90,11 @@ public class ReferrerPolicyHeaderWriter implements HeaderWriter {
 		this.policy = policy;
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		return Collections.singletonList(new Header(REFERRER_POLICY_HEADER, this.policy.getPolicy()));
+	}
+
 	/**
 	 * @see org.springframework.security.web.header.HeaderWriter#writeHeaders(HttpServletRequest,
 	 * HttpServletResponse)
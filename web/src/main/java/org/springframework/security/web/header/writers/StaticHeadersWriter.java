@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.security.web.header.Header;
-import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -34,7 +34,7 @@ import org.springframework.util.Assert;
  * @author Ankur Pathak
  * @since 3.2
  */
-public class StaticHeadersWriter implements HeaderWriter {
+public class StaticHeadersWriter implements RequestIndependentHeaderWriter {
 
 	private final List<Header> headers;
 
@@ -56,6 +56,11 @@ public class StaticHeadersWriter implements HeaderWriter {
 		this(Collections.singletonList(new Header(headerName, headerValues)));
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		return this.headers;
+	}
+
 	@Override
 	public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
 		for (Header header : this.headers) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2022 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.security.web.header.writers;
 
+import java.util.Collections;
+import java.util.List;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.Header;
+import org.springframework.security.web.header.RequestIndependentHeaderWriter;
 import org.springframework.util.Assert;
 
 /**
@@ -32,7 +36,7 @@ import org.springframework.util.Assert;
  * @author Daniel Garnier-Moiroux
  * @since 3.2
  */
-public final class XXssProtectionHeaderWriter implements HeaderWriter {
+public final class XXssProtectionHeaderWriter implements RequestIndependentHeaderWriter {
 
 	private static final String XSS_PROTECTION_HEADER = "X-XSS-Protection";
 
@@ -45,6 +49,11 @@ public final class XXssProtectionHeaderWriter implements HeaderWriter {
 		this.headerValue = HeaderValue.DISABLED;
 	}
 
+	@Override
+	public List<Header> getHeaders() {
+		return Collections.singletonList(new Header(XSS_PROTECTION_HEADER, this.headerValue.toString()));
+	}
+
 	@Override
 	public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
 		if (!response.containsHeader(XSS_PROTECTION_HEADER)) {
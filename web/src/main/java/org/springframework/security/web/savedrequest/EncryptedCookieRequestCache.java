@@ -0,0 +1,408 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.savedrequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.web.util.UrlUtils;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * An implementation of {@code RequestCache} which saves the method, the URL and selected
+ * parameters of the original request in an encrypted cookie, so that no
+ * {@code HttpSession} is needed to redirect the user back after authentication.
+ *
+ * <p>
+ * The saved request is encrypted with the provided {@link BytesEncryptor}, such as
+ * {@link Encryptors#stronger(CharSequence, CharSequence)}, so that the client cannot read
+ * it, and the encrypted bytes are followed by their HMAC-SHA256. The HMAC is verified
+ * before decrypting, so that a cookie modified by the client is ignored whatever the
+ * encryptor. The time the request was saved is part of the encrypted value and saved
+ * requests older than the {@link #setMaxAge(Duration) maximum age} are ignored.
+ *
+ * <p>
+ * When the encoded request exceeds the {@link #setMaxCookieSize(int) maximum cookie
+ * size}, the saved parameters are dropped and, if the URL alone is still too large, the
+ * request is not saved.
+ *
+ * @since 6.5
+ * @see CookieRequestCache
+ */
+public final class EncryptedCookieRequestCache implements RequestCache {
+
+	private static final String DEFAULT_COOKIE_NAME = "SAVED_REQUEST";
+
+	private static final byte VERSION = 2;
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private static final int MAC_LENGTH = 32;
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final BytesEncryptor encryptor;
+
+	private final SecretKey macKey;
+
+	private RequestMatcher requestMatcher = AnyRequestMatcher.INSTANCE;
+
+	private String cookieName = DEFAULT_COOKIE_NAME;
+
+	private Set<String> parameterNames = Collections.emptySet();
+
+	private int maxCookieSize = 3072;
+
+	private Duration maxAge = Duration.ofMinutes(5);
+
+	private Clock clock = Clock.systemUTC();
+
+	private Consumer<Cookie> cookieCustomizer = (cookie) -> {
+	};
+
+	/**
+	 * Constructs an {@code EncryptedCookieRequestCache} using the provided parameters.
+	 * @param encryptor the {@link BytesEncryptor} used to encrypt the cookie value
+	 * @param macKey the key of at least 256 bits used to authenticate the encrypted
+	 * cookie value with HMAC-SHA256, which should be different from the encryption key
+	 */
+	public EncryptedCookieRequestCache(BytesEncryptor encryptor, SecretKey macKey) {
+		Assert.notNull(encryptor, "encryptor cannot be null");
+		Assert.notNull(macKey, "macKey cannot be null");
+		byte[] encoded = macKey.getEncoded();
+		Assert.isTrue(encoded == null || encoded.length >= MAC_LENGTH, "macKey must be at least 256 bits");
+		this.encryptor = encryptor;
+		this.macKey = macKey;
+		// reject a key that HMAC-SHA256 cannot use before any request is saved
+		mac(new byte[0]);
+	}
+
+	@Override
+	public void saveRequest(HttpServletRequest request, HttpServletResponse response) {
+		if (!this.requestMatcher.matches(request)) {
+			this.logger.debug("Request not saved as configured RequestMatcher did not match");
+			return;
+		}
+		String redirectUrl = UrlUtils.buildFullRequestUrl(request);
+		Map<String, String[]> parameters = new LinkedHashMap<>();
+		for (String parameterName : this.parameterNames) {
+			String[] values = request.getParameterValues(parameterName);
+			if (values != null) {
+				parameters.put(parameterName, values);
+			}
+		}
+		String cookieValue = encode(request.getMethod(), redirectUrl, parameters);
+		if (cookieValue == null && !parameters.isEmpty()) {
+			this.logger.debug("Saved request parameters dropped as the cookie would exceed the maximum size");
+			cookieValue = encode(request.getMethod(), redirectUrl, Collections.emptyMap());
+		}
+		if (cookieValue == null) {
+			this.logger.debug("Request not saved as the cookie would exceed the maximum size");
+			return;
+		}
+		Cookie savedCookie = new Cookie(this.cookieName, cookieValue);
+		savedCookie.setMaxAge((int) this.maxAge.getSeconds());
+		savedCookie.setSecure(request.isSecure());
+		savedCookie.setPath(getCookiePath(request));
+		savedCookie.setHttpOnly(true);
+		this.cookieCustomizer.accept(savedCookie);
+		response.addCookie(savedCookie);
+	}
+
+	@Override
+	public SavedRequest getRequest(HttpServletRequest request, HttpServletResponse response) {
+		Cookie savedRequestCookie = WebUtils.getCookie(request, this.cookieName);
+		if (savedRequestCookie == null) {
+			return null;
+		}
+		return decode(savedRequestCookie.getValue(), request);
+	}
+
+	@Override
+	public HttpServletRequest getMatchingRequest(HttpServletRequest request, HttpServletResponse response) {
+		SavedRequest saved = getRequest(request, response);
+		if (saved == null || !saved.getRedirectUrl().equals(UrlUtils.buildFullRequestUrl(request))) {
+			this.logger.debug("saved request doesn't match");
+			return null;
+		}
+		removeRequest(request, response);
+		return new SavedRequestAwareWrapper(saved, request);
+	}
+
+	@Override
+	public void removeRequest(HttpServletRequest request, HttpServletResponse response) {
+		Cookie removeSavedRequestCookie = new Cookie(this.cookieName, "");
+		removeSavedRequestCookie.setSecure(request.isSecure());
+		removeSavedRequestCookie.setHttpOnly(true);
+		removeSavedRequestCookie.setPath(getCookiePath(request));
+		removeSavedRequestCookie.setMaxAge(0);
+		this.cookieCustomizer.accept(removeSavedRequestCookie);
+		response.addCookie(removeSavedRequestCookie);
+	}
+
+	/**
+	 * Returns the cookie value of a saved request, or {@code null} if it would exceed the
+	 * maximum cookie size
+	 */
+	private String encode(String method, String redirectUrl, Map<String, String[]> parameters) {
+		// the encrypted bytes are at least as many as the plain ones and are followed by
+		// the HMAC, encoded 3 in 4 chars
+		int maxSize = this.maxCookieSize / 4 * 3 - MAC_LENGTH;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeLong(this.clock.instant().getEpochSecond());
+			writeString(out, method);
+			writeString(out, redirectUrl);
+			out.writeInt(parameters.size());
+			for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+				writeString(out, parameter.getKey());
+				out.writeInt(parameter.getValue().length);
+				for (String value : parameter.getValue()) {
+					writeString(out, value);
+				}
+				if (out.size() > maxSize) {
+					return null;
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to encode saved request", ex);
+		}
+		if (bytes.size() > maxSize) {
+			return null;
+		}
+		byte[] encrypted = this.encryptor.encrypt(bytes.toByteArray());
+		byte[] value = Arrays.copyOf(encrypted, encrypted.length + MAC_LENGTH);
+		System.arraycopy(mac(encrypted), 0, value, encrypted.length, MAC_LENGTH);
+		String cookieValue = Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+		return (cookieValue.length() <= this.maxCookieSize) ? cookieValue : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readLength(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new EOFException("Invalid length " + length);
+		}
+		return length;
+	}
+
+	private SavedRequest decode(String cookieValue, HttpServletRequest request) {
+		byte[] decrypted;
+		try {
+			byte[] decoded = Base64.getUrlDecoder().decode(cookieValue);
+			if (decoded.length <= MAC_LENGTH) {
+				return null;
+			}
+			byte[] encrypted = Arrays.copyOf(decoded, decoded.length - MAC_LENGTH);
+			byte[] mac = Arrays.copyOfRange(decoded, encrypted.length, decoded.length);
+			if (!MessageDigest.isEqual(mac, mac(encrypted))) {
+				this.logger.debug("Failed to authenticate saved request cookie");
+				return null;
+			}
+			decrypted = this.encryptor.decrypt(encrypted);
+		}
+		catch (RuntimeException ex) {
+			this.logger.debug("Failed to decrypt saved request cookie", ex);
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(decrypted))) {
+			if (in.readByte() != VERSION) {
+				return null;
+			}
+			Instant savedAt = Instant.ofEpochSecond(in.readLong());
+			if (savedAt.plus(this.maxAge).isBefore(this.clock.instant())) {
+				this.logger.debug(LogMessage.format("Ignoring saved request saved at %s as it expired", savedAt));
+				return null;
+			}
+			String method = readString(in);
+			String redirectUrl = readString(in);
+			int parameterCount = readLength(in);
+			Map<String, String[]> parameters = new LinkedHashMap<>();
+			for (int i = 0; i < parameterCount; i++) {
+				String name = readString(in);
+				String[] values = new String[readLength(in)];
+				for (int j = 0; j < values.length; j++) {
+					values[j] = readString(in);
+				}
+				parameters.put(name, values);
+			}
+			UriComponents uriComponents = UriComponentsBuilder.fromUriString(redirectUrl).build();
+			return new DefaultSavedRequest.Builder().setScheme(uriComponents.getScheme())
+				.setServerName(uriComponents.getHost())
+				.setRequestURI(uriComponents.getPath())
+				.setQueryString(uriComponents.getQuery())
+				.setServerPort(getPort(uriComponents))
+				.setMethod(method)
+				.setParameters(parameters)
+				.setLocales(Collections.list(request.getLocales()))
+				.build();
+		}
+		catch (IOException ex) {
+			this.logger.debug("Failed to decode saved request cookie", ex);
+			return null;
+		}
+	}
+
+	private byte[] mac(byte[] bytes) {
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(this.macKey);
+			return mac.doFinal(bytes);
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalArgumentException("Unable to compute HMAC-SHA256 with the provided macKey", ex);
+		}
+	}
+
+	private static int getPort(UriComponents uriComponents) {
+		int port = uriComponents.getPort();
+		if (port != -1) {
+			return port;
+		}
+		if ("https".equalsIgnoreCase(uriComponents.getScheme())) {
+			return 443;
+		}
+		return 80;
+	}
+
+	private static String getCookiePath(HttpServletRequest request) {
+		String contextPath = request.getContextPath();
+		return (StringUtils.hasLength(contextPath)) ? contextPath : "/";
+	}
+
+	/**
+	 * Allows selective use of saved requests for a subset of requests. By default any
+	 * request will be cached by the {@code saveRequest} method.
+	 * @param requestMatcher a request matching strategy which defines which requests
+	 * should be cached.
+	 */
+	public void setRequestMatcher(RequestMatcher requestMatcher) {
+		Assert.notNull(requestMatcher, "requestMatcher cannot be null");
+		this.requestMatcher = requestMatcher;
+	}
+
+	/**
+	 * Sets the names of the request parameters to save in addition to the method and the
+	 * URL, which already contains the query string. By default, no parameters are saved.
+	 * @param parameterNames the names of the parameters to save
+	 */
+	public void setParameterNames(Collection<String> parameterNames) {
+		Assert.notNull(parameterNames, "parameterNames cannot be null");
+		this.parameterNames = new LinkedHashSet<>(parameterNames);
+	}
+
+	/**
+	 * Sets the name of the cookie holding the saved request. The default is
+	 * {@code SAVED_REQUEST}.
+	 * @param cookieName the name of the cookie
+	 */
+	public void setCookieName(String cookieName) {
+		Assert.hasText(cookieName, "cookieName cannot be empty");
+		this.cookieName = cookieName;
+	}
+
+	/**
+	 * Sets the maximum length of the cookie value. The default is 3072 characters, which
+	 * leaves room for the cookie name and attributes within the 4096 bytes that browsers
+	 * are required to support.
+	 * @param maxCookieSize the maximum length of the cookie value
+	 */
+	public void setMaxCookieSize(int maxCookieSize) {
+		Assert.isTrue(maxCookieSize > 0, "maxCookieSize must be greater than 0");
+		this.maxCookieSize = maxCookieSize;
+	}
+
+	/**
+	 * Sets how long a saved request remains usable. The default is 5 minutes.
+	 * @param maxAge the maximum age of a saved request
+	 */
+	public void setMaxAge(Duration maxAge) {
+		Assert.notNull(maxAge, "maxAge cannot be null");
+		Assert.isTrue(!maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to record when a request is saved and to check whether
+	 * it expired.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the {@link Consumer}, allowing customization of cookie.
+	 * @param cookieCustomizer customize for cookie
+	 */
+	public void setCookieCustomizer(Consumer<Cookie> cookieCustomizer) {
+		Assert.notNull(cookieCustomizer, "cookieCustomizer cannot be null");
+		this.cookieCustomizer = cookieCustomizer;
+	}
+
+}
@@ -62,7 +62,25 @@ public class DelegatingServerAuthenticationEntryPoint implements ServerAuthentic
 
 	@Override
 	public Mono<Void> commence(ServerWebExchange exchange, AuthenticationException ex) {
-		return Flux.fromIterable(this.entryPoints)
+		for (int i = 0; i < this.entryPoints.size(); i++) {
+			DelegateEntry entry = this.entryPoints.get(i);
+			ServerWebExchangeMatcher matcher = entry.getMatcher();
+			logger.debug(LogMessage.format("Trying to match using %s", matcher));
+			MatchResult matchResult = matcher.matchesSynchronously(exchange);
+			if (matchResult == null) {
+				return commenceReactively(exchange, ex, i);
+			}
+			if (matchResult.isMatch()) {
+				logger.debug(LogMessage.format("Match found! Executing %s", entry.getEntryPoint()));
+				return entry.getEntryPoint().commence(exchange, ex);
+			}
+		}
+		logger.debug(LogMessage.format("No match found. Using default entry point %s", this.defaultEntryPoint));
+		return this.defaultEntryPoint.commence(exchange, ex);
+	}
+
+	private Mono<Void> commenceReactively(ServerWebExchange exchange, AuthenticationException ex, int from) {
+		return Flux.fromIterable(this.entryPoints.subList(from, this.entryPoints.size()))
 			.filterWhen((entry) -> isMatch(exchange, entry))
 			.next()
 			.map((entry) -> entry.getEntryPoint())
@@ -56,4 +56,12 @@ public class MatcherSecurityWebFilterChain implements SecurityWebFilterChain {
 		return Flux.fromIterable(this.filters);
 	}
 
+	ServerWebExchangeMatcher getMatcher() {
+		return this.matcher;
+	}
+
+	List<WebFilter> getFilters() {
+		return this.filters;
+	}
+
 }
@@ -29,6 +29,7 @@ import org.springframework.security.web.server.firewall.ServerExchangeRejectedEx
 import org.springframework.security.web.server.firewall.ServerExchangeRejectedHandler;
 import org.springframework.security.web.server.firewall.ServerWebExchangeFirewall;
 import org.springframework.security.web.server.firewall.StrictServerWebExchangeFirewall;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
 import org.springframework.util.Assert;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
@@ -38,6 +39,14 @@ import org.springframework.web.server.handler.DefaultWebFilterChain;
 /**
  * Used to delegate to a List of {@link SecurityWebFilterChain} instances.
  *
+ * <p>
+ * The filters of each {@link MatcherSecurityWebFilterChain} are resolved once, and the
+ * chains are selected without assembling Reactor operators as long as their
+ * {@link ServerWebExchangeMatcher} can decide synchronously (see
+ * {@link ServerWebExchangeMatcher#matchesSynchronously(ServerWebExchange)}). Chain
+ * selection falls back to subscribing to {@link SecurityWebFilterChain#matches} from the
+ * first chain that cannot.
+ *
  * @author Rob Winch
  * @since 5.0
  */
@@ -45,6 +54,8 @@ public class WebFilterChainProxy implements WebFilter {
 
 	private final List<SecurityWebFilterChain> filters;
 
+	private final CompiledFilterChain[] compiledFilters;
+
 	private WebFilterChainDecorator filterChainDecorator = new DefaultWebFilterChainDecorator();
 
 	private ServerWebExchangeFirewall firewall = new StrictServerWebExchangeFirewall();
@@ -53,10 +64,20 @@ public class WebFilterChainProxy implements WebFilter {
 
 	public WebFilterChainProxy(List<SecurityWebFilterChain> filters) {
 		this.filters = filters;
+		this.compiledFilters = compile(filters);
 	}
 
 	public WebFilterChainProxy(SecurityWebFilterChain... filters) {
 		this.filters = Arrays.asList(filters);
+		this.compiledFilters = compile(this.filters);
+	}
+
+	private static CompiledFilterChain[] compile(List<SecurityWebFilterChain> filters) {
+		CompiledFilterChain[] compiled = new CompiledFilterChain[filters.size()];
+		for (int i = 0; i < compiled.length; i++) {
+			compiled[i] = new CompiledFilterChain(filters.get(i));
+		}
+		return compiled;
 	}
 
 	@Override
@@ -68,14 +89,28 @@ public class WebFilterChainProxy implements WebFilter {
 	}
 
 	private Mono<Void> filterFirewalledExchange(ServerWebExchange firewalledExchange, WebFilterChain chain) {
-		return Flux.fromIterable(this.filters)
+		for (int i = 0; i < this.compiledFilters.length; i++) {
+			CompiledFilterChain securityWebFilterChain = this.compiledFilters[i];
+			Boolean match = securityWebFilterChain.matchesSynchronously(firewalledExchange);
+			if (match == null) {
+				return filterFirewalledExchange(firewalledExchange, chain, i);
+			}
+			if (match) {
+				return securityWebFilterChain.filter(firewalledExchange, chain, this.filterChainDecorator);
+			}
+		}
+		return this.filterChainDecorator.decorate(chain).filter(firewalledExchange);
+	}
+
+	private Mono<Void> filterFirewalledExchange(ServerWebExchange firewalledExchange, WebFilterChain chain, int from) {
+		return Flux.fromArray(this.compiledFilters)
+			.skip(from)
 			.filterWhen((securityWebFilterChain) -> securityWebFilterChain.matches(firewalledExchange))
 			.next()
 			.switchIfEmpty(Mono
 				.defer(() -> this.filterChainDecorator.decorate(chain).filter(firewalledExchange).then(Mono.empty())))
-			.flatMap((securityWebFilterChain) -> securityWebFilterChain.getWebFilters().collectList())
-			.map((filters) -> this.filterChainDecorator.decorate(chain, filters))
-			.flatMap((securedChain) -> securedChain.filter(firewalledExchange));
+			.flatMap((securityWebFilterChain) -> securityWebFilterChain.filter(firewalledExchange, chain,
+					this.filterChainDecorator));
 	}
 
 	/**
@@ -169,4 +204,80 @@ public class WebFilterChainProxy implements WebFilter {
 
 	}
 
+	/**
+	 * A {@link SecurityWebFilterChain} along with what can be computed once for all
+	 * requests. The filters of a {@link MatcherSecurityWebFilterChain} are immutable, so
+	 * they are resolved once and, when the {@link DefaultWebFilterChainDecorator} is in
+	 * use, the decorated chain is reused as long as the original chain is the same, which
+	 * is the case with the chain provided by WebFlux.
+	 */
+	private static final class CompiledFilterChain {
+
+		private final SecurityWebFilterChain securityWebFilterChain;
+
+		private final ServerWebExchangeMatcher matcher;
+
+		private final List<WebFilter> filters;
+
+		private volatile DecoratedChain decoratedChain;
+
+		private CompiledFilterChain(SecurityWebFilterChain securityWebFilterChain) {
+			this.securityWebFilterChain = securityWebFilterChain;
+			if (securityWebFilterChain.getClass() == MatcherSecurityWebFilterChain.class) {
+				MatcherSecurityWebFilterChain matcherChain = (MatcherSecurityWebFilterChain) securityWebFilterChain;
+				this.matcher = matcherChain.getMatcher();
+				this.filters = matcherChain.getFilters();
+			}
+			else {
+				this.matcher = null;
+				this.filters = null;
+			}
+		}
+
+		private Boolean matchesSynchronously(ServerWebExchange exchange) {
+			if (this.matcher == null) {
+				return null;
+			}
+			ServerWebExchangeMatcher.MatchResult matchResult = this.matcher.matchesSynchronously(exchange);
+			return (matchResult != null) ? matchResult.isMatch() : null;
+		}
+
+		private Mono<Boolean> matches(ServerWebExchange exchange) {
+			return this.securityWebFilterChain.matches(exchange);
+		}
+
+		private Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain,
+				WebFilterChainDecorator filterChainDecorator) {
+			if (this.filters == null) {
+				return this.securityWebFilterChain.getWebFilters()
+					.collectList()
+					.map((filters) -> filterChainDecorator.decorate(chain, filters))
+					.flatMap((securedChain) -> securedChain.filter(exchange));
+			}
+			if (filterChainDecorator.getClass() != DefaultWebFilterChainDecorator.class) {
+				return filterChainDecorator.decorate(chain, this.filters).filter(exchange);
+			}
+			DecoratedChain decoratedChain = this.decoratedChain;
+			if (decoratedChain == null || decoratedChain.original != chain) {
+				decoratedChain = new DecoratedChain(chain, filterChainDecorator.decorate(chain, this.filters));
+				this.decoratedChain = decoratedChain;
+			}
+			return decoratedChain.decorated.filter(exchange);
+		}
+
+	}
+
+	private static final class DecoratedChain {
+
+		private final WebFilterChain original;
+
+		private final WebFilterChain decorated;
+
+		private DecoratedChain(WebFilterChain original, WebFilterChain decorated) {
+			this.original = original;
+			this.decorated = decorated;
+		}
+
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.security.web.server.authorization;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +31,7 @@ import org.springframework.security.authorization.ReactiveAuthorizationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcherEntry;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcherEntryIndex;
 import org.springframework.web.server.ServerWebExchange;
 
 /**
@@ -41,11 +43,11 @@ public final class DelegatingReactiveAuthorizationManager implements ReactiveAut
 
 	private static final Log logger = LogFactory.getLog(DelegatingReactiveAuthorizationManager.class);
 
-	private final List<ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>>> mappings;
+	private final ServerWebExchangeMatcherEntryIndex<ReactiveAuthorizationManager<AuthorizationContext>> mappings;
 
 	private DelegatingReactiveAuthorizationManager(
 			List<ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>>> mappings) {
-		this.mappings = mappings;
+		this.mappings = new ServerWebExchangeMatcherEntryIndex<>(mappings);
 	}
 
 	/**
@@ -54,21 +56,48 @@ public final class DelegatingReactiveAuthorizationManager implements ReactiveAut
 	@Deprecated
 	@Override
 	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, ServerWebExchange exchange) {
-		return Flux.fromIterable(this.mappings)
+		return check(authentication, exchange, this.mappings.getCandidates(exchange), 0);
+	}
+
+	private Mono<AuthorizationDecision> check(Mono<Authentication> authentication, ServerWebExchange exchange,
+			List<ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>>> candidates,
+			int from) {
+		for (int i = from; i < candidates.size(); i++) {
+			ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>> mapping = candidates
+				.get(i);
+			MatchResult matchResult = mapping.getMatcher().matchesSynchronously(exchange);
+			if (matchResult == null) {
+				return checkReactively(authentication, exchange, candidates.subList(i, candidates.size()));
+			}
+			if (matchResult.isMatch()) {
+				int next = i + 1;
+				return check(authentication, exchange, mapping, matchResult.getVariables())
+					.switchIfEmpty(Mono.defer(() -> check(authentication, exchange, candidates, next)));
+			}
+		}
+		return Mono.just(new AuthorizationDecision(false));
+	}
+
+	private Mono<AuthorizationDecision> checkReactively(Mono<Authentication> authentication, ServerWebExchange exchange,
+			List<ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>>> candidates) {
+		return Flux.fromIterable(candidates)
 			.concatMap((mapping) -> mapping.getMatcher()
 				.matches(exchange)
 				.filter(MatchResult::isMatch)
 				.map(MatchResult::getVariables)
-				.flatMap((variables) -> {
-					logger.debug(LogMessage.of(() -> "Checking authorization on '"
-							+ exchange.getRequest().getPath().pathWithinApplication() + "' using "
-							+ mapping.getEntry()));
-					return mapping.getEntry().check(authentication, new AuthorizationContext(exchange, variables));
-				}))
+				.flatMap((variables) -> check(authentication, exchange, mapping, variables)))
 			.next()
 			.defaultIfEmpty(new AuthorizationDecision(false));
 	}
 
+	private Mono<AuthorizationDecision> check(Mono<Authentication> authentication, ServerWebExchange exchange,
+			ServerWebExchangeMatcherEntry<ReactiveAuthorizationManager<AuthorizationContext>> mapping,
+			Map<String, Object> variables) {
+		logger.debug(LogMessage.of(() -> "Checking authorization on '"
+				+ exchange.getRequest().getPath().pathWithinApplication() + "' using " + mapping.getEntry()));
+		return mapping.getEntry().check(authentication, new AuthorizationContext(exchange, variables));
+	}
+
 	public static DelegatingReactiveAuthorizationManager.Builder builder() {
 		return new DelegatingReactiveAuthorizationManager.Builder();
 	}
@@ -69,7 +69,21 @@ public class ServerWebExchangeDelegatingServerAccessDeniedHandler implements Ser
 
 	@Override
 	public Mono<Void> handle(ServerWebExchange exchange, AccessDeniedException denied) {
-		return Flux.fromIterable(this.handlers)
+		for (int i = 0; i < this.handlers.size(); i++) {
+			DelegateEntry entry = this.handlers.get(i);
+			ServerWebExchangeMatcher.MatchResult matchResult = entry.getMatcher().matchesSynchronously(exchange);
+			if (matchResult == null) {
+				return handleReactively(exchange, denied, i);
+			}
+			if (matchResult.isMatch()) {
+				return entry.getAccessDeniedHandler().handle(exchange, denied);
+			}
+		}
+		return this.defaultHandler.handle(exchange, denied);
+	}
+
+	private Mono<Void> handleReactively(ServerWebExchange exchange, AccessDeniedException denied, int from) {
+		return Flux.fromIterable(this.handlers.subList(from, this.handlers.size()))
 			.filterWhen((entry) -> isMatch(exchange, entry))
 			.next()
 			.map(DelegateEntry::getAccessDeniedHandler)
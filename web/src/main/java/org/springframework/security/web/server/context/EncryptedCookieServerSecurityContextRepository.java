@@ -0,0 +1,246 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import javax.crypto.SecretKey;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.log.LogMessage;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.web.context.SecurityContextCookieCodec;
+import org.springframework.security.web.context.SecurityContextCookieCodec.DecodedSecurityContext;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * A {@link ServerSecurityContextRepository} that stores the {@link SecurityContext} in an
+ * encrypted cookie, so that the {@link SecurityContext} is available on subsequent
+ * requests without a {@link org.springframework.web.server.WebSession} or any other
+ * server-side storage.
+ *
+ * <p>
+ * The cookie value is created by a {@link SecurityContextCookieCodec} and expires after
+ * the {@link #setMaxAge(Duration) maximum age}. The expiration is sliding: when less than
+ * half of the maximum age remains, {@link #load(ServerWebExchange)} issues a new cookie
+ * on the response.
+ *
+ * <p>
+ * Since the cookie is the only copy of the {@link SecurityContext}, it cannot be revoked
+ * before it expires other than by changing the keys. A {@link SecurityContext} that is
+ * anonymous, {@link Transient} or whose encoded value exceeds the
+ * {@link #setMaxCookieSize(int) maximum cookie size} is not saved.
+ *
+ * @since 6.5
+ * @see WebSessionServerSecurityContextRepository
+ */
+public final class EncryptedCookieServerSecurityContextRepository implements ServerSecurityContextRepository {
+
+	private static final String DEFAULT_COOKIE_NAME = "SECURITY_CONTEXT";
+
+	private static final Log logger = LogFactory.getLog(EncryptedCookieServerSecurityContextRepository.class);
+
+	private final SecurityContextCookieCodec codec;
+
+	private String cookieName = DEFAULT_COOKIE_NAME;
+
+	private Duration maxAge = Duration.ofMinutes(30);
+
+	private int maxCookieSize = 3072;
+
+	private Clock clock = Clock.systemUTC();
+
+	private Consumer<ResponseCookie.ResponseCookieBuilder> cookieCustomizer = (builder) -> {
+	};
+
+	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+	/**
+	 * Constructs an {@code EncryptedCookieServerSecurityContextRepository} using the
+	 * provided parameters.
+	 * @param encryptor the {@link BytesEncryptor} used to encrypt the cookie value
+	 * @param macKey the key of at least 256 bits used to authenticate the encrypted
+	 * cookie value with HMAC-SHA256
+	 * @see SecurityContextCookieCodec#SecurityContextCookieCodec(BytesEncryptor,
+	 * SecretKey)
+	 */
+	public EncryptedCookieServerSecurityContextRepository(BytesEncryptor encryptor, SecretKey macKey) {
+		this(new SecurityContextCookieCodec(encryptor, macKey));
+	}
+
+	/**
+	 * Constructs an {@code EncryptedCookieServerSecurityContextRepository} using the
+	 * provided parameters.
+	 * @param codec the {@link SecurityContextCookieCodec} used to create and read the
+	 * cookie value
+	 */
+	public EncryptedCookieServerSecurityContextRepository(SecurityContextCookieCodec codec) {
+		Assert.notNull(codec, "codec cannot be null");
+		this.codec = codec;
+	}
+
+	@Override
+	public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+		return Mono.fromRunnable(() -> {
+			Authentication authentication = (context != null) ? context.getAuthentication() : null;
+			if (authentication == null || this.trustResolver.isAnonymous(authentication)) {
+				if (exchange.getRequest().getCookies().getFirst(this.cookieName) != null) {
+					logger.debug("Removing security context cookie since the SecurityContext is empty");
+					setCookie(exchange, "", Duration.ZERO);
+				}
+				return;
+			}
+			if (isTransient(context) || isTransient(authentication)) {
+				return;
+			}
+			writeCookie(exchange, context);
+		});
+	}
+
+	@Override
+	public Mono<SecurityContext> load(ServerWebExchange exchange) {
+		return Mono.fromSupplier(() -> {
+			HttpCookie cookie = exchange.getRequest().getCookies().getFirst(this.cookieName);
+			if (cookie == null) {
+				return null;
+			}
+			DecodedSecurityContext decoded = this.codec.decode(cookie.getValue());
+			if (decoded == null) {
+				return null;
+			}
+			if (!decoded.getExpiresAt().isAfter(this.clock.instant())) {
+				logger.debug(LogMessage.format("Ignoring security context cookie that expired at %s",
+						decoded.getExpiresAt()));
+				return null;
+			}
+			if (decoded.getExpiresAt().minus(this.maxAge.dividedBy(2)).isBefore(this.clock.instant())) {
+				logger.trace("Renewing security context cookie");
+				writeCookie(exchange, decoded.getSecurityContext());
+			}
+			return decoded.getSecurityContext();
+		});
+	}
+
+	private void writeCookie(ServerWebExchange exchange, SecurityContext context) {
+		String cookieValue = this.codec.encode(context, this.clock.instant().plus(this.maxAge));
+		if (cookieValue.length() > this.maxCookieSize) {
+			logger.warn(LogMessage
+				.format("Did not save SecurityContext %s since the cookie would exceed the maximum size", context));
+			return;
+		}
+		setCookie(exchange, cookieValue, this.maxAge);
+	}
+
+	private void setCookie(ServerWebExchange exchange, String value, Duration maxAge) {
+		ServerHttpRequest request = exchange.getRequest();
+		ResponseCookie.ResponseCookieBuilder builder = ResponseCookie.from(this.cookieName, value)
+			.path(getCookiePath(request))
+			.maxAge(maxAge)
+			.httpOnly(true)
+			.secure("https".equalsIgnoreCase(request.getURI().getScheme()));
+		this.cookieCustomizer.accept(builder);
+		// replaces a cookie that was renewed while loading the same exchange
+		exchange.getResponse().getCookies().set(this.cookieName, builder.build());
+	}
+
+	private static boolean isTransient(Object object) {
+		return AnnotationUtils.getAnnotation(object.getClass(), Transient.class) != null;
+	}
+
+	private static String getCookiePath(ServerHttpRequest request) {
+		String contextPath = request.getPath().contextPath().value();
+		return (StringUtils.hasLength(contextPath)) ? contextPath : "/";
+	}
+
+	/**
+	 * Sets the name of the cookie holding the {@link SecurityContext}. The default is
+	 * {@code SECURITY_CONTEXT}.
+	 * @param cookieName the name of the cookie
+	 */
+	public void setCookieName(String cookieName) {
+		Assert.hasText(cookieName, "cookieName cannot be empty");
+		this.cookieName = cookieName;
+	}
+
+	/**
+	 * Sets how long a saved {@link SecurityContext} remains usable without being renewed.
+	 * The default is 30 minutes.
+	 * @param maxAge the maximum age of a saved {@link SecurityContext}
+	 */
+	public void setMaxAge(Duration maxAge) {
+		Assert.notNull(maxAge, "maxAge cannot be null");
+		Assert.isTrue(!maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Sets the maximum length of the cookie value. The default is 3072 characters, which
+	 * leaves room for the cookie name and attributes within the 4096 bytes that browsers
+	 * are required to support.
+	 * @param maxCookieSize the maximum length of the cookie value
+	 */
+	public void setMaxCookieSize(int maxCookieSize) {
+		Assert.isTrue(maxCookieSize > 0, "maxCookieSize must be greater than 0");
+		this.maxCookieSize = maxCookieSize;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to compute and check the expiration of the cookie.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the {@link Consumer}, allowing customization of cookie.
+	 * @param cookieCustomizer customize for cookie
+	 */
+	public void setCookieCustomizer(Consumer<ResponseCookie.ResponseCookieBuilder> cookieCustomizer) {
+		Assert.notNull(cookieCustomizer, "cookieCustomizer cannot be null");
+		this.cookieCustomizer = cookieCustomizer;
+	}
+
+	/**
+	 * Sets the {@link AuthenticationTrustResolver} used to detect anonymous
+	 * authentications, which are never saved. The default is
+	 * {@link AuthenticationTrustResolverImpl}.
+	 * @param trustResolver the {@link AuthenticationTrustResolver} to use
+	 */
+	public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+		Assert.notNull(trustResolver, "trustResolver cannot be null");
+		this.trustResolver = trustResolver;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.context;
+
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * An alternative to {@link ReactorContextWebFilter} that loads the
+ * {@link SecurityContext} at most once per exchange.
+ *
+ * <p>
+ * The {@link SecurityContext} is loaded lazily from the
+ * {@link ServerSecurityContextRepository} the first time it is requested, and the result
+ * is cached in a {@code Mono<SecurityContext>} stored in the
+ * {@link ServerWebExchange#getAttributes() exchange attributes}, where it can be read
+ * with {@link #getSecurityContext(ServerWebExchange)}. The repository is not queried for
+ * exchanges that never use the {@link SecurityContext}.
+ *
+ * <p>
+ * {@link ReactiveSecurityContextHolder} reads the same attribute through a
+ * {@code Mono<SecurityContext>} shared by all exchanges, which finds the current exchange
+ * in the Reactor {@link Context}. The exchange must therefore be available in the Reactor
+ * {@link Context}, either under the {@link ServerWebExchange} class, as done by
+ * {@code ServerHttpSecurity}, or through a {@link ServerWebExchangeContextFilter}. The
+ * cached value does not reflect an authentication performed later in the same exchange.
+ *
+ * @since 6.5
+ * @see ReactorContextWebFilter
+ */
+public final class ExchangeAttributeSecurityContextWebFilter implements WebFilter {
+
+	/**
+	 * The name of the exchange attribute holding the {@code Mono<SecurityContext>}
+	 */
+	public static final String SECURITY_CONTEXT_ATTR_NAME = ExchangeAttributeSecurityContextWebFilter.class.getName()
+			+ ".SECURITY_CONTEXT";
+
+	private static final Mono<SecurityContext> EXCHANGE_SECURITY_CONTEXT = Mono
+		.deferContextual(ExchangeAttributeSecurityContextWebFilter::getSecurityContext);
+
+	// stateless, so that no Context or lambda is created for each exchange
+	private static final Function<Context, Context> WITH_SECURITY_CONTEXT = (
+			context) -> context.hasKey(SecurityContext.class) ? context
+					: context.put(SecurityContext.class, EXCHANGE_SECURITY_CONTEXT);
+
+	private final ServerSecurityContextRepository repository;
+
+	public ExchangeAttributeSecurityContextWebFilter(ServerSecurityContextRepository repository) {
+		Assert.notNull(repository, "repository cannot be null");
+		this.repository = repository;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		exchange.getAttributes().put(SECURITY_CONTEXT_ATTR_NAME, this.repository.load(exchange).cache());
+		return chain.filter(exchange).contextWrite(WITH_SECURITY_CONTEXT);
+	}
+
+	/**
+	 * Returns the {@code Mono<SecurityContext>} stored by this filter. The
+	 * {@link SecurityContext} is loaded when the returned {@code Mono} is first
+	 * subscribed to, and replayed to subsequent subscribers.
+	 * @param exchange the exchange
+	 * @return the {@code Mono<SecurityContext>}, which is empty if this filter was not
+	 * applied to the exchange
+	 */
+	public static Mono<SecurityContext> getSecurityContext(ServerWebExchange exchange) {
+		Mono<SecurityContext> securityContext = exchange.getAttribute(SECURITY_CONTEXT_ATTR_NAME);
+		return (securityContext != null) ? securityContext : Mono.empty();
+	}
+
+	private static Mono<SecurityContext> getSecurityContext(ContextView context) {
+		ServerWebExchange exchange = context.getOrDefault(ServerWebExchange.class, null);
+		if (exchange != null) {
+			return getSecurityContext(exchange);
+		}
+		return ServerWebExchangeContextFilter.getExchange(context)
+			.map(ExchangeAttributeSecurityContextWebFilter::getSecurityContext)
+			.orElse(Mono.empty());
+	}
+
+}
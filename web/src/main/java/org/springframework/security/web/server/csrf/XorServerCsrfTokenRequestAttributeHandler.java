@@ -17,11 +17,10 @@
 package org.springframework.security.web.server.csrf;
 
 import java.security.SecureRandom;
-import java.util.Base64;
 
 import reactor.core.publisher.Mono;
 
-import org.springframework.security.crypto.codec.Utf8;
+import org.springframework.security.web.csrf.XorCsrfTokenCodec;
 import org.springframework.util.Assert;
 import org.springframework.web.server.ServerWebExchange;
 
@@ -36,7 +35,7 @@ import org.springframework.web.server.ServerWebExchange;
  */
 public final class XorServerCsrfTokenRequestAttributeHandler extends ServerCsrfTokenRequestAttributeHandler {
 
-	private SecureRandom secureRandom = new SecureRandom();
+	private XorCsrfTokenCodec tokenCodec = new XorCsrfTokenCodec();
 
 	/**
 	 * Specifies the {@code SecureRandom} used to generate random bytes that are used to
@@ -45,7 +44,7 @@ public final class XorServerCsrfTokenRequestAttributeHandler extends ServerCsrfT
 	 */
 	public void setSecureRandom(SecureRandom secureRandom) {
 		Assert.notNull(secureRandom, "secureRandom cannot be null");
-		this.secureRandom = secureRandom;
+		this.tokenCodec = new XorCsrfTokenCodec(secureRandom);
 	}
 
 	@Override
@@ -54,7 +53,7 @@ public final class XorServerCsrfTokenRequestAttributeHandler extends ServerCsrfT
 		Assert.notNull(csrfToken, "csrfToken cannot be null");
 		Mono<CsrfToken> updatedCsrfToken = csrfToken
 			.map((token) -> new DefaultCsrfToken(token.getHeaderName(), token.getParameterName(),
-					createXoredCsrfToken(this.secureRandom, token.getToken())))
+					this.tokenCodec.encode(token.getToken())))
 			.cast(CsrfToken.class)
 			.cache();
 		super.handle(exchange, updatedCsrfToken);
@@ -63,57 +62,7 @@ public final class XorServerCsrfTokenRequestAttributeHandler extends ServerCsrfT
 	@Override
 	public Mono<String> resolveCsrfTokenValue(ServerWebExchange exchange, CsrfToken csrfToken) {
 		return super.resolveCsrfTokenValue(exchange, csrfToken)
-			.flatMap((actualToken) -> Mono.justOrEmpty(getTokenValue(actualToken, csrfToken.getToken())));
-	}
-
-	private static String getTokenValue(String actualToken, String token) {
-		byte[] actualBytes;
-		try {
-			actualBytes = Base64.getUrlDecoder().decode(actualToken);
-		}
-		catch (Exception ex) {
-			return null;
-		}
-
-		byte[] tokenBytes = Utf8.encode(token);
-		int tokenSize = tokenBytes.length;
-		if (actualBytes.length != tokenSize * 2) {
-			return null;
-		}
-
-		// extract token and random bytes
-		byte[] xoredCsrf = new byte[tokenSize];
-		byte[] randomBytes = new byte[tokenSize];
-
-		System.arraycopy(actualBytes, 0, randomBytes, 0, tokenSize);
-		System.arraycopy(actualBytes, tokenSize, xoredCsrf, 0, tokenSize);
-
-		byte[] csrfBytes = xorCsrf(randomBytes, xoredCsrf);
-		return (csrfBytes != null) ? Utf8.decode(csrfBytes) : null;
-	}
-
-	private static String createXoredCsrfToken(SecureRandom secureRandom, String token) {
-		byte[] tokenBytes = Utf8.encode(token);
-		byte[] randomBytes = new byte[tokenBytes.length];
-		secureRandom.nextBytes(randomBytes);
-
-		byte[] xoredBytes = xorCsrf(randomBytes, tokenBytes);
-		byte[] combinedBytes = new byte[tokenBytes.length + randomBytes.length];
-		System.arraycopy(randomBytes, 0, combinedBytes, 0, randomBytes.length);
-		System.arraycopy(xoredBytes, 0, combinedBytes, randomBytes.length, xoredBytes.length);
-
-		return Base64.getUrlEncoder().encodeToString(combinedBytes);
-	}
-
-	private static byte[] xorCsrf(byte[] randomBytes, byte[] csrfBytes) {
-		Assert.isTrue(randomBytes.length == csrfBytes.length, "arrays must be equal length");
-		int len = csrfBytes.length;
-		byte[] xoredCsrf = new byte[len];
-		System.arraycopy(csrfBytes, 0, xoredCsrf, 0, len);
-		for (int i = 0; i < len; i++) {
-			xoredCsrf[i] ^= randomBytes[i];
-		}
-		return xoredCsrf;
+			.flatMap((actualToken) -> Mono.justOrEmpty(this.tokenCodec.decode(actualToken, csrfToken.getToken())));
 	}
 
 }
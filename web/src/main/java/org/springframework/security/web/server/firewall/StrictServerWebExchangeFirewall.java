@@ -16,11 +16,17 @@
 
 package org.springframework.security.web.server.firewall;
 
+import java.net.URI;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -34,6 +40,8 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.ServerWebExchangeDecorator;
@@ -120,9 +128,11 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 	private static final List<String> FORBIDDEN_PARAGRAPH_SEPARATOR = Collections
 		.unmodifiableList(Arrays.asList("\u2029"));
 
-	private Set<String> encodedUrlBlocklist = new HashSet<>();
+	private final Blocklist encodedUrlBlocklist = new Blocklist();
 
-	private Set<String> decodedUrlBlocklist = new HashSet<>();
+	private final Blocklist decodedUrlBlocklist = new Blocklist();
+
+	private volatile UrlValidator urlValidator;
 
 	private Set<HttpMethod> allowedHttpMethods = createDefaultAllowedHttpMethods();
 
@@ -184,9 +194,9 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 		return Mono.fromCallable(() -> {
 			ServerHttpRequest request = exchange.getRequest();
 			rejectForbiddenHttpMethod(request);
-			rejectedBlocklistedUrls(request);
+			boolean normalized = getUrlValidator().validate(request);
 			rejectedUntrustedHosts(request);
-			if (!isNormalized(request)) {
+			if (!normalized) {
 				throw new ServerExchangeRejectedException(
 						"The request was rejected because the URL was not normalized");
 			}
@@ -577,21 +587,13 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 		}
 	}
 
-	private void rejectedBlocklistedUrls(ServerHttpRequest request) {
-		for (String forbidden : this.encodedUrlBlocklist) {
-			if (encodedUrlContains(request, forbidden)) {
-				throw new ServerExchangeRejectedException(
-						"The request was rejected because the URL contained a potentially malicious String \""
-								+ forbidden + "\"");
-			}
-		}
-		for (String forbidden : this.decodedUrlBlocklist) {
-			if (decodedUrlContains(request, forbidden)) {
-				throw new ServerExchangeRejectedException(
-						"The request was rejected because the URL contained a potentially malicious String \""
-								+ forbidden + "\"");
-			}
+	private UrlValidator getUrlValidator() {
+		UrlValidator urlValidator = this.urlValidator;
+		if (urlValidator == null || !urlValidator.isCurrent(this.encodedUrlBlocklist, this.decodedUrlBlocklist)) {
+			urlValidator = new UrlValidator(this.encodedUrlBlocklist, this.decodedUrlBlocklist);
+			this.urlValidator = urlValidator;
 		}
+		return urlValidator;
 	}
 
 	private void rejectedUntrustedHosts(ServerHttpRequest request) {
@@ -614,33 +616,28 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 		return result;
 	}
 
-	private boolean isNormalized(ServerHttpRequest request) {
-		if (!isNormalized(request.getPath().value())) {
-			return false;
-		}
-		if (!isNormalized(request.getURI().getRawPath())) {
-			return false;
-		}
-		if (!isNormalized(request.getURI().getPath())) {
-			return false;
-		}
-		return true;
-	}
-
 	private void validateAllowedHeaderName(String headerNames) {
 		if (!StrictServerWebExchangeFirewall.this.allowedHeaderNames.test(headerNames)) {
-			throw new ServerExchangeRejectedException(
-					"The request was rejected because the header name \"" + headerNames + "\" is not allowed.");
+			throw headerNameRejected(headerNames);
 		}
 	}
 
 	private void validateAllowedHeaderValue(Object key, String value) {
 		if (!StrictServerWebExchangeFirewall.this.allowedHeaderValues.test(value)) {
-			throw new ServerExchangeRejectedException("The request was rejected because the header: \"" + key
-					+ " \" has a value \"" + value + "\" that is not allowed.");
+			throw headerValueRejected(key, value);
 		}
 	}
 
+	private static ServerExchangeRejectedException headerNameRejected(String headerName) {
+		return new ServerExchangeRejectedException(
+				"The request was rejected because the header name \"" + headerName + "\" is not allowed.");
+	}
+
+	private static ServerExchangeRejectedException headerValueRejected(Object key, String value) {
+		return new ServerExchangeRejectedException("The request was rejected because the header: \"" + key
+				+ " \" has a value \"" + value + "\" that is not allowed.");
+	}
+
 	private void validateAllowedParameterName(String name) {
 		if (!StrictServerWebExchangeFirewall.this.allowedParameterNames.test(name)) {
 			throw new ServerExchangeRejectedException(
@@ -655,17 +652,6 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 		}
 	}
 
-	private static boolean encodedUrlContains(ServerHttpRequest request, String value) {
-		if (valueContains(request.getPath().value(), value)) {
-			return true;
-		}
-		return valueContains(request.getURI().getRawPath(), value);
-	}
-
-	private static boolean decodedUrlContains(ServerHttpRequest request, String value) {
-		return valueContains(request.getURI().getPath(), value);
-	}
-
 	private static boolean containsOnlyPrintableAsciiCharacters(String uri) {
 		if (uri == null) {
 			return true;
@@ -680,59 +666,271 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 		return true;
 	}
 
-	private static boolean valueContains(String value, String contains) {
-		return value != null && value.contains(contains);
+	/**
+	 * A {@link Set} that records each modification so that a {@link UrlValidator} built
+	 * from it can be reused until the set is modified, including through
+	 * {@link #getEncodedUrlBlocklist()} and {@link #getDecodedUrlBlocklist()}.
+	 */
+	private static final class Blocklist extends AbstractSet<String> {
+
+		private final Set<String> values = new HashSet<>();
+
+		private volatile int version;
+
+		@Override
+		public boolean add(String value) {
+			boolean added = this.values.add(value);
+			if (added) {
+				this.version++;
+			}
+			return added;
+		}
+
+		@Override
+		public boolean remove(Object value) {
+			boolean removed = this.values.remove(value);
+			if (removed) {
+				this.version++;
+			}
+			return removed;
+		}
+
+		@Override
+		public void clear() {
+			this.values.clear();
+			this.version++;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return this.values.contains(value);
+		}
+
+		@Override
+		public int size() {
+			return this.values.size();
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			Iterator<String> iterator = this.values.iterator();
+			return new Iterator<>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public String next() {
+					return iterator.next();
+				}
+
+				@Override
+				public void remove() {
+					iterator.remove();
+					Blocklist.this.version++;
+				}
+
+			};
+		}
+
 	}
 
 	/**
-	 * Checks whether a path is normalized (doesn't contain path traversal sequences like
-	 * "./", "/../" or "/.")
-	 * @param path the path to test
-	 * @return true if the path doesn't contain any path-traversal character sequences.
+	 * Validates the paths of a request against the blocklists and checks that they are
+	 * normalized in a single pass over each distinct path. The blocklisted strings are
+	 * indexed by their first character so that each character of the path is only
+	 * compared to the strings that can start with it.
 	 */
-	private static boolean isNormalized(String path) {
-		if (path == null) {
-			return true;
+	private static final class UrlValidator {
+
+		private static final Forbidden[] NONE = new Forbidden[0];
+
+		private final int encodedVersion;
+
+		private final int decodedVersion;
+
+		private final Forbidden[][] asciiForbidden = new Forbidden[128][];
+
+		private final Forbidden[] nonAsciiForbidden;
+
+		private final Forbidden[] emptyForbidden;
+
+		private UrlValidator(Blocklist encodedUrlBlocklist, Blocklist decodedUrlBlocklist) {
+			this.encodedVersion = encodedUrlBlocklist.version;
+			this.decodedVersion = decodedUrlBlocklist.version;
+			Map<String, Forbidden> forbidden = new LinkedHashMap<>();
+			for (String value : encodedUrlBlocklist) {
+				forbidden.computeIfAbsent(value, Forbidden::new).encoded = true;
+			}
+			for (String value : decodedUrlBlocklist) {
+				forbidden.computeIfAbsent(value, Forbidden::new).decoded = true;
+			}
+			List<List<Forbidden>> ascii = new ArrayList<>(Collections.nCopies(128, null));
+			List<Forbidden> nonAscii = new ArrayList<>();
+			List<Forbidden> empty = new ArrayList<>();
+			for (Forbidden candidate : forbidden.values()) {
+				if (candidate.value.isEmpty()) {
+					empty.add(candidate);
+					continue;
+				}
+				char first = candidate.value.charAt(0);
+				if (first < 128) {
+					if (ascii.get(first) == null) {
+						ascii.set(first, new ArrayList<>());
+					}
+					ascii.get(first).add(candidate);
+				}
+				else {
+					nonAscii.add(candidate);
+				}
+			}
+			for (int i = 0; i < 128; i++) {
+				if (ascii.get(i) != null) {
+					this.asciiForbidden[i] = ascii.get(i).toArray(NONE);
+				}
+			}
+			this.nonAsciiForbidden = nonAscii.isEmpty() ? null : nonAscii.toArray(NONE);
+			this.emptyForbidden = empty.toArray(NONE);
+		}
+
+		private boolean isCurrent(Blocklist encodedUrlBlocklist, Blocklist decodedUrlBlocklist) {
+			return this.encodedVersion == encodedUrlBlocklist.version
+					&& this.decodedVersion == decodedUrlBlocklist.version;
 		}
-		for (int i = path.length(); i > 0;) {
-			int slashIndex = path.lastIndexOf('/', i - 1);
-			int gap = i - slashIndex;
-			if (gap == 2 && path.charAt(slashIndex + 1) == '.') {
-				return false; // ".", "/./" or "/."
+
+		/**
+		 * Rejects the request if one of its paths contains a blocklisted string.
+		 * @param request the request to validate
+		 * @return true if the paths of the request are normalized
+		 */
+		private boolean validate(ServerHttpRequest request) {
+			String path = request.getPath().value();
+			URI uri = request.getURI();
+			String rawPath = uri.getRawPath();
+			boolean normalized;
+			if (rawPath == null || path.equals(rawPath)) {
+				// without escapes the decoded path is the same as the raw path
+				boolean decoded = rawPath != null && rawPath.indexOf('%') == -1;
+				normalized = scan(path, true, decoded);
+				if (rawPath != null && !decoded) {
+					normalized &= scan(uri.getPath(), false, true);
+				}
 			}
-			if (gap == 3 && path.charAt(slashIndex + 1) == '.' && path.charAt(slashIndex + 2) == '.') {
-				return false;
+			else {
+				normalized = scan(path, true, false);
+				normalized &= scan(rawPath, true, false);
+				normalized &= scan(uri.getPath(), false, true);
 			}
-			i = slashIndex;
+			return normalized;
 		}
-		return true;
+
+		private boolean scan(String value, boolean encoded, boolean decoded) {
+			if (value == null) {
+				return true;
+			}
+			for (Forbidden forbidden : this.emptyForbidden) {
+				forbidden.validate(value, 0, encoded, decoded);
+			}
+			boolean normalized = true;
+			int segmentStart = 0;
+			int length = value.length();
+			for (int i = 0; i < length; i++) {
+				char c = value.charAt(i);
+				Forbidden[] candidates = (c < 128) ? this.asciiForbidden[c] : this.nonAsciiForbidden;
+				if (candidates != null) {
+					for (Forbidden forbidden : candidates) {
+						forbidden.validate(value, i, encoded, decoded);
+					}
+				}
+				if (c == '/') {
+					normalized &= isNormalizedSegment(value, segmentStart, i);
+					segmentStart = i + 1;
+				}
+			}
+			return normalized & isNormalizedSegment(value, segmentStart, length);
+		}
+
+		/**
+		 * Checks whether a path segment is a path traversal sequence ("." or "..")
+		 */
+		private static boolean isNormalizedSegment(String path, int start, int end) {
+			int length = end - start;
+			if (length == 1) {
+				return path.charAt(start) != '.';
+			}
+			if (length == 2) {
+				return path.charAt(start) != '.' || path.charAt(start + 1) != '.';
+			}
+			return true;
+		}
+
+	}
+
+	private static final class Forbidden {
+
+		private final String value;
+
+		private boolean encoded;
+
+		private boolean decoded;
+
+		private Forbidden(String value) {
+			this.value = value;
+		}
+
+		private void validate(String path, int offset, boolean encoded, boolean decoded) {
+			if (((encoded && this.encoded) || (decoded && this.decoded)) && path.startsWith(this.value, offset)) {
+				throw new ServerExchangeRejectedException(
+						"The request was rejected because the URL contained a potentially malicious String \""
+								+ this.value + "\"");
+			}
+		}
+
 	}
 
 	private final class StrictFirewallServerWebExchange extends ServerWebExchangeDecorator {
 
+		private final ServerHttpRequest request;
+
 		private StrictFirewallServerWebExchange(ServerWebExchange delegate) {
 			super(delegate);
+			this.request = new StrictFirewallHttpRequest(delegate.getRequest());
 		}
 
 		@Override
 		public ServerHttpRequest getRequest() {
-			return new StrictFirewallHttpRequest(super.getRequest());
+			return this.request;
 		}
 
 		private final class StrictFirewallHttpRequest extends ServerHttpRequestDecorator {
 
+			private volatile HttpHeaders headers;
+
+			private volatile MultiValueMap<String, String> queryParams;
+
 			private StrictFirewallHttpRequest(ServerHttpRequest delegate) {
 				super(delegate);
 			}
 
 			@Override
 			public HttpHeaders getHeaders() {
-				return new StrictFirewallHttpHeaders(super.getHeaders());
+				HttpHeaders headers = this.headers;
+				if (headers == null) {
+					headers = new StrictFirewallHttpHeaders(super.getHeaders());
+					this.headers = headers;
+				}
+				return headers;
 			}
 
 			@Override
 			public MultiValueMap<String, String> getQueryParams() {
-				MultiValueMap<String, String> queryParams = super.getQueryParams();
+				MultiValueMap<String, String> queryParams = this.queryParams;
+				if (queryParams != null) {
+					return queryParams;
+				}
+				queryParams = super.getQueryParams();
 				for (Map.Entry<String, List<String>> paramEntry : queryParams.entrySet()) {
 					String paramName = paramEntry.getKey();
 					validateAllowedParameterName(paramName);
@@ -740,45 +938,61 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 						validateAllowedParameterValue(paramName, paramValue);
 					}
 				}
+				this.queryParams = queryParams;
 				return queryParams;
 			}
 
+			/**
+			 * An immutable view of the request headers that validates every header once
+			 * when it is created and only reports the outcome when a header is accessed.
+			 */
 			private final class StrictFirewallHttpHeaders extends HttpHeaders {
 
+				private final Map<String, ValidatedHeader> validatedHeaders;
+
 				private StrictFirewallHttpHeaders(HttpHeaders delegate) {
-					super(delegate);
+					super(CollectionUtils.unmodifiableMultiValueMap(delegate));
+					this.validatedHeaders = new LinkedCaseInsensitiveMap<>(delegate.size(), Locale.ENGLISH);
+					for (Map.Entry<String, List<String>> header : delegate.entrySet()) {
+						this.validatedHeaders.put(header.getKey(),
+								new ValidatedHeader(header.getKey(), header.getValue()));
+					}
 				}
 
 				@Override
 				public String getFirst(String headerName) {
-					validateAllowedHeaderName(headerName);
-					String headerValue = super.getFirst(headerName);
-					validateAllowedHeaderValue(headerName, headerValue);
-					return headerValue;
+					ValidatedHeader validatedHeader = this.validatedHeaders.get(headerName);
+					if (validatedHeader == null) {
+						validateAllowedHeaderName(headerName);
+						validateAllowedHeaderValue(headerName, null);
+						return null;
+					}
+					validatedHeader.validateName(headerName);
+					validatedHeader.validateFirstValue(headerName);
+					return super.getFirst(headerName);
 				}
 
 				@Override
 				public List<String> get(Object key) {
-					if (key instanceof String headerName) {
-						validateAllowedHeaderName(headerName);
+					if (!(key instanceof String headerName)) {
+						return super.get(key);
 					}
-					List<String> headerValues = super.get(key);
-					if (headerValues == null) {
-						return headerValues;
-					}
-					for (String headerValue : headerValues) {
-						validateAllowedHeaderValue(key, headerValue);
+					ValidatedHeader validatedHeader = this.validatedHeaders.get(headerName);
+					if (validatedHeader == null) {
+						validateAllowedHeaderName(headerName);
+						return null;
 					}
-					return headerValues;
+					validatedHeader.validateName(headerName);
+					validatedHeader.validateValues(headerName);
+					return super.get(key);
 				}
 
 				@Override
 				public Set<String> keySet() {
-					Set<String> headerNames = super.keySet();
-					for (String headerName : headerNames) {
-						validateAllowedHeaderName(headerName);
+					for (ValidatedHeader validatedHeader : this.validatedHeaders.values()) {
+						validatedHeader.validateName(validatedHeader.name);
 					}
-					return headerNames;
+					return super.keySet();
 				}
 
 			}
@@ -787,4 +1001,61 @@ public class StrictServerWebExchangeFirewall implements ServerWebExchangeFirewal
 
 	}
 
+	/**
+	 * The outcome of validating the name and the values of a request header.
+	 */
+	private final class ValidatedHeader {
+
+		private final String name;
+
+		private final boolean nameAllowed;
+
+		private final boolean empty;
+
+		private final int rejectedValueIndex;
+
+		private final String rejectedValue;
+
+		private ValidatedHeader(String name, List<String> values) {
+			this.name = name;
+			this.nameAllowed = StrictServerWebExchangeFirewall.this.allowedHeaderNames.test(name);
+			this.empty = values.isEmpty();
+			int rejectedValueIndex = -1;
+			for (int i = 0; i < values.size(); i++) {
+				if (!StrictServerWebExchangeFirewall.this.allowedHeaderValues.test(values.get(i))) {
+					rejectedValueIndex = i;
+					break;
+				}
+			}
+			this.rejectedValueIndex = rejectedValueIndex;
+			this.rejectedValue = (rejectedValueIndex != -1) ? values.get(rejectedValueIndex) : null;
+		}
+
+		private void validateName(String headerName) {
+			if (!this.name.equals(headerName)) {
+				// the outcome is only known for the name as received
+				validateAllowedHeaderName(headerName);
+			}
+			else if (!this.nameAllowed) {
+				throw headerNameRejected(headerName);
+			}
+		}
+
+		private void validateFirstValue(String headerName) {
+			if (this.empty) {
+				validateAllowedHeaderValue(headerName, null);
+			}
+			else if (this.rejectedValueIndex == 0) {
+				throw headerValueRejected(headerName, this.rejectedValue);
+			}
+		}
+
+		private void validateValues(String headerName) {
+			if (this.rejectedValueIndex != -1) {
+				throw headerValueRejected(headerName, this.rejectedValue);
+			}
+		}
+
+	}
+
 }
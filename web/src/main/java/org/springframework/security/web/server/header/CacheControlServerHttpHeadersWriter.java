@@ -68,4 +68,8 @@ public class CacheControlServerHttpHeadersWriter implements ServerHttpHeadersWri
 		return CACHE_HEADERS.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return CACHE_HEADERS;
+	}
+
 }
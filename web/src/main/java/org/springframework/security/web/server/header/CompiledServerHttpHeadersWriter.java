@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.header;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Combines multiple {@link ServerHttpHeadersWriter} instances into a single instance that
+ * precomputes the headers of the writers that always write the same headers.
+ *
+ * <p>
+ * The headers of {@link StaticServerHttpHeadersWriter} and of the writers of this package
+ * that delegate to one, such as {@link XFrameOptionsServerHttpHeadersWriter} or
+ * {@link StrictTransportSecurityServerHttpHeadersWriter}, are copied when this instance
+ * is created and written to the response without subscribing to any {@link Mono}. Other
+ * writers are invoked in order as {@link CompositeServerHttpHeadersWriter} does. As with
+ * {@link StaticServerHttpHeadersWriter}, the headers of a writer are only written if the
+ * response contains none of them.
+ *
+ * <p>
+ * Since the headers are precomputed, the writers must be fully configured before they are
+ * provided to this instance.
+ *
+ * @since 6.5
+ * @see CompositeServerHttpHeadersWriter
+ */
+public final class CompiledServerHttpHeadersWriter implements ServerHttpHeadersWriter {
+
+	private final Step[] steps;
+
+	public CompiledServerHttpHeadersWriter(ServerHttpHeadersWriter... writers) {
+		this(Arrays.asList(writers));
+	}
+
+	public CompiledServerHttpHeadersWriter(List<ServerHttpHeadersWriter> writers) {
+		List<Step> steps = new ArrayList<>(writers.size());
+		for (ServerHttpHeadersWriter writer : writers) {
+			Step step = compile(writer);
+			if (step != null) {
+				steps.add(step);
+			}
+		}
+		this.steps = steps.toArray(new Step[0]);
+	}
+
+	@Override
+	public Mono<Void> writeHttpHeaders(ServerWebExchange exchange) {
+		return writeHttpHeaders(exchange, 0);
+	}
+
+	private Mono<Void> writeHttpHeaders(ServerWebExchange exchange, int from) {
+		for (int i = from; i < this.steps.length; i++) {
+			Step step = this.steps[i];
+			if (step.writer != null) {
+				int next = i + 1;
+				return step.writer.writeHttpHeaders(exchange).then(Mono.defer(() -> writeHttpHeaders(exchange, next)));
+			}
+			step.write(exchange);
+		}
+		return Mono.empty();
+	}
+
+	/**
+	 * Returns the precomputed {@link Step} of the provided writer, {@code null} if it
+	 * never writes any header, or a {@link Step} invoking the writer if its headers
+	 * cannot be precomputed
+	 */
+	private static Step compile(ServerHttpHeadersWriter writer) {
+		if (writer instanceof StrictTransportSecurityServerHttpHeadersWriter hsts) {
+			Step step = compile(hsts, hsts.getDelegate());
+			if (step != null && step.writer == null) {
+				step.secureOnly = true;
+			}
+			return step;
+		}
+		if (writer instanceof ReferrerPolicyServerHttpHeadersWriter referrerPolicy) {
+			return compile(writer, referrerPolicy.getDelegate());
+		}
+		if (writer instanceof ContentSecurityPolicyServerHttpHeadersWriter contentSecurityPolicy) {
+			return compile(writer, contentSecurityPolicy.getDelegate());
+		}
+		if (writer instanceof PermissionsPolicyServerHttpHeadersWriter permissionsPolicy) {
+			return compile(writer, permissionsPolicy.getDelegate());
+		}
+		if (writer instanceof FeaturePolicyServerHttpHeadersWriter featurePolicy) {
+			return compile(writer, featurePolicy.getDelegate());
+		}
+		if (writer instanceof CrossOriginOpenerPolicyServerHttpHeadersWriter openerPolicy) {
+			return compile(writer, openerPolicy.getDelegate());
+		}
+		if (writer instanceof CrossOriginEmbedderPolicyServerHttpHeadersWriter embedderPolicy) {
+			return compile(writer, embedderPolicy.getDelegate());
+		}
+		if (writer instanceof CrossOriginResourcePolicyServerHttpHeadersWriter resourcePolicy) {
+			return compile(writer, resourcePolicy.getDelegate());
+		}
+		// the following classes are not final, and subclasses may write other headers
+		Class<?> type = writer.getClass();
+		if (type == StaticServerHttpHeadersWriter.class) {
+			return new Step(((StaticServerHttpHeadersWriter) writer).getHeadersToAdd());
+		}
+		if (type == XFrameOptionsServerHttpHeadersWriter.class) {
+			return compile(writer, ((XFrameOptionsServerHttpHeadersWriter) writer).getDelegate());
+		}
+		if (type == XXssProtectionServerHttpHeadersWriter.class) {
+			return compile(writer, ((XXssProtectionServerHttpHeadersWriter) writer).getDelegate());
+		}
+		if (type == XContentTypeOptionsServerHttpHeadersWriter.class) {
+			return compile(writer, ((XContentTypeOptionsServerHttpHeadersWriter) writer).getDelegate());
+		}
+		if (type == ContentTypeOptionsServerHttpHeadersWriter.class) {
+			return compile(writer, ((ContentTypeOptionsServerHttpHeadersWriter) writer).getDelegate());
+		}
+		if (type == CacheControlServerHttpHeadersWriter.class) {
+			Step step = compile(writer, ((CacheControlServerHttpHeadersWriter) writer).getDelegate());
+			if (step != null && step.writer == null) {
+				step.unlessNotModified = true;
+			}
+			return step;
+		}
+		return new Step(writer);
+	}
+
+	private static Step compile(ServerHttpHeadersWriter writer, ServerHttpHeadersWriter delegate) {
+		if (delegate == null) {
+			return null;
+		}
+		if (delegate.getClass() == StaticServerHttpHeadersWriter.class) {
+			return new Step(((StaticServerHttpHeadersWriter) delegate).getHeadersToAdd());
+		}
+		return new Step(writer);
+	}
+
+	private static final class Step {
+
+		private final ServerHttpHeadersWriter writer;
+
+		private final String[] headerNames;
+
+		private final List<List<String>> headerValues;
+
+		private boolean secureOnly;
+
+		private boolean unlessNotModified;
+
+		private Step(ServerHttpHeadersWriter writer) {
+			this.writer = writer;
+			this.headerNames = null;
+			this.headerValues = null;
+		}
+
+		private Step(HttpHeaders headers) {
+			this.writer = null;
+			this.headerNames = new String[headers.size()];
+			this.headerValues = new ArrayList<>(headers.size());
+			int i = 0;
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				this.headerNames[i] = header.getKey();
+				this.headerValues.add(new ArrayList<>(header.getValue()));
+				i++;
+			}
+		}
+
+		private void write(ServerWebExchange exchange) {
+			if (this.secureOnly && !isSecure(exchange)) {
+				return;
+			}
+			if (this.unlessNotModified && isNotModified(exchange)) {
+				return;
+			}
+			HttpHeaders headers = exchange.getResponse().getHeaders();
+			for (String headerName : this.headerNames) {
+				if (headers.containsKey(headerName)) {
+					return;
+				}
+			}
+			for (int i = 0; i < this.headerNames.length; i++) {
+				// the response may add values, so each response gets its own list
+				headers.put(this.headerNames[i], new ArrayList<>(this.headerValues.get(i)));
+			}
+		}
+
+		private static boolean isSecure(ServerWebExchange exchange) {
+			String scheme = exchange.getRequest().getURI().getScheme();
+			return scheme != null && scheme.equalsIgnoreCase("https");
+		}
+
+		private static boolean isNotModified(ServerWebExchange exchange) {
+			return exchange.getResponse().getStatusCode() == HttpStatus.NOT_MODIFIED;
+		}
+
+	}
+
+}
@@ -46,6 +46,10 @@ public final class ContentSecurityPolicyServerHttpHeadersWriter implements Serve
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Set the policy directive(s) to be used in the response header.
 	 * @param policyDirectives the policy directive(s)
@@ -44,4 +44,8 @@ public class ContentTypeOptionsServerHttpHeadersWriter implements ServerHttpHead
 		return CONTENT_TYPE_HEADERS.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return CONTENT_TYPE_HEADERS;
+	}
+
 }
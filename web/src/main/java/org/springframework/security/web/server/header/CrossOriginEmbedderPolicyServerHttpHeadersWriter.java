@@ -51,6 +51,10 @@ public final class CrossOriginEmbedderPolicyServerHttpHeadersWriter implements S
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	private static ServerHttpHeadersWriter createDelegate(CrossOriginEmbedderPolicy embedderPolicy) {
 		StaticServerHttpHeadersWriter.Builder builder = StaticServerHttpHeadersWriter.builder();
 		builder.header(EMBEDDER_POLICY, embedderPolicy.getPolicy());
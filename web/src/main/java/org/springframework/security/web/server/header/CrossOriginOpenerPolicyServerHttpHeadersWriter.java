@@ -51,6 +51,10 @@ public final class CrossOriginOpenerPolicyServerHttpHeadersWriter implements Ser
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	private static ServerHttpHeadersWriter createDelegate(CrossOriginOpenerPolicy openerPolicy) {
 		StaticServerHttpHeadersWriter.Builder builder = StaticServerHttpHeadersWriter.builder();
 		builder.header(OPENER_POLICY, openerPolicy.getPolicy());
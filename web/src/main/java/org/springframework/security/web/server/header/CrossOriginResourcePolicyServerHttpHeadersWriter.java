@@ -51,6 +51,10 @@ public final class CrossOriginResourcePolicyServerHttpHeadersWriter implements S
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	private static ServerHttpHeadersWriter createDelegate(CrossOriginResourcePolicy resourcePolicy) {
 		StaticServerHttpHeadersWriter.Builder builder = StaticServerHttpHeadersWriter.builder();
 		builder.header(RESOURCE_POLICY, resourcePolicy.getPolicy());
@@ -39,6 +39,10 @@ public final class FeaturePolicyServerHttpHeadersWriter implements ServerHttpHea
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Set the policy directive(s) to be used in the response header.
 	 * @param policyDirectives the policy directive(s)
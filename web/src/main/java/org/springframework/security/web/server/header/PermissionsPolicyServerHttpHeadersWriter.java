@@ -40,6 +40,10 @@ public final class PermissionsPolicyServerHttpHeadersWriter implements ServerHtt
 		return (this.delegate != null) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	private static ServerHttpHeadersWriter createDelegate(String policyDirectives) {
 		Builder builder = StaticServerHttpHeadersWriter.builder();
 		builder.header(PERMISSIONS_POLICY, policyDirectives);
@@ -47,6 +47,10 @@ public final class ReferrerPolicyServerHttpHeadersWriter implements ServerHttpHe
 		return this.delegate.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Set the policy to be used in the response header.
 	 * @param policy the policy
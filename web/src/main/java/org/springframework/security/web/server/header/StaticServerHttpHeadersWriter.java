@@ -55,6 +55,10 @@ public class StaticServerHttpHeadersWriter implements ServerHttpHeadersWriter {
 		return Mono.empty();
 	}
 
+	HttpHeaders getHeadersToAdd() {
+		return this.headersToAdd;
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -54,6 +54,10 @@ public final class StrictTransportSecurityServerHttpHeadersWriter implements Ser
 		return isSecure(exchange) ? this.delegate.writeHttpHeaders(exchange) : Mono.empty();
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Sets if subdomains should be included. Default is true
 	 * @param includeSubDomains if subdomains should be included
@@ -44,4 +44,8 @@ public class XContentTypeOptionsServerHttpHeadersWriter implements ServerHttpHea
 		return CONTENT_TYPE_HEADERS.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return CONTENT_TYPE_HEADERS;
+	}
+
 }
@@ -38,6 +38,10 @@ public class XFrameOptionsServerHttpHeadersWriter implements ServerHttpHeadersWr
 		return this.delegate.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Sets the X-Frame-Options mode. There is no support for ALLOW-FROM because not
 	 * <a href=
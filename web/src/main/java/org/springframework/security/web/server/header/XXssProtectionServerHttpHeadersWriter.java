@@ -50,6 +50,10 @@ public class XXssProtectionServerHttpHeadersWriter implements ServerHttpHeadersW
 		return this.delegate.writeHttpHeaders(exchange);
 	}
 
+	ServerHttpHeadersWriter getDelegate() {
+		return this.delegate;
+	}
+
 	/**
 	 * Sets the value of the X-XSS-PROTECTION header. Defaults to
 	 * {@link HeaderValue#DISABLED}
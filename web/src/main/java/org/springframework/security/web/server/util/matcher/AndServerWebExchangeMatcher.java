@@ -55,6 +55,10 @@ public class AndServerWebExchangeMatcher implements ServerWebExchangeMatcher {
 
 	@Override
 	public Mono<MatchResult> matches(ServerWebExchange exchange) {
+		MatchResult synchronousMatchResult = matchSynchronously(exchange);
+		if (synchronousMatchResult != null) {
+			return MatchResult.just(synchronousMatchResult);
+		}
 		return Mono.defer(() -> {
 			Map<String, Object> variables = new HashMap<>();
 			return Flux.fromIterable(this.matchers)
@@ -68,6 +72,34 @@ public class AndServerWebExchangeMatcher implements ServerWebExchangeMatcher {
 		});
 	}
 
+	@Override
+	public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		// a subclass overriding matches only must not be bypassed by the composites
+		return (getClass() == AndServerWebExchangeMatcher.class) ? matchSynchronously(exchange) : null;
+	}
+
+	private MatchResult matchSynchronously(ServerWebExchange exchange) {
+		Map<String, Object> variables = null;
+		for (ServerWebExchangeMatcher matcher : this.matchers) {
+			MatchResult matchResult = matcher.matchesSynchronously(exchange);
+			if (matchResult == null) {
+				return null;
+			}
+			if (!matchResult.isMatch()) {
+				logger.debug("Did not match");
+				return matchResult;
+			}
+			if (!matchResult.getVariables().isEmpty()) {
+				if (variables == null) {
+					variables = new HashMap<>();
+				}
+				variables.putAll(matchResult.getVariables());
+			}
+		}
+		logger.debug("All requestMatchers returned true");
+		return (variables != null) ? new MatchResult(true, variables) : MatchResult.of(true);
+	}
+
 	@Override
 	public String toString() {
 		return "AndServerWebExchangeMatcher{" + "matchers=" + this.matchers + '}';
@@ -16,6 +16,8 @@
 
 package org.springframework.security.web.server.util.matcher;
 
+import java.net.InetSocketAddress;
+
 import reactor.core.publisher.Mono;
 
 import org.springframework.security.web.util.matcher.IpAddressMatcher;
@@ -46,13 +48,18 @@ public final class IpAddressServerWebExchangeMatcher implements ServerWebExchang
 
 	@Override
 	public Mono<MatchResult> matches(ServerWebExchange exchange) {
-		// @formatter:off
-		return Mono.justOrEmpty(exchange.getRequest().getRemoteAddress())
-				.map((remoteAddress) -> remoteAddress.isUnresolved() ? remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress())
-				.map(this.ipAddressMatcher::matches)
-				.flatMap((matches) -> matches ? MatchResult.match() : MatchResult.notMatch())
-				.switchIfEmpty(MatchResult.notMatch());
-		// @formatter:on
+		return MatchResult.just(matchesSynchronously(exchange));
+	}
+
+	@Override
+	public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+		if (remoteAddress == null) {
+			return MatchResult.of(false);
+		}
+		String address = remoteAddress.isUnresolved() ? remoteAddress.getHostString()
+				: remoteAddress.getAddress().getHostAddress();
+		return MatchResult.of(this.ipAddressMatcher.matches(address));
 	}
 
 	@Override
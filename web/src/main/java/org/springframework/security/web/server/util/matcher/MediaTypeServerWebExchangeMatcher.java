@@ -73,13 +73,23 @@ public class MediaTypeServerWebExchangeMatcher implements ServerWebExchangeMatch
 
 	@Override
 	public Mono<MatchResult> matches(ServerWebExchange exchange) {
+		return MatchResult.just(matchSynchronously(exchange));
+	}
+
+	@Override
+	public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		// a subclass may only override matches, which would then be bypassed
+		return (getClass() == MediaTypeServerWebExchangeMatcher.class) ? matchSynchronously(exchange) : null;
+	}
+
+	private MatchResult matchSynchronously(ServerWebExchange exchange) {
 		List<MediaType> httpRequestMediaTypes;
 		try {
 			httpRequestMediaTypes = resolveMediaTypes(exchange);
 		}
 		catch (NotAcceptableStatusException ex) {
 			this.logger.debug("Failed to parse MediaTypes, returning false", ex);
-			return MatchResult.notMatch();
+			return MatchResult.of(false);
 		}
 		this.logger.debug(LogMessage.format("httpRequestMediaTypes=%s", httpRequestMediaTypes));
 		for (MediaType httpRequestMediaType : httpRequestMediaTypes) {
@@ -91,19 +101,19 @@ public class MediaTypeServerWebExchangeMatcher implements ServerWebExchangeMatch
 			if (this.useEquals) {
 				boolean isEqualTo = this.matchingMediaTypes.contains(httpRequestMediaType);
 				this.logger.debug("isEqualTo " + isEqualTo);
-				return isEqualTo ? MatchResult.match() : MatchResult.notMatch();
+				return isEqualTo ? MatchResult.of(true) : MatchResult.of(false);
 			}
 			for (MediaType matchingMediaType : this.matchingMediaTypes) {
 				boolean isCompatibleWith = matchingMediaType.isCompatibleWith(httpRequestMediaType);
 				this.logger.debug(LogMessage.format("%s .isCompatibleWith %s = %s", matchingMediaType,
 						httpRequestMediaType, isCompatibleWith));
 				if (isCompatibleWith) {
-					return MatchResult.match();
+					return MatchResult.of(true);
 				}
 			}
 		}
 		this.logger.debug("Did not match any media types");
-		return MatchResult.notMatch();
+		return MatchResult.of(false);
 	}
 
 	private boolean shouldIgnore(MediaType httpRequestMediaType) {
@@ -45,11 +45,33 @@ public class NegatedServerWebExchangeMatcher implements ServerWebExchangeMatcher
 
 	@Override
 	public Mono<MatchResult> matches(ServerWebExchange exchange) {
+		MatchResult synchronousMatchResult = matchSynchronously(exchange);
+		if (synchronousMatchResult != null) {
+			return MatchResult.just(synchronousMatchResult);
+		}
 		return this.matcher.matches(exchange)
 			.flatMap(this::negate)
 			.doOnNext((matchResult) -> logger.debug(LogMessage.format("matches = %s", matchResult.isMatch())));
 	}
 
+	@Override
+	public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		// not for subclasses, which may override matches only
+		return (getClass() == NegatedServerWebExchangeMatcher.class) ? matchSynchronously(exchange) : null;
+	}
+
+	private MatchResult matchSynchronously(ServerWebExchange exchange) {
+		MatchResult matchResult = this.matcher.matchesSynchronously(exchange);
+		if (matchResult == null) {
+			return null;
+		}
+		MatchResult negated = MatchResult.of(!matchResult.isMatch());
+		if (logger.isDebugEnabled()) {
+			logger.debug(LogMessage.format("matches = %s", negated.isMatch()));
+		}
+		return negated;
+	}
+
 	private Mono<MatchResult> negate(MatchResult matchResult) {
 		return matchResult.isMatch() ? MatchResult.notMatch() : MatchResult.match();
 	}
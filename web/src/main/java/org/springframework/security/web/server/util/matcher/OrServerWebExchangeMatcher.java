@@ -53,6 +53,10 @@ public class OrServerWebExchangeMatcher implements ServerWebExchangeMatcher {
 
 	@Override
 	public Mono<MatchResult> matches(ServerWebExchange exchange) {
+		MatchResult synchronousMatchResult = matchSynchronously(exchange);
+		if (synchronousMatchResult != null) {
+			return MatchResult.just(synchronousMatchResult);
+		}
 		return Flux.fromIterable(this.matchers)
 			.doOnNext((matcher) -> logger.debug(LogMessage.format("Trying to match using %s", matcher)))
 			.flatMap((matcher) -> matcher.matches(exchange))
@@ -62,6 +66,31 @@ public class OrServerWebExchangeMatcher implements ServerWebExchangeMatcher {
 			.doOnNext((matchResult) -> logger.debug(matchResult.isMatch() ? "matched" : "No matches found"));
 	}
 
+	@Override
+	public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		// the subclasses may override matches only
+		return (getClass() == OrServerWebExchangeMatcher.class) ? matchSynchronously(exchange) : null;
+	}
+
+	private MatchResult matchSynchronously(ServerWebExchange exchange) {
+		for (ServerWebExchangeMatcher matcher : this.matchers) {
+			MatchResult matchResult = matcher.matchesSynchronously(exchange);
+			if (matchResult == null) {
+				return null;
+			}
+			if (matchResult.isMatch()) {
+				logger.debug("matched");
+				return matchResult;
+			}
+		}
+		logger.debug("No matches found");
+		return MatchResult.of(false);
+	}
+
+	List<ServerWebExchangeMatcher> getMatchers() {
+		return this.matchers;
+	}
+
 	@Override
 	public String toString() {
 		return "OrServerWebExchangeMatcher{matchers=" + this.matchers + '}';
@@ -38,16 +38,39 @@ public interface ServerWebExchangeMatcher {
 	 */
 	Mono<MatchResult> matches(ServerWebExchange exchange);
 
+	/**
+	 * Determines if a request matches without subscribing to
+	 * {@link #matches(ServerWebExchange)}. Implementations that only need the exchange
+	 * itself to decide, for example its path, method or headers, can override this method
+	 * so that callers can avoid assembling a {@link Mono} on the hot path.
+	 * @param exchange the exchange to match
+	 * @return the same result as {@link #matches(ServerWebExchange)} or {@code null} if
+	 * it can only be obtained by subscribing to {@link #matches(ServerWebExchange)},
+	 * which is the default
+	 * @since 6.5
+	 */
+	default MatchResult matchesSynchronously(ServerWebExchange exchange) {
+		return null;
+	}
+
 	/**
 	 * The result of matching
 	 */
 	class MatchResult {
 
+		private static final MatchResult MATCH = new MatchResult(true, Collections.emptyMap());
+
+		private static final MatchResult NOT_MATCH = new MatchResult(false, Collections.emptyMap());
+
+		private static final Mono<MatchResult> MATCH_MONO = Mono.just(MATCH);
+
+		private static final Mono<MatchResult> NOT_MATCH_MONO = Mono.just(NOT_MATCH);
+
 		private final boolean match;
 
 		private final Map<String, Object> variables;
 
-		private MatchResult(boolean match, Map<String, Object> variables) {
+		MatchResult(boolean match, Map<String, Object> variables) {
 			this.match = match;
 			this.variables = variables;
 		}
@@ -69,7 +92,7 @@ public interface ServerWebExchangeMatcher {
 		 * @return
 		 */
 		public static Mono<MatchResult> match() {
-			return match(Collections.emptyMap());
+			return MATCH_MONO;
 		}
 
 		/**
@@ -88,7 +111,29 @@ public interface ServerWebExchangeMatcher {
 		 * @return
 		 */
 		public static Mono<MatchResult> notMatch() {
-			return Mono.just(new MatchResult(false, Collections.emptyMap()));
+			return NOT_MATCH_MONO;
+		}
+
+		/**
+		 * Returns an instance of {@link MatchResult} with no variables, for use by
+		 * {@link ServerWebExchangeMatcher#matchesSynchronously(ServerWebExchange)}. The
+		 * same instances are returned on each invocation.
+		 * @param match whether the result is a match
+		 * @return the {@link MatchResult}
+		 * @since 6.5
+		 */
+		public static MatchResult of(boolean match) {
+			return match ? MATCH : NOT_MATCH;
+		}
+
+		static Mono<MatchResult> just(MatchResult matchResult) {
+			if (matchResult == MATCH) {
+				return MATCH_MONO;
+			}
+			if (matchResult == NOT_MATCH) {
+				return NOT_MATCH_MONO;
+			}
+			return Mono.just(matchResult);
 		}
 
 	}
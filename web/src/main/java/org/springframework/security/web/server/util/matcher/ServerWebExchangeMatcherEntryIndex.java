@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.util.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+/**
+ * An index over an ordered list of {@link ServerWebExchangeMatcherEntry} that narrows
+ * down the entries that can match a given exchange without evaluating every matcher.
+ *
+ * <p>
+ * Entries whose matcher is a {@link PathPatternParserServerWebExchangeMatcher}, or an
+ * {@link OrServerWebExchangeMatcher} of them such as the ones created by
+ * {@link ServerWebExchangeMatchers#pathMatchers(String...)}, are stored in a trie keyed
+ * on the literal path segments that start their patterns along with their
+ * {@link HttpMethod}. Other entries are candidates for every exchange. Candidates are
+ * returned in their original order and still need to be matched, so the first matching
+ * candidate is the first matching entry.
+ *
+ * @param <T> the type of the entries
+ * @since 6.5
+ */
+public final class ServerWebExchangeMatcherEntryIndex<T> {
+
+	private final List<ServerWebExchangeMatcherEntry<T>> entries;
+
+	private final BitSet unindexed = new BitSet();
+
+	private final Node root = new Node();
+
+	/**
+	 * Creates an index of the provided entries
+	 * @param entries the entries, in the order in which they should be considered
+	 */
+	public ServerWebExchangeMatcherEntryIndex(List<ServerWebExchangeMatcherEntry<T>> entries) {
+		Assert.notNull(entries, "entries cannot be null");
+		this.entries = new ArrayList<>(entries);
+		for (int i = 0; i < this.entries.size(); i++) {
+			List<PathPatternParserServerWebExchangeMatcher> pathMatchers = new ArrayList<>();
+			if (collectIndexable(this.entries.get(i).getMatcher(), pathMatchers)) {
+				for (PathPatternParserServerWebExchangeMatcher pathMatcher : pathMatchers) {
+					index(i, pathMatcher);
+				}
+			}
+			else {
+				this.unindexed.set(i);
+			}
+		}
+	}
+
+	/**
+	 * Returns the entries that can match the provided exchange, in their original order.
+	 * The entries that are not returned do not match the exchange.
+	 * @param exchange the exchange
+	 * @return the candidate entries
+	 */
+	public List<ServerWebExchangeMatcherEntry<T>> getCandidates(ServerWebExchange exchange) {
+		HttpMethod method = exchange.getRequest().getMethod();
+		BitSet candidates = (BitSet) this.unindexed.clone();
+		Node node = this.root;
+		node.collect(method, candidates);
+		for (PathContainer.Element element : exchange.getRequest().getPath().pathWithinApplication().elements()) {
+			if (element instanceof PathContainer.PathSegment segment) {
+				node = node.children.get(segment.valueToMatch());
+				if (node == null) {
+					break;
+				}
+				node.collect(method, candidates);
+			}
+		}
+		List<ServerWebExchangeMatcherEntry<T>> result = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(this.entries.get(i));
+		}
+		return result;
+	}
+
+	private void index(int entry, PathPatternParserServerWebExchangeMatcher pathMatcher) {
+		Node node = this.root;
+		for (String segment : pathMatcher.getPattern().getPatternString().split("/")) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+			if (!isLiteral(segment)) {
+				break;
+			}
+			node = node.children.computeIfAbsent(segment, (key) -> new Node());
+		}
+		node.add(entry, pathMatcher.getMethod());
+	}
+
+	private static boolean collectIndexable(ServerWebExchangeMatcher matcher,
+			List<PathPatternParserServerWebExchangeMatcher> pathMatchers) {
+		if (matcher instanceof PathPatternParserServerWebExchangeMatcher pathMatcher) {
+			if (!isIndexable(pathMatcher.getPattern())) {
+				return false;
+			}
+			pathMatchers.add(pathMatcher);
+			return true;
+		}
+		if (matcher != null && matcher.getClass() == OrServerWebExchangeMatcher.class) {
+			for (ServerWebExchangeMatcher delegate : ((OrServerWebExchangeMatcher) matcher).getMatchers()) {
+				if (!collectIndexable(delegate, pathMatchers)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean isIndexable(PathPattern pattern) {
+		String patternString = pattern.getPatternString();
+		if (patternString.contains("//")) {
+			return false;
+		}
+		try {
+			// only case-sensitive patterns using '/' can be compared to path segments
+			// as-is
+			return pattern.equals(PathPatternParser.defaultInstance.parse(patternString));
+		}
+		catch (PatternParseException ex) {
+			return false;
+		}
+	}
+
+	private static boolean isLiteral(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static final class Node {
+
+		private final Map<String, Node> children = new HashMap<>();
+
+		private int[] entries = new int[0];
+
+		private HttpMethod[] methods = new HttpMethod[0];
+
+		private void add(int entry, HttpMethod method) {
+			int length = this.entries.length;
+			this.entries = Arrays.copyOf(this.entries, length + 1);
+			this.methods = Arrays.copyOf(this.methods, length + 1);
+			this.entries[length] = entry;
+			this.methods[length] = method;
+		}
+
+		private void collect(HttpMethod method, BitSet candidates) {
+			for (int i = 0; i < this.entries.length; i++) {
+				if (this.methods[i] == null || this.methods[i].equals(method)) {
+					candidates.set(this.entries[i]);
+				}
+			}
+		}
+
+	}
+
+}
@@ -109,6 +109,11 @@ public abstract class ServerWebExchangeMatchers {
 				return ServerWebExchangeMatcher.MatchResult.match();
 			}
 
+			@Override
+			public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+				return MatchResult.of(true);
+			}
+
 		};
 	}
 
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.authentication.rememberme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.TaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link CachingPersistentTokenRepository}.
+ */
+public class CachingPersistentTokenRepositoryTests {
+
+	private InMemoryTokenRepositoryImpl delegate;
+
+	private CachingPersistentTokenRepository repository;
+
+	@BeforeEach
+	public void setup() {
+		this.delegate = spy(new InMemoryTokenRepositoryImpl());
+		this.repository = new CachingPersistentTokenRepository(this.delegate);
+		this.repository.setFlushInterval(Duration.ofHours(1));
+	}
+
+	@AfterEach
+	public void cleanup() {
+		this.repository.destroy();
+	}
+
+	@Test
+	public void constructorWhenNullDelegateThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new CachingPersistentTokenRepository(null))
+			.withMessage("delegate cannot be null");
+	}
+
+	@Test
+	public void setBatchSizeWhenNotPositiveThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.repository.setBatchSize(0));
+	}
+
+	@Test
+	public void getTokenForSeriesWhenReadTwiceThenDelegateReadOnce() {
+		this.delegate.createNewToken(token("joe", "series", "token"));
+		assertThat(this.repository.getTokenForSeries("series").getTokenValue()).isEqualTo("token");
+		assertThat(this.repository.getTokenForSeries("series").getTokenValue()).isEqualTo("token");
+		verify(this.delegate, times(1)).getTokenForSeries("series");
+	}
+
+	@Test
+	public void getTokenForSeriesWhenMissingThenNull() {
+		assertThat(this.repository.getTokenForSeries("missing")).isNull();
+	}
+
+	@Test
+	public void updateTokenWhenNotFlushedThenCachedValueReturnedAndDelegateNotUpdated() {
+		this.repository.createNewToken(token("joe", "series", "token"));
+		this.repository.updateToken("series", "updated", new Date());
+		assertThat(this.repository.getTokenForSeries("series").getTokenValue()).isEqualTo("updated");
+		assertThat(this.delegate.getTokenForSeries("series").getTokenValue()).isEqualTo("token");
+		verify(this.delegate, times(0)).updateToken(anyString(), anyString(), any());
+	}
+
+	@Test
+	public void flushWhenUpdatesPendingThenDelegateUpdatedInOneBatch() {
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		this.repository.updateToken("joes", "first", new Date());
+		this.repository.updateToken("joes", "second", new Date());
+		this.repository.updateToken("bobs", "third", new Date());
+		this.repository.flush();
+		ArgumentCaptor<Collection<PersistentRememberMeToken>> updates = ArgumentCaptor.captor();
+		verify(this.delegate).updateTokens(updates.capture());
+		assertThat(updates.getValue()).extracting(PersistentRememberMeToken::getTokenValue)
+			.containsExactly("second", "third");
+		assertThat(this.delegate.getTokenForSeries("joes").getTokenValue()).isEqualTo("second");
+		assertThat(this.delegate.getTokenForSeries("bobs").getTokenValue()).isEqualTo("third");
+	}
+
+	@Test
+	public void updateTokenWhenBatchSizeReachedThenFlushed() {
+		this.repository.setBatchSize(2);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		this.repository.updateToken("joes", "first", new Date());
+		this.repository.updateToken("bobs", "second", new Date());
+		verify(this.delegate, timeout(5000)).updateTokens(anyCollection());
+	}
+
+	@Test
+	public void updateTokenWhenTaskSchedulerThenFlushScheduledOnceAndRescheduledWhenFlushIntervalChanges() {
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		ScheduledFuture<?> flushTask = mock(ScheduledFuture.class);
+		willReturn(flushTask).given(taskScheduler)
+			.scheduleWithFixedDelay(any(), any(Instant.class), any(Duration.class));
+		this.repository.setTaskScheduler(taskScheduler);
+		verifyNoInteractions(taskScheduler);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "first", new Date());
+		this.repository.updateToken("joes", "second", new Date());
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofHours(1)));
+		this.repository.setFlushInterval(Duration.ofMinutes(1));
+		verify(flushTask).cancel(false);
+		verify(taskScheduler).scheduleWithFixedDelay(any(), any(Instant.class), eq(Duration.ofMinutes(1)));
+	}
+
+	@Test
+	public void updateTokenWhenBatchSizeExceededAgainThenFlushScheduledOnceUntilItRuns() {
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		willReturn(mock(ScheduledFuture.class)).given(taskScheduler)
+			.scheduleWithFixedDelay(any(), any(Instant.class), any(Duration.class));
+		this.repository.setTaskScheduler(taskScheduler);
+		this.repository.setBatchSize(1);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "first", new Date());
+		this.repository.updateToken("joes", "second", new Date());
+		ArgumentCaptor<Runnable> batchFlush = ArgumentCaptor.forClass(Runnable.class);
+		verify(taskScheduler).schedule(batchFlush.capture(), any(Instant.class));
+		batchFlush.getValue().run();
+		assertThat(this.delegate.getTokenForSeries("joes").getTokenValue()).isEqualTo("second");
+		this.repository.updateToken("joes", "third", new Date());
+		verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+	}
+
+	@Test
+	public void flushWhenDelegateFailsThenRetriedOnNextFlush() {
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "updated", new Date());
+		willThrow(new IllegalStateException()).willCallRealMethod().given(this.delegate).updateTokens(anyCollection());
+		this.repository.flush();
+		assertThat(this.repository.getTokenForSeries("joes").getTokenValue()).isEqualTo("updated");
+		this.repository.flush();
+		assertThat(this.delegate.getTokenForSeries("joes").getTokenValue()).isEqualTo("updated");
+	}
+
+	@Test
+	public void getTokenForSeriesWhenEvictedFromCacheAndUpdatePendingThenPendingValueReturned() {
+		this.repository.setMaxCacheSize(1);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "updated", new Date());
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		assertThat(this.repository.getTokenForSeries("joes").getTokenValue()).isEqualTo("updated");
+	}
+
+	@Test
+	public void removeUserTokensWhenUpdatePendingThenEvictedAndNotWritten() {
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		this.repository.updateToken("joes", "updated", new Date());
+		this.repository.removeUserTokens("joe");
+		assertThat(this.repository.getTokenForSeries("joes")).isNull();
+		assertThat(this.repository.getTokenForSeries("bobs")).isNotNull();
+		this.repository.flush();
+		verify(this.delegate, times(0)).updateTokens(anyCollection());
+	}
+
+	@Test
+	public void removeUserTokensWhenUpdatesPendingForUncachedSeriesThenOnlyRemovedSeriesDiscarded() {
+		this.repository.setMaxCacheSize(1);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		this.repository.updateToken("joes", "updated", new Date());
+		this.repository.createNewToken(token("alice", "alices", "token"));
+		this.repository.updateToken("bobs", "updated", new Date());
+		this.repository.removeUserTokens("joe");
+		this.repository.flush();
+		assertThat(this.delegate.getTokenForSeries("joes")).isNull();
+		assertThat(this.delegate.getTokenForSeries("bobs").getTokenValue()).isEqualTo("updated");
+	}
+
+	@Test
+	public void removeAllUserTokensThenEvictedAndDelegateInvoked() {
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.createNewToken(token("bob", "bobs", "token"));
+		this.repository.removeAllUserTokens(List.of("joe", "bob"));
+		verify(this.delegate).removeAllUserTokens(List.of("joe", "bob"));
+		assertThat(this.repository.getTokenForSeries("joes")).isNull();
+		assertThat(this.repository.getTokenForSeries("bobs")).isNull();
+	}
+
+	@Test
+	public void destroyWhenUpdatesPendingThenFlushed() {
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "updated", new Date());
+		this.repository.destroy();
+		assertThat(this.delegate.getTokenForSeries("joes").getTokenValue()).isEqualTo("updated");
+	}
+
+	@Test
+	public void processAutoLoginCookieWhenTokenReusedThenCookieTheftDetected() {
+		PersistentTokenBasedRememberMeServices services = new PersistentTokenBasedRememberMeServices("key",
+				(username) -> null, this.repository);
+		this.repository.createNewToken(token("joe", "joes", "token"));
+		this.repository.updateToken("joes", "rotated", new Date());
+		assertThat(this.repository.getTokenForSeries("joes").getTokenValue()).isEqualTo("rotated");
+		assertThatExceptionOfType(CookieTheftException.class)
+			.isThrownBy(() -> services.processAutoLoginCookie(new String[] { "joes", "token" },
+					new MockHttpServletRequest(), new MockHttpServletResponse()));
+		assertThat(this.repository.getTokenForSeries("joes")).isNull();
+		assertThat(this.delegate.getTokenForSeries("joes")).isNull();
+	}
+
+	private static PersistentRememberMeToken token(String username, String series, String value) {
+		return new PersistentRememberMeToken(username, series, value, new Date());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -185,4 +185,31 @@ public class JdbcTokenRepositoryImplTests {
 		verify(template).update(anyString(), anyString(), eq(lastUsed), anyString());
 	}
 
+	@Test
+	public void updateTokensModifiesAllTokens() {
+		this.template.execute("insert into persistent_logins (series, username, token, last_used) values "
+				+ "('joesseries', 'joeuser', 'atoken', '2007-10-09 18:19:25.000000000')");
+		this.template.execute("insert into persistent_logins (series, username, token, last_used) values "
+				+ "('bobsseries', 'bob', 'btoken', '2007-10-09 18:19:25.000000000')");
+		Date lastUsed = new Date();
+		this.repo.updateTokens(List.of(new PersistentRememberMeToken("joeuser", "joesseries", "newatoken", lastUsed),
+				new PersistentRememberMeToken("bob", "bobsseries", "newbtoken", lastUsed)));
+		assertThat(this.repo.getTokenForSeries("joesseries").getTokenValue()).isEqualTo("newatoken");
+		assertThat(this.repo.getTokenForSeries("bobsseries").getTokenValue()).isEqualTo("newbtoken");
+	}
+
+	@Test
+	public void removeAllUserTokensDeletesDataOfAllUsers() {
+		this.template.execute("insert into persistent_logins (series, username, token, last_used) values "
+				+ "('joesseries', 'joeuser', 'atoken', '2007-10-09 18:19:25.000000000')");
+		this.template.execute("insert into persistent_logins (series, username, token, last_used) values "
+				+ "('bobsseries', 'bob', 'btoken', '2007-10-09 18:19:25.000000000')");
+		this.template.execute("insert into persistent_logins (series, username, token, last_used) values "
+				+ "('alicesseries', 'alice', 'ctoken', '2007-10-09 18:19:25.000000000')");
+		this.repo.removeAllUserTokens(List.of("joeuser", "bob"));
+		List<Map<String, Object>> results = this.template.queryForList("select * from persistent_logins");
+		assertThat(results).hasSize(1);
+		assertThat(results.get(0)).containsEntry("username", "alice");
+	}
+
 }
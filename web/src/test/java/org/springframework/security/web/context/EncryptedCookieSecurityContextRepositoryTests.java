@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link EncryptedCookieSecurityContextRepository}.
+ */
+public class EncryptedCookieSecurityContextRepositoryTests {
+
+	private static final String COOKIE_NAME = "SECURITY_CONTEXT";
+
+	private final Instant now = Instant.now();
+
+	private EncryptedCookieSecurityContextRepository repository;
+
+	@BeforeEach
+	public void setup() {
+		this.repository = new EncryptedCookieSecurityContextRepository(
+				Encryptors.stronger("password", KeyGenerators.string().generateKey()),
+				new SecretKeySpec(KeyGenerators.secureRandom(32).generateKey(), "HmacSHA256"));
+		this.repository.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenEncryptorNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new EncryptedCookieSecurityContextRepository((SecurityContextCookieCodec) null));
+	}
+
+	@Test
+	public void saveContextThenEncryptedCookieOnResponse() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSecure(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(authenticated(), request, response);
+		Cookie cookie = response.getCookie(COOKIE_NAME);
+		assertThat(cookie).isNotNull();
+		assertThat(cookie.getValue()).doesNotContain("user");
+		assertThat(cookie.getMaxAge()).isEqualTo(1800);
+		assertThat(cookie.getPath()).isEqualTo("/");
+		assertThat(cookie.isHttpOnly()).isTrue();
+		assertThat(cookie.getSecure()).isTrue();
+		assertThat(request.getSession(false)).isNull();
+	}
+
+	@Test
+	public void loadDeferredContextWhenSavedThenSecurityContext() {
+		SecurityContext context = authenticated();
+		Cookie cookie = save(context);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(cookie);
+		assertThat(this.repository.containsContext(request)).isTrue();
+		assertThat(this.repository.loadDeferredContext(request).get()).isEqualTo(context);
+	}
+
+	@Test
+	public void loadDeferredContextWhenNoCookieThenEmptyContext() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertThat(this.repository.containsContext(request)).isFalse();
+		assertThat(this.repository.loadDeferredContext(request).get().getAuthentication()).isNull();
+	}
+
+	@Test
+	public void loadDeferredContextWhenExpiredThenEmptyContext() {
+		Cookie cookie = save(authenticated());
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(cookie);
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(31)), ZoneOffset.UTC));
+		assertThat(this.repository.containsContext(request)).isFalse();
+		assertThat(this.repository.loadDeferredContext(request).get().getAuthentication()).isNull();
+	}
+
+	@Test
+	public void loadContextWhenLessThanHalfOfMaxAgeRemainsThenRenewed() {
+		SecurityContext context = authenticated();
+		Cookie cookie = save(context);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(cookie);
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(10)), ZoneOffset.UTC));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertThat(this.repository.loadContext(new HttpRequestResponseHolder(request, response))).isEqualTo(context);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC));
+		assertThat(this.repository.loadContext(new HttpRequestResponseHolder(request, response))).isEqualTo(context);
+		Cookie renewed = response.getCookie(COOKIE_NAME);
+		assertThat(renewed).isNotNull();
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(renewed);
+		assertThat(this.repository.loadDeferredContext(nextRequest).get()).isEqualTo(context);
+	}
+
+	@Test
+	public void securityContextHolderFilterWhenLessThanHalfOfMaxAgeRemainsThenRenewed() throws Exception {
+		SecurityContext context = authenticated();
+		Cookie cookie = save(context);
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC));
+		SecurityContextHolderFilter filter = new SecurityContextHolderFilter(new DelegatingSecurityContextRepository(
+				new RequestAttributeSecurityContextRepository(), this.repository));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(cookie);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<SecurityContext> loaded = new AtomicReference<>();
+		filter.doFilter(request, response,
+				(req, res) -> loaded.set(SecurityContextHolder.getContextHolderStrategy().getContext()));
+		assertThat(loaded.get()).isEqualTo(context);
+		Cookie renewed = response.getCookie(COOKIE_NAME);
+		assertThat(renewed).isNotNull();
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(renewed);
+		assertThat(this.repository.loadDeferredContext(nextRequest).get()).isEqualTo(context);
+	}
+
+	@Test
+	public void securityContextHolderFilterWhenContextNotReadThenNotRenewed() throws Exception {
+		Cookie cookie = save(authenticated());
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC));
+		SecurityContextHolderFilter filter = new SecurityContextHolderFilter(this.repository);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(cookie);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, (req, res) -> {
+		});
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveContextWhenEmptyAndCookieThenCookieRemoved() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(save(authenticated()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(new SecurityContextImpl(), request, response);
+		assertThat(response.getCookie(COOKIE_NAME).getMaxAge()).isZero();
+	}
+
+	@Test
+	public void saveContextWhenAnonymousThenNotSaved() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		SecurityContext context = new SecurityContextImpl(new AnonymousAuthenticationToken("key", "anonymous",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+		this.repository.saveContext(context, new MockHttpServletRequest(), response);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveContextWhenExceedsMaxCookieSizeThenNotSaved() {
+		this.repository.setMaxCookieSize(10);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(authenticated(), new MockHttpServletRequest(), response);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void setMaxAgeWhenNotPositiveThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.repository.setMaxAge(Duration.ZERO));
+	}
+
+	private Cookie save(SecurityContext context) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(context, new MockHttpServletRequest(), response);
+		return response.getCookie(COOKIE_NAME);
+	}
+
+	private static SecurityContext authenticated() {
+		return new SecurityContextImpl(new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+	}
+
+}
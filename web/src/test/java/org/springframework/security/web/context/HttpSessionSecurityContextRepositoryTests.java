@@ -48,6 +48,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.Transient;
 import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.DeferredSecurityContext;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContextImpl;
@@ -63,6 +64,7 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -170,6 +172,59 @@ public class HttpSessionSecurityContextRepositoryTests {
 		verifyNoInteractions(session);
 	}
 
+	@Test
+	public void loadDeferredContextWhenLoadedAgainForSameRequestThenHttpSessionReadOnce() {
+		SecurityContextImpl expectedContext = new SecurityContextImpl(this.testToken);
+		HttpSession session = mock(HttpSession.class);
+		given(session.getId()).willReturn("id");
+		given(session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+			.willReturn(expectedContext);
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(session);
+		assertThat(repo.loadDeferredContext(request).get()).isSameAs(expectedContext);
+		// for example an ASYNC or ERROR dispatch of the same request
+		assertThat(repo.loadDeferredContext(request).get()).isSameAs(expectedContext);
+		verify(session, times(1)).getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+	}
+
+	@Test
+	public void loadDeferredContextWhenNoContextInSessionThenNewEmptyContextEachTime() {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.getSession();
+		DeferredSecurityContext first = repo.loadDeferredContext(request);
+		first.get().setAuthentication(this.testToken);
+		DeferredSecurityContext second = repo.loadDeferredContext(request);
+		assertThat(second.isGenerated()).isTrue();
+		assertThat(second.get().getAuthentication()).isNull();
+	}
+
+	@Test
+	public void loadDeferredContextWhenSavedAfterLoadThenSavedContextReturned() {
+		SecurityContextImpl expectedContext = new SecurityContextImpl(this.testToken);
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		request.getSession();
+		assertThat(repo.loadDeferredContext(request).isGenerated()).isTrue();
+		repo.saveContext(expectedContext, request, response);
+		assertThat(repo.loadDeferredContext(request).get()).isEqualTo(expectedContext);
+	}
+
+	@Test
+	public void loadDeferredContextWhenSessionReplacedThenHttpSessionReadAgain() {
+		SecurityContextImpl expectedContext = new SecurityContextImpl(this.testToken);
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.getSession();
+		assertThat(repo.loadDeferredContext(request).isGenerated()).isTrue();
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, expectedContext);
+		request.setSession(session);
+		assertThat(repo.loadDeferredContext(request).get()).isEqualTo(expectedContext);
+	}
+
 	@Test
 	public void existingContextIsSuccessFullyLoadedFromSessionAndSavedBack() {
 		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
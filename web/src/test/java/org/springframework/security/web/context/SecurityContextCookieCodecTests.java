@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import java.io.ObjectInputFilter;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.x500.X500Principal;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.web.context.SecurityContextCookieCodec.DecodedSecurityContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link SecurityContextCookieCodec}.
+ */
+public class SecurityContextCookieCodecTests {
+
+	private final SecretKey macKey = macKey();
+
+	private final SecurityContextCookieCodec codec = new SecurityContextCookieCodec(
+			Encryptors.stronger("password", KeyGenerators.string().generateKey()), this.macKey);
+
+	@Test
+	public void constructorWhenEncryptorNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new SecurityContextCookieCodec(null, this.macKey))
+			.withMessage("encryptor cannot be null");
+	}
+
+	@Test
+	public void constructorWhenMacKeyShorterThan256BitsThenIllegalArgumentException() {
+		SecretKey macKey = new SecretKeySpec(KeyGenerators.secureRandom(16).generateKey(), "HmacSHA256");
+		assertThatIllegalArgumentException()
+			.isThrownBy(
+					() -> new SecurityContextCookieCodec(Encryptors.stronger("password", "5c0744940b5c369b"), macKey))
+			.withMessage("macKey must be at least 256 bits");
+	}
+
+	@Test
+	public void decodeWhenEncodedThenSameSecurityContext() {
+		SecurityContext context = new SecurityContextImpl(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+		Instant expiresAt = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.SECONDS);
+		String value = this.codec.encode(context, expiresAt);
+		assertThat(value).doesNotContain("user").doesNotContain("=");
+		DecodedSecurityContext decoded = this.codec.decode(value);
+		assertThat(decoded.getSecurityContext()).isEqualTo(context);
+		assertThat(decoded.getExpiresAt()).isEqualTo(expiresAt);
+	}
+
+	@Test
+	public void decodeWhenTamperedThenNull() {
+		String value = this.codec.encode(new SecurityContextImpl(new TestingAuthenticationToken("user", "password")),
+				Instant.now());
+		char last = value.charAt(value.length() - 1);
+		String tampered = value.substring(0, value.length() - 1) + ((last == 'A') ? 'B' : 'A');
+		assertThat(this.codec.decode(tampered)).isNull();
+	}
+
+	@Test
+	public void decodeWhenUnauthenticatedEncryptorAndTamperedThenNull() {
+		String salt = KeyGenerators.string().generateKey();
+		SecurityContextCookieCodec codec = new SecurityContextCookieCodec(Encryptors.standard("password", salt),
+				this.macKey);
+		String value = codec.encode(new SecurityContextImpl(new TestingAuthenticationToken("user", "password")),
+				Instant.now());
+		char first = value.charAt(0);
+		String tampered = ((first == 'A') ? 'B' : 'A') + value.substring(1);
+		assertThat(codec.decode(tampered)).isNull();
+	}
+
+	@Test
+	public void decodeWhenOtherMacKeyThenNull() {
+		String salt = KeyGenerators.string().generateKey();
+		SecurityContextCookieCodec other = new SecurityContextCookieCodec(Encryptors.stronger("password", salt),
+				macKey());
+		SecurityContextCookieCodec codec = new SecurityContextCookieCodec(Encryptors.stronger("password", salt),
+				this.macKey);
+		String value = other.encode(new SecurityContextImpl(new TestingAuthenticationToken("user", "password")),
+				Instant.now());
+		assertThat(codec.decode(value)).isNull();
+	}
+
+	@Test
+	public void decodeWhenClassNotAllowedThenNull() {
+		SecurityContext context = new SecurityContextImpl(
+				new TestingAuthenticationToken(new X500Principal("CN=user"), "password"));
+		String value = this.codec.encode(context, Instant.now());
+		assertThat(this.codec.decode(value)).isNull();
+		this.codec.setObjectInputFilter(ObjectInputFilter.Config
+			.createFilter(X500Principal.class.getName() + ";java.**;org.springframework.security.**;!*"));
+		assertThat(this.codec.decode(value).getSecurityContext()).isEqualTo(context);
+	}
+
+	@Test
+	public void decodeWhenEncodedWithOtherKeyThenNull() {
+		SecurityContextCookieCodec other = new SecurityContextCookieCodec(
+				Encryptors.stronger("other", KeyGenerators.string().generateKey()), this.macKey);
+		String value = other.encode(new SecurityContextImpl(new TestingAuthenticationToken("user", "password")),
+				Instant.now());
+		assertThat(this.codec.decode(value)).isNull();
+	}
+
+	@Test
+	public void decodeWhenNotEncodedThenNull() {
+		assertThat(this.codec.decode(null)).isNull();
+		assertThat(this.codec.decode("")).isNull();
+		assertThat(this.codec.decode("not encoded!")).isNull();
+	}
+
+	private static SecretKey macKey() {
+		return new SecretKeySpec(KeyGenerators.secureRandom(32).generateKey(), "HmacSHA256");
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.csrf;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link XorCsrfTokenCodec}.
+ */
+public class XorCsrfTokenCodecTests {
+
+	private static final String TOKEN = "abc";
+
+	@Test
+	public void constructorWhenSecureRandomNullThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new XorCsrfTokenCodec(null))
+			.withMessage("secureRandom cannot be null");
+	}
+
+	@Test
+	public void encodeWhenSecureRandomThenRandomBytesFollowedByXoredToken() {
+		SecureRandom secureRandom = mock(SecureRandom.class);
+		willAnswer((invocation) -> {
+			Arrays.fill((byte[]) invocation.getArgument(0), (byte) 1);
+			return null;
+		}).given(secureRandom).nextBytes(any(byte[].class));
+		XorCsrfTokenCodec codec = new XorCsrfTokenCodec(secureRandom);
+		String encoded = codec.encode(TOKEN);
+		assertThat(Base64.getUrlDecoder().decode(encoded)).containsExactly(1, 1, 1, 96, 99, 98);
+	}
+
+	@Test
+	public void decodeWhenEncodedThenReturnsToken() {
+		XorCsrfTokenCodec codec = new XorCsrfTokenCodec();
+		String token = UUID.randomUUID().toString();
+		String encoded = codec.encode(token);
+		assertThat(encoded).isNotEqualTo(codec.encode(token));
+		assertThat(codec.decode(encoded, token)).isEqualTo(token);
+	}
+
+	@Test
+	public void decodeWhenNonAsciiTokenThenReturnsToken() {
+		XorCsrfTokenCodec codec = new XorCsrfTokenCodec();
+		String token = "tök€😀n";
+		assertThat(codec.decode(codec.encode(token), token)).isEqualTo(token);
+	}
+
+	@Test
+	public void encodeWhenLoneSurrogateThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new XorCsrfTokenCodec().encode("a\uD800b"));
+	}
+
+	@Test
+	public void decodeWhenLoneSurrogateThenReturnsNull() {
+		XorCsrfTokenCodec codec = new XorCsrfTokenCodec();
+		// counting the lone surrogate as a 3 bytes character would match this length
+		String encoded = codec.encode("a\u0800b");
+		assertThat(codec.decode(encoded, "a\uD800b")).isNull();
+	}
+
+	@Test
+	public void decodeWhenInvalidBase64ThenReturnsNull() {
+		assertThat(new XorCsrfTokenCodec().decode("%", TOKEN)).isNull();
+	}
+
+	@Test
+	public void decodeWhenWrongLengthThenReturnsNull() {
+		String encoded = Base64.getUrlEncoder().encodeToString(new byte[] { 1, 1, 1, 96, 99 });
+		assertThat(new XorCsrfTokenCodec().decode(encoded, TOKEN)).isNull();
+	}
+
+	@Test
+	public void decodeWhenNullThenReturnsNull() {
+		assertThat(new XorCsrfTokenCodec().decode(null, TOKEN)).isNull();
+	}
+
+	@Test
+	public void encodeWhenConcurrentThenMasksAreUnique() throws Exception {
+		XorCsrfTokenCodec codec = new XorCsrfTokenCodec();
+		String token = UUID.randomUUID().toString();
+		Set<String> encoded = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				for (int j = 0; j < 500; j++) {
+					String value = codec.encode(token);
+					assertThat(codec.decode(value, token)).isEqualTo(token);
+					encoded.add(value);
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(encoded).hasSize(4000);
+	}
+
+}
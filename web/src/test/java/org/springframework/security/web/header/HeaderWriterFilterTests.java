@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,10 +31,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.header.writers.ContentSecurityPolicyHeaderWriter;
+import org.springframework.security.web.header.writers.HstsHeaderWriter;
+import org.springframework.security.web.header.writers.StaticHeadersWriter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -124,4 +131,71 @@ public class HeaderWriterFilterTests {
 		verifyNoMoreInteractions(this.writer1);
 	}
 
+	@Test
+	public void doFilterWhenPrecomputeHeadersThenWritesSameHeaders() throws Exception {
+		List<HeaderWriter> headerWriters = Arrays.asList(new XContentTypeOptionsHeaderWriter(),
+				new ContentSecurityPolicyHeaderWriter("default-src 'none'"), new HstsHeaderWriter(),
+				new StaticHeadersWriter("X-Custom", "a", "b"));
+		HeaderWriterFilter filter = new HeaderWriterFilter(headerWriters);
+		filter.setPrecomputeHeaders(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSecure(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		assertThat(response.getHeaderNames()).containsExactly("X-Content-Type-Options", "Content-Security-Policy",
+				"Strict-Transport-Security", "X-Custom");
+		assertThat(response.getHeader("Content-Security-Policy")).isEqualTo("default-src 'none'");
+		assertThat(response.getHeaderValues("X-Custom")).containsExactly("a", "b");
+	}
+
+	@Test
+	public void doFilterWhenPrecomputeHeadersThenInvokesRequestDependentWritersInOrder() throws Exception {
+		HeaderWriter requestIndependent = mock(RequestIndependentHeaderWriter.class);
+		given(((RequestIndependentHeaderWriter) requestIndependent).getHeaders())
+			.willReturn(Collections.singletonList(new Header("X-Custom", "static")));
+		HeaderWriter requestDependent = (request, response) -> response.setHeader("X-Custom", "dynamic");
+		HeaderWriterFilter filter = new HeaderWriterFilter(Arrays.asList(requestDependent, requestIndependent));
+		filter.setPrecomputeHeaders(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+		assertThat(response.getHeaderValues("X-Custom")).containsExactly("dynamic");
+		verify(requestIndependent, never()).writeHeaders(any(), any());
+	}
+
+	@Test
+	public void doFilterWhenPrecomputeHeadersAndHeaderAlreadyWrittenThenNotOverridden() throws Exception {
+		HeaderWriterFilter filter = new HeaderWriterFilter(Arrays.asList(new StaticHeadersWriter("X-Custom", "first"),
+				new StaticHeadersWriter("x-custom", "second")));
+		filter.setPrecomputeHeaders(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, (request, res) -> {
+			((HttpServletResponse) res).setHeader("X-Other", "value");
+			res.flushBuffer();
+		});
+		assertThat(response.getHeaderValues("X-Custom")).containsExactly("first");
+		MockHttpServletResponse written = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), written,
+				(request, res) -> ((HttpServletResponse) res).setHeader("X-Custom", "application"));
+		assertThat(written.getHeaderValues("X-Custom")).containsExactly("application");
+	}
+
+	@Test
+	public void doFilterWhenPrecomputeHeadersAndStaticHeadersWriterSubclassThenInvokedForEachResponse()
+			throws Exception {
+		HeaderWriter subclass = new StaticHeadersWriter("X-Custom", "static") {
+			@Override
+			public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+				response.setHeader("X-Custom", request.getRequestURI());
+			}
+		};
+		HeaderWriterFilter filter = new HeaderWriterFilter(Collections.singletonList(subclass));
+		filter.setPrecomputeHeaders(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/first"), response, new MockFilterChain());
+		assertThat(response.getHeader("X-Custom")).isEqualTo("/first");
+		response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/second"), response, new MockFilterChain());
+		assertThat(response.getHeader("X-Custom")).isEqualTo("/second");
+	}
+
 }
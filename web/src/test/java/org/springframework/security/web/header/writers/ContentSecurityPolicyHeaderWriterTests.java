@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.header.Header;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -126,4 +127,11 @@ public class ContentSecurityPolicyHeaderWriterTests {
 		assertThat(this.response.getHeader(CONTENT_SECURITY_POLICY_REPORT_ONLY_HEADER)).isSameAs(value);
 	}
 
+	@Test
+	public void getHeadersWhenReportOnlyThenContainsReportOnlyHeader() {
+		this.writer.setReportOnly(true);
+		assertThat(this.writer.getHeaders())
+			.containsExactly(new Header(CONTENT_SECURITY_POLICY_REPORT_ONLY_HEADER, DEFAULT_POLICY_DIRECTIVES));
+	}
+
 }
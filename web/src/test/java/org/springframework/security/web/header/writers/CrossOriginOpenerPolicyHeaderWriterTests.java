@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2024 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.header.Header;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -77,4 +78,15 @@ class CrossOriginOpenerPolicyHeaderWriterTests {
 		assertThat(this.response.getHeader(OPENER_HEADER_NAME)).isEqualTo("same-origin-allow-popups");
 	}
 
+	@Test
+	void getHeadersWhenDefaultValuesThenEmpty() {
+		assertThat(this.writer.getHeaders()).isEmpty();
+	}
+
+	@Test
+	void getHeadersWhenSetOpenerPolicyThenContainsOpenerPolicy() {
+		this.writer.setPolicy(CrossOriginOpenerPolicyHeaderWriter.CrossOriginOpenerPolicy.SAME_ORIGIN);
+		assertThat(this.writer.getHeaders()).containsExactly(new Header(OPENER_HEADER_NAME, "same-origin"));
+	}
+
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.savedrequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link EncryptedCookieRequestCache}.
+ */
+public class EncryptedCookieRequestCacheTests {
+
+	private static final String COOKIE_NAME = "SAVED_REQUEST";
+
+	private final BytesEncryptor encryptor = Encryptors.stronger("password", KeyGenerators.string().generateKey());
+
+	private final SecretKey macKey = macKey();
+
+	private EncryptedCookieRequestCache requestCache;
+
+	@BeforeEach
+	public void setup() {
+		this.requestCache = new EncryptedCookieRequestCache(this.encryptor, this.macKey);
+	}
+
+	@Test
+	public void constructorWhenEncryptorNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new EncryptedCookieRequestCache(null, this.macKey));
+	}
+
+	@Test
+	public void constructorWhenMacKeyShorterThan256BitsThenIllegalArgumentException() {
+		SecretKey macKey = new SecretKeySpec(KeyGenerators.secureRandom(16).generateKey(), "HmacSHA256");
+		assertThatIllegalArgumentException().isThrownBy(() -> new EncryptedCookieRequestCache(this.encryptor, macKey))
+			.withMessage("macKey must be at least 256 bits");
+	}
+
+	@Test
+	public void saveRequestWhenMatchesThenEncryptedCookieOnResponse() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		Cookie savedCookie = response.getCookie(COOKIE_NAME);
+		assertThat(savedCookie).isNotNull();
+		assertThat(savedCookie.getValue()).doesNotContain("destination");
+		assertThat(savedCookie.getMaxAge()).isEqualTo(300);
+		assertThat(savedCookie.getPath()).isEqualTo("/");
+		assertThat(savedCookie.isHttpOnly()).isTrue();
+		assertThat(savedCookie.getSecure()).isTrue();
+		assertThat(request.getSession(false)).isNull();
+	}
+
+	@Test
+	public void getRequestWhenSavedThenReturnsSavedRequest() {
+		MockHttpServletRequest request = secureRequest();
+		request.setMethod("POST");
+		request.addParameter("lang", "en");
+		request.addParameter("secret", "s3cr3t");
+		this.requestCache.setParameterNames(List.of("lang"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(response.getCookie(COOKIE_NAME));
+		SavedRequest savedRequest = this.requestCache.getRequest(nextRequest, new MockHttpServletResponse());
+		assertThat(savedRequest).isNotNull();
+		assertThat(savedRequest.getRedirectUrl()).isEqualTo("https://abc.com/destination?param1=a&param2=b");
+		assertThat(savedRequest.getMethod()).isEqualTo("POST");
+		assertThat(savedRequest.getParameterValues("lang")).containsExactly("en");
+		assertThat(savedRequest.getParameterValues("secret")).isNull();
+	}
+
+	@Test
+	public void getRequestWhenNoCookieThenNull() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertThat(this.requestCache.getRequest(request, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenCookieTamperedThenNull() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		String value = response.getCookie(COOKIE_NAME).getValue();
+		char last = value.charAt(value.length() - 1);
+		String tampered = value.substring(0, value.length() - 1) + ((last == 'A') ? 'B' : 'A');
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(new Cookie(COOKIE_NAME, tampered));
+		assertThat(this.requestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenCookieNotEncodedThenNull() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(COOKIE_NAME, "https://abc.com/destination"));
+		assertThat(this.requestCache.getRequest(request, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenEncryptedWithOtherKeyThenNull() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		EncryptedCookieRequestCache otherRequestCache = new EncryptedCookieRequestCache(
+				Encryptors.stronger("other", KeyGenerators.string().generateKey()), this.macKey);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(response.getCookie(COOKIE_NAME));
+		assertThat(otherRequestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenOtherMacKeyThenNull() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		EncryptedCookieRequestCache otherRequestCache = new EncryptedCookieRequestCache(this.encryptor, macKey());
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(response.getCookie(COOKIE_NAME));
+		assertThat(otherRequestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenUnauthenticatedEncryptorAndCookieTamperedThenNull() {
+		String salt = KeyGenerators.string().generateKey();
+		EncryptedCookieRequestCache requestCache = new EncryptedCookieRequestCache(
+				Encryptors.standard("password", salt), this.macKey);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		requestCache.saveRequest(secureRequest(), response);
+		String value = response.getCookie(COOKIE_NAME).getValue();
+		char first = value.charAt(0);
+		String tampered = ((first == 'A') ? 'B' : 'A') + value.substring(1);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(new Cookie(COOKIE_NAME, tampered));
+		assertThat(requestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void getRequestWhenExpiredThenNull() {
+		Instant now = Instant.now();
+		this.requestCache.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(response.getCookie(COOKIE_NAME));
+		this.requestCache.setClock(Clock.fixed(now.plus(Duration.ofMinutes(4)), ZoneOffset.UTC));
+		assertThat(this.requestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNotNull();
+		this.requestCache.setClock(Clock.fixed(now.plus(Duration.ofMinutes(6)), ZoneOffset.UTC));
+		assertThat(this.requestCache.getRequest(nextRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void saveRequestWhenParametersExceedMaxCookieSizeThenParametersDropped() {
+		MockHttpServletRequest request = secureRequest();
+		request.addParameter("large", "x".repeat(1000));
+		this.requestCache.setParameterNames(List.of("large"));
+		this.requestCache.setMaxCookieSize(500);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		Cookie savedCookie = response.getCookie(COOKIE_NAME);
+		assertThat(savedCookie.getValue().length()).isLessThanOrEqualTo(500);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(savedCookie);
+		SavedRequest savedRequest = this.requestCache.getRequest(nextRequest, new MockHttpServletResponse());
+		assertThat(savedRequest.getRedirectUrl()).isEqualTo("https://abc.com/destination?param1=a&param2=b");
+		assertThat(savedRequest.getParameterValues("large")).isNull();
+	}
+
+	@Test
+	public void saveRequestWhenUrlExceedsMaxCookieSizeThenNotSaved() {
+		MockHttpServletRequest request = secureRequest();
+		request.setQueryString("q=" + "x".repeat(1000));
+		this.requestCache.setMaxCookieSize(500);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveRequestWhenUrlLongerThanUnsignedShortThenNotSaved() {
+		MockHttpServletRequest request = secureRequest();
+		request.setQueryString("q=" + "x".repeat(70_000));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveRequestWhenParameterValuesExceedUnsignedShortThenParametersDropped() {
+		MockHttpServletRequest request = secureRequest();
+		request.addParameter("large", "x".repeat(70_000));
+		request.addParameter("many", Collections.nCopies(70_000, "v").toArray(new String[0]));
+		this.requestCache.setParameterNames(List.of("large", "many"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setCookies(response.getCookie(COOKIE_NAME));
+		SavedRequest savedRequest = this.requestCache.getRequest(nextRequest, new MockHttpServletResponse());
+		assertThat(savedRequest.getRedirectUrl()).isEqualTo("https://abc.com/destination?param1=a&param2=b");
+		assertThat(savedRequest.getParameterMap()).isEmpty();
+	}
+
+	@Test
+	public void saveRequestWhenRequestMatcherDoesNotMatchThenNotSaved() {
+		this.requestCache.setRequestMatcher((request) -> false);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(secureRequest(), response);
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void getMatchingRequestWhenMatchesThenRemovesCookie() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		request.setCookies(response.getCookie(COOKIE_NAME));
+		MockHttpServletResponse matchingResponse = new MockHttpServletResponse();
+		HttpServletRequest matchingRequest = this.requestCache.getMatchingRequest(request, matchingResponse);
+		assertThat(matchingRequest).isNotNull();
+		assertThat(matchingResponse.getCookie(COOKIE_NAME).getMaxAge()).isZero();
+	}
+
+	@Test
+	public void getMatchingRequestWhenUrlDiffersThenNull() {
+		MockHttpServletRequest request = secureRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(request, response);
+		MockHttpServletRequest otherRequest = new MockHttpServletRequest("GET", "/other");
+		otherRequest.setCookies(response.getCookie(COOKIE_NAME));
+		assertThat(this.requestCache.getMatchingRequest(otherRequest, new MockHttpServletResponse())).isNull();
+	}
+
+	@Test
+	public void saveRequestWhenCookieCustomizerThenCustomized() {
+		this.requestCache.setCookieCustomizer((cookie) -> cookie.setAttribute("SameSite", "Strict"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.requestCache.saveRequest(secureRequest(), response);
+		assertThat(response.getCookie(COOKIE_NAME).getAttribute("SameSite")).isEqualTo("Strict");
+	}
+
+	@Test
+	public void setMaxAgeWhenNotPositiveThenIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.requestCache.setMaxAge(Duration.ZERO));
+	}
+
+	private static MockHttpServletRequest secureRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setServerPort(443);
+		request.setSecure(true);
+		request.setScheme("https");
+		request.setServerName("abc.com");
+		request.setRequestURI("/destination");
+		request.setQueryString("param1=a&param2=b");
+		return request;
+	}
+
+	private static SecretKey macKey() {
+		return new SecretKeySpec(KeyGenerators.secureRandom(32).generateKey(), "HmacSHA256");
+	}
+
+}
@@ -33,6 +33,7 @@ import org.springframework.web.server.ServerWebExchange;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -85,4 +86,20 @@ public class DelegatingServerAuthenticationEntryPointTests {
 		verifyNoMoreInteractions(this.delegate1);
 	}
 
+	@Test
+	public void commenceWhenMatchesSynchronouslyThenMatchesNotInvoked() {
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.of(false));
+		given(this.matcher2.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.of(true));
+		given(this.delegate2.commence(this.exchange, this.e)).willReturn(Mono.empty());
+		this.entryPoint = new DelegatingServerAuthenticationEntryPoint(new DelegateEntry(this.matcher1, this.delegate1),
+				new DelegateEntry(this.matcher2, this.delegate2));
+		this.entryPoint.commence(this.exchange, this.e).block();
+		verifyNoMoreInteractions(this.delegate1);
+		verify(this.delegate2).commence(this.exchange, this.e);
+		verify(this.matcher1, never()).matches(this.exchange);
+		verify(this.matcher2, never()).matches(this.exchange);
+	}
+
 }
@@ -50,6 +50,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -219,6 +220,53 @@ public class WebFilterChainProxyTests {
 		verify(handler).handle(any(), any());
 	}
 
+	@Test
+	void filterWhenMatcherMatchesSynchronouslyThenMatchesNotSubscribed() {
+		SynchronousMatcher match = new SynchronousMatcher(true);
+		MatcherSecurityWebFilterChain chain = new MatcherSecurityWebFilterChain(match,
+				Arrays.asList(new Http200WebFilter()));
+		WebFilterChainProxy filter = new WebFilterChainProxy(chain);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		WebFilterChain webFilterChain = mock(WebFilterChain.class);
+		filter.filter(exchange, webFilterChain).block();
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(match.subscribed).isFalse();
+		verifyNoInteractions(webFilterChain);
+	}
+
+	@Test
+	void filterWhenMatcherNotSynchronousThenFallsBackToMatches() {
+		ServerWebExchangeMatcher notMatch = (exchange) -> MatchResult.notMatch();
+		MatcherSecurityWebFilterChain first = new MatcherSecurityWebFilterChain(new SynchronousMatcher(false),
+				Arrays.asList(new Http200WebFilter()));
+		MatcherSecurityWebFilterChain second = new MatcherSecurityWebFilterChain(notMatch,
+				Arrays.asList(new Http200WebFilter()));
+		WebFilter passthrough = spy(new PassthroughWebFilter());
+		ServerWebExchangeMatcher match = (exchange) -> MatchResult.match();
+		MatcherSecurityWebFilterChain third = new MatcherSecurityWebFilterChain(match, Arrays.asList(passthrough));
+		WebFilterChainProxy filter = new WebFilterChainProxy(first, second, third);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		WebFilterChain webFilterChain = mock(WebFilterChain.class);
+		given(webFilterChain.filter(any())).willReturn(Mono.empty());
+		filter.filter(exchange, webFilterChain).block();
+		verify(passthrough).filter(any(), any());
+		verify(webFilterChain).filter(any());
+	}
+
+	@Test
+	void filterWhenSameChainThenFiltersInvokedForEachExchange() {
+		WebFilter passthrough = spy(new PassthroughWebFilter());
+		MatcherSecurityWebFilterChain chain = new MatcherSecurityWebFilterChain(new SynchronousMatcher(true),
+				Arrays.asList(passthrough));
+		WebFilterChainProxy filter = new WebFilterChainProxy(chain);
+		WebFilterChain webFilterChain = mock(WebFilterChain.class);
+		given(webFilterChain.filter(any())).willReturn(Mono.empty());
+		filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/")), webFilterChain).block();
+		filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/")), webFilterChain).block();
+		verify(passthrough, times(2)).filter(any(), any());
+		verify(webFilterChain, times(2)).filter(any());
+	}
+
 	static void assertFilterChainObservation(Observation.Context context, String filterSection, int chainPosition) {
 		assertThat(context).isInstanceOf(WebFilterChainObservationContext.class);
 		WebFilterChainObservationContext filterChainObservationContext = (WebFilterChainObservationContext) context;
@@ -245,4 +293,29 @@ public class WebFilterChainProxyTests {
 
 	}
 
+	static class SynchronousMatcher implements ServerWebExchangeMatcher {
+
+		private final boolean match;
+
+		private boolean subscribed;
+
+		SynchronousMatcher(boolean match) {
+			this.match = match;
+		}
+
+		@Override
+		public Mono<MatchResult> matches(ServerWebExchange exchange) {
+			return Mono.defer(() -> {
+				this.subscribed = true;
+				return this.match ? MatchResult.match() : MatchResult.notMatch();
+			});
+		}
+
+		@Override
+		public MatchResult matchesSynchronously(ServerWebExchange exchange) {
+			return this.match ? MatchResult.match().block() : MatchResult.notMatch().block();
+		}
+
+	}
+
 }
@@ -29,12 +29,15 @@ import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcherEntry;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import org.springframework.web.server.ServerWebExchange;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 /**
@@ -95,4 +98,55 @@ public class DelegatingReactiveAuthorizationManagerTests {
 		verifyNoMoreInteractions(this.delegate1);
 	}
 
+	@Test
+	public void checkWhenMatchesSynchronouslyThenMatchesNotInvoked() {
+		given(this.match1.matchesSynchronously(any())).willReturn(ServerWebExchangeMatcher.MatchResult.of(false));
+		given(this.match2.matchesSynchronously(any())).willReturn(ServerWebExchangeMatcher.MatchResult.of(true));
+		given(this.delegate2.check(eq(this.authentication), any(AuthorizationContext.class)))
+			.willReturn(Mono.just(this.decision));
+		assertThat(this.manager.check(this.authentication, this.exchange).block()).isEqualTo(this.decision);
+		verify(this.match1, never()).matches(any());
+		verify(this.match2, never()).matches(any());
+		verifyNoMoreInteractions(this.delegate1);
+	}
+
+	@Test
+	public void checkWhenFirstMatchesSynchronouslyAndDelegateEmptyThenSecondChecked() {
+		given(this.match1.matchesSynchronously(any())).willReturn(ServerWebExchangeMatcher.MatchResult.of(true));
+		given(this.delegate1.check(eq(this.authentication), any(AuthorizationContext.class))).willReturn(Mono.empty());
+		given(this.match2.matches(any())).willReturn(ServerWebExchangeMatcher.MatchResult.match());
+		given(this.delegate2.check(eq(this.authentication), any(AuthorizationContext.class)))
+			.willReturn(Mono.just(this.decision));
+		assertThat(this.manager.check(this.authentication, this.exchange).block()).isEqualTo(this.decision);
+	}
+
+	@Test
+	public void checkWhenNoMatchSynchronouslyThenDenied() {
+		given(this.match1.matchesSynchronously(any())).willReturn(ServerWebExchangeMatcher.MatchResult.of(false));
+		given(this.match2.matchesSynchronously(any())).willReturn(ServerWebExchangeMatcher.MatchResult.of(false));
+		assertThat(this.manager.check(this.authentication, this.exchange).block().isGranted()).isFalse();
+		verifyNoMoreInteractions(this.delegate1, this.delegate2);
+	}
+
+	@Test
+	public void checkWhenPathMatchersThenFirstMatchingEntryInOrderUsed() {
+		DelegatingReactiveAuthorizationManager manager = DelegatingReactiveAuthorizationManager.builder()
+			.add(new ServerWebExchangeMatcherEntry<>(ServerWebExchangeMatchers.pathMatchers("/admin/**"),
+					(authentication, context) -> Mono.just(new AuthorizationDecision(false))))
+			.add(new ServerWebExchangeMatcherEntry<>(ServerWebExchangeMatchers.pathMatchers("/users/{id}"),
+					(authentication, context) -> Mono
+						.just(new AuthorizationDecision("1".equals(context.getVariables().get("id"))))))
+			.add(new ServerWebExchangeMatcherEntry<>(ServerWebExchangeMatchers.anyExchange(),
+					(authentication, context) -> Mono.just(new AuthorizationDecision(true))))
+			.build();
+		assertThat(manager.check(this.authentication, exchange("/admin/page")).block().isGranted()).isFalse();
+		assertThat(manager.check(this.authentication, exchange("/users/1")).block().isGranted()).isTrue();
+		assertThat(manager.check(this.authentication, exchange("/users/2")).block().isGranted()).isFalse();
+		assertThat(manager.check(this.authentication, exchange("/other")).block().isGranted()).isTrue();
+	}
+
+	private static ServerWebExchange exchange(String path) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path).build());
+	}
+
 }
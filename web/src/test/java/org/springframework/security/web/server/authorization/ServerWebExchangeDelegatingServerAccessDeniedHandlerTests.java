@@ -104,4 +104,24 @@ public class ServerWebExchangeDelegatingServerAccessDeniedHandlerTests {
 		verify(this.accessDeniedHandler, never()).handle(this.exchange, null);
 	}
 
+	@Test
+	public void handleWhenSecondMatchesSynchronouslyThenOnlySecondInvoked() {
+		ServerAccessDeniedHandler firstHandler = mock(ServerAccessDeniedHandler.class);
+		ServerWebExchangeMatcher firstMatcher = mock(ServerWebExchangeMatcher.class);
+		ServerAccessDeniedHandler secondHandler = mock(ServerAccessDeniedHandler.class);
+		ServerWebExchangeMatcher secondMatcher = mock(ServerWebExchangeMatcher.class);
+		given(firstMatcher.matchesSynchronously(this.exchange)).willReturn(MatchResult.of(false));
+		given(secondMatcher.matchesSynchronously(this.exchange)).willReturn(MatchResult.of(true));
+		given(secondHandler.handle(this.exchange, null)).willReturn(Mono.empty());
+		this.entries.add(new DelegateEntry(firstMatcher, firstHandler));
+		this.entries.add(new DelegateEntry(secondMatcher, secondHandler));
+		this.delegator = new ServerWebExchangeDelegatingServerAccessDeniedHandler(this.entries);
+		this.delegator.setDefaultAccessDeniedHandler(this.accessDeniedHandler);
+		this.delegator.handle(this.exchange, null).block();
+		verify(secondHandler).handle(this.exchange, null);
+		verify(firstHandler, never()).handle(this.exchange, null);
+		verify(firstMatcher, never()).matches(this.exchange);
+		verify(secondMatcher, never()).matches(this.exchange);
+	}
+
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.web.context.SecurityContextCookieCodec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link EncryptedCookieServerSecurityContextRepository}.
+ */
+public class EncryptedCookieServerSecurityContextRepositoryTests {
+
+	private static final String COOKIE_NAME = "SECURITY_CONTEXT";
+
+	private final Instant now = Instant.now();
+
+	private EncryptedCookieServerSecurityContextRepository repository;
+
+	@BeforeEach
+	public void setup() {
+		this.repository = new EncryptedCookieServerSecurityContextRepository(
+				Encryptors.stronger("password", KeyGenerators.string().generateKey()),
+				new SecretKeySpec(KeyGenerators.secureRandom(32).generateKey(), "HmacSHA256"));
+		this.repository.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenEncryptorNullThenIllegalArgumentException() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new EncryptedCookieServerSecurityContextRepository((SecurityContextCookieCodec) null));
+	}
+
+	@Test
+	public void saveThenEncryptedCookieOnResponse() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://example.org/"));
+		this.repository.save(exchange, authenticated()).block();
+		ResponseCookie cookie = exchange.getResponse().getCookies().getFirst(COOKIE_NAME);
+		assertThat(cookie).isNotNull();
+		assertThat(cookie.getValue()).doesNotContain("user");
+		assertThat(cookie.getMaxAge()).isEqualTo(Duration.ofMinutes(30));
+		assertThat(cookie.getPath()).isEqualTo("/");
+		assertThat(cookie.isHttpOnly()).isTrue();
+		assertThat(cookie.isSecure()).isTrue();
+		assertThat(exchange.getSession().block().isStarted()).isFalse();
+	}
+
+	@Test
+	public void loadWhenSavedThenSecurityContext() {
+		SecurityContext context = authenticated();
+		ResponseCookie cookie = save(context);
+		MockServerWebExchange exchange = exchange(cookie);
+		assertThat(this.repository.load(exchange).block()).isEqualTo(context);
+		assertThat(exchange.getResponse().getCookies()).isEmpty();
+	}
+
+	@Test
+	public void loadWhenNoCookieThenEmpty() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		assertThat(this.repository.load(exchange).block()).isNull();
+	}
+
+	@Test
+	public void loadWhenTamperedThenEmpty() {
+		String value = save(authenticated()).getValue();
+		char last = value.charAt(value.length() - 1);
+		String tampered = value.substring(0, value.length() - 1) + ((last == 'A') ? 'B' : 'A');
+		MockServerWebExchange exchange = MockServerWebExchange
+			.from(MockServerHttpRequest.get("/").cookie(new HttpCookie(COOKIE_NAME, tampered)));
+		assertThat(this.repository.load(exchange).block()).isNull();
+	}
+
+	@Test
+	public void loadWhenExpiredThenEmpty() {
+		ResponseCookie cookie = save(authenticated());
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(31)), ZoneOffset.UTC));
+		assertThat(this.repository.load(exchange(cookie)).block()).isNull();
+	}
+
+	@Test
+	public void loadWhenLessThanHalfOfMaxAgeRemainsThenRenewed() {
+		SecurityContext context = authenticated();
+		ResponseCookie cookie = save(context);
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC));
+		MockServerWebExchange exchange = exchange(cookie);
+		assertThat(this.repository.load(exchange).block()).isEqualTo(context);
+		ResponseCookie renewed = exchange.getResponse().getCookies().getFirst(COOKIE_NAME);
+		assertThat(renewed).isNotNull();
+		this.repository.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(45)), ZoneOffset.UTC));
+		assertThat(this.repository.load(exchange(renewed)).block()).isEqualTo(context);
+	}
+
+	@Test
+	public void saveWhenNullAndCookieThenCookieRemoved() {
+		MockServerWebExchange exchange = exchange(save(authenticated()));
+		this.repository.save(exchange, null).block();
+		assertThat(exchange.getResponse().getCookies().getFirst(COOKIE_NAME).getMaxAge()).isZero();
+	}
+
+	@Test
+	public void saveWhenAnonymousThenNotSaved() {
+		SecurityContext context = new SecurityContextImpl(new AnonymousAuthenticationToken("key", "anonymous",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+		assertThat(save(context)).isNull();
+	}
+
+	@Test
+	public void saveWhenAnonymousAndCookieThenCookieRemoved() {
+		MockServerWebExchange exchange = exchange(save(authenticated()));
+		SecurityContext context = new SecurityContextImpl(new AnonymousAuthenticationToken("key", "anonymous",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+		this.repository.save(exchange, context).block();
+		assertThat(exchange.getResponse().getCookies().getFirst(COOKIE_NAME).getMaxAge()).isZero();
+	}
+
+	@Test
+	public void saveWhenTransientAuthenticationThenNotSaved() {
+		assertThat(save(new SecurityContextImpl(new SomeTransientAuthentication()))).isNull();
+	}
+
+	@Test
+	public void saveWhenExceedsMaxCookieSizeThenNotSaved() {
+		this.repository.setMaxCookieSize(10);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		this.repository.save(exchange, authenticated()).block();
+		assertThat(exchange.getResponse().getCookies()).isEmpty();
+	}
+
+	private ResponseCookie save(SecurityContext context) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		this.repository.save(exchange, context).block();
+		return exchange.getResponse().getCookies().getFirst(COOKIE_NAME);
+	}
+
+	private static MockServerWebExchange exchange(ResponseCookie cookie) {
+		return MockServerWebExchange
+			.from(MockServerHttpRequest.get("/").cookie(new HttpCookie(cookie.getName(), cookie.getValue())));
+	}
+
+	private static SecurityContext authenticated() {
+		return new SecurityContextImpl(new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+	}
+
+	@Transient
+	private static class SomeTransientAuthentication extends AbstractAuthenticationToken {
+
+		SomeTransientAuthentication() {
+			super(null);
+			setAuthenticated(true);
+		}
+
+		@Override
+		public Object getCredentials() {
+			return null;
+		}
+
+		@Override
+		public Object getPrincipal() {
+			return "user";
+		}
+
+	}
+
+}
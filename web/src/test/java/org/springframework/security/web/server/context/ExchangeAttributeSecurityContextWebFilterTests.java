@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.context;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.handler.DefaultWebFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ExchangeAttributeSecurityContextWebFilter}.
+ */
+public class ExchangeAttributeSecurityContextWebFilterTests {
+
+	private final SecurityContext securityContext = new SecurityContextImpl(
+			new TestingAuthenticationToken("user", "password"));
+
+	private final ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	public void constructorWhenNullRepositoryThenThrowsIllegalArgumentException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new ExchangeAttributeSecurityContextWebFilter(null));
+	}
+
+	@Test
+	public void filterWhenSecurityContextLoadedThenAvailableFromExchangeAndHolder() {
+		AtomicReference<SecurityContext> fromHolder = new AtomicReference<>();
+		AtomicReference<SecurityContext> fromExchange = new AtomicReference<>();
+		WebFilter assertions = (e, c) -> ReactiveSecurityContextHolder.getContext()
+			.doOnNext(fromHolder::set)
+			.then(ExchangeAttributeSecurityContextWebFilter.getSecurityContext(e))
+			.doOnNext(fromExchange::set)
+			.then(c.filter(e));
+		filter(Mono.just(this.securityContext), assertions);
+		assertThat(fromHolder.get()).isSameAs(this.securityContext);
+		assertThat(fromExchange.get()).isSameAs(this.securityContext);
+		assertThat(this.loads).hasValue(1);
+	}
+
+	@Test
+	public void filterWhenSecurityContextNotReadThenNotLoaded() {
+		filter(Mono.just(this.securityContext), (e, c) -> c.filter(e));
+		assertThat(this.loads).hasValue(0);
+		StepVerifier.create(ExchangeAttributeSecurityContextWebFilter.getSecurityContext(this.exchange))
+			.expectNext(this.securityContext)
+			.verifyComplete();
+		assertThat(this.loads).hasValue(1);
+	}
+
+	@Test
+	public void filterWhenSecurityContextReadTwiceThenLoadedOnce() {
+		WebFilter readTwice = (e, c) -> ReactiveSecurityContextHolder.getContext()
+			.then(ReactiveSecurityContextHolder.getContext())
+			.then(c.filter(e));
+		filter(Mono.just(this.securityContext), readTwice);
+		assertThat(this.loads).hasValue(1);
+	}
+
+	@Test
+	public void filterWhenNoSecurityContextThenChainContinuedOnce() {
+		AtomicInteger invocations = new AtomicInteger();
+		AtomicReference<SecurityContext> fromHolder = new AtomicReference<>();
+		WebFilter count = (e, c) -> ReactiveSecurityContextHolder.getContext()
+			.doOnNext(fromHolder::set)
+			.then(Mono.fromRunnable(invocations::incrementAndGet))
+			.then(c.filter(e));
+		filter(Mono.empty(), count);
+		assertThat(invocations).hasValue(1);
+		assertThat(fromHolder.get()).isNull();
+		StepVerifier.create(ExchangeAttributeSecurityContextWebFilter.getSecurityContext(this.exchange))
+			.verifyComplete();
+	}
+
+	@Test
+	public void filterWhenServerWebExchangeContextFilterThenAvailableFromHolder() {
+		AtomicReference<SecurityContext> fromHolder = new AtomicReference<>();
+		WebFilter assertions = (e,
+				c) -> ReactiveSecurityContextHolder.getContext().doOnNext(fromHolder::set).then(c.filter(e));
+		DefaultWebFilterChain chain = new DefaultWebFilterChain((e) -> Mono.empty(),
+				List.of(new ServerWebExchangeContextFilter(), filter(Mono.just(this.securityContext)), assertions));
+		StepVerifier.create(chain.filter(this.exchange)).verifyComplete();
+		assertThat(fromHolder.get()).isSameAs(this.securityContext);
+	}
+
+	@Test
+	public void getSecurityContextWhenNotFilteredThenEmpty() {
+		StepVerifier.create(ExchangeAttributeSecurityContextWebFilter.getSecurityContext(this.exchange))
+			.verifyComplete();
+	}
+
+	@Test
+	public void filterWhenSecurityContextAlreadyInReactorContextThenNotOverridden() {
+		SecurityContext existing = new SecurityContextImpl(new TestingAuthenticationToken("existing", "password"));
+		AtomicReference<SecurityContext> fromHolder = new AtomicReference<>();
+		// @formatter:off
+		WebFilter assertions = (e, c) -> ReactiveSecurityContextHolder.getContext()
+				.doOnNext(fromHolder::set)
+				.then(c.filter(e));
+		// @formatter:on
+		DefaultWebFilterChain chain = new DefaultWebFilterChain((e) -> Mono.empty(),
+				List.of(filter(Mono.just(this.securityContext)), assertions));
+		Mono<Void> result = chain.filter(this.exchange)
+			.contextWrite(ReactiveSecurityContextHolder.withSecurityContext(Mono.just(existing)))
+			.contextWrite(Context.of(ServerWebExchange.class, this.exchange));
+		StepVerifier.create(result).verifyComplete();
+		assertThat(fromHolder.get()).isSameAs(existing);
+		assertThat(this.loads).hasValue(0);
+	}
+
+	@Test
+	public void filterWhenMainContextThenDoesNotOverride() {
+		WebFilter assertions = (e, c) -> Mono.deferContextual((context) -> {
+			assertThat(context.hasKey("main")).isTrue();
+			return c.filter(e);
+		});
+		DefaultWebFilterChain chain = new DefaultWebFilterChain((e) -> Mono.empty(),
+				List.of(filter(Mono.just(this.securityContext)), assertions));
+		StepVerifier.create(chain.filter(this.exchange).contextWrite(Context.of("main", true))).verifyComplete();
+	}
+
+	private void filter(Mono<SecurityContext> loaded, WebFilter next) {
+		DefaultWebFilterChain chain = new DefaultWebFilterChain((e) -> Mono.empty(), List.of(filter(loaded), next));
+		StepVerifier
+			.create(chain.filter(this.exchange).contextWrite(Context.of(ServerWebExchange.class, this.exchange)))
+			.verifyComplete();
+	}
+
+	private WebFilter filter(Mono<SecurityContext> loaded) {
+		ServerSecurityContextRepository repository = mock(ServerSecurityContextRepository.class);
+		given(repository.load(any())).willReturn(loaded.doOnSubscribe((subscription) -> this.loads.incrementAndGet()));
+		return new ExchangeAttributeSecurityContextWebFilter(repository);
+	}
+
+}
@@ -364,6 +364,29 @@ class StrictServerWebExchangeFirewallTests {
 		getFirewalledExchange();
 	}
 
+	@Test
+	void getFirewalledExchangeWhenAddedToEncodedUrlBlocklistAfterFirstExchangeThenException() {
+		this.request = get("/admin/users");
+		getFirewalledExchange();
+		this.firewall.getEncodedUrlBlocklist().add("admin");
+		assertThatExceptionOfType(ServerExchangeRejectedException.class).isThrownBy(() -> getFirewalledExchange());
+	}
+
+	@Test
+	void getFirewalledExchangeWhenClearedDecodedUrlBlocklistAfterFirstExchangeThenNoException() {
+		this.request = get("/a%20b%25");
+		this.firewall.getEncodedUrlBlocklist().remove("%25");
+		assertThatExceptionOfType(ServerExchangeRejectedException.class).isThrownBy(() -> getFirewalledExchange());
+		this.firewall.getDecodedUrlBlocklist().clear();
+		getFirewalledExchange();
+	}
+
+	@Test
+	void getFirewalledExchangeWhenEncodedLineSeparatorThenException() {
+		this.request = get("/a%E2%80%A8b");
+		assertThatExceptionOfType(ServerExchangeRejectedException.class).isThrownBy(() -> getFirewalledExchange());
+	}
+
 	@Test
 	void getFirewalledExchangeWhenTrustedDomainThenNoException() {
 		this.request.header("Host", "example.org");
@@ -506,6 +529,37 @@ class StrictServerWebExchangeFirewallTests {
 		assertThatExceptionOfType(ServerExchangeRejectedException.class).isThrownBy(() -> request.getQueryParams());
 	}
 
+	@Test
+	void getFirewalledExchangeGetHeadersThenSameImmutableHeaders() {
+		this.request.header("Something", "value");
+		ServerWebExchange exchange = getFirewalledExchange();
+		HttpHeaders headers = exchange.getRequest().getHeaders();
+		assertThat(exchange.getRequest().getHeaders()).isSameAs(headers);
+		assertThat(headers.getFirst("something")).isEqualTo("value");
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> headers.add("Something", "other"));
+	}
+
+	@Test
+	void getFirewalledExchangeGetHeaderWhenNameAllowedOnlyInOtherCaseThenException() {
+		this.request.header("Something", "value");
+		this.firewall.setAllowedHeaderNames((name) -> !name.equals("SOMETHING"));
+		ServerWebExchange exchange = getFirewalledExchange();
+		HttpHeaders headers = exchange.getRequest().getHeaders();
+		assertThat(headers.getFirst("Something")).isEqualTo("value");
+		assertThatExceptionOfType(ServerExchangeRejectedException.class)
+			.isThrownBy(() -> headers.getFirst("SOMETHING"));
+	}
+
+	@Test
+	void getFirewalledExchangeGetFirstHeaderWhenOnlyOtherValueNotAllowedThenNoException() {
+		this.request.header("Something", "good value", "bad\0value");
+		ServerWebExchange exchange = getFirewalledExchange();
+		HttpHeaders headers = exchange.getRequest().getHeaders();
+		assertThat(headers.getFirst("Something")).isEqualTo("good value");
+		assertThatExceptionOfType(ServerExchangeRejectedException.class).isThrownBy(() -> headers.get("Something"));
+	}
+
 	// gh-9598
 	@Test
 	void getFirewalledExchangeGetHeaderWhenNameIsNullThenNull() {
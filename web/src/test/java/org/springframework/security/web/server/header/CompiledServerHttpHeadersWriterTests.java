@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.header;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CompiledServerHttpHeadersWriter}.
+ */
+public class CompiledServerHttpHeadersWriterTests {
+
+	@Test
+	public void writeHttpHeadersWhenHttpsThenDefaultHeaders() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://example.com/"));
+		CompiledServerHttpHeadersWriter writer = new CompiledServerHttpHeadersWriter(defaultWriters());
+		StepVerifier.create(writer.writeHttpHeaders(exchange)).verifyComplete();
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CACHE_CONTROL))
+			.isEqualTo(CacheControlServerHttpHeadersWriter.CACHE_CONTRTOL_VALUE);
+		assertThat(headers.getFirst(HttpHeaders.PRAGMA)).isEqualTo(CacheControlServerHttpHeadersWriter.PRAGMA_VALUE);
+		assertThat(headers.getFirst(HttpHeaders.EXPIRES)).isEqualTo(CacheControlServerHttpHeadersWriter.EXPIRES_VALUE);
+		assertThat(headers.getFirst(ContentTypeOptionsServerHttpHeadersWriter.X_CONTENT_OPTIONS)).isEqualTo("nosniff");
+		assertThat(headers.getFirst(StrictTransportSecurityServerHttpHeadersWriter.STRICT_TRANSPORT_SECURITY))
+			.isEqualTo("max-age=31536000 ; includeSubDomains");
+		assertThat(headers.getFirst(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS)).isEqualTo("DENY");
+		assertThat(headers.getFirst(XXssProtectionServerHttpHeadersWriter.X_XSS_PROTECTION)).isEqualTo("0");
+		assertThat(headers.getFirst(ReferrerPolicyServerHttpHeadersWriter.REFERRER_POLICY)).isEqualTo("no-referrer");
+	}
+
+	@Test
+	public void writeHttpHeadersWhenHttpThenNoStrictTransportSecurity() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://example.com/"));
+		new CompiledServerHttpHeadersWriter(defaultWriters()).writeHttpHeaders(exchange).block();
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers).doesNotContainKey(StrictTransportSecurityServerHttpHeadersWriter.STRICT_TRANSPORT_SECURITY);
+		assertThat(headers).containsKey(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS);
+	}
+
+	@Test
+	public void writeHttpHeadersWhenNotModifiedThenNoCacheControl() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+		new CompiledServerHttpHeadersWriter(defaultWriters()).writeHttpHeaders(exchange).block();
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers).doesNotContainKeys(HttpHeaders.CACHE_CONTROL, HttpHeaders.PRAGMA, HttpHeaders.EXPIRES);
+		assertThat(headers).containsKey(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS);
+	}
+
+	@Test
+	public void writeHttpHeadersWhenOneHeaderOfWriterPresentThenWriterSkipped() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		headers.set(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS, "SAMEORIGIN");
+		headers.set(HttpHeaders.PRAGMA, "custom");
+		new CompiledServerHttpHeadersWriter(defaultWriters()).writeHttpHeaders(exchange).block();
+		assertThat(headers.get(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS)).containsExactly("SAMEORIGIN");
+		assertThat(headers.get(HttpHeaders.PRAGMA)).containsExactly("custom");
+		assertThat(headers).doesNotContainKeys(HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES);
+	}
+
+	@Test
+	public void writeHttpHeadersWhenWritersDeclareSameHeaderThenFirstWins() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		XFrameOptionsServerHttpHeadersWriter sameOrigin = new XFrameOptionsServerHttpHeadersWriter();
+		sameOrigin.setMode(XFrameOptionsServerHttpHeadersWriter.Mode.SAMEORIGIN);
+		new CompiledServerHttpHeadersWriter(sameOrigin, new XFrameOptionsServerHttpHeadersWriter())
+			.writeHttpHeaders(exchange)
+			.block();
+		assertThat(exchange.getResponse().getHeaders().get(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS))
+			.containsExactly("SAMEORIGIN");
+	}
+
+	@Test
+	public void writeHttpHeadersWhenOtherWritersThenInvokedInOrder() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		List<String> order = new ArrayList<>();
+		ServerHttpHeadersWriter first = (e) -> Mono.fromRunnable(() -> order.add("first"));
+		ServerHttpHeadersWriter custom = (e) -> Mono.fromRunnable(() -> {
+			order.add(e.getResponse().getHeaders().getFirst(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS));
+			e.getResponse().getHeaders().set(ReferrerPolicyServerHttpHeadersWriter.REFERRER_POLICY, "origin");
+		});
+		new CompiledServerHttpHeadersWriter(first, new XFrameOptionsServerHttpHeadersWriter(), custom,
+				new ReferrerPolicyServerHttpHeadersWriter())
+			.writeHttpHeaders(exchange)
+			.block();
+		assertThat(order).containsExactly("first", "DENY");
+		assertThat(exchange.getResponse().getHeaders().getFirst(ReferrerPolicyServerHttpHeadersWriter.REFERRER_POLICY))
+			.isEqualTo("origin");
+	}
+
+	@Test
+	public void writeHttpHeadersWhenOtherWriterErrorThenError() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		ServerHttpHeadersWriter failing = (e) -> Mono.error(new IllegalStateException());
+		CompiledServerHttpHeadersWriter writer = new CompiledServerHttpHeadersWriter(failing,
+				new XFrameOptionsServerHttpHeadersWriter());
+		StepVerifier.create(writer.writeHttpHeaders(exchange)).verifyError(IllegalStateException.class);
+		assertThat(exchange.getResponse().getHeaders())
+			.doesNotContainKey(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS);
+	}
+
+	@Test
+	public void writeHttpHeadersWhenSubclassThenSubclassInvoked() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		XFrameOptionsServerHttpHeadersWriter subclass = new XFrameOptionsServerHttpHeadersWriter() {
+			@Override
+			public Mono<Void> writeHttpHeaders(ServerWebExchange exchange) {
+				return Mono.fromRunnable(() -> exchange.getResponse().getHeaders().set("X-Custom", "custom"));
+			}
+		};
+		new CompiledServerHttpHeadersWriter(subclass).writeHttpHeaders(exchange).block();
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers.getFirst("X-Custom")).isEqualTo("custom");
+		assertThat(headers).doesNotContainKey(XFrameOptionsServerHttpHeadersWriter.X_FRAME_OPTIONS);
+	}
+
+	@Test
+	public void writeHttpHeadersWhenUnconfiguredPolicyThenNoHeader() {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		new CompiledServerHttpHeadersWriter(new ContentSecurityPolicyServerHttpHeadersWriter(),
+				new PermissionsPolicyServerHttpHeadersWriter())
+			.writeHttpHeaders(exchange)
+			.block();
+		assertThat(exchange.getResponse().getHeaders()).isEmpty();
+	}
+
+	private static List<ServerHttpHeadersWriter> defaultWriters() {
+		return List.of(new CacheControlServerHttpHeadersWriter(), new ContentTypeOptionsServerHttpHeadersWriter(),
+				new StrictTransportSecurityServerHttpHeadersWriter(), new XFrameOptionsServerHttpHeadersWriter(),
+				new XXssProtectionServerHttpHeadersWriter(), new ReferrerPolicyServerHttpHeadersWriter());
+	}
+
+}
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 
 import org.springframework.web.server.ServerWebExchange;
 
@@ -102,4 +103,49 @@ public class AndServerWebExchangeMatcherTests {
 		verify(this.matcher2, never()).matches(this.exchange);
 	}
 
+	@Test
+	public void matchesSynchronouslyWhenTrueTrueThenTrueWithVariables() {
+		Map<String, Object> params1 = Collections.singletonMap("foo", "bar");
+		Map<String, Object> params2 = Collections.singletonMap("x", "y");
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.match(params1).block());
+		given(this.matcher2.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.match(params2).block());
+		ServerWebExchangeMatcher.MatchResult matches = this.matcher.matchesSynchronously(this.exchange);
+		assertThat(matches.isMatch()).isTrue();
+		assertThat(matches.getVariables()).hasSize(2);
+		assertThat(this.matcher.matches(this.exchange).block().getVariables()).hasSize(2);
+		verify(this.matcher1, never()).matches(this.exchange);
+		verify(this.matcher2, never()).matches(this.exchange);
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenFalseThenFalseAndMatcher2NotInvoked() {
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.of(false));
+		assertThat(this.matcher.matchesSynchronously(this.exchange).isMatch()).isFalse();
+		verify(this.matcher2, never()).matchesSynchronously(this.exchange);
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenMatcherNotSynchronousThenNull() {
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.of(true));
+		assertThat(this.matcher.matchesSynchronously(this.exchange)).isNull();
+	}
+
+	@Test
+	public void matchesWhenSubclassOverridesMatchesThenSubclassMatchesUsed() {
+		ServerWebExchangeMatcher subclass = new NegatedServerWebExchangeMatcher(
+				ServerWebExchangeMatchers.anyExchange()) {
+			@Override
+			public Mono<MatchResult> matches(ServerWebExchange exchange) {
+				return MatchResult.match();
+			}
+		};
+		AndServerWebExchangeMatcher matcher = new AndServerWebExchangeMatcher(subclass);
+		assertThat(subclass.matchesSynchronously(this.exchange)).isNull();
+		assertThat(matcher.matches(this.exchange).block().isMatch()).isTrue();
+	}
+
 }
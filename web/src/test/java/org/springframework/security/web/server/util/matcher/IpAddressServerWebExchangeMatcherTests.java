@@ -151,4 +151,18 @@ public class IpAddressServerWebExchangeMatcherTests {
 			.build();
 	}
 
+	@Test
+	public void matchesSynchronouslyWhenIpv4RangeAndIpv4AddressThenTrue() throws UnknownHostException {
+		IpAddressServerWebExchangeMatcher matcher = new IpAddressServerWebExchangeMatcher("192.168.1.0/24");
+		assertThat(matcher.matchesSynchronously(exchange("192.168.1.104")).isMatch()).isTrue();
+		assertThat(matcher.matchesSynchronously(exchange("192.168.2.104")).isMatch()).isFalse();
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenNoRemoteAddressThenFalse() {
+		IpAddressServerWebExchangeMatcher matcher = new IpAddressServerWebExchangeMatcher("192.168.1.0/24");
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		assertThat(matcher.matchesSynchronously(exchange).isMatch()).isFalse();
+	}
+
 }
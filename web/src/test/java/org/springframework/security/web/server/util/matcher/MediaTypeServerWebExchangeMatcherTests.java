@@ -107,4 +107,21 @@ public class MediaTypeServerWebExchangeMatcherTests {
 		return MockServerWebExchange.from(MockServerHttpRequest.get("/").accept(accept).build());
 	}
 
+	@Test
+	public void matchesSynchronouslyWhenCompatibleThenTrue() {
+		MediaTypeServerWebExchangeMatcher matcher = new MediaTypeServerWebExchangeMatcher(MediaType.APPLICATION_JSON);
+		ServerWebExchange exchange = MockServerWebExchange
+			.from(MockServerHttpRequest.get("/").accept(MediaType.APPLICATION_JSON));
+		assertThat(matcher.matchesSynchronously(exchange)).isSameAs(ServerWebExchangeMatcher.MatchResult.of(true));
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenSubclassThenNull() {
+		MediaTypeServerWebExchangeMatcher matcher = new MediaTypeServerWebExchangeMatcher(MediaType.APPLICATION_JSON) {
+		};
+		ServerWebExchange exchange = exchange(MediaType.APPLICATION_JSON);
+		assertThat(matcher.matchesSynchronously(exchange)).isNull();
+		assertThat(matcher.matches(exchange).block().isMatch()).isTrue();
+	}
+
 }
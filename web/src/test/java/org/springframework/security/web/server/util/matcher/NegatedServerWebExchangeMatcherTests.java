@@ -26,6 +26,7 @@ import org.springframework.web.server.ServerWebExchange;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -66,4 +67,27 @@ public class NegatedServerWebExchangeMatcherTests {
 		verify(this.matcher1).matches(this.exchange);
 	}
 
+	@Test
+	public void matchesSynchronouslyWhenTrueThenFalse() {
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.of(true));
+		assertThat(this.matcher.matchesSynchronously(this.exchange).isMatch()).isFalse();
+		assertThat(this.matcher.matches(this.exchange).block().isMatch()).isFalse();
+		verify(this.matcher1, never()).matches(this.exchange);
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenMatcherNotSynchronousThenNull() {
+		assertThat(this.matcher.matchesSynchronously(this.exchange)).isNull();
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenSubclassThenNull() {
+		NegatedServerWebExchangeMatcher matcher = new NegatedServerWebExchangeMatcher(
+				ServerWebExchangeMatchers.anyExchange()) {
+		};
+		assertThat(matcher.matchesSynchronously(this.exchange)).isNull();
+		assertThat(matcher.matches(this.exchange).block().isMatch()).isFalse();
+	}
+
 }
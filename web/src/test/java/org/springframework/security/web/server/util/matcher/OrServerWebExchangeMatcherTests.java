@@ -89,4 +89,33 @@ public class OrServerWebExchangeMatcherTests {
 		verify(this.matcher2).matches(this.exchange);
 	}
 
+	@Test
+	public void matchesSynchronouslyWhenFalseTrueThenTrue() {
+		Map<String, Object> params = Collections.singletonMap("foo", "bar");
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.notMatch().block());
+		given(this.matcher2.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.match(params).block());
+		ServerWebExchangeMatcher.MatchResult matches = this.matcher.matchesSynchronously(this.exchange);
+		assertThat(matches.isMatch()).isTrue();
+		assertThat(matches.getVariables()).isEqualTo(params);
+		verify(this.matcher1, never()).matches(this.exchange);
+		verify(this.matcher2, never()).matches(this.exchange);
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenMatcherNotSynchronousThenNull() {
+		given(this.matcher1.matchesSynchronously(this.exchange))
+			.willReturn(ServerWebExchangeMatcher.MatchResult.notMatch().block());
+		assertThat(this.matcher.matchesSynchronously(this.exchange)).isNull();
+	}
+
+	@Test
+	public void matchesSynchronouslyWhenSubclassThenNull() {
+		OrServerWebExchangeMatcher matcher = new OrServerWebExchangeMatcher(ServerWebExchangeMatchers.anyExchange()) {
+		};
+		assertThat(matcher.matchesSynchronously(this.exchange)).isNull();
+		assertThat(matcher.matches(this.exchange).block().isMatch()).isTrue();
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.security.web.server.util.matcher;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.http.HttpMethod;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
 
@@ -37,4 +38,21 @@ class PathPatternParserServerWebExchangeMatcherTests {
 		assertThat(matcher.matches(MockServerWebExchange.from(request)).block().isMatch()).isTrue();
 	}
 
+	@Test
+	void matchesSynchronouslyWhenPathMatchesThenMatchWithVariables() {
+		PathPatternParserServerWebExchangeMatcher matcher = new PathPatternParserServerWebExchangeMatcher("/user/{id}");
+		MockServerHttpRequest request = MockServerHttpRequest.get("/user/1").build();
+		ServerWebExchangeMatcher.MatchResult result = matcher.matchesSynchronously(MockServerWebExchange.from(request));
+		assertThat(result.isMatch()).isTrue();
+		assertThat(result.getVariables()).containsEntry("id", "1");
+	}
+
+	@Test
+	void matchesSynchronouslyWhenMethodDoesNotMatchThenNotMatch() {
+		PathPatternParserServerWebExchangeMatcher matcher = new PathPatternParserServerWebExchangeMatcher("/user/**",
+				HttpMethod.POST);
+		MockServerHttpRequest request = MockServerHttpRequest.get("/user/1").build();
+		assertThat(matcher.matchesSynchronously(MockServerWebExchange.from(request)).isMatch()).isFalse();
+	}
+
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.server.util.matcher;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ServerWebExchangeMatcherEntryIndex}
+ */
+class ServerWebExchangeMatcherEntryIndexTests {
+
+	@Test
+	void getCandidatesWhenLiteralPrefixDoesNotMatchThenExcluded() {
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(ServerWebExchangeMatchers.pathMatchers("/admin/**"), "admin"),
+				entry(ServerWebExchangeMatchers.pathMatchers("/users/{id}", "/users"), "users"),
+				entry(ServerWebExchangeMatchers.pathMatchers("/**"), "all"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/users/1"))).containsExactly("users", "all");
+		assertThat(candidates(index, MockServerHttpRequest.get("/admin"))).containsExactly("admin", "all");
+		assertThat(candidates(index, MockServerHttpRequest.get("/other"))).containsExactly("all");
+	}
+
+	@Test
+	void getCandidatesWhenNotIndexableThenAlwaysIncludedInOrder() {
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(ServerWebExchangeMatchers.pathMatchers("/a/**"), "a"),
+				entry(new MediaTypeServerWebExchangeMatcher(MediaType.ALL), "media"),
+				entry(ServerWebExchangeMatchers.pathMatchers("/b/**"), "b"),
+				entry(ServerWebExchangeMatchers.anyExchange(), "any"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/b/c"))).containsExactly("media", "b", "any");
+	}
+
+	@Test
+	void getCandidatesWhenMethodDoesNotMatchThenExcluded() {
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, "/a/**"), "post"),
+				entry(ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, "/a/**"), "get"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/a/b"))).containsExactly("get");
+		assertThat(candidates(index, MockServerHttpRequest.post("/a/b"))).containsExactly("post");
+	}
+
+	@Test
+	void getCandidatesWhenPatternStartsWithWildcardThenCandidateForAnyPath() {
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(ServerWebExchangeMatchers.pathMatchers("/{tenant}/admin"), "tenant"),
+				entry(ServerWebExchangeMatchers.pathMatchers("/api/v*/users"), "api"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/acme/admin"))).containsExactly("tenant");
+		assertThat(candidates(index, MockServerHttpRequest.get("/api/v2/users"))).containsExactly("tenant", "api");
+	}
+
+	@Test
+	void getCandidatesWhenCaseInsensitivePatternThenNotIndexed() {
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(new PathPatternParserServerWebExchangeMatcher(parser.parse("/admin/**")), "admin"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/ADMIN/page"))).containsExactly("admin");
+	}
+
+	@Test
+	void getCandidatesWhenMatrixVariablesThenMatchesSegmentValue() {
+		ServerWebExchangeMatcherEntryIndex<String> index = index(
+				entry(ServerWebExchangeMatchers.pathMatchers("/admin/**"), "admin"));
+		assertThat(candidates(index, MockServerHttpRequest.get("/admin;a=b/page"))).containsExactly("admin");
+	}
+
+	@SafeVarargs
+	private static ServerWebExchangeMatcherEntryIndex<String> index(ServerWebExchangeMatcherEntry<String>... entries) {
+		return new ServerWebExchangeMatcherEntryIndex<>(List.of(entries));
+	}
+
+	private static ServerWebExchangeMatcherEntry<String> entry(ServerWebExchangeMatcher matcher, String name) {
+		return new ServerWebExchangeMatcherEntry<>(matcher, name);
+	}
+
+	private static List<String> candidates(ServerWebExchangeMatcherEntryIndex<String> index,
+			MockServerHttpRequest.BaseBuilder<?> request) {
+		ServerWebExchange exchange = MockServerWebExchange.from(request);
+		return index.getCandidates(exchange).stream().map(ServerWebExchangeMatcherEntry::getEntry).toList();
+	}
+
+}
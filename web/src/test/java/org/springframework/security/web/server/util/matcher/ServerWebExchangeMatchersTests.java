@@ -84,4 +84,18 @@ public class ServerWebExchangeMatchersTests {
 		assertThat(ServerWebExchangeMatchers.anyExchange()).isNotEqualTo(ServerWebExchangeMatchers.anyExchange());
 	}
 
+	@Test
+	public void anyExchangeWhenMatchesSynchronouslyThenMatch() {
+		assertThat(ServerWebExchangeMatchers.anyExchange().matchesSynchronously(this.exchange).isMatch()).isTrue();
+	}
+
+	@Test
+	public void matchResultWhenNoVariablesThenSameInstances() {
+		assertThat(ServerWebExchangeMatcher.MatchResult.match().block())
+			.isSameAs(ServerWebExchangeMatcher.MatchResult.of(true));
+		assertThat(ServerWebExchangeMatcher.MatchResult.notMatch().block())
+			.isSameAs(ServerWebExchangeMatcher.MatchResult.of(false));
+		assertThat(ServerWebExchangeMatcher.MatchResult.match()).isSameAs(ServerWebExchangeMatcher.MatchResult.match());
+	}
+
 }